@@ -0,0 +1,108 @@
+/*
+ * SONAR -- Simple Object Notification And Replication
+ * Copyright (C) 2026  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.sonar;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmark for encoding and decoding SONAR messages.
+ *
+ * @author Douglas Lau
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MessageCodecBench {
+
+	/** Number of messages per operation */
+	static private final int N_MESSAGES = 100;
+
+	/** Attribute name */
+	static private final String NAME = "detector/D1234/volume";
+
+	/** Attribute name (cached encoding) */
+	static private final Name ATTR_NAME = new Name(NAME);
+
+	/** Attribute value */
+	static private final String[] VALUE = new String[] {
+		"[12,14,0,null,9,11,13,12,10,8,7,9,11,12,14,13,12,11,10,9]"
+	};
+
+	/** Encoder for messages */
+	private MessageEncoder enc;
+
+	/** Encoded messages to decode */
+	private byte[] encoded;
+
+	/** Decoder input buffer */
+	private ByteBuffer app_in;
+
+	/** Decoder for messages */
+	private MessageDecoder dec;
+
+	/** Set up the encoder and decoder */
+	@Setup
+	public void setup() throws Exception {
+		enc = new MessageEncoder(0);
+		for (int i = 0; i < N_MESSAGES; i++)
+			enc.encode(Message.ATTRIBUTE, NAME, VALUE);
+		encoded = enc.takeBytes();
+		app_in = ByteBuffer.allocate(encoded.length);
+		dec = new MessageDecoder(app_in);
+	}
+
+	/** Encode attribute messages */
+	@Benchmark
+	public int encode() throws Exception {
+		for (int i = 0; i < N_MESSAGES; i++)
+			enc.encode(Message.ATTRIBUTE, NAME, VALUE);
+		enc.flush();
+		int n = enc.getBuffer().position();
+		enc.getBuffer().clear();
+		return n;
+	}
+
+	/** Encode attribute messages with a cached name */
+	@Benchmark
+	public int encodeName() throws Exception {
+		for (int i = 0; i < N_MESSAGES; i++)
+			enc.encode(Message.ATTRIBUTE, ATTR_NAME, VALUE);
+		int n = enc.getBuffer().position();
+		enc.getBuffer().clear();
+		return n;
+	}
+
+	/** Decode attribute messages */
+	@Benchmark
+	public int decode() throws Exception {
+		app_in.put(encoded);
+		int n = 0;
+		List<String> p = dec.decode();
+		while (p != null) {
+			n += p.size();
+			p = dec.decode();
+		}
+		return n;
+	}
+}
@@ -0,0 +1,58 @@
+/*
+ * SONAR -- Simple Object Notification And Replication
+ * Copyright (C) 2026  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.sonar.server;
+
+import us.mn.state.dot.sonar.SonarObject;
+
+/**
+ * SONAR type used for benchmarks.
+ *
+ * @author Douglas Lau
+ */
+public interface BenchObject extends SonarObject {
+
+	/** SONAR type name */
+	String SONAR_TYPE = "bench_object";
+
+	/** Set the description */
+	void setDescription(String d);
+
+	/** Get the description */
+	String getDescription();
+
+	/** Set the lane number */
+	void setLane(int l);
+
+	/** Get the lane number */
+	int getLane();
+
+	/** Set the enabled flag */
+	void setEnabled(boolean e);
+
+	/** Get the enabled flag */
+	boolean getEnabled();
+
+	/** Get the field length */
+	float getFieldLength();
+
+	/** Get the most recent speed (may be null) */
+	Integer getSpeed();
+
+	/** Get the associated object (may be null) */
+	BenchObject getLink();
+
+	/** Get the preset values */
+	String[] getPresets();
+}
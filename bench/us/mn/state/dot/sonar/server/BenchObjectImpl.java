@@ -0,0 +1,136 @@
+/*
+ * SONAR -- Simple Object Notification And Replication
+ * Copyright (C) 2026  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.sonar.server;
+
+/**
+ * SONAR object implementation used for benchmarks.
+ *
+ * @author Douglas Lau
+ */
+public class BenchObjectImpl implements BenchObject {
+
+	/** Object name */
+	private final String name;
+
+	/** Create a new bench object */
+	public BenchObjectImpl(String n) {
+		name = n;
+		description = "Bench object " + n;
+		lane = n.length();
+		speed = (n.hashCode() & 1) == 0 ? 55 : null;
+	}
+
+	/** Get the SONAR type name */
+	@Override
+	public String getTypeName() {
+		return SONAR_TYPE;
+	}
+
+	/** Get the SONAR object name */
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	/** Get notes (including hashtags) */
+	@Override
+	public String getNotes() {
+		return "#Bench";
+	}
+
+	/** Destroy the SONAR object */
+	@Override
+	public void destroy() { }
+
+	/** Description */
+	private String description;
+
+	/** Set the description */
+	@Override
+	public void setDescription(String d) {
+		description = d;
+	}
+
+	/** Get the description */
+	@Override
+	public String getDescription() {
+		return description;
+	}
+
+	/** Lane number */
+	private int lane;
+
+	/** Set the lane number */
+	@Override
+	public void setLane(int l) {
+		lane = l;
+	}
+
+	/** Get the lane number */
+	@Override
+	public int getLane() {
+		return lane;
+	}
+
+	/** Enabled flag */
+	private boolean enabled = true;
+
+	/** Set the enabled flag */
+	@Override
+	public void setEnabled(boolean e) {
+		enabled = e;
+	}
+
+	/** Get the enabled flag */
+	@Override
+	public boolean getEnabled() {
+		return enabled;
+	}
+
+	/** Get the field length */
+	@Override
+	public float getFieldLength() {
+		return 22.5f;
+	}
+
+	/** Most recent speed */
+	private final Integer speed;
+
+	/** Get the most recent speed (may be null) */
+	@Override
+	public Integer getSpeed() {
+		return speed;
+	}
+
+	/** Associated object */
+	private BenchObject link;
+
+	/** Set the associated object */
+	public void setLinkObj(BenchObject l) {
+		link = l;
+	}
+
+	/** Get the associated object (may be null) */
+	@Override
+	public BenchObject getLink() {
+		return link;
+	}
+
+	/** Get the preset values */
+	@Override
+	public String[] getPresets() {
+		return new String[] { "A", "B", "C" };
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * SONAR -- Simple Object Notification And Replication
+ * Copyright (C) 2026  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.sonar.server;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import us.mn.state.dot.sonar.MessageEncoder;
+
+/**
+ * Benchmark for enumerating all objects of a type (client login).
+ *
+ * @author Douglas Lau
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TypeNodeBench {
+
+	/** Number of objects in the type */
+	@Param({ "20000" })
+	public int n_objects;
+
+	/** Type node to enumerate */
+	private TypeNode node;
+
+	/** Encoder for enumerated messages */
+	private MessageEncoder enc;
+
+	/** Set up the namespace */
+	@Setup
+	public void setup() throws Exception {
+		ServerNamespace ns = new ServerNamespace();
+		node = ns.registerType(BenchObjectImpl.class);
+		BenchObjectImpl prev = null;
+		for (int i = 0; i < n_objects; i++) {
+			BenchObjectImpl o = new BenchObjectImpl("B" + i);
+			o.setLinkObj(prev);
+			ns.addObject(o);
+			prev = o;
+		}
+		enc = new MessageEncoder(1 << 16);
+	}
+
+	/** Enumerate all objects of the type */
+	@Benchmark
+	public int enumerateObjects() throws Exception {
+		return enumerate();
+	}
+
+	/** Enumerate all objects after 10% of them have changed */
+	@Benchmark
+	public int enumerateChanged() throws Exception {
+		for (int i = 0; i < n_objects; i += 10)
+			node.invalidateSnapshot("B" + i);
+		return enumerate();
+	}
+
+	/** Enumerate all objects into the encoder */
+	private int enumerate() throws Exception {
+		node.enumerateObjects(enc);
+		enc.flush();
+		int n = enc.getBuffer().position();
+		enc.getBuffer().clear();
+		return n;
+	}
+}
@@ -0,0 +1,235 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2026  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms.server;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmark for one K adaptive metering cycle over a synthetic corridor of
+ * 200 stations, with an entrance between each pair of stations.  The array
+ * corridor model is compared with a linked node chain, as K adaptive
+ * metering used before the model.
+ *
+ * @author Douglas Lau
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CorridorModelBench {
+
+	/** Number of stations */
+	static private final int N_STATIONS = 200;
+
+	/** Maximum segment length (miles) */
+	static private final float SEGMENT_MILES = 3.0f;
+
+	/** Number of history samples (1 minute) */
+	static private final int N_HIST = 2;
+
+	/** Station densities, for several intervals */
+	private final float[][] densities = new float[16][N_STATIONS];
+
+	/** Station speeds (not used by segment calculations) */
+	private final float[] speeds = new float[N_STATIONS];
+
+	/** Array corridor model */
+	private CorridorModel model;
+
+	/** Associated station of each entrance */
+	private int[] assoc;
+
+	/** Linked node chain */
+	private LinkedCorridor linked;
+
+	/** Interval counter */
+	private int interval;
+
+	/** Set up the corridor */
+	@Setup
+	public void setup() {
+		Random rnd = new Random(42);
+		int n_nodes = N_STATIONS * 2 - 1;
+		float[] miles = new float[n_nodes];
+		int[] flags = new int[n_nodes];
+		float m = 0;
+		for (int i = 0; i < n_nodes; i++) {
+			miles[i] = m;
+			flags[i] = (i % 2 == 0)
+			         ? CorridorModel.STATION
+			         : CorridorModel.ENTRANCE;
+			m += 0.1f + rnd.nextFloat() * 0.4f;
+		}
+		for (float[] k: densities) {
+			for (int s = 0; s < N_STATIONS; s++) {
+				k[s] = (rnd.nextInt(20) == 0)
+				     ? -1
+				     : rnd.nextFloat() * 80;
+			}
+		}
+		model = new CorridorModel(miles, flags, N_HIST);
+		assoc = new int[N_STATIONS - 1];
+		for (int e = 0; e < assoc.length; e++)
+			assoc[e] = model.upstreamStation(e * 2 + 1);
+		linked = new LinkedCorridor(miles, flags);
+		// Both must give identical results
+		for (int i = 0; i < densities.length; i++) {
+			interval = i;
+			double a = arrayCycle();
+			interval = i;
+			if (a != linkedCycle())
+				throw new IllegalStateException("mismatch");
+		}
+	}
+
+	/** Perform one cycle with the array model */
+	@Benchmark
+	public double arrayCycle() {
+		float[] k = densities[interval++ & (densities.length - 1)];
+		model.update(k, speeds);
+		double t = 0;
+		for (int s: assoc) {
+			int dn = model.segmentStation(s, SEGMENT_MILES);
+			t += model.segmentDensity(s, dn);
+		}
+		return t;
+	}
+
+	/** Perform one cycle with the linked node chain */
+	@Benchmark
+	public double linkedCycle() {
+		float[] k = densities[interval++ & (densities.length - 1)];
+		linked.update(k);
+		double t = 0;
+		for (LinkedCorridor.Node en = linked.head; en != null;
+		     en = en.downstream)
+		{
+			if (en.station)
+				continue;
+			LinkedCorridor.Node sn = en.upstreamStation();
+			LinkedCorridor.Node dn = sn.segmentStationNode();
+			t += sn.calculateSegmentDensity(dn);
+		}
+		return t;
+	}
+
+	/** Linked node chain, with boxed sample history */
+	static private class LinkedCorridor {
+		private Node head;
+		private LinkedCorridor(float[] miles, int[] flags) {
+			Node prev = null;
+			for (int i = 0; i < miles.length; i++) {
+				Node n = new Node(miles[i],
+					flags[i] == CorridorModel.STATION, prev);
+				if (head == null)
+					head = n;
+				prev = n;
+			}
+		}
+		private void update(float[] k) {
+			int s = 0;
+			for (Node n = head; n != null; n = n.downstream) {
+				if (n.station) {
+					float d = k[s++];
+					n.hist.push((d >= 0) ? (double) d : null);
+				}
+			}
+		}
+		private class Node {
+			private final float mile;
+			private final boolean station;
+			private final Node upstream;
+			private Node downstream;
+			private final BoundedSampleHistory hist =
+				new BoundedSampleHistory(N_HIST);
+			private Node(float m, boolean st, Node up) {
+				mile = m;
+				station = st;
+				upstream = up;
+				if (up != null)
+					up.downstream = this;
+			}
+			private float distanceMiles(Node other) {
+				return Math.abs(mile - other.mile);
+			}
+			private Node upstreamStation() {
+				for (Node n = upstream; n != null; n = n.upstream)
+				{
+					if (n.station)
+						return n;
+				}
+				return null;
+			}
+			private Node downstreamStation() {
+				for (Node n = downstream; n != null;
+				     n = n.downstream)
+				{
+					if (n.station)
+						return n;
+				}
+				return null;
+			}
+			private double getDensity() {
+				Double avg = hist.average(0, N_HIST);
+				return (avg != null) ? avg : 0;
+			}
+			private double calculateSegmentDensity(Node dn) {
+				Node cursor = this;
+				double dist_seg = 0;
+				double veh_seg = 0;
+				double k_cursor = cursor.getDensity();
+				for (Node sn = cursor.downstreamStation();
+				     sn != null && cursor != dn;
+				     sn = sn.downstreamStation())
+				{
+					double k_down = sn.getDensity();
+					double k_middle = (k_cursor + k_down) / 2;
+					double dist = cursor.distanceMiles(sn);
+					dist_seg += dist;
+					veh_seg += (k_cursor + k_middle + k_down)
+						/ 3 * dist;
+					cursor = sn;
+					k_cursor = k_down;
+				}
+				return (dist_seg > 0)
+				      ? veh_seg / dist_seg
+				      : k_cursor;
+			}
+			private Node segmentStationNode() {
+				Node dn = this;
+				double dk = 0;
+				for (Node sn = this; sn != null;
+				     sn = sn.downstreamStation())
+				{
+					if (distanceMiles(sn) > SEGMENT_MILES)
+						break;
+					double k = calculateSegmentDensity(sn);
+					if (k >= dk) {
+						dk = k;
+						dn = sn;
+					}
+				}
+				return dn;
+			}
+		}
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2026  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms.server;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmark for periodic sample cache queries and updates.
+ *
+ * @author Douglas Lau
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PeriodicSampleCacheBench {
+
+	/** Sample period (seconds) */
+	static private final int PER_SEC = 30;
+
+	/** Sample period (ms) */
+	static private final long PER_MS = PER_SEC * 1000;
+
+	/** Number of cached samples (24 is steady state for 30 s data) */
+	@Param({ "24", "240" })
+	public int n_samples;
+
+	/** Vehicle count cache */
+	private PeriodicSampleCache veh;
+
+	/** Speed cache */
+	private PeriodicSampleCache spd;
+
+	/** Current time (ms) */
+	private long now;
+
+	/** Time stamp at end of newest sample */
+	private long stamp;
+
+	/** Set up the caches */
+	@Setup
+	public void setup() {
+		now = System.currentTimeMillis() / PER_MS * PER_MS;
+		fill(now);
+	}
+
+	/** Fill the caches with samples ending at a time stamp */
+	private void fill(long st) {
+		veh = new PeriodicSampleCache(PeriodicSampleType.VEH_COUNT);
+		spd = new PeriodicSampleCache(PeriodicSampleType.SPEED);
+		stamp = st;
+		for (int i = n_samples - 1; i >= 0; i--)
+			addSample(stamp - i * PER_MS);
+	}
+
+	/** Add one sample to each cache */
+	private void addSample(long st) {
+		int v = (int) (st / PER_MS % 20);
+		veh.add(new PeriodicSample(st, PER_SEC, v), "bench");
+		spd.add(new PeriodicSample(st, PER_SEC, 40 + v), "bench");
+	}
+
+	/** Query the most recent period (as DetectorImpl does) */
+	@Benchmark
+	public int queryPeriod() {
+		return veh.getValue(stamp - PER_MS, stamp) +
+		       spd.getValue(stamp - PER_MS, stamp);
+	}
+
+	/** Query the most recent 5 minutes */
+	@Benchmark
+	public int query5Minutes() {
+		return veh.getValue(stamp - 10 * PER_MS, stamp) +
+		       spd.getValue(stamp - 10 * PER_MS, stamp);
+	}
+
+	/** Add a new sample and purge the oldest (steady state) */
+	@Benchmark
+	public void addPurge() {
+		// Samples are only valid within 2 days of now, so restart
+		// 40 hours back when reaching the present
+		if (stamp >= now)
+			fill(now - 40 * 3600 * 1000L);
+		stamp += PER_MS;
+		addSample(stamp);
+		long before = stamp - (n_samples - 1) * PER_MS;
+		veh.purge(before);
+		spd.purge(before);
+	}
+}
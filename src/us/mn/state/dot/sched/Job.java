@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2000-2021  Minnesota Department of Transportation
+ * Copyright (C) 2000-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -53,6 +53,9 @@ abstract public class Job implements Comparable<Job> {
 	/** Next time this job must be performed */
 	private long next_time;
 
+	/** Time this job was last queued by a scheduler */
+	private long queued;
+
 	/**
 	 * Create a new scheduler job.
 	 * @param iField java.util.Calendar field for time interval
@@ -107,6 +110,34 @@ abstract public class Job implements Comparable<Job> {
 		return interval > 0;
 	}
 
+	/** Get the time interval, in milliseconds (0 for one-shot jobs) */
+	long getInterval() {
+		return interval;
+	}
+
+	/** Check if this is a priority (real-time) job.  Priority jobs are
+	 * performed ahead of other jobs, on a dedicated scheduler thread. */
+	public boolean isPriority() {
+		return false;
+	}
+
+	/** Get the serialization key.  Jobs with the same key are never
+	 * performed at the same time, even by different scheduler threads.
+	 * @return Serialization key, or null for none. */
+	public String getSerialKey() {
+		return null;
+	}
+
+	/** Set the time this job was queued */
+	void setQueued(long q) {
+		queued = q;
+	}
+
+	/** Get the time this job was queued */
+	long getQueued() {
+		return queued;
+	}
+
 	/** Get the delay time before performing the job, in milliseconds */
 	public long delay() {
 		return next_time - TimeSteward.currentTimeMillis();
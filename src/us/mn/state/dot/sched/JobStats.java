@@ -0,0 +1,102 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2026  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.sched;
+
+/**
+ * Statistics for all jobs with one name performed by a scheduler.
+ *
+ * @author Douglas Lau
+ */
+public final class JobStats {
+
+	/** Job name */
+	private final String name;
+
+	/** Job interval (ms), or 0 for one-shot jobs */
+	private final long interval;
+
+	/** Count of times performed */
+	private int n_runs = 0;
+
+	/** Total time spent performing (ms) */
+	private long run_total = 0;
+
+	/** Maximum time spent performing (ms) */
+	private long run_max = 0;
+
+	/** Maximum time started after scheduled time (ms) */
+	private long late_max = 0;
+
+	/** Count of overruns (late or running longer than interval) */
+	private int n_overruns = 0;
+
+	/** Create new job statistics */
+	JobStats(String n, long i) {
+		name = n;
+		interval = i;
+	}
+
+	/** Record one run of the job.
+	 * @param late Time started after scheduled time (ms).
+	 * @param run Time spent performing (ms). */
+	void record(long late, long run) {
+		n_runs++;
+		run_total += run;
+		run_max = Math.max(run_max, run);
+		late_max = Math.max(late_max, late);
+		if (interval > 0 && (run > interval || late > interval))
+			n_overruns++;
+	}
+
+	/** Get the job name */
+	public String getName() {
+		return name;
+	}
+
+	/** Get the count of times performed */
+	public int getRuns() {
+		return n_runs;
+	}
+
+	/** Get the average time spent performing (ms) */
+	public long getRunAvg() {
+		return (n_runs > 0) ? run_total / n_runs : 0;
+	}
+
+	/** Get the maximum time spent performing (ms) */
+	public long getRunMax() {
+		return run_max;
+	}
+
+	/** Get the maximum time started after scheduled time (ms) */
+	public long getLateMax() {
+		return late_max;
+	}
+
+	/** Get the count of overruns.  An overrun is a repeating job which
+	 * started more than one interval late, or ran longer than its
+	 * interval. */
+	public int getOverruns() {
+		return n_overruns;
+	}
+
+	/** Get a statistics summary */
+	@Override
+	public String toString() {
+		return name + ": runs=" + n_runs + ", run avg=" + getRunAvg() +
+			" max=" + run_max + ", late max=" + late_max +
+			" ms, overruns=" + n_overruns;
+	}
+}
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2000-2021  Minnesota Department of Transportation
+ * Copyright (C) 2000-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -14,11 +14,24 @@
  */
 package us.mn.state.dot.sched;
 
-import java.util.Date;
-import java.util.TreeSet;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
 
 /**
- * Scheduler for performing jobs in a dedicated thread.
+ * Scheduler for performing jobs in dedicated threads.  Jobs are kept in
+ * heaps ordered by next time.  By default, there is one worker thread, but
+ * more can be added with setWorkers.  A job is never performed by more than
+ * one thread at a time -- if it is added while being performed, it is
+ * queued again once it has finished.  Jobs which share a serialization key
+ * are also never performed at the same time; a job whose key is busy waits
+ * (along with any jobs behind it in the same heap).
+ *
+ * Priority (real-time) jobs are kept in a separate heap.  They are taken
+ * ahead of other jobs when due, and a dedicated priority thread is started
+ * so they never wait for a slow job to finish.
  *
  * @author Douglas Lau
  */
@@ -53,17 +66,45 @@ public final class Scheduler {
 			HANDLER.handle(e);
 	}
 
-	/** Thread for running jobs */
-	private final Thread thread;
+	/** Scheduler name */
+	private final String name;
+
+	/** Threads for running jobs */
+	private volatile Thread[] threads = new Thread[0];
+
+	/** Number of (non-priority) worker threads */
+	private int n_workers = 0;
+
+	/** Flag to indicate priority thread has been started */
+	private boolean prio_started = false;
 
 	/** Debug log for scheduled jobs */
 	private final DebugLog slog;
 
-	/** Set of scheduled jobs to do */
-	private final TreeSet<Job> todo = new TreeSet<Job>();
+	/** Heap of scheduled jobs to do */
+	private final PriorityQueue<Job> todo = new PriorityQueue<Job>();
+
+	/** Heap of scheduled priority jobs to do */
+	private final PriorityQueue<Job> prio = new PriorityQueue<Job>();
+
+	/** Set of jobs in either heap */
+	private final HashSet<Job> queued = new HashSet<Job>();
 
-	/** Set of jobs to remove from scheduler */
-	private final TreeSet<Job> toremove = new TreeSet<Job>();
+	/** Set of jobs being performed */
+	private final HashSet<Job> running = new HashSet<Job>();
+
+	/** Set of jobs added while being performed */
+	private final HashSet<Job> deferred = new HashSet<Job>();
+
+	/** Set of jobs removed while being performed */
+	private final HashSet<Job> removed = new HashSet<Job>();
+
+	/** Serialization keys of jobs being performed */
+	private final HashSet<String> busy = new HashSet<String>();
+
+	/** Job statistics (since last taken), by job name */
+	private TreeMap<String, JobStats> stats =
+		new TreeMap<String, JobStats>();
 
 	/** Flag to indicate disposing */
 	private boolean disposing = false;
@@ -79,13 +120,49 @@ public final class Scheduler {
 	}
 
 	/** Create a new job scheduler */
-	public Scheduler(String name, ExceptionHandler h) {
-		slog = new DebugLog(name, h);
+	public Scheduler(String n, ExceptionHandler h) {
+		name = n;
+		slog = new DebugLog(n, h);
 		handler = h;
-		thread = new Thread(GROUP, name) {
+		setWorkers(1);
+	}
+
+	/** Create a new job scheduler with multiple worker threads.
+	 * @param n Scheduler name.
+	 * @param n_threads Number of worker threads. */
+	public Scheduler(String n, int n_threads) {
+		this(n);
+		setWorkers(n_threads);
+	}
+
+	/** Get the scheduler name */
+	public String getName() {
+		return name;
+	}
+
+	/** Set the number of worker threads.  Jobs are performed concurrently
+	 * by all workers, so they must not depend on being serialized with
+	 * other jobs.  Workers are never stopped, so the number can only be
+	 * increased.
+	 * @param n Number of worker threads. */
+	public synchronized void setWorkers(int n) {
+		while (n_workers < n) {
+			String tn = (n_workers > 0)
+			          ? name + "_" + n_workers
+			          : name;
+			startThread(tn, false);
+			n_workers++;
+		}
+	}
+
+	/** Start a thread to perform jobs.
+	 * @param tn Thread name.
+	 * @param p Flag to perform only priority jobs. */
+	private void startThread(String tn, final boolean p) {
+		Thread thread = new Thread(GROUP, tn) {
 			public void run() {
 				try {
-					performJobs();
+					performJobs(p);
 				}
 				catch (InterruptedException e) {
 					if (!disposing)
@@ -94,44 +171,88 @@ public final class Scheduler {
 			}
 		};
 		thread.setDaemon(true);
+		Thread[] t = new Thread[threads.length + 1];
+		System.arraycopy(threads, 0, t, 0, threads.length);
+		t[threads.length] = thread;
+		threads = t;
 		thread.start();
 	}
 
-	/** Perform jobs as they are scheduled */
-	private void performJobs() throws InterruptedException {
-		Job job = waitJob();
+	/** Perform jobs as they are scheduled.
+	 * @param p Flag to perform only priority jobs. */
+	private void performJobs(boolean p) throws InterruptedException {
+		Thread thread = Thread.currentThread();
 		while (!thread.isInterrupted()) {
+			Job job = waitJob(p);
+			long start = TimeSteward.currentTimeMillis();
+			long late = Math.max(0, Math.min(-job.delay(),
+				start - job.getQueued()));
 			performJob(job);
-			if (job.isRepeating())
-				repeatJob(job);
-			removeJobs();
-			job = waitJob();
+			long run = TimeSteward.currentTimeMillis() - start;
+			finishJob(job, late, run);
 		}
 	}
 
 	/** Wait until the next job needs to be performed.
+	 * @param p Flag to wait for priority jobs only.
 	 * @return Job to be performed. */
-	private synchronized Job waitJob() throws InterruptedException {
-		Job job = nextJob();
-		long delay = job.delay();
-		while (delay > 0) {
-			TimeSteward.wait(this, delay);
-			// We need to check the next job here in case the job
-			// was removed or a new job was added while we were
-			// waiting
-			job = nextJob();
-			delay = job.delay();
+	private synchronized Job waitJob(boolean p)
+		throws InterruptedException
+	{
+		while (true) {
+			// We need to check the next job each time through, in
+			// case a job was removed or a new job was added while
+			// we were waiting
+			Job job = nextJob(p);
+			if (job == null)
+				wait();
+			else {
+				long delay = job.delay();
+				if (delay > 0)
+					TimeSteward.wait(this, delay);
+				else {
+					queue(job).poll();
+					queued.remove(job);
+					running.add(job);
+					String k = job.getSerialKey();
+					if (k != null)
+						busy.add(k);
+					return job;
+				}
+			}
 		}
-		todo.remove(job);
-		return job;
 	}
 
-	/** Get the next job on the "todo" list */
-	private synchronized Job nextJob() throws InterruptedException {
-		while (todo.isEmpty()) {
-			wait();
+	/** Get the next job from the heaps.  A priority job is chosen if it
+	 * is due, or if it is scheduled before the next other job.
+	 * @param p Flag to check priority jobs only.
+	 * @return Next job, or null if none are available. */
+	private Job nextJob(boolean p) {
+		Job pj = available(prio.peek());
+		if (p)
+			return pj;
+		Job job = available(todo.peek());
+		if (pj != null &&
+		   (job == null || pj.delay() <= 0 || pj.compareTo(job) < 0))
+			return pj;
+		else
+			return job;
+	}
+
+	/** Check if a job is available to perform.
+	 * @return The job, or null if its serialization key is busy. */
+	private Job available(Job job) {
+		if (job != null) {
+			String k = job.getSerialKey();
+			if (k != null && busy.contains(k))
+				return null;
 		}
-		return todo.first();
+		return job;
+	}
+
+	/** Get the heap for a job */
+	private PriorityQueue<Job> queue(Job job) {
+		return job.isPriority() ? prio : todo;
 	}
 
 	/** Perform a job */
@@ -157,45 +278,110 @@ public final class Scheduler {
 		}
 	}
 
-	/** Add a job to be repeated */
-	private synchronized void repeatJob(Job job) {
-		job.computeNextTime();
-		todo.add(job);
+	/** Finish a job which has been performed.  Repeating jobs and jobs
+	 * added while being performed are queued again, unless removed.
+	 * @param job Job which was performed.
+	 * @param late Time started after scheduled time (ms).
+	 * @param run Time spent performing (ms). */
+	private synchronized void finishJob(Job job, long late, long run) {
+		running.remove(job);
+		String k = job.getSerialKey();
+		if (k != null && busy.remove(k))
+			notifyAll();
+		recordStats(job, late, run);
+		boolean d = deferred.remove(job);
+		if (removed.remove(job))
+			return;
+		if (job.isRepeating()) {
+			job.computeNextTime();
+			enqueue(job);
+		} else if (d)
+			enqueue(job);
+	}
+
+	/** Record statistics for one job run */
+	private void recordStats(Job job, long late, long run) {
+		String jn = job.getName();
+		JobStats js = stats.get(jn);
+		if (js == null) {
+			js = new JobStats(jn, job.getInterval());
+			stats.put(jn, js);
+		}
+		js.record(late, run);
+	}
+
+	/** Add a job to the heaps */
+	private void enqueue(Job job) {
+		if (queued.add(job)) {
+			job.setQueued(TimeSteward.currentTimeMillis());
+			queue(job).add(job);
+		}
+		notifyAll();
 	}
 
 	/** Add a job for this scheduler to perform */
 	public synchronized void addJob(Job job) {
-		todo.add(job);
-		if (slog.isOpen() && todo.size() > 5000)
-			slog.log("OVERLOADED: " + todo.size());
-		notify();
+		if (running.contains(job)) {
+			removed.remove(job);
+			deferred.add(job);
+		} else
+			enqueue(job);
+		if (job.isPriority() && !prio_started) {
+			startThread(name + "_prio", true);
+			prio_started = true;
+		}
+		if (slog.isOpen() && queued.size() > 5000)
+			slog.log("OVERLOADED: " + queued.size());
 	}
 
-	/** Remove a job from this scheduler */
+	/** Remove a job from this scheduler.  If the job is being performed,
+	 * it will not be repeated. */
 	public synchronized void removeJob(Job job) {
 		if (job != null) {
-			toremove.add(job);
-			notify();
+			if (queued.remove(job))
+				queue(job).remove(job);
+			if (running.contains(job)) {
+				deferred.remove(job);
+				removed.add(job);
+			}
+			notifyAll();
 		}
 	}
 
-	/** Remove jobs which need to be removed.  This needs to be done on the
-	 * scheduler thread in case the job is being performed while removeJob
-	 * is called. */
-	private synchronized void removeJobs() {
-		for (Job job: toremove)
-			todo.remove(job);
-		toremove.clear();
+	/** Test if the current thread is a scheduler thread */
+	public boolean isCurrentThread() {
+		Thread ct = Thread.currentThread();
+		for (Thread t: threads) {
+			if (t == ct)
+				return true;
+		}
+		return false;
 	}
 
-	/** Test if the current thread is the scheduler thread */
-	public boolean isCurrentThread() {
-		return Thread.currentThread() == thread;
+	/** Get the count of queued jobs */
+	public synchronized int size() {
+		return queued.size();
+	}
+
+	/** Get the count of jobs being performed */
+	public synchronized int getRunning() {
+		return running.size();
+	}
+
+	/** Get job statistics and reset them.
+	 * @return Statistics for each job name performed since the last
+	 *         call. */
+	public synchronized List<JobStats> takeStats() {
+		ArrayList<JobStats> js = new ArrayList<JobStats>(
+			stats.values());
+		stats = new TreeMap<String, JobStats>();
+		return js;
 	}
 
 	/** Dispose of the scheduler */
 	public void dispose() {
 		disposing = true;
-		thread.interrupt();
+		for (Thread t: threads)
+			t.interrupt();
 	}
 }
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2016-2020  Minnesota Department of Transportation
+ * Copyright (C) 2016-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -33,6 +33,19 @@ abstract public class Work implements Comparable<Work> {
 	/** Flag to indicate work complete */
 	private boolean is_complete = false;
 
+	/** Time work was queued (ms) */
+	private long queued;
+
+	/** Set the time work was queued */
+	void setQueued(long t) {
+		queued = t;
+	}
+
+	/** Get the time work was queued */
+	long getQueued() {
+		return queued;
+	}
+
 	/** Create Work */
 	public Work() { }
 
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2017  Minnesota Department of Transportation
+ * Copyright (C) 2017-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -43,6 +43,21 @@ public final class Worker {
 	/** Flag to indicate disposing */
 	private boolean disposing = false;
 
+	/** Count of work performed (since last stats) */
+	private long n_work = 0;
+
+	/** Total time work waited in queue (ms, since last stats) */
+	private long wait_total = 0;
+
+	/** Maximum time work waited in queue (ms, since last stats) */
+	private long wait_max = 0;
+
+	/** Total time spent performing work (ms, since last stats) */
+	private long run_total = 0;
+
+	/** Maximum time spent performing work (ms, since last stats) */
+	private long run_max = 0;
+
 	/** Create a Worker */
 	public Worker(String name, ExceptionHandler h) {
 		handler = h;
@@ -80,6 +95,7 @@ public final class Worker {
 
 	/** Perform Work */
 	private void performWork(Work w) {
+		long st = TimeSteward.currentTimeMillis();
 		try {
 			w.performWork();
 		}
@@ -92,10 +108,26 @@ public final class Worker {
 			System.err.println("FATAL: RESTARTING");
 			System.exit(1);
 		}
+		finally {
+			long et = TimeSteward.currentTimeMillis();
+			recordWork(st - w.getQueued(), et - st);
+		}
+	}
+
+	/** Record statistics for one work item.
+	 * @param wait Time waiting in queue (ms).
+	 * @param run Time spent performing (ms). */
+	private synchronized void recordWork(long wait, long run) {
+		n_work++;
+		wait_total += wait;
+		wait_max = Math.max(wait_max, wait);
+		run_total += run;
+		run_max = Math.max(run_max, run);
 	}
 
 	/** Add work to perform */
 	public synchronized void addWork(Work w) {
+		w.setQueued(TimeSteward.currentTimeMillis());
 		todo.add(w);
 		notify();
 	}
@@ -115,4 +147,31 @@ public final class Worker {
 	public synchronized int size() {
 		return todo.size();
 	}
+
+	/** Get the worker thread name */
+	public String getName() {
+		return thread.getName();
+	}
+
+	/** Get a statistics summary and reset the counters.
+	 * @return Queue depth, work count, wait and run times. */
+	public synchronized String takeStats() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(getName());
+		sb.append(": queued=").append(todo.size());
+		sb.append(", done=").append(n_work);
+		if (n_work > 0) {
+			sb.append(", wait avg=").append(wait_total / n_work);
+			sb.append(" max=").append(wait_max);
+			sb.append(", run avg=").append(run_total / n_work);
+			sb.append(" max=").append(run_max);
+			sb.append(" ms");
+		}
+		n_work = 0;
+		wait_total = 0;
+		wait_max = 0;
+		run_total = 0;
+		run_max = 0;
+		return sb.toString();
+	}
 }
@@ -1,6 +1,6 @@
 /*
  * SONAR -- Simple Object Notification And Replication
- * Copyright (C) 2010-2017  Minnesota Department of Transportation
+ * Copyright (C) 2010-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -77,6 +77,15 @@ public class ByteBufferOutputStream extends OutputStream {
 		buffer.put(b, off, len);
 	}
 
+	/** Reserve space in the buffer.
+	 * @param n_bytes Number of bytes needed.
+	 * @return Byte buffer with at least n_bytes remaining. */
+	public ByteBuffer reserve(int n_bytes) {
+		if (buffer.remaining() < n_bytes)
+			expand(n_bytes);
+		return buffer;
+	}
+
 	/** Expand the buffer by the specified number of bytes */
 	private void expand(int n_bytes) {
 		ByteBuffer buf = allocate(buffer.position() + n_bytes);
@@ -1,6 +1,6 @@
 /*
  * SONAR -- Simple Object Notification And Replication
- * Copyright (C) 2006-2017  Minnesota Department of Transportation
+ * Copyright (C) 2006-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -14,16 +14,18 @@
  */
 package us.mn.state.dot.sonar;
 
-import java.io.InputStreamReader;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * A message decoder provides a Java API for decoding messages from the SONAR
- * wire protocol.
+ * wire protocol.  Separators are scanned directly in the input buffer, and
+ * each parameter is decoded from UTF-8 in place.  Separators are ASCII, so
+ * they can never appear within a multi-byte UTF-8 sequence.
  *
  * @author Douglas Lau
  */
@@ -35,14 +37,11 @@ public class MessageDecoder {
 	/** Byte buffer to store incoming SONAR data */
 	private final ByteBuffer app_in;
 
-	/** Byte buffer input stream */
-	private final ByteBufferInputStream in_buf;
+	/** Bytes of a parameter split across reads */
+	private byte[] partial = new byte[64];
 
-	/** Char reader input stream */
-	private InputStreamReader reader;
-
-	/** String builder to build decoded parameters */
-	private final StringBuilder m_buf = new StringBuilder();
+	/** Count of bytes in partial parameter */
+	private int n_partial = 0;
 
 	/** List of decoded parameters */
 	private ArrayList<String> params = new ArrayList<String>();
@@ -50,14 +49,25 @@ public class MessageDecoder {
 	/** Create a new SONAR message decoder */
 	public MessageDecoder(ByteBuffer in) throws IOException {
 		app_in = in;
-		in_buf = new ByteBufferInputStream(in);
-		reader = new InputStreamReader(in_buf, UTF8);
 	}
 
 	/** Complete the current parameter */
-	private void completeParameter() {
-		params.add(m_buf.toString());
-		m_buf.setLength(0);
+	private void completeParameter(byte[] b, int off, int len) {
+		if (n_partial > 0) {
+			appendPartial(b, off, len);
+			params.add(new String(partial, 0, n_partial, UTF8));
+			n_partial = 0;
+		} else
+			params.add(new String(b, off, len, UTF8));
+	}
+
+	/** Append bytes to the partial parameter */
+	private void appendPartial(byte[] b, int off, int len) {
+		int n = n_partial + len;
+		if (n > partial.length)
+			partial = Arrays.copyOf(partial, n * 2);
+		System.arraycopy(b, off, partial, n_partial, len);
+		n_partial = n;
 	}
 
 	/** Decode messages */
@@ -73,21 +83,25 @@ public class MessageDecoder {
 
 	/** Decode messages */
 	private List<String> _decode() throws IOException {
-		while (reader.ready()) {
-			int ch = reader.read();
-			if (ch < 0)
-				break;
-			char c = (char) ch;
+		byte[] b = app_in.array();
+		int off = app_in.arrayOffset();
+		int start = off + app_in.position();
+		int end = off + app_in.limit();
+		for (int i = start; i < end; i++) {
+			byte c = b[i];
 			if (Message.RECORD_SEP.code == c) {
-				completeParameter();
+				completeParameter(b, start, i - start);
+				app_in.position(i + 1 - off);
 				List<String> p = params;
 				params = new ArrayList<String>();
 				return p;
-			} else if (Message.UNIT_SEP.code == c)
-				completeParameter();
-			else
-				m_buf.append(c);
+			} else if (Message.UNIT_SEP.code == c) {
+				completeParameter(b, start, i - start);
+				start = i + 1;
+			}
 		}
+		appendPartial(b, start, end - start);
+		app_in.position(end - off);
 		return null;
 	}
 
@@ -1,6 +1,6 @@
 /*
  * SONAR -- Simple Object Notification And Replication
- * Copyright (C) 2006-2013  Minnesota Department of Transportation
+ * Copyright (C) 2006-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -15,13 +15,17 @@
 package us.mn.state.dot.sonar;
 
 import java.io.IOException;
-import java.io.OutputStreamWriter;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 
 /**
  * A message encoder provides a Java API for encoding messages to the SONAR
- * wire protocol.
+ * wire protocol.  Messages are encoded to UTF-8 directly into the output
+ * buffer, without any intermediate strings or char buffers.
+ *
+ * An encoder is not thread-safe.  On the server, messages for a connection
+ * are encoded on the Task Processor thread and on the connection's output
+ * worker, with the connection's output lock held.
  *
  * @author Douglas Lau
  */
@@ -30,60 +34,154 @@ public class MessageEncoder {
 	/** Everything on the wire is encoded to UTF-8 */
 	static protected final Charset UTF8 = Charset.forName("UTF-8");
 
-	/** Strip message delimiters and terminators from a string */
-	static protected String stripString(String s) {
-		s = s.replace(Message.UNIT_SEP.code, ' ');
-		return s.replace(Message.RECORD_SEP.code, ' ');
+	/** Maximum number of UTF-8 bytes per UTF-16 char */
+	static private final int MAX_BYTES_PER_CHAR = 3;
+
+	/** Replacement for unmappable chars (unpaired surrogates) */
+	static private final byte REPLACEMENT = '?';
+
+	/** Check if a char is a message delimiter or terminator */
+	static private boolean isSeparator(char c) {
+		return c == Message.UNIT_SEP.code ||
+		       c == Message.RECORD_SEP.code;
 	}
 
 	/** Byte buffer output stream */
 	protected final ByteBufferOutputStream out_buf;
 
-	/** Char writer output stream */
-	protected final OutputStreamWriter writer;
-
 	/** Create a new SONAR message encoder */
 	public MessageEncoder(int n_bytes) throws IOException {
 		out_buf = new ByteBufferOutputStream(n_bytes);
-		writer = new OutputStreamWriter(out_buf, UTF8);
 	}
 
-	/** Encode one message with the given code.
-	 * This may only be called on the Task Processor thread. */
+	/** Encode one message with the given code. */
 	public void encode(Message m) throws IOException {
-		encode(m, null, null);
+		encode(m, (String) null, null);
 	}
 
-	/** Encode one message with the given code and name.
-	 * This may only be called on the Task Processor thread. */
+	/** Encode one message with the given code and name. */
 	public void encode(Message m, String name) throws IOException {
 		encode(m, name, null);
 	}
 
-	/** Encode one message with the given code, name and parameters.
-	 * This may only be called on the Task Processor thread. */
+	/** Encode one message with the given code, name and parameters. */
 	public void encode(Message m, String name, String[] params)
 		throws IOException
 	{
-		writer.write(m.code);
-		if(name != null) {
-			writer.write(Message.UNIT_SEP.code);
-			writer.write(name);
-			if(params != null) {
-				for(String p: params) {
-					writer.write(Message.UNIT_SEP.code);
-					writer.write(stripString(p));
-				}
+		putChar(m.code);
+		if (name != null) {
+			putChar(Message.UNIT_SEP.code);
+			putString(name, false);
+			putParams(params);
+		}
+		putChar(Message.RECORD_SEP.code);
+	}
+
+	/** Encode one message with the given code and name. */
+	public void encode(Message m, Name name) throws IOException {
+		encode(m, name, null);
+	}
+
+	/** Encode one message with the given code, name and parameters.
+	 * The encoded name is cached, so notifying many connections with
+	 * the same name only encodes it once. */
+	public void encode(Message m, Name name, String[] params)
+		throws IOException
+	{
+		putChar(m.code);
+		putChar(Message.UNIT_SEP.code);
+		byte[] n = name.getEncoded();
+		out_buf.write(n, 0, n.length);
+		putParams(params);
+		putChar(Message.RECORD_SEP.code);
+	}
+
+	/** Put message parameters */
+	private void putParams(String[] params) {
+		if (params != null) {
+			for (String p: params) {
+				putChar(Message.UNIT_SEP.code);
+				putString(p, true);
 			}
 		}
-		writer.write(Message.RECORD_SEP.code);
+	}
+
+	/** Put one ASCII char */
+	private void putChar(char c) {
+		out_buf.write(c);
+	}
+
+	/** Put a string as UTF-8.
+	 * @param s String to encode.
+	 * @param strip Replace separators with spaces. */
+	private void putString(String s, boolean strip) {
+		int len = s.length();
+		ByteBuffer buf = out_buf.reserve(len * MAX_BYTES_PER_CHAR);
+		byte[] b = buf.array();
+		int off = buf.arrayOffset();
+		int pos = off + buf.position();
+		for (int i = 0; i < len; i++) {
+			char c = s.charAt(i);
+			if (c < 0x80) {
+				if (strip && isSeparator(c))
+					c = ' ';
+				b[pos++] = (byte) c;
+			} else if (c < 0x800) {
+				b[pos++] = (byte) (0xC0 | (c >> 6));
+				b[pos++] = (byte) (0x80 | (c & 0x3F));
+			} else if (Character.isSurrogate(c)) {
+				int cp = (i + 1 < len)
+				       ? surrogatePair(c, s.charAt(i + 1))
+				       : -1;
+				if (cp >= 0) {
+					b[pos++] = (byte) (0xF0 | (cp >> 18));
+					b[pos++] = (byte) (0x80 |
+						((cp >> 12) & 0x3F));
+					b[pos++] = (byte) (0x80 |
+						((cp >> 6) & 0x3F));
+					b[pos++] = (byte) (0x80 | (cp & 0x3F));
+					i++;
+				} else
+					b[pos++] = REPLACEMENT;
+			} else {
+				b[pos++] = (byte) (0xE0 | (c >> 12));
+				b[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+				b[pos++] = (byte) (0x80 | (c & 0x3F));
+			}
+		}
+		buf.position(pos - off);
+	}
+
+	/** Get the code point of a surrogate pair.
+	 * @return Code point, or -1 if not a valid pair. */
+	static private int surrogatePair(char hi, char lo) {
+		return (Character.isHighSurrogate(hi) &&
+		        Character.isLowSurrogate(lo))
+		      ? Character.toCodePoint(hi, lo)
+		      : -1;
 	}
 
 	/** Flush the encoded data */
 	public void flush() throws IOException {
-		writer.flush();
+		// Data is encoded directly into the buffer
 	}
 
+	/** Write previously encoded message data.
+	 * @param data Encoded messages, from takeBytes. */
+	public void write(byte[] data) throws IOException {
+		out_buf.write(data, 0, data.length);
+	}
+
+	/** Take all encoded data as a byte array.  The buffer is cleared.
+	 * @return Encoded messages. */
+	public byte[] takeBytes() throws IOException {
+		ByteBuffer buf = getBuffer();
+		buf.flip();
+		byte[] data = new byte[buf.remaining()];
+		buf.get(data);
+		compact();
+		return data;
+	}
 	/** Get the current output buffer */
 	public ByteBuffer getBuffer() {
 		return out_buf.getBuffer();
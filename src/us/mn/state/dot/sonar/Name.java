@@ -1,6 +1,6 @@
 /*
  * SONAR -- Simple Object Notification And Replication
- * Copyright (C) 2008-2024  Minnesota Department of Transportation
+ * Copyright (C) 2008-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -14,6 +14,7 @@
  */
 package us.mn.state.dot.sonar;
 
+import java.nio.charset.Charset;
 import us.mn.state.dot.tms.AccessLevel;
 
 /**
@@ -23,6 +24,9 @@ import us.mn.state.dot.tms.AccessLevel;
  */
 public class Name {
 
+	/** Everything on the wire is encoded to UTF-8 */
+	static private final Charset UTF8 = Charset.forName("UTF-8");
+
 	/** Name separator */
 	static public final String SEP = "/";
 
@@ -37,6 +41,9 @@ public class Name {
 	/** Name parts */
 	private final String[] parts;
 
+	/** Name path encoded as UTF-8 (lazily created) */
+	private byte[] encoded;
+
 	/** Create a new name */
 	public Name(String n) {
 		path = n;
@@ -94,6 +101,16 @@ public class Name {
 		return path;
 	}
 
+	/** Get the name path encoded as UTF-8 */
+	byte[] getEncoded() {
+		byte[] e = encoded;
+		if (e == null) {
+			e = path.getBytes(UTF8);
+			encoded = e;
+		}
+		return e;
+	}
+
 	/** Get the type part */
 	public String getTypePart() {
 		return (parts.length > 0) ? parts[0] : "";
@@ -1,6 +1,6 @@
 /*
  * SONAR -- Simple Object Notification And Replication
- * Copyright (C) 2006-2024  Minnesota Department of Transportation
+ * Copyright (C) 2006-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -24,6 +24,7 @@ import java.util.Arrays;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 import org.postgis.MultiPolygon;
 import us.mn.state.dot.tms.Hashtags;
 import us.mn.state.dot.tms.Permission;
@@ -76,6 +77,27 @@ abstract public class Namespace {
 		}
 	}
 
+	/** Cache of SONAR type names to search for object references */
+	static private final ConcurrentHashMap<Class, String[]> REF_TYPES =
+		new ConcurrentHashMap<Class, String[]>();
+
+	/** Get the SONAR type names to search for an object reference */
+	static private String[] refTypeNames(Class t)
+		throws NoSuchFieldException, IllegalAccessException
+	{
+		String[] tn = REF_TYPES.get(t);
+		if (tn == null) {
+			try {
+				tn = new String[] { typeName(t) };
+			}
+			catch (NoSuchFieldException e) {
+				tn = typeNames(t);
+			}
+			REF_TYPES.put(t, tn);
+		}
+		return tn;
+	}
+
 	/** Make an array of the given class and size */
 	static private Object[] makeArray(Class t, int size) {
 		return (Object []) Array.newInstance(t, size);
@@ -165,17 +187,12 @@ abstract public class Namespace {
 	private Object unmarshallObjectB(Class t, String p)
 		throws NoSuchFieldException, IllegalAccessException
 	{
-		try {
-			return lookupObject(typeName(t), p);
-		}
-		catch (NoSuchFieldException e) {
-			for (String typ: typeNames(t)) {
-				Object o = lookupObject(typ, p);
-				if (o != null)
-					return o;
-			}
-			return null;
+		for (String typ: refTypeNames(t)) {
+			Object o = lookupObject(typ, p);
+			if (o != null)
+				return o;
 		}
+		return null;
 	}
 
 	/** Unmarshall parameter strings into one java parameter */
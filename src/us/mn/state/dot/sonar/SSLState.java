@@ -1,6 +1,6 @@
 /*
  * SONAR -- Simple Object Notification And Replication
- * Copyright (C) 2006-2022  Minnesota Department of Transportation
+ * Copyright (C) 2006-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -139,6 +139,15 @@ public class SSLState {
 		return net_out;
 	}
 
+	/** Get the count of outbound bytes buffered (not yet written to
+	 * the network) */
+	public int getBufferedBytes() {
+		int n = encoder.getBuffer().position();
+		synchronized (net_out) {
+			return n + net_out.position();
+		}
+	}
+
 	/** Ge the network in buffer */
 	public ByteBuffer getNetInBuffer() {
 		return net_in;
@@ -188,8 +197,9 @@ public class SSLState {
 		}
 	}
 
-	/** Write data to the network output buffer.
-	 * This may only be called on the Task Processor thread. */
+	/** Write data to the network output buffer.  Calls must be
+	 * serialized with encoding (on the server, by the connection's
+	 * output lock). */
 	public void doWrite() throws SSLException {
 		if (canWrite())
 			doWrap();
@@ -197,8 +207,8 @@ public class SSLState {
 			conduit.enableWrite();
 	}
 
-	/** Check if data should be written.
-	 * This may only be called on the Task Processor thread. */
+	/** Check if data should be written.  Calls must be serialized
+	 * with encoding. */
 	public boolean shouldWrite() {
 		return encoder.hasData() && canWrite();
 	}
@@ -217,8 +227,16 @@ public class SSLState {
 			task.run();
 	}
 
-	/** Wrap application data into SSL buffer */
+	/** Wrap application data into SSL buffer.  The encoder is locked,
+	 * since handshaking can wrap while messages are being encoded. */
 	private void doWrap() throws SSLException {
+		synchronized (encoder) {
+			wrapEncoded();
+		}
+	}
+
+	/** Wrap encoded data into SSL buffer (with encoder locked) */
+	private void wrapEncoded() throws SSLException {
 		ssl_out.clear();
 		ByteBuffer app_out = encoder.getBuffer();
 		app_out.flip();
@@ -1,6 +1,6 @@
 /*
  * SONAR -- Simple Object Notification And Replication
- * Copyright (C) 2006-2019  Minnesota Department of Transportation
+ * Copyright (C) 2006-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -14,6 +14,11 @@
  */
 package us.mn.state.dot.sonar.server;
 
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
@@ -28,6 +33,11 @@ import us.mn.state.dot.sonar.SonarObject;
  * An attribute dispatcher is an adapter for SonarObjects. It provides
  * a pair of simple methods to set and get attributes of those objects.
  *
+ * Setter and getter methods are looked up by reflection once, when the
+ * dispatcher is created.  Getters are bound to generated functions (using
+ * LambdaMetafactory) and other methods to method handles, so no reflection
+ * is needed to dispatch an attribute.
+ *
  * @author Douglas Lau
  */
 public class AttributeDispatcher {
@@ -47,6 +57,135 @@ public class AttributeDispatcher {
 	/** Empty array of strings */
 	static private final String[] EMPTY_STRING = new String[0];
 
+	/** Lookup for creating method handles */
+	static private final MethodHandles.Lookup LOOKUP =
+		MethodHandles.lookup();
+
+	/** Generic getter method type */
+	static private final MethodType GETTER_TYPE =
+		MethodType.methodType(Object.class, Object.class);
+
+	/** Generic invoker method type */
+	static private final MethodType INVOKER_TYPE =
+		MethodType.methodType(Object.class, Object.class, Object[].class);
+
+	/** Function to get an attribute value from an object */
+	interface Getter {
+		Object get(Object o) throws Exception;
+	}
+
+	/** Bound method which can be invoked on an object */
+	static private final class Invoker {
+
+		/** Method handle (Object, Object[]) -> Object */
+		private final MethodHandle handle;
+
+		/** Parameter types for unmarshalling */
+		private final Class[] p_types;
+
+		/** Create a new invoker */
+		private Invoker(Method m) throws IllegalAccessException {
+			p_types = m.getParameterTypes();
+			handle = unreflect(m).asSpreader(Object[].class,
+				p_types.length).asType(INVOKER_TYPE);
+		}
+
+		/** Invoke the method on an object */
+		private Object invoke(Object o, Object[] params)
+			throws SonarException
+		{
+			try {
+				return handle.invokeExact(o, params);
+			}
+			catch (Exception e) {
+				throw new SonarException(e);
+			}
+			catch (Throwable e) {
+				// Only Errors are left; don't wrap them
+				throw (Error) e;
+			}
+		}
+	}
+
+	/** Attribute getter with cached marshalling information */
+	static private final class Attribute {
+
+		/** Getter function */
+		private final Getter getter;
+
+		/** Flag indicating the getter returns an object array */
+		private final boolean is_array;
+
+		/** Create a new attribute getter */
+		private Attribute(Method m) throws IllegalAccessException {
+			getter = createGetter(m);
+			is_array = Object[].class.isAssignableFrom(
+				m.getReturnType());
+		}
+	}
+
+	/** Get a method handle for a method */
+	static private MethodHandle unreflect(Method m)
+		throws IllegalAccessException
+	{
+		try {
+			return LOOKUP.unreflect(m);
+		}
+		catch (IllegalAccessException e) {
+			// Public method in a non-public class
+			m.setAccessible(true);
+			return LOOKUP.unreflect(m);
+		}
+	}
+
+	/** Create a getter function for a method */
+	static private Getter createGetter(Method m)
+		throws IllegalAccessException
+	{
+		MethodHandle mh = unreflect(m);
+		try {
+			MethodType it = MethodType.methodType(
+				MethodType.methodType(m.getReturnType()).wrap()
+				.returnType(), m.getDeclaringClass());
+			CallSite site = LambdaMetafactory.metafactory(LOOKUP,
+				"get", MethodType.methodType(Getter.class),
+				GETTER_TYPE, mh, it);
+			return (Getter) site.getTarget().invoke();
+		}
+		catch (Throwable e) {
+			// Fall back to invoking the method handle
+			return createHandleGetter(mh.asType(GETTER_TYPE));
+		}
+	}
+
+	/** Create a getter function which invokes a method handle */
+	static private Getter createHandleGetter(final MethodHandle mh) {
+		return new Getter() {
+			public Object get(Object o) throws Exception {
+				try {
+					return mh.invokeExact(o);
+				}
+				catch (Exception | Error e) {
+					throw e;
+				}
+				catch (Throwable e) {
+					throw new Exception(e);
+				}
+			}
+		};
+	}
+
+	/** Create an invoker, or null if method is null */
+	static private Invoker createInvoker(Method m) {
+		try {
+			return (m != null) ? new Invoker(m) : null;
+		}
+		catch (IllegalAccessException e) {
+			System.err.println("SONAR: no access to " + m);
+			return null;
+		}
+	}
+
 	/** Test if a class is an interface extending SonarObject */
 	static private boolean is_sonar_iface(Class iface) {
 		return iface.isInterface() &&
@@ -118,22 +257,34 @@ public class AttributeDispatcher {
 	private final Constructor constructor;
 
 	/** Method to store an object */
-	private final Method storer;
+	private final Invoker storer;
 
 	/** Method to destroy an object */
-	private final Method destroyer;
+	private final Invoker destroyer;
 
 	/** Mapping of attribute names to setter methods */
-	private final HashMap<String, Method> setters =
+	private final HashMap<String, Method> setter_methods =
 		new HashMap<String, Method>();
 
 	/** Mapping of attribute names to getter methods */
-	private final HashMap<String, Method> getters =
+	private final HashMap<String, Method> getter_methods =
 		new HashMap<String, Method>();
 
-	/** Get an array of gettable attributes */
+	/** Mapping of attribute names to setters */
+	private final HashMap<String, Invoker> setters =
+		new HashMap<String, Invoker>();
+
+	/** Mapping of attribute names to getters */
+	private final HashMap<String, Attribute> getters =
+		new HashMap<String, Attribute>();
+
+	/** Array of gettable attribute names */
+	private final String[] gettable;
+
+	/** Get an array of gettable attributes.  The array must not be
+	 * modified. */
 	public String[] getGettableAttributes() {
-		return getters.keySet().toArray(EMPTY_STRING);
+		return gettable;
 	}
 
 	/** Test if an attribute is gettable */
@@ -148,9 +299,29 @@ public class AttributeDispatcher {
 		the_class = c;
 		namespace = ns;
 		lookup_attributes(c);
+		bind_attributes();
+		gettable = getters.keySet().toArray(EMPTY_STRING);
 		constructor = lookup_constructor(c);
-		storer = lookup_storer(c);
-		destroyer = lookup_destroyer(c);
+		storer = createInvoker(lookup_storer(c));
+		destroyer = createInvoker(lookup_destroyer(c));
+	}
+
+	/** Bind setter and getter methods */
+	private void bind_attributes() {
+		for (String a: setter_methods.keySet()) {
+			Invoker inv = createInvoker(setter_methods.get(a));
+			if (inv != null)
+				setters.put(a, inv);
+		}
+		for (String a: getter_methods.keySet()) {
+			Method m = getter_methods.get(a);
+			try {
+				getters.put(a, new Attribute(m));
+			}
+			catch (IllegalAccessException e) {
+				System.err.println("SONAR: no access to " + m);
+			}
+		}
 	}
 
 	/** Lookup all the attributes of the specified class */
@@ -182,7 +353,7 @@ public class AttributeDispatcher {
 	private void lookup_setter(Method im) {
 		Method m = lookup__etter(im);
 		if (m != null)
-			setters.put(attribute_name(im.getName()), m);
+			setter_methods.put(attribute_name(im.getName()), m);
 	}
 
 	/** Lookup a getter method.
@@ -190,7 +361,7 @@ public class AttributeDispatcher {
 	private void lookup_getter(Method im) {
 		Method m = lookup__etter(im);
 		if (m != null)
-			getters.put(attribute_name(im.getName()), m);
+			getter_methods.put(attribute_name(im.getName()), m);
 	}
 
 	/** Lookup a setter or getter method.
@@ -240,24 +411,13 @@ public class AttributeDispatcher {
 	}
 
 	/** Invoke a method on the given SONAR object */
-	private Object _invoke(SonarObject o, Method method, Object[] params)
-		throws SonarException
-	{
-		try {
-			return method.invoke(o, params);
-		}
-		catch (Exception e) {
-			throw new SonarException(e);
-		}
-	}
-
-	/** Invoke a method on the given SONAR object */
-	private Object invoke(SonarObject o, Method method, String[] v)
+	private Object invoke(SonarObject o, Invoker inv, String[] v)
 		throws SonarException
 	{
-		Class[] p_types = method.getParameterTypes();
-		Object[] params = namespace.unmarshall(p_types, v);
-		return _invoke(o, method, params);
+		Object[] params = (inv.p_types.length > 0)
+		                ? namespace.unmarshall(inv.p_types, v)
+		                : NO_PARAMS;
+		return inv.invoke(o, params);
 	}
 
 	/** Store the given object */
@@ -278,10 +438,10 @@ public class AttributeDispatcher {
 	public void setValue(SonarObject o, String a, String[] v)
 		throws SonarException
 	{
-		Method m = setters.get(a);
-		if (m == null)
+		Invoker inv = setters.get(a);
+		if (inv == null)
 			throw PermissionDenied.cannotWrite(a);
-		invoke(o, m, v);
+		invoke(o, inv, v);
 	}
 
 	/** Lookup the named field from the given class */
@@ -323,12 +483,18 @@ public class AttributeDispatcher {
 	public String[] getValue(SonarObject o, String a)
 		throws SonarException
 	{
-		Method m = getters.get(a);
-		if (m == null)
+		Attribute att = getters.get(a);
+		if (att == null)
 			throw PermissionDenied.cannotRead(a);
-		Object result = _invoke(o, m, NO_PARAMS);
-		if (result instanceof Object[]) {
-			Object[] r = (Object [])result;
+		Object result;
+		try {
+			result = att.getter.get(o);
+		}
+		catch (Exception e) {
+			throw new SonarException(e);
+		}
+		if (att.is_array && result != null) {
+			Object[] r = (Object []) result;
 			String[] res = new String[r.length];
 			for (int i = 0; i < r.length; i++)
 				res[i] = namespace.marshall(r[i]);
@@ -0,0 +1,132 @@
+/*
+ * SONAR -- Simple Object Notification And Replication
+ * Copyright (C) 2026  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.sonar.server;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import us.mn.state.dot.sonar.Name;
+
+/**
+ * Queue of attribute changes for one connection (coalescing mode).  Only
+ * the latest value of each attribute is kept.
+ *
+ * When the connection's buffered output exceeds the output limit, pending
+ * changes are dropped and the queue becomes stale.  No more changes are
+ * encoded until the client catches up; then all watched objects must be
+ * refreshed.
+ *
+ * @author Douglas Lau
+ */
+final class AttributeQueue {
+
+	/** Sink for encoding attribute changes */
+	interface Sink {
+		void attribute(String name, String[] params)
+			throws IOException;
+	}
+
+	/** Pending attribute changes, mapping attribute name to latest
+	 * value */
+	private final LinkedHashMap<String, String[]> pending =
+		new LinkedHashMap<String, String[]>();
+
+	/** Output limit (bytes), 0 for no limit */
+	private final int limit;
+
+	/** Flag to indicate changes were dropped */
+	private boolean stale = false;
+
+	/** Create a new attribute queue.
+	 * @param lim Output limit (bytes), 0 for no limit. */
+	AttributeQueue(int lim) {
+		limit = lim;
+	}
+
+	/** Put an attribute change in the queue.
+	 * @return true if the queue was empty. */
+	synchronized boolean put(String name, String[] params) {
+		boolean empty = pending.isEmpty();
+		pending.put(name, params);
+		return empty;
+	}
+
+	/** Check the output limit.  Past the limit, pending changes are
+	 * dropped and the queue becomes stale.
+	 * @param buffered Count of buffered output bytes.
+	 * @return true if the limit was just exceeded. */
+	synchronized boolean checkLimit(int buffered) {
+		if (!stale && limit > 0 && buffered > limit) {
+			stale = true;
+			pending.clear();
+			return true;
+		} else
+			return false;
+	}
+
+	/** Check if changes have been dropped */
+	synchronized boolean isStale() {
+		return stale;
+	}
+
+	/** Check if the client has caught up after changes were dropped.
+	 * If so, the queue is no longer stale, and watched objects must be
+	 * refreshed.
+	 * @param buffered Count of buffered output bytes.
+	 * @return true if a refresh is needed. */
+	synchronized boolean checkRefresh(int buffered) {
+		if (stale && buffered <= limit) {
+			stale = false;
+			pending.clear();
+			return true;
+		} else
+			return false;
+	}
+
+	/** Encode pending changes (unless stale).
+	 * @param s Sink to encode changes.
+	 * @param oname Object name whose changes are dropped, since it is
+	 *              being enumerated with current values (or null). */
+	void encode(Sink s, String oname) throws IOException {
+		for (Map.Entry<String, String[]> e: take(oname))
+			s.attribute(e.getKey(), e.getValue());
+	}
+
+	/** Take pending changes, dropping any for one object */
+	private synchronized List<Map.Entry<String, String[]>> take(
+		String oname)
+	{
+		ArrayList<Map.Entry<String, String[]>> p =
+			new ArrayList<Map.Entry<String, String[]>>();
+		if (!stale) {
+			String prefix = (oname != null)
+			              ? oname + Name.SEP
+			              : null;
+			Iterator<Map.Entry<String, String[]>> it =
+				pending.entrySet().iterator();
+			while (it.hasNext()) {
+				Map.Entry<String, String[]> e = it.next();
+				if (null == prefix ||
+				    !e.getKey().startsWith(prefix))
+					p.add(e);
+			}
+		}
+		pending.clear();
+		return p;
+	}
+}
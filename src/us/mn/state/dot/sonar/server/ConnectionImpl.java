@@ -1,6 +1,6 @@
 /*
  * SONAR -- Simple Object Notification And Replication
- * Copyright (C) 2006-2024  Minnesota Department of Transportation
+ * Copyright (C) 2006-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -22,8 +22,11 @@ import java.nio.BufferOverflowException;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
 import java.util.Date;
+import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Random;
 import java.util.Set;
@@ -156,15 +159,38 @@ public class ConnectionImpl extends Conduit implements Connection {
 	 * in the database. */
 	protected SonarObject phantom;
 
+	/** Pending attribute changes (coalescing mode), and output limit
+	 * state */
+	private final AttributeQueue attrs;
+
+	/** Lock for the message encoder and outbound TLS state.  Messages
+	 * are encoded on the Task Processor thread and on the connection's
+	 * output worker, so this must be held to encode, wrap or flush.  It
+	 * is the encoder itself, which SSLState also locks for handshaking. */
+	private final Object out_lock;
+
+	/** Sink for encoding attribute changes (with out_lock held) */
+	private final AttributeQueue.Sink attr_sink =
+		new AttributeQueue.Sink()
+	{
+		public void attribute(String name, String[] params)
+			throws IOException
+		{
+			state.encoder.encode(Message.ATTRIBUTE, name, params);
+		}
+	};
+
 	/** Create a new connection */
 	public ConnectionImpl(TaskProcessor p, SelectionKey k, SocketChannel c)
 		throws SSLException, IOException
 	{
 		processor = p;
 		namespace = processor.getNamespace();
+		attrs = new AttributeQueue(processor.getOutputLimit());
 		skey = k;
 		channel = c;
 		state = processor.createSSLState(this);
+		out_lock = state.encoder;
 		address = c.socket().getInetAddress();
 		StringBuilder h = new StringBuilder();
 		h.append(address.getHostAddress());
@@ -286,70 +312,174 @@ public class ConnectionImpl extends Conduit implements Connection {
 		skey.selector().wakeup();
 	}
 
-	/** Notify the client of a new object being added.
-	 * This may only be called on the Task Processor thread. */
-	protected void notifyObject(SonarObject o) {
-		try {
-			namespace.enumerateObject(state.encoder, o);
-			flush();
-		}
-		catch (SonarException e) {
-			disconnect("Notify error: " + e.getMessage());
-		}
-		catch (IOException e) {
-			disconnect("Notify error: " + e.getMessage());
-		}
+	/** Disconnect the client connection from an output worker thread */
+	private void scheduleDisconnect(String msg) {
+		processor.scheduleDisconnect(this, msg);
 	}
 
-	/** Notify the client of a new object being added.
+	/** Check if the client is watching an object name.
 	 * This may only be called on the Task Processor thread. */
-	void notifyObject(Name name, SonarObject o) {
-		if (isWatching(name))
-			notifyObject(o);
+	boolean isWatchingObject(Name name) {
+		return isWatching(name);
 	}
 
-	/** Notify the client of an attribute change.
+	/** Check if the client is watching (and can view) an attribute.
 	 * This may only be called on the Task Processor thread. */
-	void notifyAttribute(Name name, String[] params) {
+	boolean isWatchingAttribute(Name name) {
 		User u = user;
-		if (u != null &&
-		    isWatching(name) &&
-		    namespace.accessLevel(name, u) >= AccessLevel.VIEW.ordinal())
-		{
-			notifyAttribute(name.toString(), params);
+		return u != null &&
+		       isWatching(name) &&
+		       namespace.accessLevel(name, u) >=
+		       AccessLevel.VIEW.ordinal();
+	}
+
+	/** Check if the client should be notified of a name being removed.
+	 * If so, the name will no longer be watched.
+	 * This may only be called on the Task Processor thread. */
+	boolean checkRemove(Name name) {
+		if (isWatching(name)) {
+			stopWatching(name);
+			return true;
+		} else
+			return false;
+	}
+
+	/** Get a copy of the watching set */
+	private List<String> getWatching() {
+		synchronized (watching) {
+			return new ArrayList<String>(watching);
 		}
 	}
 
-	/** Notify the client of an attribute change.
+	/** Queue an attribute change to be sent when the client is ready.
+	 * Only the latest value of each attribute is kept.
 	 * This may only be called on the Task Processor thread. */
-	private void notifyAttribute(String name, String[] params) {
+	void queueAttribute(String name, String[] params) {
+		if (attrs.put(name, params))
+			processor.flush(this);
+	}
+
+	/** Encode pending attribute changes.  They are discarded if the
+	 * output limit has been exceeded, since watched objects will be
+	 * refreshed.  The output lock must be held.
+	 * @param oname Object name whose changes are discarded, because it is
+	 *              being enumerated with current values (or null). */
+	private void encodePending(String oname) throws IOException {
+		checkOutputLimit();
+		attrs.encode(attr_sink, oname);
+	}
+
+	/** Check if attribute changes can be sent without exceeding the
+	 * output limit.  Past the limit, changes are dropped until the client
+	 * catches up; then all watched objects are refreshed. */
+	private boolean checkOutputLimit() {
+		if (attrs.checkLimit(state.getBufferedBytes())) {
+			TaskProcessor.DEBUG.log("Output limit exceeded on " +
+				getName() + ", " + getUserName());
+		}
+		return !attrs.isStale();
+	}
+
+	/** Refresh attributes of all watched objects.
+	 * The output lock must be held. */
+	private void refreshWatching() throws IOException {
+		User u = user;
+		if (u == null)
+			return;
+		LinkedHashMap<String, SonarObject> objs =
+			new LinkedHashMap<String, SonarObject>();
+		for (String w: getWatching()) {
+			Name name = new Name(w);
+			if (name.isType()) {
+				Iterator<SonarObject> it = namespace.iterator(
+					name.getTypePart());
+				while (it.hasNext()) {
+					SonarObject o = it.next();
+					objs.put(new Name(o).toString(), o);
+				}
+			} else if (name.isObject()) {
+				SonarObject o = namespace.lookupObject(name);
+				if (o != null)
+					objs.put(name.toString(), o);
+			}
+		}
+		for (SonarObject o: objs.values())
+			refreshObject(o, u);
+	}
+
+	/** Refresh all watched attributes of one object */
+	private void refreshObject(SonarObject o, User u) throws IOException {
+		int lvl = namespace.accessLevel(new Name(o), u);
+		if (lvl < AccessLevel.VIEW.ordinal())
+			return;
+		for (String a: namespace.getGettableAttributes(o)) {
+			Name name = new Name(o, a);
+			if (isWatching(name)) {
+				try {
+					String[] v = namespace.getAttribute(name);
+					state.encoder.encode(Message.ATTRIBUTE,
+						name, v);
+				}
+				catch (SonarException e) {
+					// Object was removed; skip it
+				}
+			}
+		}
+	}
+
+	/** Notify the client of a new object being added.
+	 * This may only be called on the connection's output worker. */
+	void notifyObject(SonarObject o) {
+		if (!isConnected())
+			return;
 		try {
-			state.encoder.encode(Message.ATTRIBUTE, name, params);
-			flush();
+			synchronized (out_lock) {
+				encodePending(new Name(o).toString());
+				namespace.enumerateObject(state.encoder, o);
+				flush();
+			}
+		}
+		catch (SonarException e) {
+			scheduleDisconnect("Notify error: " + e.getMessage());
 		}
 		catch (IOException e) {
-			disconnect("I/O error: notifyAttribute " + name);
+			scheduleDisconnect("Notify error: " + e.getMessage());
 		}
 	}
 
-	/** Notify the client of a name being removed.
-	 * This may only be called on the Task Processor thread. */
-	void notifyRemove(Name name) {
-		if (isWatching(name)) {
-			notifyRemove(name.toString());
-			stopWatching(name);
+	/** Notify the client of an attribute change.
+	 * This may only be called on the connection's output worker. */
+	void notifyAttribute(Name name, String[] params) {
+		if (!isConnected())
+			return;
+		try {
+			synchronized (out_lock) {
+				if (!checkOutputLimit())
+					return;
+				state.encoder.encode(Message.ATTRIBUTE, name,
+					params);
+				flush();
+			}
+		}
+		catch (IOException e) {
+			scheduleDisconnect("I/O error: notifyAttribute " + name);
 		}
 	}
 
 	/** Notify the client of a name being removed.
-	 * This may only be called on the Task Processor thread. */
-	protected void notifyRemove(String name) {
+	 * This may only be called on the connection's output worker. */
+	void notifyRemove(Name name) {
+		if (!isConnected())
+			return;
 		try {
-			state.encoder.encode(Message.REMOVE, name);
-			flush();
+			synchronized (out_lock) {
+				encodePending(null);
+				state.encoder.encode(Message.REMOVE, name);
+				flush();
+			}
 		}
 		catch (IOException e) {
-			disconnect("I/O error: notifyRemove " + name);
+			scheduleDisconnect("I/O error: notifyRemove " + name);
 		}
 	}
 
@@ -385,7 +515,7 @@ public class ConnectionImpl extends Conduit implements Connection {
 				params = state.decoder.decode();
 			}
 		}
-		flush();
+		processor.flush(this);
 	}
 
 	/** Process one message from the client.
@@ -398,7 +528,10 @@ public class ConnectionImpl extends Conduit implements Connection {
 				_processMessage(params);
 		}
 		catch (SonarException e) {
-			state.encoder.encode(Message.SHOW, e.getMessage());
+			synchronized (out_lock) {
+				state.encoder.encode(Message.SHOW,
+					e.getMessage());
+			}
 			TaskProcessor.DEBUG.log("Message error: " +
 				e.getMessage());
 		}
@@ -433,27 +566,46 @@ public class ConnectionImpl extends Conduit implements Connection {
 		}
 	}
 
-	/** Start writing data to client.
-	 * This may only be called on the Task Processor thread. */
+	/** Start writing data to client (with out_lock held) */
 	protected void startWrite() throws IOException {
 		if (state.shouldWrite())
 			state.doWrite();
 	}
 
 	/** Tell the I/O thread to flush the output buffer.
-	 * This may only be called on the Task Processor thread. */
+	 * This may be called on the Task Processor thread or the connection's
+	 * output worker. */
 	@Override
 	public void flush() {
 		try {
-			state.encoder.flush();
-			if (isConnected())
-				startWrite();
+			synchronized (out_lock) {
+				flushLocked();
+			}
 		}
 		catch (BufferOverflowException e) {
-			disconnect("Buffer overflow error");
+			scheduleDisconnect("Buffer overflow error");
 		}
 		catch (IOException e) {
-			disconnect("I/O error: " + e.getMessage());
+			scheduleDisconnect("I/O error: " + e.getMessage());
+		}
+	}
+
+	/** Flush the output buffer (with out_lock held) */
+	private void flushLocked() throws IOException {
+		state.encoder.flush();
+		if (isConnected()) {
+			// Pending changes are only sent after the client has
+			// caught up with previously encoded data
+			checkOutputLimit();
+			if (!state.encoder.hasData()) {
+				int b = state.getBufferedBytes();
+				if (attrs.checkRefresh(b))
+					refreshWatching();
+				else
+					encodePending(null);
+				state.encoder.flush();
+			}
+			startWrite();
 		}
 	}
 
@@ -479,12 +631,15 @@ public class ConnectionImpl extends Conduit implements Connection {
 	 * This may only be called on the Task Processor thread. */
 	public void finishLogin(UserImpl u) {
 		try {
-			user = u;
-			// The first TYPE message indicates a successful login
-			state.encoder.encode(Message.TYPE);
-			// Send the connection name to the client first
-			state.encoder.encode(Message.SHOW, hostport);
-			flush();
+			synchronized (out_lock) {
+				user = u;
+				// The first TYPE message indicates a successful
+				// login
+				state.encoder.encode(Message.TYPE);
+				// Send the connection name to the client first
+				state.encoder.encode(Message.SHOW, hostport);
+				flush();
+			}
 		}
 		catch (IOException e) {
 			disconnect("I/O error: finishLogin " + e.getMessage());
@@ -495,9 +650,12 @@ public class ConnectionImpl extends Conduit implements Connection {
 	 * This may only be called on the Task Processor thread. */
 	public void failLogin() {
 		try {
-			state.encoder.encode(Message.SHOW, PermissionDenied.
-				authenticationFailed().getMessage());
-			flush();
+			synchronized (out_lock) {
+				state.encoder.encode(Message.SHOW,
+					PermissionDenied.authenticationFailed()
+					.getMessage());
+				flush();
+			}
 		}
 		catch (IOException e) {
 			disconnect("I/O error: failLogin " + e.getMessage());
@@ -518,8 +676,10 @@ public class ConnectionImpl extends Conduit implements Connection {
 	/** Fail a PASSWORD change attempt */
 	public void failPassword(String msg) {
 		try {
-			state.encoder.encode(Message.SHOW, msg);
-			flush();
+			synchronized (out_lock) {
+				state.encoder.encode(Message.SHOW, msg);
+				flush();
+			}
 		}
 		catch (IOException e) {
 			disconnect("I/O error: failPassword " + e.getMessage());
@@ -546,7 +706,9 @@ public class ConnectionImpl extends Conduit implements Connection {
 			throw PermissionDenied.create(name);
 		startWatching(name);
 		try {
-			namespace.enumerate(state.encoder, name);
+			synchronized (out_lock) {
+				namespace.enumerate(state.encoder, name);
+			}
 		}
 		catch (IOException e) {
 			throw new SonarException(e.getMessage());
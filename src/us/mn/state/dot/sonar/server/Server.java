@@ -1,6 +1,6 @@
 /*
  * SONAR -- Simple Object Notification And Replication
- * Copyright (C) 2006-2024  Minnesota Department of Transportation
+ * Copyright (C) 2006-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -72,6 +72,11 @@ public final class Server {
 		processor.scheduleSetAttribute(o, a);
 	}
 
+	/** Log task queue statistics */
+	public void logQueueStats() {
+		processor.logQueueStats();
+	}
+
 	/** Get user for current message processing */
 	public String getProcUser() {
 		ConnectionImpl c = processor.getProcConnection();
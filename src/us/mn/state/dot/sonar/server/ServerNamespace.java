@@ -1,6 +1,6 @@
 /*
  * SONAR -- Simple Object Notification And Replication
- * Copyright (C) 2006-2024  Minnesota Department of Transportation
+ * Copyright (C) 2006-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -40,11 +40,6 @@ public class ServerNamespace extends Namespace {
 	private final HashMap<String, TypeNode> root =
 		new HashMap<String, TypeNode>();
 
-	/** Register a new type in the namespace */
-	private TypeNode registerType(SonarObject o) throws SonarException {
-		return registerType(o.getClass());
-	}
-
 	/** Get a type node from the namespace */
 	private TypeNode _getTypeNode(String t) {
 		synchronized (root) {
@@ -54,8 +49,10 @@ public class ServerNamespace extends Namespace {
 
 	/** Get a type node from the namespace */
 	private TypeNode getTypeNode(SonarObject o) throws SonarException {
-		TypeNode n = _getTypeNode(o.getTypeName());
-		return (n != null) ? n : registerType(o);
+		synchronized (root) {
+			TypeNode n = root.get(o.getTypeName());
+			return (n != null) ? n : registerType(o.getClass());
+		}
 	}
 
 	/** Get a type node from the namespace by name */
@@ -99,6 +96,12 @@ public class ServerNamespace extends Namespace {
 		}
 	}
 
+	/** Get the gettable attribute names of an object */
+	String[] getGettableAttributes(SonarObject o) {
+		TypeNode t = _getTypeNode(o.getTypeName());
+		return (t != null) ? t.getGettableAttributes() : new String[0];
+	}
+
 	/** Get the value of an attribute */
 	String[] getAttribute(Name name) throws SonarException {
 		TypeNode t = getTypeNode(name);
@@ -109,6 +112,13 @@ public class ServerNamespace extends Namespace {
 			throw NamespaceError.nameInvalid(name);
 	}
 
+	/** Invalidate the encoded snapshot of an object */
+	void invalidateSnapshot(Name name) {
+		TypeNode t = _getTypeNode(name.getTypePart());
+		if (t != null)
+			t.invalidateSnapshot(name.getObjectPart());
+	}
+
 	/** Remove an object from the namespace */
 	void removeObject(SonarObject o) throws SonarException {
 		TypeNode n = getTypeNode(o);
@@ -1,6 +1,6 @@
 /*
  * SONAR -- Simple Object Notification And Replication
- * Copyright (C) 2006-2024  Minnesota Department of Transportation
+ * Copyright (C) 2006-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -35,8 +35,7 @@ import us.mn.state.dot.sched.Worker;
 import static us.mn.state.dot.sched.TimeSteward.currentTimeMillis;
 import us.mn.state.dot.sonar.ConfigurationError;
 import us.mn.state.dot.sonar.Name;
-import us.mn.state.dot.sonar.Namespace;
-import us.mn.state.dot.sonar.NamespaceError;
+import us.mn.state.dot.sonar.Props;
 import us.mn.state.dot.sonar.Security;
 import us.mn.state.dot.sonar.SonarException;
 import us.mn.state.dot.sonar.SonarObject;
@@ -47,7 +46,10 @@ import us.mn.state.dot.tms.server.HashProvider;
 import us.mn.state.dot.tms.server.UserImpl;
 
 /**
- * The task processor handles all SONAR tasks.
+ * The task processor handles all SONAR tasks.  Namespace changes and
+ * message processing are performed on a single "sonar_proc" thread.
+ * Encoding notifications, TLS wrapping and flushing for each connection are
+ * performed by one of several output workers, selected by connection.
  *
  * @author Douglas Lau
  */
@@ -56,6 +58,44 @@ public class TaskProcessor {
 	/** SONAR debug log */
 	static public final DebugLog DEBUG = new DebugLog("sonar");
 
+	/** SONAR queue statistics debug log */
+	static private final DebugLog DEBUG_QUEUE = new DebugLog("sonar_queue");
+
+	/** Default number of output worker threads */
+	static private final int OUT_WORKERS = 4;
+
+	/** Exception handler for task workers */
+	static private final ExceptionHandler HANDLER = new ExceptionHandler() {
+		public boolean handle(Exception e) {
+			if (e instanceof CancelledKeyException)
+				DEBUG.log("Key already cancelled");
+			else if (e instanceof SSLException)
+				DEBUG.log("SSL error " + e.getMessage());
+			else {
+				System.err.println("SONAR " + e.getMessage());
+				e.printStackTrace();
+			}
+			return true;
+		}
+	};
+
+	/** Get an optional integer property */
+	static private int getIntProp(Properties p, String k, int d)
+		throws ConfigurationError
+	{
+		return (p.getProperty(k) != null) ? Props.getIntProp(p, k) : d;
+	}
+
+	/** Get the number of output workers from properties */
+	static private int outWorkerCount(Properties p)
+		throws ConfigurationError
+	{
+		int n = getIntProp(p, "sonar.output.threads", OUT_WORKERS);
+		if (n < 1)
+			throw ConfigurationError.invalidInt("sonar.output.threads");
+		return n;
+	}
+
 	/** SONAR task debug log */
 	static private final DebugLog DEBUG_TASK = new DebugLog("sonar_task");
 
@@ -128,21 +168,23 @@ public class TaskProcessor {
 	private final SSLContext context;
 
 	/** Task processor worker */
-	private final Worker processor = new Worker("sonar_proc",
- 		new ExceptionHandler()
-	{
-		public boolean handle(Exception e) {
-			if (e instanceof CancelledKeyException)
-				DEBUG.log("Key already cancelled");
-			else if (e instanceof SSLException)
-				DEBUG.log("SSL error " + e.getMessage());
-			else {
-				System.err.println("SONAR " + e.getMessage());
-				e.printStackTrace();
-			}
-			return true;
-		}
-	});
+	private final Worker processor = new Worker("sonar_proc", HANDLER);
+
+	/** Output workers (encode / TLS wrap / flush per connection) */
+	private final Worker[] out_workers;
+
+	/** Flag to coalesce attribute changes on each connection */
+	private final boolean coalesce;
+
+	/** Limit of buffered outbound bytes for each connection (0 for no
+	 * limit).  Attribute changes are dropped past this limit, until the
+	 * client catches up and watched objects are refreshed. */
+	private final int out_limit;
+
+	/** Get the outbound buffer limit (bytes) for each connection */
+	int getOutputLimit() {
+		return out_limit;
+	}
 
 	/** Authenticator for user credentials */
 	private final Authenticator authenticator;
@@ -176,6 +218,28 @@ public class TaskProcessor {
 		if (url != null)
 			authenticator.setLdapProvider(new LdapProvider(url));
 		session_file = props.getProperty("sonar.session.file");
+		out_workers = new Worker[outWorkerCount(props)];
+		for (int i = 0; i < out_workers.length; i++)
+			out_workers[i] = new Worker("sonar_out_" + i, HANDLER);
+		coalesce = Boolean.parseBoolean(props.getProperty(
+			"sonar.coalesce"));
+		out_limit = getIntProp(props, "sonar.output.limit", 0);
+	}
+
+	/** Get the output worker for a connection.  All output for one
+	 * connection is performed on the same worker, in order. */
+	private Worker outWorker(ConnectionImpl c) {
+		int h = System.identityHashCode(c) & Integer.MAX_VALUE;
+		return out_workers[h % out_workers.length];
+	}
+
+	/** Log queue statistics for all task workers */
+	public void logQueueStats() {
+		if (DEBUG_QUEUE.isOpen()) {
+			DEBUG_QUEUE.log(processor.takeStats());
+			for (Worker w: out_workers)
+				DEBUG_QUEUE.log(w.takeStats());
+		}
 	}
 
 	/** Create SSL state */
@@ -318,7 +382,7 @@ public class TaskProcessor {
 
 	/** Flush outgoing data for one connection */
 	void flush(final ConnectionImpl c) {
-		processor.addWork(new TaskWork("Flush", c) {
+		outWorker(c).addWork(new TaskWork("Flush", c) {
 			protected void doPerform() {
 				c.flush();
 			}
@@ -428,28 +492,63 @@ public class TaskProcessor {
 	}
 
 	/** Notify all connections watching a name of an object add. */
-	private void notifyObject(SonarObject o) {
+	private void notifyObject(final SonarObject o) {
 		Name name = new Name(o);
-		for (ConnectionImpl c: getConnectionList())
-			c.notifyObject(name, o);
+		namespace.invalidateSnapshot(name);
+		for (final ConnectionImpl c: getConnectionList()) {
+			if (c.isWatchingObject(name)) {
+				outWorker(c).addWork(new TaskWork("Notify object",
+					c)
+				{
+					protected void doPerform() {
+						c.notifyObject(o);
+					}
+				});
+			}
+		}
 	}
 
 	/** Notify all connections watching a name of an attribute change. */
-	void notifyAttribute(Name name, String[] params) {
+	void notifyAttribute(final Name name, final String[] params) {
 		if (DEBUG_TASK.isOpen()) {
 			debugTask("Notify attribute", name.toString() + " (" +
 				processor.size() + ")");
 		}
+		namespace.invalidateSnapshot(name);
 		if (namespace.isGettable(name)) {
-			for (ConnectionImpl c: getConnectionList())
-				c.notifyAttribute(name, params);
+			final String n = name.toString();
+			for (final ConnectionImpl c: getConnectionList()) {
+				if (!c.isWatchingAttribute(name))
+					continue;
+				if (coalesce)
+					c.queueAttribute(n, params);
+				else {
+					outWorker(c).addWork(new TaskWork(
+						"Notify attribute", c)
+					{
+						protected void doPerform() {
+							c.notifyAttribute(name, params);
+						}
+					});
+				}
+			}
 		}
 	}
 
 	/** Notify all connections watching a name of an object remove. */
-	void notifyRemove(Name name) {
-		for (ConnectionImpl c: getConnectionList())
-			c.notifyRemove(name);
+	void notifyRemove(final Name name) {
+		namespace.invalidateSnapshot(name);
+		for (final ConnectionImpl c: getConnectionList()) {
+			if (c.checkRemove(name)) {
+				outWorker(c).addWork(new TaskWork("Notify remove",
+					c)
+				{
+					protected void doPerform() {
+						c.notifyRemove(name);
+					}
+				});
+			}
+		}
 	}
 
 	/** Schedule an object to be added to the server's namespace */
@@ -1,6 +1,6 @@
 /*
  * SONAR -- Simple Object Notification And Replication
- * Copyright (C) 2006-2024  Minnesota Department of Transportation
+ * Copyright (C) 2006-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -18,6 +18,7 @@ import java.io.IOException;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import us.mn.state.dot.sonar.Message;
 import us.mn.state.dot.sonar.MessageEncoder;
 import us.mn.state.dot.sonar.Name;
@@ -53,6 +54,17 @@ public class TypeNode {
 	/** An attribute dispatcher can set and get attributes on objects */
 	private final AttributeDispatcher dispatcher;
 
+	/** Snapshots of encoded objects, for fast enumeration.  Each one
+	 * contains all messages from enumerateObject, as UTF-8 bytes. */
+	private final ConcurrentHashMap<String, byte[]> snapshots =
+		new ConcurrentHashMap<String, byte[]>(INITIAL_CAPACITY,
+		0.75f, 1);
+
+	/** Snapshot version, incremented on every invalidation.  This
+	 * prevents storing a snapshot encoded before an invalidation.
+	 * Protected by snapshots lock for updates. */
+	private final AtomicLong snap_version = new AtomicLong();
+
 	/** Create a namespace type node */
 	public TypeNode(Namespace ns, Class c)
 		throws NoSuchFieldException, IllegalAccessException
@@ -98,6 +110,7 @@ public class TypeNode {
 			SonarObject obj = children.remove(n);
 			if (obj == null)
 				throw NamespaceError.nameUnknown(n);
+			invalidateSnapshot(n);
 			if (obj != o)
 				throw NamespaceError.nameExists(n);
 			try {
@@ -120,6 +133,11 @@ public class TypeNode {
 		return dispatcher.isGettable(a);
 	}
 
+	/** Get an array of gettable attributes */
+	public String[] getGettableAttributes() {
+		return dispatcher.getGettableAttributes();
+	}
+
 	/** Get the value of an attribute */
 	public String[] getValue(SonarObject o, String a)
 		throws SonarException
@@ -136,7 +154,8 @@ public class TypeNode {
 		for (String a: dispatcher.getGettableAttributes()) {
 			String[] v = getValue(o, a);
 			if (first) {
-				a = new Name(o, a).toString();
+				// Absolute name without parsing a Name
+				a = tname + Name.SEP + o.getName() + Name.SEP + a;
 				first = false;
 			}
 			enc.encode(Message.ATTRIBUTE, a, v);
@@ -146,15 +165,46 @@ public class TypeNode {
 		enc.encode(Message.OBJECT, o.getName());
 	}
 
-	/** Enumerate all the objects of the type node */
+	/** Enumerate all the objects of the type node.  Encoded snapshots
+	 * are used for objects which have not changed since last encoded, so
+	 * there is no need to lock the children map. */
 	public void enumerateObjects(MessageEncoder enc) throws SonarException,
 		IOException
 	{
-		// We must synchronize here to ensure that no objects are
-		// added or removed while enumerating
-		synchronized (children) {
-			for (SonarObject o: children.values())
-				enumerateObject(enc, o);
+		MessageEncoder scratch = null;
+		for (SonarObject o: children.values()) {
+			byte[] data = snapshots.get(o.getName());
+			if (data == null) {
+				if (scratch == null)
+					scratch = new MessageEncoder(0);
+				data = createSnapshot(scratch, o);
+			}
+			enc.write(data);
+		}
+	}
+
+	/** Create an encoded snapshot of an object */
+	private byte[] createSnapshot(MessageEncoder scratch, SonarObject o)
+		throws SonarException, IOException
+	{
+		long v = snap_version.get();
+		enumerateObject(scratch, o);
+		byte[] data = scratch.takeBytes();
+		synchronized (snapshots) {
+			// Don't store if invalidated while encoding
+			if (snap_version.get() == v &&
+			    children.get(o.getName()) == o)
+				snapshots.put(o.getName(), data);
+		}
+		return data;
+	}
+
+	/** Invalidate the encoded snapshot of an object.
+	 * @param n Object name. */
+	public void invalidateSnapshot(String n) {
+		synchronized (snapshots) {
+			snap_version.incrementAndGet();
+			snapshots.remove(n);
 		}
 	}
 
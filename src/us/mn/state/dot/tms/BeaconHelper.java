@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2009-2014  Minnesota Department of Transportation
+ * Copyright (C) 2009-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -14,6 +14,7 @@
  */
 package us.mn.state.dot.tms;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 
 /**
@@ -34,6 +35,11 @@ public class BeaconHelper extends BaseHelper {
 			Beacon.SONAR_TYPE));
 	}
 
+	/** Find all beacons with a hashtag */
+	static public ArrayList<Beacon> findByHashtag(String ht) {
+		return HashtagIndex.find(Beacon.SONAR_TYPE, ht, iterator());
+	}
+
 	/** Lookup the beacon with the specified name */
 	static public Beacon lookup(String name) {
 		return (Beacon)namespace.lookupObject(Beacon.SONAR_TYPE, name);
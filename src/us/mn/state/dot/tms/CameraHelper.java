@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2009-2020  Minnesota Department of Transportation
+ * Copyright (C) 2009-2026  Minnesota Department of Transportation
  * Copyright (C) 2014-2015  AHMCT, University of California
  * Copyright (C) 2024       SRF Consulting Group
  *
@@ -18,6 +18,7 @@ package us.mn.state.dot.tms;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.TreeMap;
@@ -70,6 +71,11 @@ public class CameraHelper extends BaseHelper {
 			Camera.SONAR_TYPE));
 	}
 
+	/** Find all cameras with a hashtag */
+	static public ArrayList<Camera> findByHashtag(String ht) {
+		return HashtagIndex.find(Camera.SONAR_TYPE, ht, iterator());
+	}
+
 	/** Find the nearest cameras to a position */
 	static public Collection<Camera> findNearest(Position pos, int n_count){
 		TreeMap<Double, Camera> cams = new TreeMap<Double, Camera>();
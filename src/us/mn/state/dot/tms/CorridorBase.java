@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2007-2022  Minnesota Department of Transportation
+ * Copyright (C) 2007-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -534,6 +534,22 @@ public class CorridorBase<T extends R_Node> implements Iterable<T> {
 		return null;
 	}
 
+	/** Check if a segment can be snapped for a lane code.
+	 * @param lc Lane code (MAINLINE, EXIT, MERGE or CD_LANE).
+	 * @param np Segment start node.
+	 * @param n Segment end node. */
+	public boolean isSnapSegment(LaneCode lc, R_Node np, R_Node n) {
+		switch (lc) {
+		case EXIT:
+		case MERGE:
+		case MAINLINE:
+		case CD_LANE:
+			return checkLaneCode(lc) && isSegmentValid(lc, np, n);
+		default:
+			return false;
+		}
+	}
+
 	/** Check if the road class is a CD road */
 	private boolean isCDRoad() {
 		return RoadClass.CD_ROAD == RoadClass.fromOrdinal(
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2008-2024  Minnesota Department of Transportation
+ * Copyright (C) 2008-2026  Minnesota Department of Transportation
  * Copyright (C) 2009-2010  AHMCT, University of California
  * Copyright (C) 2021  Iteris Inc.
  *
@@ -17,6 +17,7 @@
 package us.mn.state.dot.tms;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.Set;
 import java.util.TreeSet;
@@ -56,6 +57,11 @@ public class DMSHelper extends BaseHelper {
 			DMS.SONAR_TYPE));
 	}
 
+	/** Find all DMS with a hashtag */
+	static public ArrayList<DMS> findByHashtag(String ht) {
+		return HashtagIndex.find(DMS.SONAR_TYPE, ht, iterator());
+	}
+
 	/** Check if a DMS is hidden (#Hidden hashtag) */
 	static public boolean isHidden(DMS dms) {
 		return new Hashtags(dms.getNotes()).contains("#Hidden");
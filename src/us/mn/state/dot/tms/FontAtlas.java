@@ -0,0 +1,346 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2026  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import us.mn.state.dot.tms.utils.Base64;
+
+/**
+ * A font atlas indexes fonts and graphics by number, and glyphs by code
+ * point, with pixel data already decoded.  An atlas is immutable; a new
+ * one is built when a font, glyph or graphic changes.
+ *
+ * Bitmaps, pixel data and rasters from the atlas are shared, and must not
+ * be modified.
+ *
+ * @author Douglas Lau
+ */
+public final class FontAtlas {
+
+	/** Version, incremented when a font, glyph or graphic changes */
+	static private final AtomicInteger VERSION = new AtomicInteger();
+
+	/** Current atlas */
+	static private volatile FontAtlas atlas;
+
+	/** Invalidate the current atlas.  This must be called when a font,
+	 * glyph or graphic is changed. */
+	static public void invalidate() {
+		VERSION.incrementAndGet();
+	}
+
+	/** Get the atlas version.  This changes whenever the atlas is
+	 * invalidated. */
+	static public int getVersion() {
+		return VERSION.get();
+	}
+
+	/** Get the current atlas, building a new one if needed.
+	 * @return Font atlas, or null if there is no namespace. */
+	static public FontAtlas get() {
+		FontAtlas a = atlas;
+		return (a != null && a.isValid()) ? a : build();
+	}
+
+	/** Build a new atlas */
+	static private synchronized FontAtlas build() {
+		FontAtlas a = atlas;
+		if (a != null && a.isValid())
+			return a;
+		if (null == BaseHelper.namespace)
+			return null;
+		a = new FontAtlas(VERSION.get());
+		atlas = a;
+		return a;
+	}
+
+	/** Glyphs of one font, indexed by code point */
+	static public final class Glyphs {
+
+		/** Glyph of each code point (null for undefined) */
+		private final Glyph[] glyph;
+
+		/** Width of each code point */
+		private final int[] width;
+
+		/** Decoded pixel data of each code point */
+		private final byte[][] data;
+
+		/** Bitmap of each code point */
+		private final BitmapGraphic[] bitmap;
+
+		/** Create glyphs for a font */
+		private Glyphs(Font f, ArrayList<Glyph> gl) {
+			int n = 0;
+			for (Glyph g: gl)
+				n = Math.max(n, g.getCodePoint() + 1);
+			glyph = new Glyph[n];
+			width = new int[n];
+			data = new byte[n][];
+			bitmap = new BitmapGraphic[n];
+			int h = f.getHeight();
+			for (Glyph g: gl) {
+				int cp = g.getCodePoint();
+				if (cp >= 0 && null == glyph[cp]) {
+					glyph[cp] = g;
+					width[cp] = g.getWidth();
+					data[cp] = decode(g);
+					bitmap[cp] = createBitmap(width[cp], h,
+						data[cp]);
+				}
+			}
+		}
+
+		/** Decode glyph pixel data */
+		static private byte[] decode(Glyph g) {
+			try {
+				return Base64.decode(g.getPixels());
+			}
+			catch (IOException e) {
+				return null;
+			}
+		}
+
+		/** Create a glyph bitmap */
+		static private BitmapGraphic createBitmap(int w, int h,
+			byte[] p)
+		{
+			if (null == p)
+				return null;
+			try {
+				BitmapGraphic bg = new BitmapGraphic(w, h);
+				bg.setPixelData(p);
+				return bg;
+			}
+			catch (IndexOutOfBoundsException e) {
+				// pixel data was wrong length
+				return null;
+			}
+		}
+
+		/** Check if a code point is valid */
+		private boolean isValid(int cp) {
+			return cp >= 0
+			    && cp < glyph.length
+			    && glyph[cp] != null;
+		}
+
+		/** Get the glyph for a code point.
+		 * @return Glyph, or null if not defined. */
+		public Glyph getGlyph(int cp) {
+			return isValid(cp) ? glyph[cp] : null;
+		}
+
+		/** Get the width of a code point.
+		 * @return Width in pixels, or -1 if not defined. */
+		public int getWidth(int cp) {
+			return isValid(cp) ? width[cp] : -1;
+		}
+
+		/** Get the decoded pixel data of a code point.
+		 * @return Pixel data, or null if not defined or invalid. */
+		public byte[] getPixels(int cp) {
+			return isValid(cp) ? data[cp] : null;
+		}
+
+		/** Get the bitmap of a code point.
+		 * @return Bitmap, or null if not defined or invalid. */
+		public BitmapGraphic getBitmap(int cp) {
+			return isValid(cp) ? bitmap[cp] : null;
+		}
+
+		/** Get all glyphs, in code point order */
+		public ArrayList<Glyph> getAll() {
+			ArrayList<Glyph> gl = new ArrayList<Glyph>();
+			for (Glyph g: glyph) {
+				if (g != null)
+					gl.add(g);
+			}
+			return gl;
+		}
+
+		/** Calculate the width of a span of text.
+		 * @param t Text to calculate.
+		 * @param cs Character spacing.
+		 * @return Width in pixels of text,
+		 *         or -1 if the font is missing a character. */
+		public int calculateWidth(String t, int cs) {
+			int w = 0;
+			for (int i = 0; i < t.length(); i++) {
+				if (i > 0)
+					w += cs;
+				int gw = getWidth(t.charAt(i));
+				if (gw >= 0)
+					w += gw;
+				else
+					return -1;
+			}
+			return w;
+		}
+	}
+
+	/** Version of the atlas */
+	private final int version;
+
+	/** Count of fonts in namespace */
+	private final int n_fonts;
+
+	/** Count of glyphs in namespace */
+	private final int n_glyphs;
+
+	/** Count of graphics in namespace */
+	private final int n_graphics;
+
+	/** Fonts indexed by number */
+	private final Font[] fonts;
+
+	/** Glyphs of each font */
+	private final IdentityHashMap<Font, Glyphs> glyphs =
+		new IdentityHashMap<Font, Glyphs>();
+
+	/** Graphics indexed by number */
+	private final Graphic[] graphics;
+
+	/** Decoded graphic rasters, by name (decoded when first used) */
+	private final ConcurrentHashMap<String, RasterGraphic> rasters =
+		new ConcurrentHashMap<String, RasterGraphic>();
+
+	/** Create a new font atlas */
+	private FontAtlas(int v) {
+		version = v;
+		n_fonts = getCount(Font.SONAR_TYPE);
+		n_glyphs = getCount(Glyph.SONAR_TYPE);
+		n_graphics = getCount(Graphic.SONAR_TYPE);
+		fonts = indexFonts();
+		graphics = indexGraphics();
+		IdentityHashMap<Font, ArrayList<Glyph>> fg =
+			new IdentityHashMap<Font, ArrayList<Glyph>>();
+		Iterator<Glyph> it = GlyphHelper.iterator();
+		while (it.hasNext()) {
+			Glyph g = it.next();
+			Font f = g.getFont();
+			if (f != null) {
+				ArrayList<Glyph> gl = fg.get(f);
+				if (null == gl) {
+					gl = new ArrayList<Glyph>();
+					fg.put(f, gl);
+				}
+				gl.add(g);
+			}
+		}
+		for (Font f: fg.keySet())
+			glyphs.put(f, new Glyphs(f, fg.get(f)));
+	}
+
+	/** Get the count of objects of one type in the namespace */
+	static private int getCount(String tname) {
+		return BaseHelper.namespace.getCount(tname);
+	}
+
+	/** Index all fonts by number */
+	static private Font[] indexFonts() {
+		ArrayList<Font> fl = new ArrayList<Font>();
+		Iterator<Font> it = FontHelper.iterator();
+		while (it.hasNext()) {
+			Font f = it.next();
+			int n = f.getNumber();
+			if (n >= 0) {
+				while (fl.size() <= n)
+					fl.add(null);
+				if (null == fl.get(n))
+					fl.set(n, f);
+			}
+		}
+		return fl.toArray(new Font[0]);
+	}
+
+	/** Index all graphics by number */
+	static private Graphic[] indexGraphics() {
+		ArrayList<Graphic> gl = new ArrayList<Graphic>();
+		Iterator<Graphic> it = GraphicHelper.iterator();
+		while (it.hasNext()) {
+			Graphic g = it.next();
+			int n = g.getGNumber();
+			if (n >= 0) {
+				while (gl.size() <= n)
+					gl.add(null);
+				if (null == gl.get(n))
+					gl.set(n, g);
+			}
+		}
+		return gl.toArray(new Graphic[0]);
+	}
+
+	/** Check if the atlas is still valid.  Object counts are checked as
+	 * well as the version, in case an object was added to or removed
+	 * from the namespace after the version was updated. */
+	private boolean isValid() {
+		return version == VERSION.get()
+		    && BaseHelper.namespace != null
+		    && n_fonts == getCount(Font.SONAR_TYPE)
+		    && n_glyphs == getCount(Glyph.SONAR_TYPE)
+		    && n_graphics == getCount(Graphic.SONAR_TYPE);
+	}
+
+	/** Lookup a font by number.
+	 * @return Font, or null if not found. */
+	public Font lookupFont(int f_num) {
+		return (f_num >= 0 && f_num < fonts.length)
+		      ? fonts[f_num]
+		      : null;
+	}
+
+	/** Get all fonts, in number order */
+	public ArrayList<Font> getFonts() {
+		ArrayList<Font> fl = new ArrayList<Font>();
+		for (Font f: fonts) {
+			if (f != null)
+				fl.add(f);
+		}
+		return fl;
+	}
+
+	/** Lookup the glyphs of a font.
+	 * @return Glyphs of font, or null if font has no glyphs. */
+	public Glyphs lookupGlyphs(Font f) {
+		return (f != null) ? glyphs.get(f) : null;
+	}
+
+	/** Lookup a graphic by number.
+	 * @return Graphic, or null if not found. */
+	public Graphic lookupGraphic(int g_num) {
+		return (g_num >= 0 && g_num < graphics.length)
+		      ? graphics[g_num]
+		      : null;
+	}
+
+	/** Lookup the decoded raster of a graphic.
+	 * @return Raster graphic, or null if pixel data is invalid. */
+	public RasterGraphic lookupRaster(Graphic g) {
+		String n = g.getName();
+		RasterGraphic rg = rasters.get(n);
+		if (null == rg) {
+			rg = GraphicHelper.createRaster(g);
+			if (rg != null)
+				rasters.put(n, rg);
+		}
+		return rg;
+	}
+}
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2008-2023  Minnesota Department of Transportation
+ * Copyright (C) 2008-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -49,15 +49,8 @@ public class FontHelper extends BaseHelper {
 
 	/** Find a font using a font number */
 	static public Font find(int f_num) {
-		if (namespace != null) {
-			Iterator<Font> it = iterator();
-			while (it.hasNext()) {
-				Font f = it.next();
-				if (f.getNumber() == f_num)
-					return f;
-			}
-		}
-		return null;
+		FontAtlas atlas = FontAtlas.get();
+		return (atlas != null) ? atlas.lookupFont(f_num) : null;
 	}
 
 	/** Fint the lowest unused font number */
@@ -79,24 +72,25 @@ public class FontHelper extends BaseHelper {
 	/** Lookup the glyphs in the specified font */
 	static public Map<Integer, Glyph> lookupGlyphs(Font font) {
 		TreeMap<Integer, Glyph> glyphs = new TreeMap<Integer, Glyph>();
-		Iterator<Glyph> it = GlyphHelper.iterator();
-		while (it.hasNext()) {
-			Glyph g = it.next();
-			if (g.getFont() == font)
+		FontAtlas.Glyphs fg = lookupAtlas(font);
+		if (fg != null) {
+			for (Glyph g: fg.getAll())
 				glyphs.put(g.getCodePoint(), g);
 		}
 		return glyphs;
 	}
 
+	/** Lookup the atlas glyphs of the specified font.
+	 * @return Glyphs of the font, or null if it has none. */
+	static public FontAtlas.Glyphs lookupAtlas(Font font) {
+		FontAtlas atlas = FontAtlas.get();
+		return (atlas != null) ? atlas.lookupGlyphs(font) : null;
+	}
+
 	/** Lookup a glyph in the specified font */
 	static public Glyph lookupGlyph(Font font, int cp) {
-		Iterator<Glyph> it = GlyphHelper.iterator();
-		while (it.hasNext()) {
-			Glyph g = it.next();
-			if (g.getFont() == font && g.getCodePoint() == cp)
-				return g;
-		}
-		return null;
+		FontAtlas.Glyphs fg = lookupAtlas(font);
+		return (fg != null) ? fg.getGlyph(cp) : null;
 	}
 
 	/** Calculate the width of a span of text.
@@ -115,17 +109,10 @@ public class FontHelper extends BaseHelper {
 	 * @return Width in pixels of text,
 	 *         or -1 if the font is missing a character. */
 	static public int calculateWidth(Font font, String t, int cs) {
-		int w = 0;
-		for (int i = 0; i < t.length(); i++) {
-			if (i > 0)
-				w += cs;
-			int cp = t.charAt(i);
-			Glyph g = lookupGlyph(font, cp);
-			if (g != null)
-				w += g.getWidth();
-			else
-				return -1;
-		}
-		return w;
+		FontAtlas.Glyphs fg = lookupAtlas(font);
+		if (fg != null)
+			return fg.calculateWidth(t, cs);
+		else
+			return t.isEmpty() ? 0 : -1;
 	}
 }
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2013-2018  Minnesota Department of Transportation
+ * Copyright (C) 2013-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -41,6 +41,21 @@ public class GlyphHelper extends BaseHelper {
 			Glyph.SONAR_TYPE));
 	}
 
+	/** Decode the pixel data of a glyph.  Data from the font atlas is
+	 * shared, and must not be modified.
+	 * @param g Glyph to decode.
+	 * @return Decoded pixel data. */
+	static public byte[] decodePixels(Glyph g) throws IOException {
+		FontAtlas.Glyphs fg = FontHelper.lookupAtlas(g.getFont());
+		int cp = g.getCodePoint();
+		if (fg != null && fg.getGlyph(cp) == g) {
+			byte[] p = fg.getPixels(cp);
+			if (p != null)
+				return p;
+		}
+		return Base64.decode(g.getPixels());
+	}
+
 	/** Create a bitmap graphic of a glyph */
 	static public BitmapGraphic createBitmap(Glyph g) {
 		try {
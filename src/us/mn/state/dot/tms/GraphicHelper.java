@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2009-2022  Minnesota Department of Transportation
+ * Copyright (C) 2009-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -46,13 +46,18 @@ public class GraphicHelper extends BaseHelper {
 
 	/** Find a graphic using a graphic number */
 	static public Graphic find(int g_num) {
-		Iterator<Graphic> it = iterator();
-		while (it.hasNext()) {
-			Graphic g = it.next();
-			if (g.getGNumber() == g_num)
-				return g;
-		}
-		return null;
+		FontAtlas atlas = FontAtlas.get();
+		return (atlas != null) ? atlas.lookupGraphic(g_num) : null;
+	}
+
+	/** Lookup the decoded raster of a graphic.  The raster is shared,
+	 * and must not be modified.
+	 * @return Raster graphic, or null if pixel data is invalid. */
+	static public RasterGraphic lookupRaster(Graphic g) {
+		FontAtlas atlas = FontAtlas.get();
+		return (atlas != null)
+		      ? atlas.lookupRaster(g)
+		      : createRaster(g);
 	}
 
 	/** Create a raster graphic */
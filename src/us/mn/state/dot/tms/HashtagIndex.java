@@ -0,0 +1,125 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2026  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.TreeMap;
+
+/**
+ * Index of device hashtags.  For each device type, this maps each
+ * hashtag (in lower case) to the devices with that tag in their notes.
+ * The server keeps the index up to date as notes change; elsewhere, the
+ * find method checks the notes of every device instead.
+ *
+ * @author Douglas Lau
+ */
+public class HashtagIndex {
+
+	/** Flag indicating the index is maintained */
+	static private boolean enabled = false;
+
+	/** Devices by type name, then hashtag, then device name */
+	static private final HashMap<String, HashMap<String,
+		TreeMap<String, Device>>> types = new HashMap<String,
+		HashMap<String, TreeMap<String, Device>>>();
+
+	/** Disallow instantiation */
+	private HashtagIndex() {
+		assert false;
+	}
+
+	/** Enable the index.  This must be called before any devices are
+	 * loaded. */
+	static public synchronized void enable() {
+		enabled = true;
+	}
+
+	/** Get the key for a hashtag */
+	static private String tagKey(String ht) {
+		return ht.toLowerCase();
+	}
+
+	/** Update the hashtags of a device.
+	 * @param d Device.
+	 * @param old_notes Old notes (null if device was not indexed).
+	 * @param notes New notes (null to remove device). */
+	static public synchronized void update(Device d, String old_notes,
+		String notes)
+	{
+		if (!enabled)
+			return;
+		HashMap<String, TreeMap<String, Device>> tags =
+			types.get(d.getTypeName());
+		if (null == tags) {
+			tags = new HashMap<String, TreeMap<String, Device>>();
+			types.put(d.getTypeName(), tags);
+		}
+		for (String ht: new Hashtags(old_notes).tags()) {
+			String key = tagKey(ht);
+			TreeMap<String, Device> devs = tags.get(key);
+			if (devs != null) {
+				devs.remove(d.getName());
+				if (devs.isEmpty())
+					tags.remove(key);
+			}
+		}
+		for (String ht: new Hashtags(notes).tags()) {
+			String key = tagKey(ht);
+			TreeMap<String, Device> devs = tags.get(key);
+			if (null == devs) {
+				devs = new TreeMap<String, Device>();
+				tags.put(key, devs);
+			}
+			devs.put(d.getName(), d);
+		}
+	}
+
+	/** Find all devices of one type with a hashtag.
+	 * @param tname Device type name.
+	 * @param ht Hashtag to find.
+	 * @param it Iterator of all devices of the type, checked if the
+	 *           index is not enabled.
+	 * @return List of devices with the hashtag. */
+	@SuppressWarnings("unchecked")
+	static public <T extends Device> ArrayList<T> find(String tname,
+		String ht, Iterator<T> it)
+	{
+		ArrayList<T> found = new ArrayList<T>();
+		if (null == ht)
+			return found;
+		synchronized (HashtagIndex.class) {
+			if (enabled) {
+				HashMap<String, TreeMap<String, Device>> tags =
+					types.get(tname);
+				TreeMap<String, Device> devs = (tags != null)
+					? tags.get(tagKey(ht))
+					: null;
+				if (devs != null) {
+					for (Device d: devs.values())
+						found.add((T) d);
+				}
+				return found;
+			}
+		}
+		while (it.hasNext()) {
+			T d = it.next();
+			if (new Hashtags(d.getNotes()).contains(ht))
+				found.add(d);
+		}
+		return found;
+	}
+}
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2009-2024  Minnesota Department of Transportation
+ * Copyright (C) 2009-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -14,6 +14,7 @@
  */
 package us.mn.state.dot.tms;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 
 /**
@@ -39,4 +40,10 @@ public class LaneMarkingHelper extends BaseHelper {
 		return new IteratorWrapper<LaneMarking>(namespace.iterator(
 			LaneMarking.SONAR_TYPE));
 	}
+
+	/** Find all lane markings with a hashtag */
+	static public ArrayList<LaneMarking> findByHashtag(String ht) {
+		return HashtagIndex.find(LaneMarking.SONAR_TYPE, ht,
+			iterator());
+	}
 }
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2009-2022  Minnesota Department of Transportation
+ * Copyright (C) 2009-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -14,6 +14,7 @@
  */
 package us.mn.state.dot.tms;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import us.mn.state.dot.tms.utils.I18N;
 
@@ -41,6 +42,11 @@ public class RampMeterHelper extends BaseHelper {
 			RampMeter.SONAR_TYPE));
 	}
 
+	/** Find all ramp meters with a hashtag */
+	static public ArrayList<RampMeter> findByHashtag(String ht) {
+		return HashtagIndex.find(RampMeter.SONAR_TYPE, ht, iterator());
+	}
+
 	/** Lookup the police panel pin for a ramp meter */
 	static public Integer lookupPolicePanelPin(RampMeter meter) {
 		CabinetStyle cs = lookupCabinetStyle(meter);
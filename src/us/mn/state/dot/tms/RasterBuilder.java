@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2008-2024  Minnesota Department of Transportation
+ * Copyright (C) 2008-2026  Minnesota Department of Transportation
  * Copyright (C) 2009-2010  AHMCT, University of California
  *
  * This program is free software; you can redistribute it and/or modify
@@ -32,6 +32,9 @@ import us.mn.state.dot.tms.utils.MultiSyntaxError;
  */
 public class RasterBuilder {
 
+	/** Cache of rendering results for all raster builders */
+	static public final RasterCache CACHE = new RasterCache(1024);
+
 	/** Pixel width of sign */
 	public final int width;
 
@@ -101,9 +104,39 @@ public class RasterBuilder {
 		return SignMessage.MAX_LINES;
 	}
 
-	/** Render a BitmapGraphic for each page */
+	/** Get the cache key for a MULTI string */
+	private String cacheKey(String ms) {
+		return width + "x" + height + '/' + c_width + "x" + c_height +
+			'/' + default_font + '/' + scheme.ordinal() + '/' + ms;
+	}
+
+	/** Render a BitmapGraphic for each page.  Results are cached; the
+	 * bitmaps returned are copies, and can be modified. */
 	public BitmapGraphic[] createBitmaps(MultiString ms)
 		throws InvalidMsgException
+	{
+		RasterCache.Entry e = CACHE.lookup(cacheKey(ms.toString()));
+		if (null == e)
+			return renderBitmaps(ms);
+		boolean hit = e.hasBitmaps();
+		CACHE.count(hit);
+		if (!hit) {
+			try {
+				e.setBitmaps(renderBitmaps(ms));
+			}
+			catch (InvalidMsgException ex) {
+				e.setError(ex);
+			}
+			catch (IndexOutOfBoundsException ex) {
+				e.setError(ex);
+			}
+		}
+		return e.getBitmaps();
+	}
+
+	/** Render a BitmapGraphic for each page */
+	private BitmapGraphic[] renderBitmaps(MultiString ms)
+		throws InvalidMsgException
 	{
 		final ArrayList<BitmapGraphic> bitmaps =
 			new ArrayList<BitmapGraphic>();
@@ -119,10 +152,24 @@ public class RasterBuilder {
 		return bitmaps.toArray(new BitmapGraphic[0]);
 	}
 
-	/** Check if a MULTI string is rasterizable */
+	/** Check if a MULTI string is rasterizable.  Results are cached. */
 	public boolean isRasterizable(String ms) {
 		if (ms == null)
 			return false;
+		RasterCache.Entry e = CACHE.lookup(cacheKey(ms));
+		if (null == e)
+			return checkRasterizable(ms);
+		Boolean r = e.getRasterizable();
+		CACHE.count(r != null);
+		if (null == r) {
+			r = checkRasterizable(ms);
+			e.setRasterizable(r);
+		}
+		return r;
+	}
+
+	/** Check if a MULTI string is rasterizable */
+	private boolean checkRasterizable(String ms) {
 		try {
 			return createPixmaps(new MultiString(ms)) != null;
 		}
@@ -0,0 +1,160 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2026  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A raster cache keeps rendering results for MULTI strings, so signs which
+ * share a configuration do not render the same message again.  Entries are
+ * keyed by raster builder parameters (sign dimensions, default font and
+ * color scheme) and MULTI string.  The least recently used entries are
+ * dropped when the cache is full.  All entries are discarded when the font
+ * atlas changes (a font, glyph or graphic was changed).
+ *
+ * @author Douglas Lau
+ */
+public final class RasterCache {
+
+	/** One cache entry.  Results are filled in when first needed. */
+	static final class Entry {
+
+		/** Rasterizable flag (null if not checked) */
+		private Boolean rasterizable;
+
+		/** Page bitmaps (null if not rendered, or on error) */
+		private BitmapGraphic[] bitmaps;
+
+		/** Error rendering bitmaps (invalid message or out of
+		 * bounds) */
+		private Exception error;
+
+		/** Get rasterizable flag.
+		 * @return Rasterizable flag, or null if not checked. */
+		synchronized Boolean getRasterizable() {
+			return rasterizable;
+		}
+
+		/** Set rasterizable flag */
+		synchronized void setRasterizable(boolean r) {
+			rasterizable = r;
+		}
+
+		/** Check if bitmaps have been rendered (or failed) */
+		synchronized boolean hasBitmaps() {
+			return bitmaps != null || error != null;
+		}
+
+		/** Get copies of page bitmaps.
+		 * @throws InvalidMsgException if message is not valid. */
+		synchronized BitmapGraphic[] getBitmaps()
+			throws InvalidMsgException
+		{
+			if (error instanceof InvalidMsgException)
+				throw (InvalidMsgException) error;
+			if (error instanceof IndexOutOfBoundsException)
+				throw (IndexOutOfBoundsException) error;
+			BitmapGraphic[] pages = new BitmapGraphic[
+				bitmaps.length];
+			for (int i = 0; i < pages.length; i++) {
+				BitmapGraphic bg = bitmaps[i].createBlankCopy();
+				bg.setPixelData(bitmaps[i].getPixelData());
+				pages[i] = bg;
+			}
+			return pages;
+		}
+
+		/** Set page bitmaps (the array must not be modified later) */
+		synchronized void setBitmaps(BitmapGraphic[] b) {
+			bitmaps = b;
+			error = null;
+		}
+
+		/** Set error rendering bitmaps */
+		synchronized void setError(Exception e) {
+			bitmaps = null;
+			error = e;
+		}
+	}
+
+	/** Maximum number of entries */
+	private final int max_entries;
+
+	/** Cache entries, in access order */
+	private final LinkedHashMap<String, Entry> entries;
+
+	/** Font atlas of cached entries */
+	private FontAtlas atlas;
+
+	/** Count of cache hits */
+	private int n_hits = 0;
+
+	/** Count of cache misses */
+	private int n_misses = 0;
+
+	/** Create a new raster cache.
+	 * @param max Maximum number of entries. */
+	public RasterCache(int max) {
+		max_entries = max;
+		entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+			protected boolean removeEldestEntry(
+				Map.Entry<String, Entry> eldest)
+			{
+				return size() > max_entries;
+			}
+		};
+	}
+
+	/** Lookup an entry, creating it if needed.
+	 * @param key Cache key.
+	 * @return Cache entry, or null if there is no font atlas. */
+	Entry lookup(String key) {
+		FontAtlas a = FontAtlas.get();
+		if (null == a)
+			return null;
+		synchronized (this) {
+			if (a != atlas) {
+				entries.clear();
+				atlas = a;
+			}
+			Entry e = entries.get(key);
+			if (null == e) {
+				e = new Entry();
+				entries.put(key, e);
+			}
+			return e;
+		}
+	}
+
+	/** Count a cache hit or miss */
+	synchronized void count(boolean hit) {
+		if (hit)
+			n_hits++;
+		else
+			n_misses++;
+	}
+
+	/** Take cache statistics (and reset counts) */
+	public synchronized String takeStats() {
+		int n = n_hits + n_misses;
+		int pct = (n > 0) ? Math.round(100f * n_hits / n) : 0;
+		String s = "entries: " + entries.size() + ", hits: " + n_hits +
+			", misses: " + n_misses + ", hit rate: " + pct + "%";
+		n_hits = 0;
+		n_misses = 0;
+		return s;
+	}
+}
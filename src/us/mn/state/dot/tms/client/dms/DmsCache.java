@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2009-2024  Minnesota Department of Transportation
+ * Copyright (C) 2009-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -18,6 +18,7 @@ import us.mn.state.dot.sonar.client.TypeCache;
 import us.mn.state.dot.tms.DMS;
 import us.mn.state.dot.tms.Font;
 import us.mn.state.dot.tms.Glyph;
+import us.mn.state.dot.tms.Graphic;
 import us.mn.state.dot.tms.MsgPattern;
 import us.mn.state.dot.tms.MsgLine;
 import us.mn.state.dot.tms.SignConfig;
@@ -116,6 +117,10 @@ public class DmsCache {
 		font_model = new ProxyListModel<Font>(fonts);
 		font_model.initialize();
 		glyphs = new TypeCache<Glyph>(Glyph.class, client);
+		fonts.addProxyListener(new FontAtlasListener<Font>());
+		glyphs.addProxyListener(new FontAtlasListener<Glyph>());
+		client.getGraphics().addProxyListener(
+			new FontAtlasListener<Graphic>());
 		sign_configs = new TypeCache<SignConfig>(SignConfig.class,
 			client);
 		sign_details = new TypeCache<SignDetail>(SignDetail.class,
@@ -0,0 +1,53 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2026  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms.client.dms;
+
+import us.mn.state.dot.sonar.SonarObject;
+import us.mn.state.dot.sonar.client.ProxyListener;
+import us.mn.state.dot.tms.FontAtlas;
+
+/**
+ * Proxy listener which invalidates the font atlas when a font, glyph or
+ * graphic proxy changes.
+ *
+ * @author Douglas Lau
+ */
+public class FontAtlasListener<T extends SonarObject>
+	implements ProxyListener<T>
+{
+	/** Invalidate the font atlas on proxy added */
+	@Override
+	public void proxyAdded(T proxy) {
+		FontAtlas.invalidate();
+	}
+
+	/** Enumeration complete */
+	@Override
+	public void enumerationComplete() {
+		FontAtlas.invalidate();
+	}
+
+	/** Invalidate the font atlas on proxy removed */
+	@Override
+	public void proxyRemoved(T proxy) {
+		FontAtlas.invalidate();
+	}
+
+	/** Invalidate the font atlas on proxy changed */
+	@Override
+	public void proxyChanged(T proxy, String a) {
+		FontAtlas.invalidate();
+	}
+}
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2009-2024  Minnesota Department of Transportation
+ * Copyright (C) 2009-2026  Minnesota Department of Transportation
  * Copyright (C) 2018  Iteris Inc.
  *
  * This program is free software; you can redistribute it and/or modify
@@ -32,7 +32,6 @@ import us.mn.state.dot.tms.DMSHelper;
 import us.mn.state.dot.tms.DeviceAction;
 import us.mn.state.dot.tms.DeviceActionHelper;
 import us.mn.state.dot.tms.EventType;
-import us.mn.state.dot.tms.Hashtags;
 import us.mn.state.dot.tms.LaneMarking;
 import us.mn.state.dot.tms.LaneMarkingHelper;
 import us.mn.state.dot.tms.PlanPhase;
@@ -370,68 +369,39 @@ public class ActionPlanImpl extends BaseObjectImpl implements ActionPlan {
 
 	/** Check if all beacons for a hashtag are deployable */
 	private boolean areBeaconsDeployable(String ht) {
-		Iterator<Beacon> it = BeaconHelper.iterator();
-		while (it.hasNext()) {
-			Beacon b = it.next();
-			if (b instanceof BeaconImpl) {
-				BeaconImpl bi = (BeaconImpl) b;
-				if (bi.isFailed()) {
-					if (new Hashtags(bi.getNotes())
-					   .contains(ht))
-						return false;
-				}
-			}
+		for (Beacon b: BeaconHelper.findByHashtag(ht)) {
+			if (b instanceof BeaconImpl &&
+			   ((BeaconImpl) b).isFailed())
+				return false;
 		}
 		return true;
 	}
 
 	/** Check if all DMS for a hashtag are deployable */
 	private boolean areDmsDeployable(String ht) {
-		Iterator<DMS> it = DMSHelper.iterator();
-		while (it.hasNext()) {
-			DMS d = it.next();
-			if (d instanceof DMSImpl) {
-				DMSImpl dms = (DMSImpl) d;
-				if (dms.hasError()) {
-					if (new Hashtags(d.getNotes())
-					   .contains(ht))
-						return false;
-				}
-			}
+		for (DMS d: DMSHelper.findByHashtag(ht)) {
+			if (d instanceof DMSImpl && ((DMSImpl) d).hasError())
+				return false;
 		}
 		return true;
 	}
 
 	/** Check if all lane markings for a hashtag are deployable */
 	private boolean areLaneMarkingsDeployable(String ht) {
-		Iterator<LaneMarking> it = LaneMarkingHelper.iterator();
-		while (it.hasNext()) {
-			LaneMarking lm = it.next();
-			if (lm instanceof LaneMarkingImpl) {
-				LaneMarkingImpl lmi = (LaneMarkingImpl) lm;
-				if (lmi.isFailed()) {
-					if (new Hashtags(lmi.getNotes())
-					   .contains(ht))
-						return false;
-				}
-			}
+		for (LaneMarking lm: LaneMarkingHelper.findByHashtag(ht)) {
+			if (lm instanceof LaneMarkingImpl &&
+			   ((LaneMarkingImpl) lm).isFailed())
+				return false;
 		}
 		return true;
 	}
 
 	/** Check if all ramp meters for a hashtag are deployable */
 	private boolean areRampMetersDeployable(String ht) {
-		Iterator<RampMeter> it = RampMeterHelper.iterator();
-		while (it.hasNext()) {
-			RampMeter rm = it.next();
-			if (rm instanceof RampMeterImpl) {
-				RampMeterImpl rmi = (RampMeterImpl) rm;
-				if (rmi.isFailed()) {
-					if (new Hashtags(rmi.getNotes())
-					   .contains(ht))
-						return false;
-				}
-			}
+		for (RampMeter rm: RampMeterHelper.findByHashtag(ht)) {
+			if (rm instanceof RampMeterImpl &&
+			   ((RampMeterImpl) rm).isFailed())
+				return false;
 		}
 		return true;
 	}
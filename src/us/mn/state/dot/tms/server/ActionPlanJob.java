@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2009-2024  Minnesota Department of Transportation
+ * Copyright (C) 2009-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -42,6 +42,12 @@ public class ActionPlanJob extends Job {
 		timer = t;
 	}
 
+	/** Action plans read station and meter state */
+	@Override
+	public String getSerialKey() {
+		return MeteringJob.TRAFFIC_KEY;
+	}
+
 	/** Perform the action plan job */
 	@Override
 	public void perform() throws TMSException {
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2013-2024  Minnesota Department of Transportation
+ * Copyright (C) 2013-2026  Minnesota Department of Transportation
  * Copyright (C) 2021-2022  Iteris Inc.
  *
  * This program is free software; you can redistribute it and/or modify
@@ -816,8 +816,7 @@ public class ActionTagMsg {
 	/** Find a route to a travel time destination */
 	private Route findRoute(Station s) {
 		GeoLoc dest = s.getR_Node().getGeoLoc();
-		RouteFinder rf = new RouteFinder(BaseObjectImpl.corridors);
-		return rf.findRoute(loc, dest);
+		return BaseObjectImpl.routes.findRoute(loc, dest);
 	}
 
 	/** Process travel time tag */
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2021-2024  Minnesota Department of Transportation
+ * Copyright (C) 2021-2026  Minnesota Department of Transportation
  * Copyright (C) 2020  SRF Consulting Group, Inc.
  *
  * This program is free software; you can redistribute it and/or modify
@@ -50,7 +50,6 @@ import us.mn.state.dot.tms.CapUrgency;
 import us.mn.state.dot.tms.DMS;
 import us.mn.state.dot.tms.DMSHelper;
 import us.mn.state.dot.tms.GeoLoc;
-import us.mn.state.dot.tms.Hashtags;
 import us.mn.state.dot.tms.MsgPattern;
 import us.mn.state.dot.tms.PlanPhase;
 import us.mn.state.dot.tms.PlanPhaseHelper;
@@ -512,13 +511,9 @@ public class AlertData {
 		if (cht == null)
 			return;
 		TreeSet<DMS> plan_dms = new TreeSet<DMS>();
-		Iterator<DMS> it = DMSHelper.iterator();
-		while (it.hasNext()) {
-			DMS d = it.next();
-			if (all_dms.contains(d)) {
-				if (new Hashtags(d.getNotes()).contains(cht))
-					plan_dms.add(d);
-			}
+		for (DMS d: DMSHelper.findByHashtag(cht)) {
+			if (all_dms.contains(d))
+				plan_dms.add(d);
 		}
 		ActionPlanImpl plan = createPlan(cfg, plan_dms);
 		if (plan != null)
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2010-2013  Minnesota Department of Transportation
+ * Copyright (C) 2010-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -17,39 +17,62 @@ package us.mn.state.dot.tms.server;
 import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileFilter;
-import java.io.FileInputStream;
 import java.io.FilenameFilter;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
-import java.util.Date;
 import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
+import us.mn.state.dot.sched.DebugLog;
 import us.mn.state.dot.sched.Job;
 import us.mn.state.dot.sched.TimeSteward;
 
 /**
- * Job to create sample data archive files.
+ * Job to create sample data archive files.  Each day directory is packed
+ * into a traffic (zip) archive and a column archive, on a bounded pool of
+ * archive threads.  A manifest of archived entries is written with the zip
+ * archive, so that deleting the original files can resume after an
+ * interruption.  When resuming, a missing column archive is created before
+ * any files are deleted.
  *
  * @author Douglas Lau
  */
 public class ArchiveSamplesJob extends Job {
 
-	/** Buffer for reading sample data files */
-	protected final byte[] buffer = new byte[8192];
+	/** Archive debug log */
+	static private final DebugLog ARCHIVE_LOG = new DebugLog("archive");
+
+	/** File extension for archive manifests */
+	static private final String MANIFEST_EXT = ".manifest";
 
 	/** Sample archive factory */
 	private final SampleArchiveFactory a_factory;
 
+	/** Number of archive threads */
+	private final int n_threads;
+
 	/** Create a new job to archive sample data.  This needs to happen
 	 * after 6 PM to allow for buffered data to be read in case of
-	 * communication errors (MnDOT protocol). */
-	public ArchiveSamplesJob(SampleArchiveFactory saf) {
+	 * communication errors (MnDOT protocol).
+	 * @param saf Sample archive factory.
+	 * @param n Number of archive threads. */
+	public ArchiveSamplesJob(SampleArchiveFactory saf, int n) {
 		super(Calendar.DATE, 1, Calendar.HOUR, 22);
 		a_factory = saf;
+		n_threads = n;
 	}
 
 	/** Perform the archive samples job */
@@ -59,15 +82,122 @@ public class ArchiveSamplesJob extends Job {
 
 	/** Archive data samples */
 	protected void archiveSamples() throws IOException {
+		ArrayList<File> days = new ArrayList<File>();
 		File[] years = listYears();
 		if(years != null) {
 			for(File year: years) {
-				File[] days = listDays(year);
-				if(days != null) {
-					for(File day: days)
-						createSampleArchive(day);
+				File[] ds = listDays(year);
+				if(ds != null)
+					days.addAll(Arrays.asList(ds));
+			}
+		}
+		if(!days.isEmpty())
+			archiveDays(days);
+	}
+
+	/** Archive of one day */
+	private class DayArchive {
+
+		/** Day directory */
+		private final File day;
+
+		/** Column archive being written */
+		private final Future<Void> col;
+
+		/** Traffic archive being written (list of entry names), or
+		 * null to resume deleting from the manifest */
+		private final Future<List<String>> traf;
+
+		/** Start archiving one day on an executor */
+		private DayArchive(final File d, ExecutorService ex) {
+			day = d;
+			final File tf = trafficFile(day);
+			col = ex.submit(new Callable<Void>() {
+				public Void call() throws IOException {
+					createColumnArchive(day);
+					return null;
+				}
+			});
+			if(tf.exists())
+				traf = null;
+			else {
+				traf = ex.submit(new Callable<List<String>>() {
+					public List<String> call()
+						throws IOException
+					{
+						return createSampleArchive(tf, day);
+					}
+				});
+			}
+		}
+
+		/** Finish archiving: wait for the archives to be written,
+		 * then delete the original sample files. */
+		private void finish() throws IOException {
+			long start = TimeSteward.currentTimeMillis();
+			waitFor(col);
+			List<String> names = (traf != null)
+			                   ? waitFor(traf)
+			                   : readManifest(day);
+			deleteOriginalSampleFiles(day, names);
+			if(ARCHIVE_LOG.isOpen()) {
+				ARCHIVE_LOG.log(day + ": " + names.size() +
+					" entries" +
+					((traf != null) ? "" : " (resumed)") +
+					", waited " +
+					(TimeSteward.currentTimeMillis() - start)
+					+ " ms");
+			}
+		}
+	}
+
+	/** Archive a list of day directories */
+	private void archiveDays(List<File> days) throws IOException {
+		ExecutorService ex = Executors.newFixedThreadPool(n_threads,
+			new ThreadFactory() {
+				private int n = 0;
+				public synchronized Thread newThread(Runnable r)
+				{
+					return new Thread(r, "archive_" + n++);
+				}
+			});
+		try {
+			ArrayList<DayArchive> archives =
+				new ArrayList<DayArchive>();
+			for(File day: days)
+				archives.add(new DayArchive(day, ex));
+			IOException err = null;
+			for(DayArchive da: archives) {
+				try {
+					da.finish();
+				}
+				catch(IOException e) {
+					ARCHIVE_LOG.log(da.day + ": " + e);
+					if(err == null)
+						err = e;
 				}
 			}
+			if(err != null)
+				throw err;
+		}
+		finally {
+			ex.shutdown();
+		}
+	}
+
+	/** Wait for an archive to be written */
+	static private <T> T waitFor(Future<T> f) throws IOException {
+		try {
+			return f.get();
+		}
+		catch(ExecutionException e) {
+			Throwable t = e.getCause();
+			if(t instanceof IOException)
+				throw (IOException) t;
+			throw new IOException(t);
+		}
+		catch(InterruptedException e) {
+			throw new IOException(e);
 		}
 	}
 
@@ -92,40 +222,31 @@ public class ArchiveSamplesJob extends Job {
 		});
 	}
 
-	/** Create a sample archive file for the given day */
-	protected void createSampleArchive(File day) throws IOException {
-		File traf = new File(day.toString() + ".traffic");
-		if(!traf.exists())
-			createSampleArchive(traf, day);
+	/** Get the traffic (zip) archive file for a day */
+	static private File trafficFile(File day) {
+		return new File(day.toString() + ".traffic");
 	}
 
-	/** Create a sample archive file and delete the original sample files */
-	protected void createSampleArchive(File traf, File day)
-		throws IOException
-	{
-		FileOutputStream fos = new FileOutputStream(traf);
-		try {
-			addSampleEntries(fos, day);
-			deleteOriginalSampleFiles(traf, day);
-		}
-		finally {
-			fos.close();
-		}
+	/** Get the manifest file for a day */
+	static private File manifestFile(File day) {
+		return new File(day.toString() + MANIFEST_EXT);
 	}
 
-	/** Add all valid sample file entries to an archive file */
-	protected void addSampleEntries(FileOutputStream fos, File day)
-		throws IOException
-	{
-		ZipOutputStream zos = new ZipOutputStream(
-			new BufferedOutputStream(fos));
-		addSampleEntries(zos, day);
-		zos.finish();
-		zos.close();
+	/** Create a column archive file for the given day */
+	protected void createColumnArchive(File day) throws IOException {
+		File col = new File(day.toString() + ColumnArchive.EXT);
+		if(!col.exists()) {
+			ColumnArchiveWriter cw = new ColumnArchiveWriter(day);
+			if(!cw.isEmpty())
+				cw.write(col);
+		}
 	}
 
-	/** Add all valid sample file entries to an archive file */
-	protected void addSampleEntries(ZipOutputStream zos, File day)
+	/** Create a traffic (zip) archive file.  The archive is written to a
+	 * temporary file; when complete, a manifest of entries is written,
+	 * and the archive is renamed.
+	 * @return List of archived entry names. */
+	protected List<String> createSampleArchive(File traf, File day)
 		throws IOException
 	{
 		String[] entries = day.list(new FilenameFilter() {
@@ -133,49 +254,77 @@ public class ArchiveSamplesJob extends Job {
 				return a_factory.hasKnownExtension(name);
 			}
 		});
+		if(entries == null)
+			throw new IOException("list failed: " + day);
 		Arrays.sort(entries);
-		for(String entry: entries)
-			addSampleEntry(zos, day, entry);
+		File tmp = new File(traf.getPath() + ".tmp");
+		ZipOutputStream zos = new ZipOutputStream(
+			new BufferedOutputStream(new FileOutputStream(tmp)));
+		try {
+			for(String entry: entries) {
+				zos.putNextEntry(new ZipEntry(entry));
+				Files.copy(new File(day, entry).toPath(), zos);
+				zos.closeEntry();
+			}
+			zos.finish();
+		}
+		finally {
+			zos.close();
+		}
+		List<String> names = Arrays.asList(entries);
+		writeManifest(manifestFile(day), names);
+		if(!tmp.renameTo(traf))
+			throw new IOException("rename failed: " + traf);
+		return names;
 	}
 
-	/** Add one sample file entry to an archive file */
-	protected void addSampleEntry(ZipOutputStream zos, File day,
-		String name) throws IOException
+	/** Write a manifest of archived entry names */
+	static private void writeManifest(File man, List<String> names)
+		throws IOException
 	{
-		zos.putNextEntry(new ZipEntry(name));
-		FileInputStream fis = new FileInputStream(new File(day, name));
+		Files.write(man.toPath(), names, StandardCharsets.UTF_8);
+	}
+
+	/** Read archived entry names from the manifest, or from the traffic
+	 * archive if there is no manifest. */
+	protected List<String> readManifest(File day) throws IOException {
+		File man = manifestFile(day);
+		if(man.exists())
+			return Files.readAllLines(man.toPath(),
+				StandardCharsets.UTF_8);
+		ArrayList<String> names = new ArrayList<String>();
+		ZipFile zf = new ZipFile(trafficFile(day));
 		try {
-			synchronized(buffer) {
-				while(true) {
-					int n_bytes = fis.read(buffer);
-					if(n_bytes < 0)
-						break;
-					zos.write(buffer, 0, n_bytes);
-				}
+			Enumeration<? extends ZipEntry> e = zf.entries();
+			while(e.hasMoreElements()) {
+				String name = e.nextElement().getName();
+				if(a_factory.hasKnownExtension(name))
+					names.add(name);
 			}
 		}
 		finally {
-			fis.close();
+			zf.close();
 		}
+		return names;
 	}
 
-	/** Delete the original sample files that have been copied into an
-	 * archive file */
-	protected void deleteOriginalSampleFiles(File traf, File day)
-		throws IOException
-	{
-		ZipFile zf = new ZipFile(traf);
-		Enumeration e = zf.entries();
-		while(e.hasMoreElements()) {
-			ZipEntry ze = (ZipEntry)e.nextElement();
-			String name = ze.getName();
-			if(a_factory.hasKnownExtension(name)) {
-				File file = new File(day, name);
-				if(file.isFile())
-					file.delete();
+	/** Delete the original sample files that have been archived, and
+	 * the manifest.  Any files which were not archived are logged and
+	 * left in the day directory. */
+	protected void deleteOriginalSampleFiles(File day, List<String> names) {
+		for(String name: names) {
+			File file = new File(day, name);
+			if(file.isFile())
+				file.delete();
+		}
+		if(!day.delete() && ARCHIVE_LOG.isOpen()) {
+			String[] rest = day.list();
+			if(rest != null && rest.length > 0) {
+				ARCHIVE_LOG.log(day + ": not archived: " +
+					Arrays.toString(rest));
 			}
 		}
-		day.delete();
+		manifestFile(day).delete();
 	}
 
 	/** Test if a year is valid */
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2007-2024  Minnesota Department of Transportation
+ * Copyright (C) 2007-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -28,8 +28,11 @@ import us.mn.state.dot.sonar.server.Server;
 import us.mn.state.dot.sonar.server.ServerNamespace;
 import us.mn.state.dot.tms.BaseHelper;
 import us.mn.state.dot.tms.TMSException;
+import us.mn.state.dot.tms.server.TypeLoader.Loader;
+import us.mn.state.dot.tms.server.TypeLoader.Step;
 import static us.mn.state.dot.tms.server.MainServer.FLUSH;
 import us.mn.state.dot.tms.server.event.BaseEvent;
+import us.mn.state.dot.tms.server.event.EventWriter;
 
 /**
  * Base object class for storable SONAR objects.
@@ -47,83 +50,377 @@ abstract public class BaseObjectImpl implements Storable, SonarObject {
 	/** Corridor manager */
 	static public final CorridorManager corridors = new CorridorManager();
 
-	/** Load all objects from the database into the SONAR Namespace */
+	/** Route cache */
+	static public final RouteCache routes = new RouteCache(corridors);
+
+	/** Task which does nothing */
+	static private final Runnable NOP = new Runnable() {
+		public void run() { }
+	};
+
+	/** Load all objects from the database into the SONAR Namespace.
+	 * Independent types are loaded concurrently, on bulk connections. */
 	static void loadAll(SQLConnection s, ServerNamespace ns)
 		throws TMSException
 	{
 		store = s;
 		namespace = ns;
-		DomainImpl.loadAll();
-		RoleImpl.loadAll();
-		PermissionImpl.loadAll();
-		UserImpl.loadAll();
-		SystemAttributeImpl.loadAll();
-		EventConfigImpl.loadAll();
-		GraphicImpl.loadAll();
-		FontImpl.loadAll();
-		GlyphImpl.loadAll();
-		RoadImpl.loadAll();
-		RoadAffixImpl.loadAll();
-		GeoLocImpl.loadAll();
-		MapExtentImpl.loadAll();
-		IncidentDetailImpl.loadAll();
-		CommConfigImpl.loadAll();
-		CommLinkImpl.loadAll();
-		ModemImpl.loadAll();
-		CabinetStyleImpl.loadAll();
-		ControllerImpl.loadAll();
-		SignConfigImpl.loadAll();
-		SignDetailImpl.loadAll();
-		DayPlanImpl.loadAll();
-		DayMatcherImpl.loadAll();
-		PlanPhaseImpl.loadAll();
-		ActionPlanImpl.loadAll();
-		R_NodeImpl.loadAll();
-		/* NOTE: must happen after r_nodes are loaded */
-		corridors.createCorridors();
-		AlarmImpl.loadAll();
-		GpsImpl.loadAll();
-		CameraTemplateImpl.loadAll();
-		VidSourceTemplateImpl.loadAll();
-		CameraVidSourceOrderImpl.loadAll();
-		DetectorImpl.loadAll();
-		TollZoneImpl.loadAll();
-		EncoderTypeImpl.loadAll();
-		EncoderStreamImpl.loadAll();
-		CameraImpl.loadAll();
-		CameraPresetImpl.loadAll();
-		PlayListImpl.loadAll();
-		MonitorStyleImpl.loadAll();
-		VideoMonitorImpl.loadAll();
-		FlowStreamImpl.loadAll();
-		BeaconImpl.loadAll();
-		WeatherSensorImpl.loadAll();
-		RampMeterImpl.loadAll();
-		SignMessageImpl.loadAll();
-		DMSImpl.loadAll();
-		MsgPatternImpl.loadAll();
-		MsgLineImpl.loadAll();
-		GateArmArrayImpl.loadAll();
-		GateArmImpl.loadAll();
-		TagReaderImpl.loadAll();
-		LaneMarkingImpl.loadAll();
-		LCSArrayImpl.loadAll();
-		LCSImpl.loadAll();
-		LCSIndicationImpl.loadAll();
-		LaneUseMultiImpl.loadAll();
-		ParkingAreaImpl.loadAll();
-		IncidentImpl.loadAll();
-		IncDescriptorImpl.loadAll();
-		IncLocatorImpl.loadAll();
-		IncAdviceImpl.loadAll();
-		TimeActionImpl.loadAll();
-		DeviceActionImpl.loadAll();
-		WordImpl.loadAll();
-		DMSImpl.updateAllStyles();
-		RptConduitImpl.loadAll();
-		AlertConfigImpl.loadAll();
-		AlertMessageImpl.loadAll();
-		AlertInfoImpl.loadAll();
+		TypeLoader tl = new TypeLoader(store);
+		Step domain = tl.type("domain", new Loader() {
+			public void load() throws TMSException {
+				DomainImpl.loadAll();
+			}
+		});
+		Step role = tl.type("role", new Loader() {
+			public void load() throws TMSException {
+				RoleImpl.loadAll();
+			}
+		}, domain);
+		Step perm = tl.type("permission", new Loader() {
+			public void load() throws TMSException {
+				PermissionImpl.loadAll();
+			}
+		}, role);
+		Step user = tl.type("user", new Loader() {
+			public void load() throws TMSException {
+				UserImpl.loadAll();
+			}
+		}, role);
+		Step attr = tl.type("system_attribute", new Loader() {
+			public void load() throws TMSException {
+				SystemAttributeImpl.loadAll();
+			}
+		});
+		Step ecfg = tl.type("event_config", new Loader() {
+			public void load() throws TMSException {
+				EventConfigImpl.loadAll();
+			}
+		});
+		/* NOTE: all other types may depend on the configuration */
+		Step cfg = tl.barrier("config", NOP);
+		Step graphic = tl.type("graphic", new Loader() {
+			public void load() throws TMSException {
+				GraphicImpl.loadAll();
+			}
+		}, cfg);
+		Step font = tl.type("font", new Loader() {
+			public void load() throws TMSException {
+				FontImpl.loadAll();
+			}
+		}, cfg);
+		tl.type("glyph", new Loader() {
+			public void load() throws TMSException {
+				GlyphImpl.loadAll();
+			}
+		}, font);
+		Step road = tl.type("road", new Loader() {
+			public void load() throws TMSException {
+				RoadImpl.loadAll();
+			}
+		}, cfg);
+		tl.type("road_affix", new Loader() {
+			public void load() throws TMSException {
+				RoadAffixImpl.loadAll();
+			}
+		}, cfg);
+		Step loc = tl.type("geo_loc", new Loader() {
+			public void load() throws TMSException {
+				GeoLocImpl.loadAll();
+			}
+		}, road);
+		tl.type("map_extent", new Loader() {
+			public void load() throws TMSException {
+				MapExtentImpl.loadAll();
+			}
+		}, cfg);
+		Step inc_dtl = tl.type("incident_detail", new Loader() {
+			public void load() throws TMSException {
+				IncidentDetailImpl.loadAll();
+			}
+		}, cfg);
+		Step comm_cfg = tl.type("comm_config", new Loader() {
+			public void load() throws TMSException {
+				CommConfigImpl.loadAll();
+			}
+		}, cfg);
+		Step link = tl.type("comm_link", new Loader() {
+			public void load() throws TMSException {
+				CommLinkImpl.loadAll();
+			}
+		}, comm_cfg);
+		tl.type("modem", new Loader() {
+			public void load() throws TMSException {
+				ModemImpl.loadAll();
+			}
+		}, cfg);
+		Step cab = tl.type("cabinet_style", new Loader() {
+			public void load() throws TMSException {
+				CabinetStyleImpl.loadAll();
+			}
+		}, cfg);
+		Step ctrl = tl.type("controller", new Loader() {
+			public void load() throws TMSException {
+				ControllerImpl.loadAll();
+			}
+		}, loc, link, cab);
+		Step sign_cfg = tl.type("sign_config", new Loader() {
+			public void load() throws TMSException {
+				SignConfigImpl.loadAll();
+			}
+		}, font);
+		Step sign_dtl = tl.type("sign_detail", new Loader() {
+			public void load() throws TMSException {
+				SignDetailImpl.loadAll();
+			}
+		}, cfg);
+		Step day_plan = tl.type("day_plan", new Loader() {
+			public void load() throws TMSException {
+				DayPlanImpl.loadAll();
+			}
+		}, cfg);
+		tl.type("day_matcher", new Loader() {
+			public void load() throws TMSException {
+				DayMatcherImpl.loadAll();
+			}
+		}, day_plan);
+		Step phase = tl.type("plan_phase", new Loader() {
+			public void load() throws TMSException {
+				PlanPhaseImpl.loadAll();
+			}
+		}, cfg);
+		Step plan = tl.type("action_plan", new Loader() {
+			public void load() throws TMSException {
+				ActionPlanImpl.loadAll();
+			}
+		}, phase);
+		Step r_node = tl.type("r_node", new Loader() {
+			public void load() throws TMSException {
+				R_NodeImpl.loadAll();
+			}
+		}, loc);
+		Step cors = tl.task("corridors", new Runnable() {
+			public void run() {
+				corridors.createCorridors();
+			}
+		}, r_node);
+		tl.type("alarm", new Loader() {
+			public void load() throws TMSException {
+				AlarmImpl.loadAll();
+			}
+		}, ctrl);
+		Step gps = tl.type("gps", new Loader() {
+			public void load() throws TMSException {
+				GpsImpl.loadAll();
+			}
+		}, loc, link, ctrl);
+		Step cam_tmp = tl.type("camera_template", new Loader() {
+			public void load() throws TMSException {
+				CameraTemplateImpl.loadAll();
+			}
+		}, cfg);
+		Step vs_tmp = tl.type("vid_source_template", new Loader() {
+			public void load() throws TMSException {
+				VidSourceTemplateImpl.loadAll();
+			}
+		}, cfg);
+		tl.type("camera_vid_source_order", new Loader() {
+			public void load() throws TMSException {
+				CameraVidSourceOrderImpl.loadAll();
+			}
+		}, cam_tmp, vs_tmp);
+		Step det = tl.type("detector", new Loader() {
+			public void load() throws TMSException {
+				DetectorImpl.loadAll();
+			}
+		}, road, loc, link, ctrl, r_node, cors);
+		Step toll = tl.type("toll_zone", new Loader() {
+			public void load() throws TMSException {
+				TollZoneImpl.loadAll();
+			}
+		}, loc, det);
+		Step enc = tl.type("encoder_type", new Loader() {
+			public void load() throws TMSException {
+				EncoderTypeImpl.loadAll();
+			}
+		}, cfg);
+		Step stream = tl.type("encoder_stream", new Loader() {
+			public void load() throws TMSException {
+				EncoderStreamImpl.loadAll();
+			}
+		}, enc);
+		Step cam = tl.type("camera", new Loader() {
+			public void load() throws TMSException {
+				CameraImpl.loadAll();
+			}
+		}, loc, link, ctrl, cam_tmp, enc);
+		Step preset = tl.type("camera_preset", new Loader() {
+			public void load() throws TMSException {
+				CameraPresetImpl.loadAll();
+			}
+		}, cam);
+		Step play = tl.type("play_list", new Loader() {
+			public void load() throws TMSException {
+				PlayListImpl.loadAll();
+			}
+		}, cam);
+		Step mon_style = tl.type("monitor_style", new Loader() {
+			public void load() throws TMSException {
+				MonitorStyleImpl.loadAll();
+			}
+		}, font);
+		Step mon = tl.type("video_monitor", new Loader() {
+			public void load() throws TMSException {
+				VideoMonitorImpl.loadAll();
+			}
+		}, link, ctrl, cam, play, mon_style);
+		tl.type("flow_stream", new Loader() {
+			public void load() throws TMSException {
+				FlowStreamImpl.loadAll();
+			}
+		}, loc, ctrl, stream, cam, mon);
+		Step beacon = tl.type("beacon", new Loader() {
+			public void load() throws TMSException {
+				BeaconImpl.loadAll();
+			}
+		}, loc, link, ctrl, cam, preset);
+		Step weather = tl.type("weather_sensor", new Loader() {
+			public void load() throws TMSException {
+				WeatherSensorImpl.loadAll();
+			}
+		}, loc, link, ctrl);
+		tl.type("ramp_meter", new Loader() {
+			public void load() throws TMSException {
+				RampMeterImpl.loadAll();
+			}
+		}, loc, link, ctrl, plan, r_node, cors, det, cam, preset,
+			beacon);
+		Step msg = tl.type("sign_message", new Loader() {
+			public void load() throws TMSException {
+				SignMessageImpl.loadAll();
+			}
+		}, sign_cfg);
+		Step dms = tl.type("dms", new Loader() {
+			public void load() throws TMSException {
+				DMSImpl.loadAll();
+			}
+		}, graphic, font, loc, link, ctrl, sign_cfg, sign_dtl, plan,
+			gps, cam, preset, beacon, weather, msg);
+		Step pat = tl.type("msg_pattern", new Loader() {
+			public void load() throws TMSException {
+				MsgPatternImpl.loadAll();
+			}
+		}, sign_cfg, dms);
+		tl.type("msg_line", new Loader() {
+			public void load() throws TMSException {
+				MsgLineImpl.loadAll();
+			}
+		}, pat);
+		Step gaa = tl.type("gate_arm_array", new Loader() {
+			public void load() throws TMSException {
+				GateArmArrayImpl.loadAll();
+			}
+		}, road, loc, link, ctrl, phase, plan, cam, dms);
+		tl.type("gate_arm", new Loader() {
+			public void load() throws TMSException {
+				GateArmImpl.loadAll();
+			}
+		}, link, ctrl, gaa);
+		tl.type("tag_reader", new Loader() {
+			public void load() throws TMSException {
+				TagReaderImpl.loadAll();
+			}
+		}, loc, link, ctrl, toll, dms);
+		tl.type("lane_marking", new Loader() {
+			public void load() throws TMSException {
+				LaneMarkingImpl.loadAll();
+			}
+		}, loc, link, ctrl);
+		Step lcs_array = tl.type("lcs_array", new Loader() {
+			public void load() throws TMSException {
+				LCSArrayImpl.loadAll();
+			}
+		}, link, ctrl, r_node, cors, dms);
+		Step lcs = tl.type("lcs", new Loader() {
+			public void load() throws TMSException {
+				LCSImpl.loadAll();
+			}
+		}, dms, lcs_array);
+		tl.type("lcs_indication", new Loader() {
+			public void load() throws TMSException {
+				LCSIndicationImpl.loadAll();
+			}
+		}, ctrl, lcs);
+		tl.type("lane_use_multi", new Loader() {
+			public void load() throws TMSException {
+				LaneUseMultiImpl.loadAll();
+			}
+		}, dms, pat);
+		tl.type("parking_area", new Loader() {
+			public void load() throws TMSException {
+				ParkingAreaImpl.loadAll();
+			}
+		}, loc, r_node, cors, det, cam, preset);
+		Step inc = tl.type("incident", new Loader() {
+			public void load() throws TMSException {
+				IncidentImpl.loadAll();
+			}
+		}, road, loc, inc_dtl, r_node, cors, cam);
+		tl.type("inc_descriptor", new Loader() {
+			public void load() throws TMSException {
+				IncDescriptorImpl.loadAll();
+			}
+		}, inc_dtl, dms, inc);
+		tl.type("inc_locator", new Loader() {
+			public void load() throws TMSException {
+				IncLocatorImpl.loadAll();
+			}
+		}, dms);
+		tl.type("inc_advice", new Loader() {
+			public void load() throws TMSException {
+				IncAdviceImpl.loadAll();
+			}
+		}, dms);
+		tl.type("time_action", new Loader() {
+			public void load() throws TMSException {
+				TimeActionImpl.loadAll();
+			}
+		}, day_plan, phase, plan);
+		tl.type("device_action", new Loader() {
+			public void load() throws TMSException {
+				DeviceActionImpl.loadAll();
+			}
+		}, phase, plan, pat);
+		tl.type("word", new Loader() {
+			public void load() throws TMSException {
+				WordImpl.loadAll();
+			}
+		}, dms);
+		Step styles = tl.barrier("styles", new Runnable() {
+			public void run() {
+				DMSImpl.updateAllStyles();
+			}
+		});
+		tl.type("rpt_conduit", new Loader() {
+			public void load() throws TMSException {
+				RptConduitImpl.loadAll();
+			}
+		}, cfg);
+		Step alert_cfg = tl.type("alert_config", new Loader() {
+			public void load() throws TMSException {
+				AlertConfigImpl.loadAll();
+			}
+		}, styles);
+		Step alert_msg = tl.type("alert_message", new Loader() {
+			public void load() throws TMSException {
+				AlertMessageImpl.loadAll();
+			}
+		}, alert_cfg);
+		tl.type("alert_info", new Loader() {
+			public void load() throws TMSException {
+				AlertInfoImpl.loadAll();
+			}
+		}, alert_msg);
+		tl.load(store.getBulkSize());
 	}
 
 	/** Get the time as a time stamp */
@@ -578,6 +875,11 @@ abstract public class BaseObjectImpl implements Storable, SonarObject {
 
 	/** Log an event */
 	static public void logEvent(final BaseEvent ev) {
+		EventWriter w = BaseEvent.writer;
+		if (w != null) {
+			w.add(ev);
+			return;
+		}
 		FLUSH.addJob(new Job() {
 			public void perform() throws TMSException {
 				ev.doStore();
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2001-2019  Minnesota Department of Transportation
+ * Copyright (C) 2001-2026  Minnesota Department of Transportation
  * Copyright (C) 2011  University of Minnesota Duluth (NATSRL)
  *
  * This program is free software; you can redistribute it and/or modify
@@ -15,6 +15,10 @@
  */
 package us.mn.state.dot.tms.server;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 /**
  * Bounded Sample History container.
  *
@@ -127,4 +131,29 @@ public class BoundedSampleHistory {
 	public Double average() {
 		return average(0, n_samples);
 	}
+
+	/**
+	 * Write sample history to a snapshot (oldest sample first).
+	 * @param out Data output.
+	 */
+	public void writeSnapshot(DataOutput out) throws IOException {
+		out.writeShort(n_samples);
+		for (int t = n_samples - 1; t >= 0; t--) {
+			Double d = get(t);
+			out.writeDouble((d != null) ? d : Double.NaN);
+		}
+	}
+
+	/**
+	 * Read sample history from a snapshot, replacing all samples.
+	 * @param in Data input.
+	 */
+	public void readSnapshot(DataInput in) throws IOException {
+		clear();
+		int n = in.readShort();
+		for (int i = 0; i < n; i++) {
+			double d = in.readDouble();
+			push(Double.isNaN(d) ? null : d);
+		}
+	}
 }
@@ -0,0 +1,318 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2026  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms.server;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashMap;
+import static us.mn.state.dot.tms.server.Constants.MISSING_DATA;
+
+/**
+ * A column archive contains one day of periodic sample data for all sensors
+ * in a single file.  It is memory-mapped for random access, either to all
+ * sensors for one time slice, or to one sensor for a whole day.  The mapping
+ * is released when the archive is closed.
+ *
+ * Each column holds one sample type and period (file extension, such as
+ * "v30").  A column is split into one-hour blocks for every sensor, with an
+ * index of block offsets.  Within a block, values are delta encoded, then
+ * stored as zigzag varints; a block with no data is empty.
+ *
+ * Layout (big-endian):
+ * <pre>
+ *   column:    int[n_sensors * n_blocks + 1] block offsets, block data
+ *   ...        (one for each column)
+ *   sensors:   int n_sensors, { short len, UTF-8 sensor ID } (sorted)
+ *   columns:   int n_columns, { short len, UTF-8 extension, int per_sec,
+ *              long offset }
+ *   trailer:   long sensors offset, int MAGIC
+ * </pre>
+ *
+ * @author Douglas Lau
+ */
+public class ColumnArchive {
+
+	/** File extension for column archives */
+	static public final String EXT = ".tcol";
+
+	/** Magic number at end of file */
+	static final int MAGIC = 0x54434f31;
+
+	/** Size of trailer (bytes) */
+	static final int TRAILER_BYTES = 12;
+
+	/** Sensor IDs and extensions are UTF-8 */
+	static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/** Get the number of samples per day for a period */
+	static int samplesPerDay(int per_sec) {
+		return 24 * 60 * 60 / per_sec;
+	}
+
+	/** Get the number of samples per block for a period (one hour) */
+	static int blockSamples(int per_sec) {
+		return Math.max(1, 60 * 60 / per_sec);
+	}
+
+	/** Get the number of blocks per day for a period */
+	static int blocksPerDay(int per_sec) {
+		int bs = blockSamples(per_sec);
+		return (samplesPerDay(per_sec) + bs - 1) / bs;
+	}
+
+	/** Lookup the sample type for a file extension (without period).
+	 * @return Sample type, or null if not found. */
+	static PeriodicSampleType lookupType(String ext) {
+		for (PeriodicSampleType st: PeriodicSampleType.values()) {
+			if (st.extension.equals(ext))
+				return st;
+		}
+		return null;
+	}
+
+	/** Get the index of the period part of a file extension.
+	 * @return Index of first digit, or -1 if not a sample extension. */
+	static int periodIndex(String ext) {
+		int i = ext.length();
+		while (i > 0 && Character.isDigit(ext.charAt(i - 1)))
+			i--;
+		return (i > 0 && i < ext.length()) ? i : -1;
+	}
+
+	/** Lookup the sample type for a file extension (with period).
+	 * @return Sample type, or null if not a sample extension. */
+	static PeriodicSampleType lookupSampleType(String ext) {
+		int i = periodIndex(ext);
+		return (i > 0) ? lookupType(ext.substring(0, i)) : null;
+	}
+
+	/** Get the sample period of a file extension (with period).
+	 * @return Sample period (seconds), or 0 if not a sample extension. */
+	static int samplePeriod(String ext) {
+		int i = periodIndex(ext);
+		try {
+			return (i > 0) ? Integer.parseInt(ext.substring(i)) : 0;
+		}
+		catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
+	/** Decode sample file contents into an array of values.
+	 * @param b Sample file contents.
+	 * @param len Number of valid bytes in b.
+	 * @param st Sample type.
+	 * @param n_samples Number of samples in one day.
+	 * @return Array of sample values, padded with MISSING_DATA. */
+	static public int[] decodeSamples(byte[] b, int len,
+		PeriodicSampleType st, int n_samples)
+	{
+		int[] vals = new int[n_samples];
+		Arrays.fill(vals, MISSING_DATA);
+		int n = Math.min(n_samples, len / st.sample_bytes);
+		for (int i = 0; i < n; i++) {
+			if (st.sample_bytes == 2) {
+				int j = i * 2;
+				vals[i] = (short) ((b[j] << 8) |
+					(b[j + 1] & 0xFF));
+			} else
+				vals[i] = b[i];
+		}
+		return vals;
+	}
+
+	/** One column of the archive */
+	static private class Column {
+		private final int n_samples;
+		private final int block_samples;
+		private final int n_blocks;
+		private final int index_pos;
+		private final int data_pos;
+		private Column(int p, int pos, int n_sensors) {
+			n_samples = samplesPerDay(p);
+			block_samples = blockSamples(p);
+			n_blocks = blocksPerDay(p);
+			index_pos = pos;
+			data_pos = pos + 4 * (n_sensors * n_blocks + 1);
+		}
+	}
+
+	/** Mapped archive file */
+	private final MappedByteBuffer buf;
+
+	/** Flag set when the archive has been closed */
+	private boolean closed = false;
+
+	/** Sensor IDs (sorted) */
+	private final String[] sensors;
+
+	/** Sensor ID lookup */
+	private final HashMap<String, Integer> sensor_idx =
+		new HashMap<String, Integer>();
+
+	/** Columns, by file extension */
+	private final HashMap<String, Column> columns =
+		new HashMap<String, Column>();
+
+	/** Open a column archive.
+	 * @param f Archive file. */
+	public ColumnArchive(File f) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(f, "r");
+		try {
+			FileChannel fc = raf.getChannel();
+			long size = fc.size();
+			if (size < TRAILER_BYTES || size > Integer.MAX_VALUE)
+				throw new IOException("Invalid size: " + f);
+			buf = fc.map(FileChannel.MapMode.READ_ONLY, 0, size);
+		}
+		finally {
+			raf.close();
+		}
+		int tp = buf.limit() - TRAILER_BYTES;
+		if (buf.getInt(tp + 8) != MAGIC)
+			throw new IOException("Invalid magic: " + f);
+		ByteBuffer b = buf.duplicate();
+		b.position((int) buf.getLong(tp));
+		int n_sensors = b.getInt();
+		sensors = new String[n_sensors];
+		for (int i = 0; i < n_sensors; i++) {
+			sensors[i] = getString(b);
+			sensor_idx.put(sensors[i], i);
+		}
+		int n_columns = b.getInt();
+		for (int i = 0; i < n_columns; i++) {
+			String ext = getString(b);
+			int per_sec = b.getInt();
+			int pos = (int) b.getLong();
+			columns.put(ext, new Column(per_sec, pos, n_sensors));
+		}
+	}
+
+	/** Get a string from a buffer */
+	static private String getString(ByteBuffer b) {
+		byte[] s = new byte[b.getShort() & 0xFFFF];
+		b.get(s);
+		return new String(s, UTF8);
+	}
+
+	/** Get all sensor IDs in the archive (sorted).  The index of a
+	 * sensor matches values returned by readSlice. */
+	public String[] getSensors() {
+		return sensors.clone();
+	}
+
+	/** Check if the archive contains a column.
+	 * @param ext File extension, such as "v30". */
+	public boolean hasColumn(String ext) {
+		return columns.containsKey(ext);
+	}
+
+	/** Close the archive, releasing the mapping */
+	public synchronized void close() {
+		if (!closed) {
+			closed = true;
+			PeriodicSampleWriter.unmap(buf);
+		}
+	}
+
+	/** Check that the archive has not been closed.  Reading a released
+	 * mapping would crash the JVM, so an exception is thrown instead. */
+	private void checkOpen() {
+		if (closed)
+			throw new IllegalStateException("Archive closed");
+	}
+
+	/** Read one sensor for a whole day.
+	 * @param sensor_id Sensor ID.
+	 * @param ext File extension, such as "v30".
+	 * @return Array of sample values, or null if not archived. */
+	public synchronized int[] readDay(String sensor_id, String ext) {
+		checkOpen();
+		Column c = columns.get(ext);
+		Integer s = sensor_idx.get(sensor_id);
+		if (c == null || s == null)
+			return null;
+		int[] vals = new int[c.n_samples];
+		Arrays.fill(vals, MISSING_DATA);
+		boolean found = false;
+		for (int b = 0; b < c.n_blocks; b++) {
+			int i = b * c.block_samples;
+			int n = Math.min(c.block_samples, c.n_samples - i);
+			found |= decodeBlock(c, s * c.n_blocks + b, vals, i, n);
+		}
+		return found ? vals : null;
+	}
+
+	/** Read all sensors for one time slice.
+	 * @param ext File extension, such as "v30".
+	 * @param sample Sample number (0 is first sample of day).
+	 * @return Array of sample values (indexed like getSensors),
+	 *         or null if column is not archived. */
+	public synchronized int[] readSlice(String ext, int sample) {
+		checkOpen();
+		Column c = columns.get(ext);
+		if (c == null || sample < 0 || sample >= c.n_samples)
+			return null;
+		int b = sample / c.block_samples;
+		int n = sample % c.block_samples + 1;
+		int[] blk = new int[n];
+		int[] vals = new int[sensors.length];
+		for (int s = 0; s < sensors.length; s++) {
+			vals[s] = decodeBlock(c, s * c.n_blocks + b, blk, 0, n)
+			        ? blk[n - 1]
+			        : MISSING_DATA;
+		}
+		return vals;
+	}
+
+	/** Decode the start of a block into an array.
+	 * @param c Column.
+	 * @param bi Block index (sensor * n_blocks + block).
+	 * @param vals Array to store values.
+	 * @param off Offset in array of first value.
+	 * @param n Number of values to decode.
+	 * @return false if block is empty (all missing). */
+	private boolean decodeBlock(Column c, int bi, int[] vals, int off,
+		int n)
+	{
+		int pos = c.data_pos + buf.getInt(c.index_pos + 4 * bi);
+		int end = c.data_pos + buf.getInt(c.index_pos + 4 * bi + 4);
+		if (pos >= end) {
+			Arrays.fill(vals, off, off + n, MISSING_DATA);
+			return false;
+		}
+		int v = 0;
+		for (int i = 0; i < n; i++) {
+			int z = 0;
+			int shift = 0;
+			while (true) {
+				int b = buf.get(pos++);
+				z |= (b & 0x7F) << shift;
+				if ((b & 0x80) == 0)
+					break;
+				shift += 7;
+			}
+			v += (z >>> 1) ^ -(z & 1);
+			vals[off + i] = v;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,221 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2026  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms.server;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import static us.mn.state.dot.tms.server.ColumnArchive.MAGIC;
+import static us.mn.state.dot.tms.server.ColumnArchive.UTF8;
+import static us.mn.state.dot.tms.server.ColumnArchive.blockSamples;
+import static us.mn.state.dot.tms.server.ColumnArchive.blocksPerDay;
+import static us.mn.state.dot.tms.server.ColumnArchive.decodeSamples;
+import static us.mn.state.dot.tms.server.ColumnArchive.lookupSampleType;
+import static us.mn.state.dot.tms.server.ColumnArchive.samplePeriod;
+import static us.mn.state.dot.tms.server.ColumnArchive.samplesPerDay;
+import static us.mn.state.dot.tms.server.Constants.MISSING_DATA;
+
+/**
+ * Column archive writer packs a directory of sample files for one day into
+ * a column archive.  Columns are written one at a time, so only one column
+ * is held in memory.
+ *
+ * @author Douglas Lau
+ */
+public class ColumnArchiveWriter {
+
+	/** Buffer for reading sample files */
+	private final byte[] buffer = new byte[samplesPerDay(1) *
+		PeriodicSampleType.MAX_BYTES];
+
+	/** Sorted sensor IDs */
+	private final ArrayList<String> sensors = new ArrayList<String>();
+
+	/** Sample file names, by extension and sensor ID */
+	private final TreeMap<String, TreeMap<String, File>> files =
+		new TreeMap<String, TreeMap<String, File>>();
+
+	/** Block data for current column */
+	private final ByteArrayOutputStream blocks =
+		new ByteArrayOutputStream();
+
+	/** Output stream */
+	private DataOutputStream out;
+
+	/** Create a column archive writer for a directory of sample files.
+	 * Files which are not periodic samples (such as vlog) are skipped.
+	 * @param day Directory containing sample files. */
+	public ColumnArchiveWriter(File day) {
+		TreeSet<String> sids = new TreeSet<String>();
+		String[] names = day.list();
+		if (names != null) {
+			for (String name: names) {
+				int d = name.lastIndexOf('.');
+				if (d > 0 && addFile(new File(day, name),
+				    name.substring(0, d), name.substring(d + 1)))
+					sids.add(name.substring(0, d));
+			}
+		}
+		sensors.addAll(sids);
+	}
+
+	/** Add a sample file.
+	 * @return true if file is a periodic sample file. */
+	private boolean addFile(File f, String sid, String ext) {
+		int per_sec = samplePeriod(ext);
+		if (lookupSampleType(ext) != null && per_sec > 0 &&
+		    86400 % per_sec == 0)
+		{
+			TreeMap<String, File> col = files.get(ext);
+			if (col == null) {
+				col = new TreeMap<String, File>();
+				files.put(ext, col);
+			}
+			col.put(sid, f);
+			return true;
+		} else
+			return false;
+	}
+
+	/** Check if there are any sample files to archive */
+	public boolean isEmpty() {
+		return files.isEmpty();
+	}
+
+	/** Write the column archive.  The archive is written to a temporary
+	 * file, which is renamed when complete.
+	 * @param f Archive file. */
+	public void write(File f) throws IOException {
+		File tmp = new File(f.getPath() + ".tmp");
+		out = new DataOutputStream(new BufferedOutputStream(
+			new FileOutputStream(tmp)));
+		try {
+			TreeMap<String, Integer> offsets =
+				new TreeMap<String, Integer>();
+			for (Map.Entry<String, TreeMap<String, File>> e:
+			     files.entrySet())
+			{
+				offsets.put(e.getKey(), out.size());
+				writeColumn(e.getKey(), e.getValue());
+			}
+			int s_pos = out.size();
+			out.writeInt(sensors.size());
+			for (String sid: sensors)
+				writeString(sid);
+			out.writeInt(offsets.size());
+			for (Map.Entry<String, Integer> e: offsets.entrySet()) {
+				writeString(e.getKey());
+				out.writeInt(samplePeriod(e.getKey()));
+				out.writeLong(e.getValue());
+			}
+			out.writeLong(s_pos);
+			out.writeInt(MAGIC);
+		}
+		finally {
+			out.close();
+			out = null;
+		}
+		if (!tmp.renameTo(f)) {
+			tmp.delete();
+			throw new IOException("rename failed: " + f);
+		}
+	}
+
+	/** Write a string */
+	private void writeString(String s) throws IOException {
+		byte[] b = s.getBytes(UTF8);
+		out.writeShort(b.length);
+		out.write(b);
+	}
+
+	/** Write one column.
+	 * @param ext File extension, such as "v30".
+	 * @param col Sample files, by sensor ID. */
+	private void writeColumn(String ext, TreeMap<String, File> col)
+		throws IOException
+	{
+		PeriodicSampleType st = lookupSampleType(ext);
+		int per_sec = samplePeriod(ext);
+		int n_samples = samplesPerDay(per_sec);
+		int bs = blockSamples(per_sec);
+		int n_blocks = blocksPerDay(per_sec);
+		blocks.reset();
+		for (String sid: sensors) {
+			File f = col.get(sid);
+			int[] vals = (f != null)
+			      ? readFile(f, st, n_samples)
+			      : null;
+			for (int b = 0; b < n_blocks; b++) {
+				out.writeInt(blocks.size());
+				if (vals != null) {
+					int i = b * bs;
+					encodeBlock(vals, i, Math.min(bs,
+						n_samples - i));
+				}
+			}
+		}
+		out.writeInt(blocks.size());
+		blocks.writeTo(out);
+	}
+
+	/** Read a sample file */
+	private int[] readFile(File f, PeriodicSampleType st, int n_samples)
+		throws IOException
+	{
+		int len = 0;
+		FileInputStream fis = new FileInputStream(f);
+		try {
+			while (len < buffer.length) {
+				int n = fis.read(buffer, len, buffer.length - len);
+				if (n < 0)
+					break;
+				len += n;
+			}
+		}
+		finally {
+			fis.close();
+		}
+		return decodeSamples(buffer, len, st, n_samples);
+	}
+
+	/** Encode one block of values (nothing if all are missing) */
+	private void encodeBlock(int[] vals, int off, int n) {
+		boolean missing = true;
+		for (int i = 0; i < n; i++)
+			missing &= (vals[off + i] == MISSING_DATA);
+		if (missing)
+			return;
+		int p = 0;
+		for (int i = 0; i < n; i++) {
+			int v = vals[off + i];
+			int d = v - p;
+			int z = (d << 1) ^ (d >> 31);
+			while ((z & ~0x7F) != 0) {
+				blocks.write((z & 0x7F) | 0x80);
+				z >>>= 7;
+			}
+			blocks.write(z);
+			p = v;
+		}
+	}
+}
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2007-2024  Minnesota Department of Transportation
+ * Copyright (C) 2007-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -16,6 +16,7 @@ package us.mn.state.dot.tms.server;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
@@ -33,11 +34,52 @@ import us.mn.state.dot.tms.R_NodeHelper;
  */
 public class Corridor extends CorridorBase<R_NodeImpl> {
 
+	/** Node types, in mile point order (captured when arranged) */
+	private int[] node_types = new int[0];
+
+	/** Node stations, in mile point order (captured when arranged) */
+	private StationImpl[] node_stations = new StationImpl[0];
+
 	/** Create a new corridor */
 	public Corridor(GeoLoc loc) {
 		super(loc);
 	}
 
+	/** Arrange the nodes in the corridor, and capture node types */
+	@Override
+	public void arrangeNodes() {
+		super.arrangeNodes();
+		int n = n_points.size();
+		node_types = new int[n];
+		node_stations = new StationImpl[n];
+		int i = 0;
+		for (R_NodeImpl r_node: n_points.values()) {
+			node_types[i] = r_node.getNodeType();
+			node_stations[i] = r_node.getStation();
+			i++;
+		}
+	}
+
+	/** Check if another corridor has the same topology: the same nodes
+	 * at the same mile points, with the same types and stations.  Station
+	 * active state (detectors abandoned) is not compared, so anything
+	 * which depends on it must be checked separately. */
+	public boolean isSameTopology(Corridor other) {
+		if (n_points.size() != other.n_points.size() ||
+		   !Arrays.equals(node_types, other.node_types) ||
+		   !Arrays.equals(node_stations, other.node_stations))
+			return false;
+		Iterator<Map.Entry<Float, R_NodeImpl>> it =
+			other.n_points.entrySet().iterator();
+		for (Map.Entry<Float, R_NodeImpl> e: n_points.entrySet()) {
+			Map.Entry<Float, R_NodeImpl> oe = it.next();
+			if (!e.getKey().equals(oe.getKey()) ||
+			    e.getValue() != oe.getValue())
+				return false;
+		}
+		return true;
+	}
+
 	/** Interface to find a node on the corridor */
 	static public interface NodeFinder {
 		public boolean check(float m, R_NodeImpl r_node);
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2007-2022  Minnesota Department of Transportation
+ * Copyright (C) 2007-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -19,6 +19,7 @@ import java.io.Writer;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import us.mn.state.dot.tms.Direction;
 import us.mn.state.dot.tms.GeoLoc;
 import us.mn.state.dot.tms.GeoLocHelper;
@@ -39,8 +40,28 @@ public class CorridorManager {
 	private final Map<String, Corridor> corridors =
 		new TreeMap<String, Corridor>();
 
-	/** Create all corridors from the existing r_nodes */
+	/** Topology version, incremented when corridors are created or
+	 * r_nodes / detectors are changed.  Anything derived from corridors
+	 * (such as routes or the segment index) is stale when the version
+	 * changes. */
+	private final AtomicInteger version = new AtomicInteger();
+
+	/** Get the topology version */
+	public int getVersion() {
+		return version.get();
+	}
+
+	/** Increment the topology version */
+	public void updateVersion() {
+		version.incrementAndGet();
+	}
+
+	/** Create all corridors from the existing r_nodes.  Corridors with
+	 * unchanged topology are kept, so that anything derived from them
+	 * (such as metering corridor models) does not need to be rebuilt. */
 	public synchronized void createCorridors() {
+		TreeMap<String, Corridor> old =
+			new TreeMap<String, Corridor>(corridors);
 		corridors.clear();
 		Iterator<R_Node> it = R_NodeHelper.iterator();
 		while (it.hasNext()) {
@@ -51,8 +72,14 @@ public class CorridorManager {
 				addCorridorNode(n);
 			}
 		}
-		for (Corridor c: corridors.values())
+		for (Map.Entry<String, Corridor> e: corridors.entrySet()) {
+			Corridor c = e.getValue();
 			c.arrangeNodes();
+			Corridor oc = old.get(e.getKey());
+			if (oc != null && oc.isSameTopology(c))
+				e.setValue(oc);
+		}
+		updateVersion();
 	}
 
 	/** Add an r_node to the proper corridor */
@@ -97,23 +124,34 @@ public class CorridorManager {
 		return (cid != null) ? getCorridor(cid) : null;
 	}
 
-	/** Create a GeoLoc snapped to nearest r_node segment.
+	/** Segment index for snapping locations */
+	private volatile SegmentIndex index;
+
+	/** Get the segment index, rebuilding it if the version changed */
+	private SegmentIndex getIndex() {
+		SegmentIndex si = index;
+		return (si != null && si.getVersion() == version.get())
+		      ? si
+		      : buildIndex();
+	}
+
+	/** Build the segment index */
+	private synchronized SegmentIndex buildIndex() {
+		int v = version.get();
+		SegmentIndex si = index;
+		if (null == si || si.getVersion() != v) {
+			si = new SegmentIndex(corridors.values(), v);
+			index = si;
+		}
+		return si;
+	}
+
+	/** Create a GeoLoc snapped to nearest r_node segment.  This uses an
+	 * immutable segment index, so it does not lock the corridors.
 	 * NOTE: copied from client/roads/R_NodeManager. */
-	public synchronized GeoLoc snapGeoLoc(SphericalMercatorPosition smp,
+	public GeoLoc snapGeoLoc(SphericalMercatorPosition smp,
 		LaneCode lc, Distance max_dist, Direction dir)
 	{
-		GeoLoc loc = null;
-		Distance dist = max_dist;
-		for (Corridor c: corridors.values()) {
-			if (dir != Direction.UNKNOWN &&
-			    dir.ordinal() != c.getRoadDir())
-				continue;
-			Corridor.GeoLocDist ld = c.snapGeoLoc(smp, lc, dist);
-			if (ld != null && ld.dist.m() < dist.m()) {
-				loc = ld.loc;
-				dist = ld.dist;
-			}
-		}
-		return loc;
+		return getIndex().snapGeoLoc(smp, lc, max_dist, dir);
 	}
 }
@@ -0,0 +1,293 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2026  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms.server;
+
+import java.util.Arrays;
+
+/**
+ * Compact corridor model for metering algorithms.  Nodes are indexed from
+ * upstream to downstream, with mile points and flags in parallel arrays.
+ * Stations are indexed separately, and each node has the index of the
+ * nearest station upstream and downstream, so lookups are index arithmetic.
+ *
+ * Density and speed history for each station is kept in primitive arrays,
+ * with NaN for missing data.
+ *
+ * @author Douglas Lau
+ */
+public final class CorridorModel {
+
+	/** Node flag for stations */
+	static public final int STATION = 1 << 0;
+
+	/** Node flag for entrances */
+	static public final int ENTRANCE = 1 << 1;
+
+	/** Node mile points (ascending) */
+	private final float[] node_mile;
+
+	/** Node flags */
+	private final int[] node_flags;
+
+	/** Index of nearest station upstream of each node (-1 for none) */
+	private final int[] up_station;
+
+	/** Index of nearest station downstream of each node (-1 for none) */
+	private final int[] down_station;
+
+	/** Node index of each station */
+	private final int[] st_node;
+
+	/** Mile point of each station */
+	private final float[] st_mile;
+
+	/** Number of history samples for each station */
+	private final int n_hist;
+
+	/** Density history (n_hist samples per station, NaN for missing) */
+	private final float[] k_hist;
+
+	/** Speed history (n_hist samples per station, NaN for missing) */
+	private final float[] u_hist;
+
+	/** History cursor (most recent sample) */
+	private int cursor = -1;
+
+	/** Count of history samples */
+	private int n_samples = 0;
+
+	/** Average density of each station (0 for missing) */
+	private final double[] density;
+
+	/** Average speed of each station (0 for missing) */
+	private final double[] speed;
+
+	/** Create a corridor model.
+	 * @param miles Mile point of each node (ascending).
+	 * @param flags Flags of each node (STATION / ENTRANCE).
+	 * @param hist Number of history samples to average. */
+	public CorridorModel(float[] miles, int[] flags, int hist) {
+		int n_nodes = miles.length;
+		node_mile = miles.clone();
+		node_flags = flags.clone();
+		up_station = new int[n_nodes];
+		down_station = new int[n_nodes];
+		int n_stations = 0;
+		for (int f: flags) {
+			if ((f & STATION) != 0)
+				n_stations++;
+		}
+		st_node = new int[n_stations];
+		st_mile = new float[n_stations];
+		int s = 0;
+		for (int i = 0; i < n_nodes; i++) {
+			up_station[i] = s - 1;
+			if ((flags[i] & STATION) != 0) {
+				st_node[s] = i;
+				st_mile[s] = miles[i];
+				s++;
+			}
+		}
+		for (int i = n_nodes - 1; i >= 0; i--) {
+			down_station[i] = s;
+			if ((flags[i] & STATION) != 0)
+				s--;
+		}
+		for (int i = 0; i < n_nodes; i++) {
+			if (down_station[i] >= n_stations)
+				down_station[i] = -1;
+		}
+		n_hist = hist;
+		k_hist = new float[n_stations * hist];
+		u_hist = new float[n_stations * hist];
+		density = new double[n_stations];
+		speed = new double[n_stations];
+	}
+
+	/** Get the number of nodes */
+	public int nodeCount() {
+		return node_mile.length;
+	}
+
+	/** Check if a node is an entrance */
+	public boolean isEntrance(int n) {
+		return (node_flags[n] & ENTRANCE) != 0;
+	}
+
+	/** Get the number of stations */
+	public int stationCount() {
+		return st_node.length;
+	}
+
+	/** Get the node index of a station */
+	public int stationNode(int s) {
+		return st_node[s];
+	}
+
+	/** Get the nearest station upstream of a node.
+	 * @return Station index, or -1 if none. */
+	public int upstreamStation(int n) {
+		return up_station[n];
+	}
+
+	/** Get the nearest station downstream of a node.
+	 * @return Station index, or -1 if none. */
+	public int downstreamStation(int n) {
+		return down_station[n];
+	}
+
+	/** Get the distance from a node to a station (miles) */
+	public float distanceMiles(int n, int s) {
+		return Math.abs(node_mile[n] - st_mile[s]);
+	}
+
+	/** Push one sample of density and speed for all stations.
+	 * @param k Density of each station (negative for missing).
+	 * @param u Speed of each station (negative for missing). */
+	public void update(float[] k, float[] u) {
+		cursor = (cursor + 1 < n_hist) ? cursor + 1 : 0;
+		if (n_samples < n_hist)
+			n_samples++;
+		for (int s = 0; s < st_node.length; s++) {
+			int i = s * n_hist + cursor;
+			k_hist[i] = (k[s] >= 0) ? k[s] : Float.NaN;
+			u_hist[i] = (u[s] >= 0) ? u[s] : Float.NaN;
+		}
+		updateAverages();
+	}
+
+	/** Update average density and speed of all stations */
+	private void updateAverages() {
+		for (int s = 0; s < st_node.length; s++) {
+			density[s] = average(k_hist, s);
+			speed[s] = average(u_hist, s);
+		}
+	}
+
+	/** Get the average of history samples for one station.
+	 * @return Average, or 0 for missing data. */
+	private double average(float[] hist, int s) {
+		double sum = 0;
+		int count = 0;
+		for (int t = 0; t < n_samples; t++) {
+			int c = cursor - t;
+			if (c < 0)
+				c += n_hist;
+			float v = hist[s * n_hist + c];
+			if (!Float.isNaN(v)) {
+				sum += v;
+				count++;
+			}
+		}
+		return (count > 0) ? sum / count : 0;
+	}
+
+	/** Copy history from another model.  Stations which are not in the
+	 * other model have missing history.
+	 * @param other Model to copy from (same number of samples).
+	 * @param other_s Index in other model of each station, or -1. */
+	public void copyHistory(CorridorModel other, int[] other_s) {
+		assert n_hist == other.n_hist;
+		cursor = other.cursor;
+		n_samples = other.n_samples;
+		Arrays.fill(k_hist, Float.NaN);
+		Arrays.fill(u_hist, Float.NaN);
+		for (int s = 0; s < st_node.length; s++) {
+			int os = other_s[s];
+			if (os >= 0) {
+				System.arraycopy(other.k_hist, os * n_hist,
+					k_hist, s * n_hist, n_hist);
+				System.arraycopy(other.u_hist, os * n_hist,
+					u_hist, s * n_hist, n_hist);
+			}
+		}
+		updateAverages();
+	}
+
+	/** Get the average density of a station.
+	 * @return Average density; missing data returns 0. */
+	public double getDensity(int s) {
+		return density[s];
+	}
+
+	/** Get the average speed of a station.
+	 * @return Average speed; missing data returns 0. */
+	public double getSpeed(int s) {
+		return speed[s];
+	}
+
+	/** Get average density of a mainline segment.  This works by
+	 * splitting each consecutive pair of stations into 3 equal links and
+	 * assigning average density to the middle link.  All links are then
+	 * averaged, weighted by length.
+	 *
+	 * @param s Segment upstream station.
+	 * @param dn Segment downstream station (at or below s).
+	 * @return average density (distance weight). */
+	public double segmentDensity(int s, int dn) {
+		double dist_seg = 0;	/* Segment distance */
+		double veh_seg = 0;	/* Sum of vehicles in segment */
+		double k_cursor = density[s];
+		for (int c = s; c < dn; c++) {
+			double k_down = density[c + 1];
+			double k_middle = (k_cursor + k_down) / 2;
+			double dist = Math.abs(st_mile[c] - st_mile[c + 1]);
+			dist_seg += dist;
+			veh_seg += (k_cursor + k_middle + k_down) / 3 * dist;
+			k_cursor = k_down;
+		}
+		if (dist_seg > 0)
+			return veh_seg / dist_seg;
+		else
+			return k_cursor;
+	}
+
+	/** Find downstream segment station.  This is the station within a
+	 * maximum distance which results in the highest segment density.
+	 * Segment densities are accumulated in one pass, in the same order
+	 * as segmentDensity.
+	 * @param s Segment upstream station.
+	 * @param max_miles Maximum segment length (miles).
+	 * @return Downstream segment station index. */
+	public int segmentStation(int s, float max_miles) {
+		int dn = s;
+		double dk = 0;
+		double dist_seg = 0;
+		double veh_seg = 0;
+		double k_cursor = density[s];
+		for (int c = s; c < st_mile.length; c++) {
+			if (Math.abs(st_mile[s] - st_mile[c]) > max_miles)
+				break;
+			if (c > s) {
+				double k_down = density[c];
+				double k_middle = (k_cursor + k_down) / 2;
+				double dist = Math.abs(st_mile[c - 1] -
+					st_mile[c]);
+				dist_seg += dist;
+				veh_seg += (k_cursor + k_middle + k_down) / 3 *
+					dist;
+				k_cursor = k_down;
+			}
+			double k = (dist_seg > 0)
+			         ? veh_seg / dist_seg
+			         : k_cursor;
+			if (k >= dk) {
+				dk = k;
+				dn = c;
+			}
+		}
+		return dn;
+	}
+}
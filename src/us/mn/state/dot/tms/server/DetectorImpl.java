@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2000-2024  Minnesota Department of Transportation
+ * Copyright (C) 2000-2026  Minnesota Department of Transportation
  * Copyright (C) 2011  Berkeley Transportation Systems Inc.
  *
  * This program is free software; you can redistribute it and/or modify
@@ -15,6 +15,8 @@
  */
 package us.mn.state.dot.tms.server;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.io.Writer;
 import java.sql.ResultSet;
@@ -492,6 +494,7 @@ public class DetectorImpl extends DeviceImpl implements Detector,VehicleSampler{
 		if (!objectEquals(lc, lane_code)) {
 			store.update(this, "lane_code", lc);
 			setLaneCode(lc);
+			corridors.updateVersion();
 		}
 	}
 
@@ -1089,6 +1092,28 @@ public class DetectorImpl extends DeviceImpl implements Detector,VehicleSampler{
 		l_count_cache.purge(before);
 	}
 
+	/** Write all binned data to a traffic snapshot */
+	public void writeSnapshot(DataOutput out) throws IOException {
+		veh_cache.writeSnapshot(out);
+		scn_cache.writeSnapshot(out);
+		spd_cache.writeSnapshot(out);
+		mc_count_cache.writeSnapshot(out);
+		s_count_cache.writeSnapshot(out);
+		m_count_cache.writeSnapshot(out);
+		l_count_cache.writeSnapshot(out);
+	}
+
+	/** Read all binned data from a traffic snapshot */
+	public void readSnapshot(DataInput in) throws IOException {
+		veh_cache.readSnapshot(in);
+		scn_cache.readSnapshot(in);
+		spd_cache.readSnapshot(in);
+		mc_count_cache.readSnapshot(in);
+		s_count_cache.readSnapshot(in);
+		m_count_cache.readSnapshot(in);
+		l_count_cache.readSnapshot(in);
+	}
+
 	/** Log a vehicle detection event.
 	 * @param duration Event duration in milliseconds.
 	 * @param headway Headway since last event in milliseconds.
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2009-2024  Minnesota Department of Transportation
+ * Copyright (C) 2009-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -29,7 +29,6 @@ import us.mn.state.dot.tms.DMS;
 import us.mn.state.dot.tms.DMSHelper;
 import us.mn.state.dot.tms.DeviceAction;
 import us.mn.state.dot.tms.DeviceActionHelper;
-import us.mn.state.dot.tms.Hashtags;
 import us.mn.state.dot.tms.LaneMarking;
 import us.mn.state.dot.tms.LaneMarkingHelper;
 import us.mn.state.dot.tms.RampMeter;
@@ -76,6 +75,12 @@ public class DeviceActionJob extends Job {
 		logger.log(dms.getName() + ": " + msg);
 	}
 
+	/** Device actions can deploy ramp meters */
+	@Override
+	public String getSerialKey() {
+		return MeteringJob.TRAFFIC_KEY;
+	}
+
 	/** Perform device actions */
 	@Override
 	public void perform() {
@@ -103,16 +108,9 @@ public class DeviceActionJob extends Job {
 
 	/** Perform an action for DMS */
 	private void performDmsAction(DeviceAction da) {
-		String ht = da.getHashtag();
-		Iterator<DMS> it = DMSHelper.iterator();
-		while (it.hasNext()) {
-			DMS d = it.next();
-			if (d instanceof DMSImpl) {
-				DMSImpl dms = (DMSImpl) d;
-				Hashtags tags = new Hashtags(dms.getNotes());
-				if (tags.contains(ht))
-					checkAction(da, dms);
-			}
+		for (DMS d: DMSHelper.findByHashtag(da.getHashtag())) {
+			if (d instanceof DMSImpl)
+				checkAction(da, (DMSImpl) d);
 		}
 	}
 
@@ -153,9 +151,7 @@ public class DeviceActionJob extends Job {
 
 	/** Perform an action for beacons */
 	private void performBeaconAction(DeviceAction da, boolean deploy) {
-		Iterator<Beacon> it = BeaconHelper.iterator();
-		while (it.hasNext()) {
-			Beacon b = it.next();
+		for (Beacon b: BeaconHelper.findByHashtag(da.getHashtag())) {
 			if (b instanceof BeaconImpl)
 				performBeaconAction(da, deploy, (BeaconImpl) b);
 		}
@@ -165,23 +161,18 @@ public class DeviceActionJob extends Job {
 	private void performBeaconAction(DeviceAction da, boolean deploy,
 		BeaconImpl b)
 	{
-		Hashtags tags = new Hashtags(b.getNotes());
-		if (tags.contains(da.getHashtag())) {
-			ActionTagMsg amsg = new ActionTagMsg(da, b,
-				b.getGeoLoc(), logger);
-			BeaconState bs = (amsg.isPassing() && deploy)
-				? BeaconState.FLASHING_REQ
-				: BeaconState.DARK_REQ;
-			b.setState(bs.ordinal());
-		}
+		ActionTagMsg amsg = new ActionTagMsg(da, b, b.getGeoLoc(),
+			logger);
+		BeaconState bs = (amsg.isPassing() && deploy)
+			? BeaconState.FLASHING_REQ
+			: BeaconState.DARK_REQ;
+		b.setState(bs.ordinal());
 	}
 
 	/** Perform an action for cameras */
 	private void performCameraAction(DeviceAction da, boolean deploy) {
 		// FIXME: only perform this action when phase is first changed
-		Iterator<Camera> it = CameraHelper.iterator();
-		while (it.hasNext()) {
-			Camera c = it.next();
+		for (Camera c: CameraHelper.findByHashtag(da.getHashtag())) {
 			if (c instanceof CameraImpl)
 				performCameraAction(da, deploy, (CameraImpl) c);
 		}
@@ -191,23 +182,19 @@ public class DeviceActionJob extends Job {
 	private void performCameraAction(DeviceAction da, boolean deploy,
 		CameraImpl cam)
 	{
-		Hashtags tags = new Hashtags(cam.getNotes());
-		if (tags.contains(da.getHashtag())) {
-			ActionTagMsg amsg = new ActionTagMsg(da, cam,
-				cam.getGeoLoc(), logger);
-			if (amsg.isPassing() && deploy) {
-				// FIXME: recall preset / save a snapshot
-				//        after a moment
-				// cam.setRecallPreset(...);
-			}
+		ActionTagMsg amsg = new ActionTagMsg(da, cam, cam.getGeoLoc(),
+			logger);
+		if (amsg.isPassing() && deploy) {
+			// FIXME: recall preset / save a snapshot
+			//        after a moment
+			// cam.setRecallPreset(...);
 		}
 	}
 
 	/** Perform an action for lane markings */
 	private void performLaneMarkingAction(DeviceAction da, boolean deploy) {
-		Iterator<LaneMarking> it = LaneMarkingHelper.iterator();
-		while (it.hasNext()) {
-			LaneMarking lm = it.next();
+		String ht = da.getHashtag();
+		for (LaneMarking lm: LaneMarkingHelper.findByHashtag(ht)) {
 			if (lm instanceof LaneMarkingImpl) {
 				performLaneMarkingAction(da, deploy,
 					(LaneMarkingImpl) lm);
@@ -219,19 +206,15 @@ public class DeviceActionJob extends Job {
 	private void performLaneMarkingAction(DeviceAction da, boolean deploy,
 		LaneMarkingImpl lm)
 	{
-		Hashtags tags = new Hashtags(lm.getNotes());
-		if (tags.contains(da.getHashtag())) {
-			ActionTagMsg amsg = new ActionTagMsg(da, lm,
-				lm.getGeoLoc(), logger);
-			lm.setDeployed(amsg.isPassing() && deploy);
-		}
+		ActionTagMsg amsg = new ActionTagMsg(da, lm, lm.getGeoLoc(),
+			logger);
+		lm.setDeployed(amsg.isPassing() && deploy);
 	}
 
 	/** Perform an action for ramp meters */
 	private void performRampMeterAction(DeviceAction da, boolean deploy) {
-		Iterator<RampMeter> it = RampMeterHelper.iterator();
-		while (it.hasNext()) {
-			RampMeter rm = it.next();
+		String ht = da.getHashtag();
+		for (RampMeter rm: RampMeterHelper.findByHashtag(ht)) {
 			if (rm instanceof RampMeterImpl) {
 				performRampMeterAction(da, deploy,
 					(RampMeterImpl) rm);
@@ -243,15 +226,12 @@ public class DeviceActionJob extends Job {
 	private void performRampMeterAction(DeviceAction da, boolean deploy,
 		RampMeterImpl rm)
 	{
-		Hashtags tags = new Hashtags(rm.getNotes());
-		if (tags.contains(da.getHashtag())) {
-			ActionTagMsg amsg = new ActionTagMsg(da, rm,
-				rm.getGeoLoc(), logger);
-			boolean operate = amsg.isPassing() && deploy;
-			if (meters.containsKey(rm))
-				operate |= meters.get(rm);
-			meters.put(rm, operate);
-		}
+		ActionTagMsg amsg = new ActionTagMsg(da, rm, rm.getGeoLoc(),
+			logger);
+		boolean operate = amsg.isPassing() && deploy;
+		if (meters.containsKey(rm))
+			operate |= meters.get(rm);
+		meters.put(rm, operate);
 	}
 
 	/** Update the ramp meter states */
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2000-2024  Minnesota Department of Transportation
+ * Copyright (C) 2000-2026  Minnesota Department of Transportation
  * Copyright (C) 2015-2017  SRF Consulting Group
  *
  * This program is free software; you can redistribute it and/or modify
@@ -21,6 +21,7 @@ import us.mn.state.dot.tms.CommLink;
 import us.mn.state.dot.tms.ControllerHelper;
 import us.mn.state.dot.tms.Device;
 import us.mn.state.dot.tms.DeviceRequest;
+import us.mn.state.dot.tms.HashtagIndex;
 import us.mn.state.dot.tms.ItemStyle;
 import us.mn.state.dot.tms.TMSException;
 import us.mn.state.dot.tms.server.comm.DevicePoller;
@@ -52,6 +53,7 @@ abstract public class DeviceImpl extends ControllerIoImpl implements Device {
 	protected DeviceImpl(String n, ControllerImpl c, int p, String nt) {
 		super(n, c, p);
 		notes = nt;
+		HashtagIndex.update(this, null, nt);
 	}
 
 	/** Create a new device */
@@ -78,6 +80,7 @@ abstract public class DeviceImpl extends ControllerIoImpl implements Device {
 	/** Set notes (including hashtags) */
 	@Override
 	public void setNotes(String n) {
+		HashtagIndex.update(this, notes, n);
 		notes = n;
 	}
 
@@ -95,6 +98,13 @@ abstract public class DeviceImpl extends ControllerIoImpl implements Device {
 		return notes;
 	}
 
+	/** Destroy a device */
+	@Override
+	public void doDestroy() throws TMSException {
+		super.doDestroy();
+		HashtagIndex.update(this, notes, null);
+	}
+
 	/** Operation which owns the device */
 	private transient OpDevice owner;
 
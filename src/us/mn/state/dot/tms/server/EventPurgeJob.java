@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2014-2024  Minnesota Department of Transportation
+ * Copyright (C) 2014-2026  Minnesota Department of Transportation
  * Copyright (C) 2018  Iteris Inc.
  *
  * This program is free software; you can redistribute it and/or modify
@@ -39,6 +39,17 @@ public class EventPurgeJob extends Job {
 	public void perform() throws TMSException {
 		if (null == BaseObjectImpl.store)
 			return;
+		BaseObjectImpl.store.beginBulk();
+		try {
+			purgeRecords();
+		}
+		finally {
+			BaseObjectImpl.store.endBulk();
+		}
+	}
+
+	/** Purge records for all event types */
+	private void purgeRecords() throws TMSException {
 		Iterator<EventConfig> it = EventConfigHelper.iterator();
 		while (it.hasNext()) {
 			EventConfig ec = it.next();
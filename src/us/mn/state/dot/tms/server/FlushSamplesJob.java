@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2009-2024  Minnesota Department of Transportation
+ * Copyright (C) 2009-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -46,13 +46,29 @@ public class FlushSamplesJob extends Job {
 		return TimeSteward.currentTimeMillis() - SAMPLE_CACHE_MS;
 	}
 
+	/** Interval to force all mapped sample files to storage.  Mappings
+	 * for the current day stay in use, so they are not forced when
+	 * released; this bounds the data lost if the host crashes. */
+	static private final long FORCE_MS = Interval.HOUR.ms();
+
 	/** Periodic sample writer */
 	private final PeriodicSampleWriter writer;
 
-	/** Create a new flush samples job */
-	public FlushSamplesJob(SampleArchiveFactory saf) {
+	/** Time stamp of the last force of mapped files */
+	private long force_stamp = TimeSteward.currentTimeMillis();
+
+	/** Create a new flush samples job.
+	 * @param saf Sample archive factory.
+	 * @param n_mapped Maximum number of memory-mapped sample files, or 0
+	 *                 to read and write whole files. */
+	public FlushSamplesJob(SampleArchiveFactory saf, int n_mapped) {
 		super(Calendar.MINUTE, 2);
-		writer = new PeriodicSampleWriter(saf);
+		writer = new PeriodicSampleWriter(saf, n_mapped);
+		Runtime.getRuntime().addShutdownHook(new Thread() {
+			public void run() {
+				writer.force();
+			}
+		});
 	}
 
 	/** Perform the flush samples job */
@@ -60,6 +76,17 @@ public class FlushSamplesJob extends Job {
 		long before = calculatePurgeStamp();
 		flushDetectorSamples(before);
 		flushWeatherSamples(before);
+		writer.release();
+		forceMapped();
+	}
+
+	/** Force mapped files to storage, if the force interval has passed */
+	private void forceMapped() {
+		long now = TimeSteward.currentTimeMillis();
+		if (now - force_stamp >= FORCE_MS) {
+			writer.force();
+			force_stamp = now;
+		}
 	}
 
 	/** Flush detector sample data to disk */
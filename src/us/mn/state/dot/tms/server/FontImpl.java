@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2000-2024  Minnesota Department of Transportation
+ * Copyright (C) 2000-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -20,6 +20,7 @@ import java.util.HashMap;
 import java.util.Map;
 import us.mn.state.dot.tms.ChangeVetoException;
 import us.mn.state.dot.tms.Font;
+import us.mn.state.dot.tms.FontAtlas;
 import us.mn.state.dot.tms.FontHelper;
 import us.mn.state.dot.tms.TMSException;
 
@@ -70,6 +71,20 @@ public class FontImpl extends BaseObjectImpl implements Font {
 		f_number = FontHelper.findUnusedFontNumber();
 	}
 
+	/** Store the font */
+	@Override
+	public void doStore() throws TMSException {
+		super.doStore();
+		FontAtlas.invalidate();
+	}
+
+	/** Destroy the font */
+	@Override
+	public void doDestroy() throws TMSException {
+		super.doDestroy();
+		FontAtlas.invalidate();
+	}
+
 	/** Create a new font */
 	private FontImpl(String n, int num, int h, int w, int ls, int cs) {
 		this(n);
@@ -87,6 +102,7 @@ public class FontImpl extends BaseObjectImpl implements Font {
 	@Override
 	public void setNumber(int n) {
 		f_number = n;
+		FontAtlas.invalidate();
 	}
 
 	/** Set the font number */
@@ -110,6 +126,7 @@ public class FontImpl extends BaseObjectImpl implements Font {
 	@Override
 	public void setHeight(int h) {
 		height = h;
+		FontAtlas.invalidate();
 	}
 
 	/** Set the font height (pixels) */
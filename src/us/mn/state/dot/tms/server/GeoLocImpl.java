@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2005-2024  Minnesota Department of Transportation
+ * Copyright (C) 2005-2026  Minnesota Department of Transportation
  * Copyright (C) 2014       AHMCT, University of California
  * Copyright (C) 2016-2017  SRF Consulting Group
  *
@@ -364,9 +364,17 @@ public class GeoLocImpl extends BaseObjectImpl implements GeoLoc {
 			checkLat(lt);
 			store.update(this, "lat", lt);
 			setLat(lt);
+			updateCorridorVersion();
 		}
 	}
 
+	/** Update the corridor topology version, if this is an r_node
+	 * location.  Other device locations are not part of any corridor. */
+	private void updateCorridorVersion() {
+		if (R_Node.SONAR_TYPE.equals(resource_n))
+			corridors.updateVersion();
+	}
+
 	/** Set the latitude and notify clients */
 	public void setLatNotify(Double lt) throws TMSException {
 		doSetLat(lt);
@@ -394,6 +402,7 @@ public class GeoLocImpl extends BaseObjectImpl implements GeoLoc {
 			checkLon(ln);
 			store.update(this, "lon", ln);
 			setLon(ln);
+			updateCorridorVersion();
 		}
 	}
 
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2007-2024  Minnesota Department of Transportation
+ * Copyright (C) 2007-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -21,6 +21,7 @@ import java.util.HashMap;
 import java.util.Map;
 import us.mn.state.dot.tms.ChangeVetoException;
 import us.mn.state.dot.tms.Font;
+import us.mn.state.dot.tms.FontAtlas;
 import us.mn.state.dot.tms.FontHelper;
 import us.mn.state.dot.tms.Glyph;
 import us.mn.state.dot.tms.TMSException;
@@ -80,6 +81,20 @@ public class GlyphImpl extends BaseObjectImpl implements Glyph {
 		super(n);
 	}
 
+	/** Store the glyph */
+	@Override
+	public void doStore() throws TMSException {
+		super.doStore();
+		FontAtlas.invalidate();
+	}
+
+	/** Destroy the glyph */
+	@Override
+	public void doDestroy() throws TMSException {
+		super.doDestroy();
+		FontAtlas.invalidate();
+	}
+
 	/** Font to which the glyph belongs */
 	private Font font;
 
@@ -105,6 +120,7 @@ public class GlyphImpl extends BaseObjectImpl implements Glyph {
 	@Override
 	public void setWidth(int w) {
 		width = w;
+		FontAtlas.invalidate();
 	}
 
 	/** Set the width (pixels) */
@@ -128,6 +144,7 @@ public class GlyphImpl extends BaseObjectImpl implements Glyph {
 	@Override
 	public void setPixels(String p) {
 		pixels = p;
+		FontAtlas.invalidate();
 	}
 
 	/** Set the pixel data (base64 encoded) */
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2007-2024  Minnesota Department of Transportation
+ * Copyright (C) 2007-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -21,6 +21,7 @@ import java.util.HashMap;
 import java.util.Map;
 import us.mn.state.dot.tms.ColorScheme;
 import us.mn.state.dot.tms.ChangeVetoException;
+import us.mn.state.dot.tms.FontAtlas;
 import us.mn.state.dot.tms.Graphic;
 import us.mn.state.dot.tms.TMSException;
 
@@ -68,6 +69,20 @@ public class GraphicImpl extends BaseObjectImpl implements Graphic {
 		pixels = "";
 	}
 
+	/** Store the graphic */
+	@Override
+	public void doStore() throws TMSException {
+		super.doStore();
+		FontAtlas.invalidate();
+	}
+
+	/** Destroy the graphic */
+	@Override
+	public void doDestroy() throws TMSException {
+		super.doDestroy();
+		FontAtlas.invalidate();
+	}
+
 	/** Create a graphic from database lookup */
 	private GraphicImpl(ResultSet row) throws SQLException {
 		this(row.getString(1),          // name
@@ -100,6 +115,7 @@ public class GraphicImpl extends BaseObjectImpl implements Graphic {
 	@Override
 	public void setGNumber(int g) {
 		g_number = g;
+		FontAtlas.invalidate();
 	}
 
 	/** Set the graphic number */
@@ -152,6 +168,7 @@ public class GraphicImpl extends BaseObjectImpl implements Graphic {
 	@Override
 	public void setTransparentColor(Integer tc) {
 		transparent_color = tc;
+		FontAtlas.invalidate();
 	}
 
 	/** Set the transparent color */
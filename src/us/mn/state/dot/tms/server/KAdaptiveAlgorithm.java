@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2001-2024  Minnesota Department of Transportation
+ * Copyright (C) 2001-2026  Minnesota Department of Transportation
  * Copyright (C) 2011-2012  University of Minnesota Duluth (NATSRL)
  *
  * This program is free software; you can redistribute it and/or modify
@@ -15,8 +15,18 @@
  */
 package us.mn.state.dot.tms.server;
 
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import us.mn.state.dot.sched.DebugLog;
 import us.mn.state.dot.sched.TimeSteward;
 import us.mn.state.dot.tms.EventType;
@@ -182,10 +192,66 @@ public class KAdaptiveAlgorithm implements MeterAlgorithmState {
 		return (k != null) && (k < K_LOW);
 	}
 
-	/** States for all K adaptive algorithms */
-	static private HashMap<String, KAdaptiveAlgorithm> ALL_ALGS =
+	/** States for all K adaptive algorithms (lock before accessing) */
+	static private final HashMap<String, KAdaptiveAlgorithm> ALL_ALGS =
 		new HashMap<String, KAdaptiveAlgorithm>();
 
+	/** Meter states restored from a traffic snapshot, by meter name.
+	 * Each is used when the meter state is next created (lock ALL_ALGS
+	 * before accessing). */
+	static private final HashMap<String, byte[]> RESTORED =
+		new HashMap<String, byte[]>();
+
+	/** Time when restored meter states expire */
+	static private long restored_expire = 0;
+
+	/** Write all meter states to a traffic snapshot section */
+	static void writeSnapshot(TrafficSnapshot.Section sec)
+		throws IOException
+	{
+		synchronized (ALL_ALGS) {
+			for (KAdaptiveAlgorithm alg: ALL_ALGS.values()) {
+				for (MeterState ms: alg.meter_states.values()) {
+					ms.writeSnapshot(sec.data);
+					sec.endRecord(ms.meter.getName());
+				}
+			}
+		}
+	}
+
+	/** Restore meter states from a traffic snapshot.
+	 * @param states Meter state records, by meter name.
+	 * @param expire Time after which the states are not used. */
+	static void restoreSnapshot(Map<String, byte[]> states, long expire) {
+		synchronized (ALL_ALGS) {
+			RESTORED.clear();
+			RESTORED.putAll(states);
+			restored_expire = expire;
+		}
+	}
+
+	/** Take the restored state record for a meter.
+	 * @return State record, or null if none (or expired). */
+	static private byte[] takeRestored(String name) {
+		synchronized (ALL_ALGS) {
+			byte[] rec = RESTORED.remove(name);
+			if (TimeSteward.currentTimeMillis() < restored_expire)
+				return rec;
+			RESTORED.clear();
+			return null;
+		}
+	}
+
+	/** Get an enum value from a snapshot ordinal */
+	static private <T> T fromOrdinal(T[] values, int o)
+		throws IOException
+	{
+		if (o < values.length)
+			return values[o];
+		else
+			throw new IOException("Invalid ordinal: " + o);
+	}
+
 	/** Get the K adaptive algorithm state for a meter */
 	static public KAdaptiveAlgorithm meterState(RampMeterImpl meter) {
 		Corridor c = meter.getCorridor();
@@ -200,91 +266,209 @@ public class KAdaptiveAlgorithm implements MeterAlgorithmState {
 
 	/** Lookup an algorithm for a corridor */
 	static private KAdaptiveAlgorithm lookupAlgorithm(Corridor c) {
-		KAdaptiveAlgorithm alg = ALL_ALGS.get(c.getName());
-		if (null == alg) {
-			alg = new KAdaptiveAlgorithm(c);
-			alg.log("adding");
-			ALL_ALGS.put(c.getName(), alg);
+		synchronized (ALL_ALGS) {
+			KAdaptiveAlgorithm alg = ALL_ALGS.get(c.getName());
+			if (null == alg) {
+				alg = new KAdaptiveAlgorithm(c);
+				alg.log("adding");
+				ALL_ALGS.put(c.getName(), alg);
+			}
+			return alg;
 		}
-		return alg;
 	}
 
 	/** Process one interval for all K adaptive algorithm states */
 	static public void processAllStates() {
-		long stamp = DetectorImpl.calculateEndTime(PERIOD_MS);
-		Iterator<KAdaptiveAlgorithm> it =
-			ALL_ALGS.values().iterator();
-		while (it.hasNext()) {
-			KAdaptiveAlgorithm alg = it.next();
+		for (String cid: corridorNames())
+			processState(cid);
+		removeDoneStates();
+	}
+
+	/** Get the corridor names of all K adaptive algorithm states */
+	static public List<String> corridorNames() {
+		synchronized (ALL_ALGS) {
+			return new ArrayList<String>(ALL_ALGS.keySet());
+		}
+	}
+
+	/** Process one interval for the K adaptive algorithm state of one
+	 * corridor.  States for different corridors are independent, so they
+	 * may be processed concurrently.
+	 * @param cid Corridor name. */
+	static public void processState(String cid) {
+		KAdaptiveAlgorithm alg;
+		synchronized (ALL_ALGS) {
+			alg = ALL_ALGS.get(cid);
+		}
+		if (alg != null) {
+			long stamp = DetectorImpl.calculateEndTime(PERIOD_MS);
 			alg.updateStations(stamp);
-			if (alg.isDone()) {
-				alg.log("isDone: removing");
-				it.remove();
+		}
+	}
+
+	/** Remove all K adaptive algorithm states which are done */
+	static public void removeDoneStates() {
+		synchronized (ALL_ALGS) {
+			Iterator<KAdaptiveAlgorithm> it =
+				ALL_ALGS.values().iterator();
+			while (it.hasNext()) {
+				KAdaptiveAlgorithm alg = it.next();
+				if (alg.isDone()) {
+					alg.log("isDone: removing");
+					it.remove();
+				}
 			}
 		}
 	}
 
-	/** Metering corridor */
-	private final Corridor corridor;
+	/** Metering corridor (replaced when topology changes) */
+	private Corridor corridor;
 
 	/** Hash map of ramp meter states */
 	private final HashMap<String, MeterState> meter_states =
 		new HashMap<String, MeterState>();
 
-	/** Head (furthest upstream) node on corridor */
-	private final Node head;
+	/** Corridor model of active stations and entrances */
+	private CorridorModel model;
+
+	/** Nodes of the current model */
+	private ModelNodes model_nodes;
+
+	/** R_Node of each model node */
+	private R_NodeImpl[] r_nodes;
 
-	/** Tail (furthest downstream) node on corridor */
-	private final Node tail;
+	/** Station of each model station */
+	private StationImpl[] stations;
+
+	/** Station densities for the current interval */
+	private float[] st_density;
+
+	/** Station speeds for the current interval */
+	private float[] st_speed;
 
 	/** Create a new KAdaptiveAlgorithm */
 	private KAdaptiveAlgorithm(Corridor c) {
 		corridor = c;
-		head = createNodes();
-		tail = head.tailNode();
+		createModel(new ModelNodes(corridor));
 		debug();
 	}
 
-	/** Create nodes from corridor structure */
-	private Node createNodes() {
-		NFinder finder = new NFinder();
-		corridor.findActiveNode(finder);
-		return finder.first;
-	}
+	/** Nodes of a corridor model, with mile points and flags.  Station
+	 * flags depend on detector state, so these can change without the
+	 * corridor being replaced. */
+	static private final class ModelNodes {
+		private final R_NodeImpl[] nodes;
+		private final float[] miles;
+		private final int[] flags;
+
+		/** Find the model nodes of a corridor */
+		private ModelNodes(Corridor c) {
+			final ArrayList<R_NodeImpl> nl =
+				new ArrayList<R_NodeImpl>();
+			final ArrayList<Float> ml = new ArrayList<Float>();
+			final ArrayList<Integer> fl = new ArrayList<Integer>();
+			c.findActiveNode(new Corridor.NodeFinder() {
+				public boolean check(float m,
+					R_NodeImpl rnode)
+				{
+					int f = nodeFlags(rnode);
+					if (f != 0) {
+						nl.add(rnode);
+						ml.add(m);
+						fl.add(f);
+					}
+					return false;
+				}
+			});
+			int n = nl.size();
+			nodes = nl.toArray(new R_NodeImpl[n]);
+			miles = new float[n];
+			flags = new int[n];
+			for (int i = 0; i < n; i++) {
+				miles[i] = ml.get(i);
+				flags[i] = fl.get(i);
+			}
+		}
 
-	/** Node finder */
-	private class NFinder implements Corridor.NodeFinder {
-		private Node first = null;
-		private Node prev = null;
-		public boolean check(float m, R_NodeImpl rnode) {
-			Node n = createNode(rnode, m, prev);
-			if (n != null)
-				prev = n;
-			if (null == first)
-				first = prev;
-			return false;
+		/** Check if model nodes are the same as another */
+		private boolean isSame(ModelNodes o) {
+			return Arrays.equals(nodes, o.nodes)
+			    && Arrays.equals(miles, o.miles)
+			    && Arrays.equals(flags, o.flags);
 		}
 	}
 
-	/** Create one node */
-	private Node createNode(R_NodeImpl rnode, float mile, Node prev) {
+	/** Create the corridor model from model nodes */
+	private void createModel(ModelNodes mn) {
+		model_nodes = mn;
+		model = new CorridorModel(mn.miles, mn.flags, steps(60));
+		r_nodes = mn.nodes;
+		int n_stations = model.stationCount();
+		stations = new StationImpl[n_stations];
+		for (int i = 0; i < n_stations; i++)
+			stations[i] = r_nodes[model.stationNode(i)].getStation();
+		st_density = new float[n_stations];
+		st_speed = new float[n_stations];
+	}
+
+	/** Get the model flags for one node */
+	static private int nodeFlags(R_NodeImpl rnode) {
 		switch (R_NodeType.fromOrdinal(rnode.getNodeType())) {
 		case ENTRANCE:
-			return new EntranceNode(rnode, mile, prev);
+			return CorridorModel.ENTRANCE;
 		case STATION:
 			StationImpl stat = rnode.getStation();
 			if (stat != null && stat.getActive())
-				return new StationNode(rnode, mile, prev, stat);
+				return CorridorModel.STATION;
 		default:
-			return null;
+			return 0;
+		}
+	}
+
+	/** Check if the corridor topology has changed.  The model is rebuilt
+	 * when the corridor is replaced with different nodes, or when a
+	 * station becomes active or inactive (detectors abandoned or
+	 * restored).  Station history is kept, and meter states are linked
+	 * to the new model. */
+	private void checkTopology() {
+		Corridor c = BaseObjectImpl.corridors.getCorridor(
+			corridor.getName());
+		if (c != null)
+			corridor = c;
+		ModelNodes mn = new ModelNodes(corridor);
+		if (mn.isSame(model_nodes))
+			return;
+		CorridorModel old_model = model;
+		StationImpl[] old_stations = stations;
+		createModel(mn);
+		IdentityHashMap<StationImpl, Integer> old_s =
+			new IdentityHashMap<StationImpl, Integer>();
+		for (int i = 0; i < old_stations.length; i++)
+			old_s.put(old_stations[i], i);
+		int[] other_s = new int[stations.length];
+		for (int i = 0; i < stations.length; i++) {
+			Integer os = old_s.get(stations[i]);
+			other_s[i] = (os != null) ? os : -1;
+		}
+		model.copyHistory(old_model, other_s);
+		log("topology changed");
+		debug();
+		Iterator<MeterState> it = meter_states.values().iterator();
+		while (it.hasNext()) {
+			if (!it.next().linkModel())
+				it.remove();
 		}
 	}
 
 	/** Debug corridor structure */
 	private void debug() {
 		log("-------- Corridor Structure --------");
-		for (Node n = head; n != null; n = n.downstream)
-			log(n.toString());
+		for (int i = 0; i < model.nodeCount(); i++) {
+			if (model.isEntrance(i))
+				log("EN:" + r_nodes[i].getName());
+			else
+				log("SN:" + r_nodes[i].getStation().getName());
+		}
 	}
 
 	/** Log one message */
@@ -329,9 +513,11 @@ public class KAdaptiveAlgorithm implements MeterAlgorithmState {
 
 	/** Create the meter state for a given ramp meter */
 	private boolean createMeterState(RampMeterImpl meter) {
-		EntranceNode en = findEntranceNode(meter);
-		if (en != null) {
-			MeterState ms = new MeterState(meter, en);
+		MeterState ms = new MeterState(meter);
+		if (ms.linkModel()) {
+			byte[] rec = takeRestored(meter.getName());
+			if (rec != null)
+				ms.restore(rec);
 			meter_states.put(meter.getName(), ms);
 			return true;
 		} else
@@ -340,53 +526,33 @@ public class KAdaptiveAlgorithm implements MeterAlgorithmState {
 
 	/** Find an entrance node matching the given ramp meter.
 	 * @param meter Ramp meter to search for.
-	 * @return Entrance node matching ramp meter. */
-	private EntranceNode findEntranceNode(RampMeterImpl meter) {
+	 * @return Model node index of entrance, or -1 if not found. */
+	private int findEntranceNode(RampMeterImpl meter) {
 		R_NodeImpl rnode = meter.getEntranceNode();
 		if (null == rnode) {
 			if (ALG_LOG.isOpen())
 				log("No entrance node " + meter.getName());
-			return null;
+			return -1;
 		}
-		for (Node n = head; n != null; n = n.downstream) {
-			if (n instanceof EntranceNode) {
-				EntranceNode en = (EntranceNode) n;
-				if (en.rnode.equals(rnode))
-					return en;
-			}
+		for (int i = 0; i < model.nodeCount(); i++) {
+			if (model.isEntrance(i) && r_nodes[i].equals(rnode))
+				return i;
 		}
 		if (ALG_LOG.isOpen()) {
 			log("Entrance " + rnode.getName() + " for " +
 				meter.getName() + " not found");
 		}
-		return null;
+		return -1;
 	}
 
-	/** Update the station nodes for the current interval */
+	/** Update the stations for the current interval */
 	private void updateStations(long stamp) {
-		for (StationNode sn = firstStation(); sn != null;
-		    sn = sn.downstreamStation())
-		{
-			sn.updateState(stamp);
-		}
-	}
-
-	/** Get the furthest upstream station node. */
-	private StationNode firstStation() {
-		for (Node n = head; n != null; n = n.downstream) {
-			if (n instanceof StationNode)
-				return (StationNode) n;
+		checkTopology();
+		for (int i = 0; i < stations.length; i++) {
+			st_density[i] = stations[i].getDensity(stamp, PERIOD_MS);
+			st_speed[i] = stations[i].getSpeed(stamp, PERIOD_MS);
 		}
-		return null;
-	}
-
-	/** Get the furthest downstream station node. */
-	private StationNode lastStation() {
-		for (Node n = tail; n != null; n = n.upstream) {
-			if (n instanceof StationNode)
-				return (StationNode) n;
-		}
-		return null;
+		model.update(st_density, st_speed);
 	}
 
 	/** Is this KAdaptiveAlgorithm done? */
@@ -398,198 +564,6 @@ public class KAdaptiveAlgorithm implements MeterAlgorithmState {
 		return true;
 	}
 
-	/** Node to manage station or entrance */
-	abstract protected class Node {
-
-		/** R_Node reference */
-		protected final R_NodeImpl rnode;
-
-		/** Mile point of the node */
-		protected final float mile;
-
-		/** Link to upstream node */
-		protected final Node upstream;
-
-		/** Link to downstream node */
-		protected Node downstream;
-
-		/** Create a new node */
-		protected Node(R_NodeImpl n, float m, Node up) {
-			rnode = n;
-			mile = m;
-			if (up != null)
-				up.downstream = this;
-			upstream = up;
-			downstream = null;
-		}
-
-		/** Get the distance to another node (in miles) */
-		protected float distanceMiles(Node other) {
-			return Math.abs(mile - other.mile);
-		}
-
-		/** Get the distancee to another node (in feet) */
-		protected int distanceFeet(Node other) {
-			return Math.round(distanceMiles(other) * FEET_PER_MILE);
-		}
-
-		/** Get the tail of a node list */
-		protected Node tailNode() {
-			Node n = this;
-			while (n.downstream != null)
-				n = n.downstream;
-			return n;
-		}
-
-		/** Find next upstream station node.
-		 * @return Upstream station node. */
-		protected StationNode upstreamStation() {
-			for (Node n = upstream; n != null; n = n.upstream) {
-				if (n instanceof StationNode)
-					return (StationNode) n;
-			}
-			return null;
-		}
-
-		/** Find next downstream station node.
-		 * @return Downstream station node. */
-		protected StationNode downstreamStation() {
-			for (Node n = downstream; n != null; n = n.downstream) {
-				if (n instanceof StationNode)
-					return (StationNode) n;
-			}
-			return null;
-		}
-	}
-
-	/** Node to manage station on corridor */
-	protected class StationNode extends Node {
-
-		/** StationImpl mapping this state */
-		private final StationImpl station;
-
-		/** Density history */
-		private final BoundedSampleHistory density_hist =
-			new BoundedSampleHistory(steps(60));
-
-		/** Speed history */
-		private final BoundedSampleHistory speed_hist =
-			new BoundedSampleHistory(steps(60));
-
-		/** Create a new station node. */
-		public StationNode(R_NodeImpl rnode, float m, Node up,
-			StationImpl stat)
-		{
-			super(rnode, m, up);
-			station = stat;
-		}
-
-		/** Update station state */
-		private void updateState(long stamp) {
-			density_hist.push(getStationDensity(stamp));
-			speed_hist.push(getStationSpeed(stamp));
-		}
-
-		/** Get the current station density */
-		private Double getStationDensity(long stamp) {
-			float d = station.getDensity(stamp, PERIOD_MS);
-			return (d >= 0) ? (double) d : null;
-		}
-
-		/** Get the current station speed */
-		private Double getStationSpeed(long stamp) {
-			float s = station.getSpeed(stamp, PERIOD_MS);
-			return (s >= 0) ? (double) s : null;
-		}
-
-		/** Get average density of a mainline segment beginning at the
-		 * current station.  This works by splitting each consecutive
-		 * pair of stations into 3 equal links and assigning average
-		 * density to the middle link.  All links are then averaged,
-		 * weighted by length.
-		 *
-		 * @param dn Segment downstream station node.
-		 * @return average density (distance weight). */
-		private double calculateSegmentDensity(final StationNode dn) {
-			StationNode cursor = this;
-			double dist_seg = 0;	/* Segment distance */
-			double veh_seg = 0;	/* Sum of vehicles in segment */
-			double k_cursor = cursor.getDensity();
-			for (StationNode sn = cursor.downstreamStation();
-			     sn != null && cursor != dn;
-			     sn = sn.downstreamStation())
-			{
-				double k_down = sn.getDensity();
-				double k_middle = (k_cursor + k_down) / 2;
-				double dist = cursor.distanceMiles(sn);
-				dist_seg += dist;
-				veh_seg += (k_cursor + k_middle + k_down) / 3 *
-					dist;
-				cursor = sn;
-				k_cursor = k_down;
-			}
-			if (dist_seg > 0)
-				return veh_seg / dist_seg;
-			else
-				return k_cursor;
-		}
-
-		/** Get 1 minute density at current time step.
-		 * @return average 1 min density; missing data returns 0. */
-		public double getDensity() {
-			Double avg = density_hist.average(0, steps(60));
-			return (avg != null) ? avg : 0;
-		}
-
-		/** Get 1 minute speed at current time step.
-		 * @return Average 1 min speed; missing data returns 0. */
-		private double getSpeed() {
-			Double avg = speed_hist.average(0, steps(60));
-			return (avg != null) ? avg : 0;
-		}
-
-		/** Find downstream segment station node.  This is the station
-		 * downstream which results in the highest segment density.
-		 * @return Downstream segment station node. */
-		protected StationNode segmentStationNode() {
-			StationNode dn = this;
-			double dk = 0;
-			for (StationNode sn = this; sn != null;
-			     sn = sn.downstreamStation())
-			{
-				if (distanceMiles(sn) > SEGMENT_LENGTH_MILES)
-					break;
-				double k = calculateSegmentDensity(sn);
-				if (k >= dk) {
-					dk = k;
-					dn = sn;
-				}
-			}
-			return dn;
-		}
-
-		/** Get a string representation of a station node */
-		@Override
-		public String toString() {
-			return "SN:" + station.getName();
-		}
-	}
-
-	/** Node to manage entrance onto corridor */
-	class EntranceNode extends Node {
-
-		/** Create a new entrance node */
-		public EntranceNode(R_NodeImpl rnode, float m, Node prev) {
-			super(rnode, m, prev);
-		}
-
-		/** Get a string representation of an entrance node */
-		@Override
-		public String toString() {
-			return "EN:" + rnode.getName();
-		}
-	}
-
 	/** Enum for metering phase */
 	private enum MeteringPhase {
 		not_started,
@@ -604,11 +578,11 @@ public class KAdaptiveAlgorithm implements MeterAlgorithmState {
 		/** Meter at this entrance */
 		private final RampMeterImpl meter;
 
-		/** Entrance node for the meter */
-		private final EntranceNode node;
+		/** Model node index of meter entrance */
+		private int node;
 
-		/** Station node association */
-		private final StationNode s_node;
+		/** Model index of associated station (-1 for none) */
+		private int s_node = -1;
 
 		/** Queue sampler set */
 		private final SamplerSet queue;
@@ -694,52 +668,64 @@ public class KAdaptiveAlgorithm implements MeterAlgorithmState {
 			new BoundedSampleHistory(MAX_STEPS);
 
 		/** Create a new meter state */
-		public MeterState(RampMeterImpl mtr, EntranceNode en) {
+		public MeterState(RampMeterImpl mtr) {
 			meter = mtr;
-			node = en;
 			SamplerSet ss = meter.getSamplerSet();
 			queue = ss.filter(LaneCode.QUEUE);
 			passage = ss.filter(LaneCode.PASSAGE);
 			merge = ss.filter(LaneCode.MERGE);
 			bypass = ss.filter(LaneCode.BYPASS);
 			green = ss.filter(LaneCode.GREEN);
-			s_node = getAssociatedStation();
+		}
+
+		/** Link the meter state to the corridor model.
+		 * @return false if the meter entrance is not in the model. */
+		private boolean linkModel() {
+			node = findEntranceNode(meter);
+			s_node = (node >= 0) ? getAssociatedStation() : -1;
+			return node >= 0;
 		}
 
 		/** Get station to associate with the meter state.
-		 * @return Associated station node, or null. */
-		private StationNode getAssociatedStation() {
-			StationNode us = getAssociatedUpstream();
-			StationNode ds = node.downstreamStation();
+		 * @return Associated station index, or -1. */
+		private int getAssociatedStation() {
+			int us = getAssociatedUpstream();
+			int ds = model.downstreamStation(node);
 			return useDownstream(us, ds) ? ds : us;
 		}
 
 		/** Get associated upstream station.
-		 * @return Station node upstream of meter, or null. */
-		private StationNode getAssociatedUpstream() {
-			StationNode us = node.upstreamStation();
-			return isUpstreamStationOk(us) ? us : null;
+		 * @return Station index upstream of meter, or -1. */
+		private int getAssociatedUpstream() {
+			int us = model.upstreamStation(node);
+			return isUpstreamStationOk(us) ? us : -1;
 		}
 
 		/** Check if an upstream station is OK.
 		 * @param us Station just upstream of meter.
 		 * @return true if upstream station is suitable. */
-		private boolean isUpstreamStationOk(StationNode us) {
-			return us != null &&
-			       node.distanceMiles(us) < UPSTREAM_STATION_MILES;
+		private boolean isUpstreamStationOk(int us) {
+			return us >= 0 && model.distanceMiles(node, us) <
+			       UPSTREAM_STATION_MILES;
+		}
+
+		/** Get the distance from meter to a station (feet) */
+		private int distanceFeet(int s) {
+			return Math.round(model.distanceMiles(node, s) *
+				FEET_PER_MILE);
 		}
 
 		/** Test if downstream station should be associated.
 		 * @param us Station just upstream of meter.
 		 * @param ds Station just downstream of meter.
 		 * @return true if downstream station should be associated. */
-		private boolean useDownstream(StationNode us, StationNode ds) {
-			if (us == null)
+		private boolean useDownstream(int us, int ds) {
+			if (us < 0)
 				return true;
-			if (ds == null)
+			if (ds < 0)
 				return false;
-			int uf = node.distanceFeet(us);
-			int df = node.distanceFeet(ds);
+			int uf = distanceFeet(us);
+			int df = distanceFeet(ds);
 			return df < DOWNSTREAM_STATION_FEET && df < uf;
 		}
 
@@ -765,7 +751,7 @@ public class KAdaptiveAlgorithm implements MeterAlgorithmState {
 			updateDemandState();
 			min_rate = filterRate(calculateMinimumRate());
 			max_rate = filterRate(calculateMaximumRate());
-			if (s_node != null)
+			if (s_node >= 0)
 				calculateMeteringRate();
 		}
 
@@ -1174,9 +1160,10 @@ public class KAdaptiveAlgorithm implements MeterAlgorithmState {
 
 		/** Calculate the metering rate */
 		private void calculateMeteringRate() {
-			assert s_node != null;
-			StationNode dn = s_node.segmentStationNode();
-			double k = s_node.calculateSegmentDensity(dn);
+			assert s_node >= 0;
+			int dn = model.segmentStation(s_node,
+				SEGMENT_LENGTH_MILES);
+			double k = model.segmentDensity(s_node, dn);
 			segment_k_hist.push(k);
 			phase = checkMeteringPhase();
 			if (isMetering())
@@ -1427,20 +1414,19 @@ public class KAdaptiveAlgorithm implements MeterAlgorithmState {
 			return rate - (k - K_DES) * ratio;
 		}
 
-		/** Get the downstream node for the segment */
-		private StationNode segmentDownstream() {
-			if (s_node != null) {
-				StationNode dn = s_node.segmentStationNode();
-				if (dn != null)
-					return dn;
-			}
-			return null;
+		/** Get the downstream station for the segment.
+		 * @return Station index, or -1 for none. */
+		private int segmentDownstream() {
+			return (s_node >= 0)
+			      ? model.segmentStation(s_node,
+			                             SEGMENT_LENGTH_MILES)
+			      : -1;
 		}
 
 		/** Log a meter event */
 		protected void logMeterEvent() {
-			StationNode dn = segmentDownstream();
-			String dns = (dn != null) ? dn.station.getName() : null;
+			int dn = segmentDownstream();
+			String dns = (dn >= 0) ? stations[dn].getName() : null;
 			Double sd = getSegmentDensity();
 			float seg_den = (sd != null) ? sd.floatValue() : 0;
 			MeterEvent ev = new MeterEvent(EventType.METER_EVENT,
@@ -1452,6 +1438,64 @@ public class KAdaptiveAlgorithm implements MeterAlgorithmState {
 			BaseObjectImpl.logEvent(ev);
 		}
 
+		/** Write the meter state to a traffic snapshot */
+		private void writeSnapshot(DataOutput out) throws IOException {
+			out.writeByte(phase.ordinal());
+			out.writeInt(min_rate);
+			out.writeInt(release_rate);
+			out.writeInt(max_rate);
+			demand_hist.writeSnapshot(out);
+			demand_accum_hist.writeSnapshot(out);
+			out.writeFloat(demand_accum);
+			out.writeFloat(demand_adj);
+			out.writeInt(tracking_demand);
+			out.writeBoolean(passage_good);
+			out.writeInt(passage_accum);
+			passage_hist.writeSnapshot(out);
+			out.writeInt(green_accum);
+			out.writeInt(queue_empty_secs);
+			out.writeInt(queue_backup_secs);
+			out.writeInt(backup_occ);
+			out.writeByte(limit_control.ordinal());
+			segment_k_hist.writeSnapshot(out);
+		}
+
+		/** Read the meter state from a traffic snapshot */
+		private void readSnapshot(DataInput in) throws IOException {
+			phase = fromOrdinal(MeteringPhase.values(),
+				in.readUnsignedByte());
+			min_rate = in.readInt();
+			release_rate = in.readInt();
+			max_rate = in.readInt();
+			demand_hist.readSnapshot(in);
+			demand_accum_hist.readSnapshot(in);
+			demand_accum = in.readFloat();
+			demand_adj = in.readFloat();
+			tracking_demand = in.readInt();
+			passage_good = in.readBoolean();
+			passage_accum = in.readInt();
+			passage_hist.readSnapshot(in);
+			green_accum = in.readInt();
+			queue_empty_secs = in.readInt();
+			queue_backup_secs = in.readInt();
+			backup_occ = in.readInt();
+			limit_control = fromOrdinal(MinimumRateLimit.values(),
+				in.readUnsignedByte());
+			segment_k_hist.readSnapshot(in);
+		}
+
+		/** Restore the meter state from a traffic snapshot record */
+		private void restore(byte[] rec) {
+			try {
+				readSnapshot(new DataInputStream(
+					new ByteArrayInputStream(rec)));
+				log("restored " + this);
+			}
+			catch (IOException e) {
+				log("restore " + meter.getName() + ": " + e);
+			}
+		}
+
 		/** Get a string representation of a meter state */
 		@Override
 		public String toString() {
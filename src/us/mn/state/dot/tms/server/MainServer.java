@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2000-2024  Minnesota Department of Transportation
+ * Copyright (C) 2000-2026  Minnesota Department of Transportation
  * Copyright (C) 2017  Iteris Inc.
  *
  * This program is free software; you can redistribute it and/or modify
@@ -26,16 +26,22 @@ import java.util.Properties;
 import us.mn.state.dot.sched.DebugLog;
 import us.mn.state.dot.sched.Scheduler;
 import us.mn.state.dot.sched.TimeSteward;
+import us.mn.state.dot.sonar.ConfigurationError;
+import us.mn.state.dot.sonar.Props;
 import us.mn.state.dot.sonar.SonarException;
 import us.mn.state.dot.sonar.server.Server;
 import us.mn.state.dot.sonar.server.ServerNamespace;
 import us.mn.state.dot.tms.BaseHelper;
+import us.mn.state.dot.tms.HashtagIndex;
 import us.mn.state.dot.tms.Station;
 import us.mn.state.dot.tms.SystemAttrEnum;
 import us.mn.state.dot.tms.TMSException;
 import us.mn.state.dot.tms.server.event.BaseEvent;
+import us.mn.state.dot.tms.server.event.EventWriter;
+import us.mn.state.dot.tms.server.comm.CommThread;
 import us.mn.state.dot.tms.server.comm.cux50.CUx50;
 import us.mn.state.dot.tms.server.comm.cux50.PrServer;
+import us.mn.state.dot.tms.server.comm.ntcip.NtcipThread;
 import us.mn.state.dot.tms.utils.DevelCfg;
 import us.mn.state.dot.tms.utils.HttpProxySelector;
 import us.mn.state.dot.tms.utils.I18N;
@@ -70,10 +76,17 @@ public class MainServer {
 	/** Flush thread for disk writing jobs */
 	static public final Scheduler FLUSH = new Scheduler("flush");
 
+	/** Archive thread for sample archive jobs */
+	static public final Scheduler ARCHIVE = new Scheduler("archive");
+
 	/** Sample archive factory */
 	static public final SampleArchiveFactoryImpl a_factory =
 		new SampleArchiveFactoryImpl();
 
+	/** Vehicle event log writer */
+	static public final VehicleLogWriter v_writer =
+		new VehicleLogWriter(a_factory);
+
 	/** SONAR server */
 	static public Server server;
 
@@ -98,14 +111,19 @@ public class MainServer {
 			Properties props = PropertyLoader.load(PROP_FILE);
 			district = props.getProperty("district", "tms");
 			initProxySelector(props);
+			initCommThreads(props);
 			store = createStore(props);
 			BaseEvent.store = store;
+			BaseEvent.writer = createEventWriter(props);
 			I18N.initialize(props);
 			GateArmArrayImpl.initAllowList(props);
 			ServerNamespace ns = createNamespace();
+			HashtagIndex.enable();
 			BaseObjectImpl.loadAll(store, ns);
-			scheduleTimerJobs();
-			scheduleFlushJobs();
+			TrafficSnapshot snapshot = createSnapshot(props);
+			snapshot.load();
+			scheduleTimerJobs(props, snapshot);
+			scheduleFlushJobs(props);
 			startProtocolServer();
 			hash_provider = new HashProvider();
 			server = new Server(ns, props, new AccessLogger(FLUSH),
@@ -177,17 +195,56 @@ public class MainServer {
 		}
 	}
 
+	/** Initialize comm thread creation */
+	static private void initCommThreads(Properties props)
+		throws ConfigurationError
+	{
+		boolean v = Boolean.parseBoolean(props.getProperty(
+			"comm.virtual.threads"));
+		long ss = (props.getProperty("comm.thread.stack.kb") != null)
+			? getIntProp(props, "comm.thread.stack.kb", 1) * 1024L
+			: 0;
+		CommThread.configure(v, ss);
+		NtcipThread.configure(getIntProp(props, "ntcip.udp.window", 1));
+		if (v && !CommThread.isVirtual()) {
+			System.err.println("Virtual threads not supported; " +
+				"using platform comm threads");
+		}
+	}
+
 	/** Create the database connection */
 	static private SQLConnection createStore(Properties props)
-		throws IOException, TMSException
+		throws IOException, TMSException, ConfigurationError
 	{
 		return new SQLConnection(
 			props.getProperty("db.url"),
 			props.getProperty("db.user"),
-			props.getProperty("db.password")
+			props.getProperty("db.password"),
+			getIntProp(props, "db.pool.size", 4),
+			getIntProp(props, "db.bulk.size", 4)
 		);
 	}
 
+	/** Get an integer property, or a default value */
+	static private int getIntProp(Properties p, String k, int d)
+		throws ConfigurationError
+	{
+		int v = (p.getProperty(k) != null) ? Props.getIntProp(p, k) : d;
+		if (v < 1)
+			throw ConfigurationError.invalidInt(k);
+		return v;
+	}
+
+	/** Create the batched event writer, with a dedicated connection */
+	static private EventWriter createEventWriter(Properties props)
+		throws IOException, TMSException, ConfigurationError
+	{
+		return new EventWriter(createStore(props),
+			getIntProp(props, "event.queue.size", 65536),
+			getIntProp(props, "event.batch.rows", 500),
+			getIntProp(props, "event.flush.ms", 1000));
+	}
+
 	/** Create the server namespace */
 	static private ServerNamespace createNamespace() throws SonarException {
 		ServerNamespace ns = new ServerNamespace();
@@ -264,9 +321,24 @@ public class MainServer {
 		return ns;
 	}
 
+	/** Create the traffic snapshot (written on FLUSH thread) */
+	static private TrafficSnapshot createSnapshot(Properties props)
+		throws ConfigurationError
+	{
+		return new TrafficSnapshot(FLUSH, new File(props.getProperty(
+			"snapshot.file", "/var/lib/iris/traffic.snapshot")),
+			getIntProp(props, "snapshot.max.secs", 300));
+	}
+
 	/** Schedule jobs on TIMER thread */
-	static private void scheduleTimerJobs() {
-		TIMER.addJob(new MeteringJob(FLUSH));
+	static private void scheduleTimerJobs(Properties props,
+		TrafficSnapshot snapshot) throws ConfigurationError
+	{
+		TIMER.setWorkers(getIntProp(props, "timer.threads", 1));
+		int n_metering = (props.getProperty("metering.threads") != null)
+			? getIntProp(props, "metering.threads", 1)
+			: 0;
+		TIMER.addJob(new MeteringJob(FLUSH, n_metering, snapshot));
 		TIMER.addJob(new CameraWiperJob());
 		TIMER.addJob(new SendSettingsJob());
 		TIMER.addJob(new SendSettingsJob(500));
@@ -277,9 +349,15 @@ public class MainServer {
 	}
 
 	/** Schedule jobs on FLUSH thread */
-	static private void scheduleFlushJobs() {
-		FLUSH.addJob(new FlushSamplesJob(a_factory));
-		FLUSH.addJob(new ArchiveSamplesJob(a_factory));
+	static private void scheduleFlushJobs(Properties props)
+		throws ConfigurationError
+	{
+		int n_mapped = (props.getProperty("sample.mmap.files") != null)
+			? getIntProp(props, "sample.mmap.files", 1)
+			: 0;
+		FLUSH.addJob(new FlushSamplesJob(a_factory, n_mapped));
+		ARCHIVE.addJob(new ArchiveSamplesJob(a_factory,
+			getIntProp(props, "archive.threads", 2)));
 		FLUSH.addJob(new ProfilingJob());
 		FLUSH.addJob(new CreateCorridorsJob(FLUSH));
 		FLUSH.addJob(new XmlConfigJob(1000));
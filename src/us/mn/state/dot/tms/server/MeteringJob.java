@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2009-2023  Minnesota Department of Transportation
+ * Copyright (C) 2009-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -14,20 +14,49 @@
  */
 package us.mn.state.dot.tms.server;
 
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Iterator;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import us.mn.state.dot.sched.DebugLog;
 import us.mn.state.dot.sched.Job;
 import us.mn.state.dot.sched.Scheduler;
+import us.mn.state.dot.sched.TimeSteward;
+import us.mn.state.dot.tms.GeoLocHelper;
+import us.mn.state.dot.tms.R_NodeHelper;
 import us.mn.state.dot.tms.RampMeter;
 import us.mn.state.dot.tms.RampMeterHelper;
+import us.mn.state.dot.tms.Station;
+import us.mn.state.dot.tms.StationHelper;
 
 /**
  * Job to calculate station data and ramp metering.
  *
+ * In parallel mode, stations, bottlenecks, K adaptive states and meter
+ * algorithms are calculated for each corridor on a fork-join pool.  Then
+ * queue states and planned rates are committed for all meters, in order, on
+ * the scheduler thread.  Finally, station and meter state is captured for
+ * the traffic snapshot.
+ *
  * @author Douglas Lau
  */
 public class MeteringJob extends Job {
 
+	/** Metering timing debug log */
+	static private final DebugLog METER_LOG = new DebugLog("metering");
+
+	/** Serialization key for jobs which share traffic state (stations,
+	 * ramp meters, K adaptive algorithm state, toll zones, action plans
+	 * and parking areas).  None of that state is synchronized, so these
+	 * jobs must not be performed at the same time. */
+	static public final String TRAFFIC_KEY = "traffic";
+
 	/** Seconds to offset from start of interval.
 	 *
 	 * This must be *after* binned detector data has been collected, to
@@ -43,22 +72,93 @@ public class MeteringJob extends Job {
 	/** Job to be performed after data has been processed */
 	private final FlushXmlJob flush_job;
 
+	/** Fork-join pool for corridor work (null for sequential mode) */
+	private final ForkJoinPool pool;
+
+	/** Traffic snapshot to capture after metering (may be null) */
+	private final TrafficSnapshot snapshot;
+
+	/** Time of last phase (for timing log) */
+	private long phase_start;
+
+	/** Phase timing log message */
+	private final StringBuilder phases = new StringBuilder();
+
 	/** Create a new metering job */
 	public MeteringJob(Scheduler f) {
+		this(f, 0, null);
+	}
+
+	/** Create a new metering job.
+	 * @param f FLUSH scheduler.
+	 * @param n_threads Number of threads for corridor work, or 0 to
+	 *                  calculate all corridors on the scheduler thread.
+	 * @param ts Traffic snapshot to capture, or null. */
+	public MeteringJob(Scheduler f, int n_threads, TrafficSnapshot ts) {
 		super(Calendar.SECOND, 30, Calendar.SECOND, OFFSET_SECS);
 		flush = f;
 		station_manager = new StationManager();
 		flush_job = new FlushXmlJob(station_manager);
+		pool = (n_threads > 0) ? createPool(n_threads) : null;
+		snapshot = ts;
+	}
+
+	/** Create a fork-join pool for corridor work */
+	static private ForkJoinPool createPool(int n_threads) {
+		return new ForkJoinPool(n_threads,
+			new ForkJoinPool.ForkJoinWorkerThreadFactory()
+		{
+			public ForkJoinWorkerThread newThread(ForkJoinPool p) {
+				ForkJoinWorkerThread t = ForkJoinPool
+					.defaultForkJoinWorkerThreadFactory
+					.newThread(p);
+				t.setName("metering_" + t.getPoolIndex());
+				t.setDaemon(true);
+				return t;
+			}
+		}, null, false);
+	}
+
+	/** Metering is real-time, so it must not wait behind other jobs */
+	@Override
+	public boolean isPriority() {
+		return true;
+	}
+
+	/** Metering shares traffic state with other jobs */
+	@Override
+	public String getSerialKey() {
+		return TRAFFIC_KEY;
 	}
 
 	/** Perform the metering job */
 	@Override
-	public void perform() {
+	public void perform() throws Exception {
+		startTiming();
+		try {
+			if (pool != null)
+				performCorridors();
+			else
+				performSequential();
+			if (snapshot != null) {
+				snapshot.capture();
+				endPhase("snapshot");
+			}
+		}
+		finally {
+			logTiming();
+		}
+	}
+
+	/** Perform all phases on the scheduler thread */
+	private void performSequential() {
 		try {
 			station_manager.calculateData();
 			// Perform flush job after station data calculated
 			flush.addJob(flush_job);
+			endPhase("stations");
 			BaseObjectImpl.corridors.findBottlenecks();
+			endPhase("bottlenecks");
 		}
 		finally {
 			validateMetering();
@@ -68,6 +168,7 @@ public class MeteringJob extends Job {
 	/** Validate all metering algorithms */
 	private void validateMetering() {
 		KAdaptiveAlgorithm.processAllStates();
+		endPhase("kadaptive");
 		Iterator<RampMeter> it = RampMeterHelper.iterator();
 		while (it.hasNext()) {
 			RampMeter rm = it.next();
@@ -76,7 +177,13 @@ public class MeteringJob extends Job {
 				meter.validateAlgorithm();
 			}
 		}
-		it = RampMeterHelper.iterator();
+		endPhase("validate");
+		commitMetering();
+	}
+
+	/** Commit queue states and planned rates for all meters */
+	private void commitMetering() {
+		Iterator<RampMeter> it = RampMeterHelper.iterator();
 		while (it.hasNext()) {
 			RampMeter rm = it.next();
 			if (rm instanceof RampMeterImpl) {
@@ -85,5 +192,140 @@ public class MeteringJob extends Job {
 				meter.updateRatePlanned();
 			}
 		}
+		endPhase("commit");
+	}
+
+	/** Work for one corridor */
+	private class CorridorWork implements Callable<Void> {
+
+		/** Corridor name (null for no corridor) */
+		private final String cid;
+
+		/** Stations on corridor */
+		private final ArrayList<StationImpl> stations =
+			new ArrayList<StationImpl>();
+
+		/** Ramp meters on corridor */
+		private final ArrayList<RampMeterImpl> meters =
+			new ArrayList<RampMeterImpl>();
+
+		/** Create work for one corridor */
+		private CorridorWork(String c) {
+			cid = c;
+		}
+
+		/** Calculate stations, bottlenecks, K adaptive states and
+		 * meter algorithms for the corridor */
+		@Override
+		public Void call() {
+			try {
+				for (StationImpl s: stations)
+					station_manager.calculateData(s);
+				if (cid != null) {
+					Corridor c = BaseObjectImpl.corridors
+						.getCorridor(cid);
+					if (c != null)
+						c.findBottlenecks();
+				}
+			}
+			finally {
+				if (cid != null)
+					KAdaptiveAlgorithm.processState(cid);
+				for (RampMeterImpl m: meters)
+					m.validateAlgorithm();
+			}
+			return null;
+		}
+	}
+
+	/** Perform corridor work on the fork-join pool, then commit */
+	private void performCorridors() throws Exception {
+		station_manager.updateStamp();
+		List<Future<Void>> res = pool.invokeAll(partitionCorridors());
+		endPhase("corridors");
+		// Perform flush job after station data calculated
+		flush.addJob(flush_job);
+		KAdaptiveAlgorithm.removeDoneStates();
+		commitMetering();
+		for (Future<Void> f: res) {
+			try {
+				f.get();
+			}
+			catch (ExecutionException e) {
+				Throwable t = e.getCause();
+				throw (t instanceof Exception)
+				      ? (Exception) t
+				      : e;
+			}
+		}
+	}
+
+	/** Partition stations and meters by corridor */
+	private List<CorridorWork> partitionCorridors() {
+		TreeMap<String, CorridorWork> work =
+			new TreeMap<String, CorridorWork>();
+		CorridorWork none = new CorridorWork(null);
+		Iterator<Station> sit = StationHelper.iterator();
+		while (sit.hasNext()) {
+			Station s = sit.next();
+			if (s instanceof StationImpl) {
+				StationImpl si = (StationImpl) s;
+				String cid = R_NodeHelper.getCorridorName(
+					si.getR_Node());
+				lookupWork(work, none, cid).stations.add(si);
+			}
+		}
+		Iterator<RampMeter> it = RampMeterHelper.iterator();
+		while (it.hasNext()) {
+			RampMeter rm = it.next();
+			if (rm instanceof RampMeterImpl) {
+				RampMeterImpl m = (RampMeterImpl) rm;
+				String cid = GeoLocHelper.getCorridorName(
+					m.getGeoLoc());
+				lookupWork(work, none, cid).meters.add(m);
+			}
+		}
+		for (String cid: KAdaptiveAlgorithm.corridorNames())
+			lookupWork(work, none, cid);
+		ArrayList<CorridorWork> wl = new ArrayList<CorridorWork>(
+			work.values());
+		wl.add(none);
+		return wl;
+	}
+
+	/** Lookup (or create) the work for a corridor */
+	private CorridorWork lookupWork(TreeMap<String, CorridorWork> work,
+		CorridorWork none, String cid)
+	{
+		if (cid == null)
+			return none;
+		CorridorWork cw = work.get(cid);
+		if (cw == null) {
+			cw = new CorridorWork(cid);
+			work.put(cid, cw);
+		}
+		return cw;
+	}
+
+	/** Start timing phases */
+	private void startTiming() {
+		phase_start = TimeSteward.currentTimeMillis();
+		phases.setLength(0);
+	}
+
+	/** End one timed phase */
+	private void endPhase(String phase) {
+		long now = TimeSteward.currentTimeMillis();
+		phases.append(' ').append(phase).append('=')
+		      .append(now - phase_start);
+		phase_start = now;
+	}
+
+	/** Log phase timing */
+	private void logTiming() {
+		if (METER_LOG.isOpen()) {
+			METER_LOG.log(((pool != null) ? "parallel" :
+				"sequential") + phases + " ms");
+		}
 	}
 }
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2018  Minnesota Department of Transportation
+ * Copyright (C) 2018-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -37,6 +37,12 @@ public class ParkingAreaJob extends Job {
 		super(Calendar.SECOND, 30, Calendar.SECOND, OFFSET_SECS);
 	}
 
+	/** Parking areas read detector data shared with metering */
+	@Override
+	public String getSerialKey() {
+		return MeteringJob.TRAFFIC_KEY;
+	}
+
 	/** Perform the job */
 	@Override
 	public void perform() throws TMSException {
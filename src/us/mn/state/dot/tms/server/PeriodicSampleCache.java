@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2010-2021  Minnesota Department of Transportation
+ * Copyright (C) 2010-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -14,16 +14,23 @@
  */
 package us.mn.state.dot.tms.server;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.Iterator;
-import java.util.concurrent.ConcurrentSkipListSet;
 import us.mn.state.dot.sched.DebugLog;
 import us.mn.state.dot.sched.TimeSteward;
 import us.mn.state.dot.tms.units.Interval;
 import static us.mn.state.dot.tms.server.Constants.MISSING_DATA;
 
 /**
- * A cache for periodic sample data.  
+ * A cache for periodic sample data.  Sample values are stored in a ring
+ * buffer, indexed by sample number (start time divided by the period), so
+ * lookups cost one array access per sample in the requested interval,
+ * regardless of how many samples are cached.
  *
  * @author Douglas Lau
  */
@@ -40,6 +47,9 @@ public class PeriodicSampleCache {
 	static private final long SAMPLE_MAX_MS = new Interval(1,
 		Interval.Units.HOURS).ms();
 
+	/** Initial capacity of ring buffer (must be a power of 2) */
+	static private final int INITIAL_CAPACITY = 32;
+
 	/** Check if a timestamp is valid */
 	static private boolean checkStamp(long ts) {
 		long now = TimeSteward.currentTimeMillis();
@@ -130,10 +140,22 @@ public class PeriodicSampleCache {
 	/** Sample type */
 	public final PeriodicSampleType sample_type;
 
-	/** Collection of periodic samples.  Every sample is guaranteed to
-	 * have the same sampling period. */
-	private final ConcurrentSkipListSet<PeriodicSample> samples =
-		new ConcurrentSkipListSet<PeriodicSample>();
+	/** Sampling period (seconds), or 0 when empty.  Every sample is
+	 * guaranteed to have the same sampling period. */
+	private int per_sec = 0;
+
+	/** Ring buffer of sample values, indexed by sample number.  Length
+	 * is always a power of 2.  Missing samples are MISSING_DATA. */
+	private int[] values = createValues(INITIAL_CAPACITY);
+
+	/** Sample number of oldest cached sample */
+	private long first = 0;
+
+	/** Number of sample numbers spanned, from oldest to newest */
+	private int n_span = 0;
+
+	/** Count of cached (non-missing) samples */
+	private int n_samples = 0;
 
 	/** Create a new periodic sample cache.
 	 * @param tp Sample type. */
@@ -141,15 +163,32 @@ public class PeriodicSampleCache {
 		sample_type = tp;
 	}
 
+	/** Create an array of missing sample values */
+	static private int[] createValues(int n) {
+		int[] vals = new int[n];
+		Arrays.fill(vals, MISSING_DATA);
+		return vals;
+	}
+
+	/** Get the ring buffer index of a sample number */
+	private int index(long sn) {
+		return (int) sn & (values.length - 1);
+	}
+
+	/** Get the sampling period in milliseconds */
+	private long periodMillis() {
+		return per_sec * 1000L;
+	}
+
 	/** Add a periodic sample to the cache.
 	 * If the sampling period is incompatable with existing samples, the
 	 * cache is cleared first.
 	 * @param ps Sample to add to the cache. */
-	public void add(PeriodicSample ps, String name) {
+	public synchronized void add(PeriodicSample ps, String name) {
 		if (checkStamp(ps.stamp)) {
 			if (sample_type.isValid(ps)) {
 				if (!isPeriodOk(ps.per_sec))
-					samples.clear();
+					clear();
 				if (isPeriodSame(ps.per_sec))
 					addSample(ps);
 				else
@@ -164,59 +203,113 @@ public class PeriodicSampleCache {
 	}
 
 	/** Check if a period is OK to be cached.
-	 * @param per_sec Period to check (seconds).
+	 * @param ps Period to check (seconds).
 	 * @return true if period is OK to be cached. */
-	private boolean isPeriodOk(int per_sec) {
-		return per_sec % getPeriod(per_sec) == 0;
+	private boolean isPeriodOk(int ps) {
+		return ps % getPeriod(ps) == 0;
 	}
 
 	/** Is a sample period the same as for the cache? */
-	private boolean isPeriodSame(int per_sec) {
-		return per_sec == getPeriod(per_sec);
+	private boolean isPeriodSame(int ps) {
+		return ps == getPeriod(ps);
 	}
 
 	/** Get the sample period.
-	 * @param per_sec Default sample period.
+	 * @param ps Default sample period.
 	 * @return Sample period (seconds). */
-	private int getPeriod(int per_sec) {
-		return samples.isEmpty()
-		      ? per_sec
-		      : samples.first().per_sec;
+	private int getPeriod(int ps) {
+		return (n_samples > 0) ? per_sec : ps;
+	}
+
+	/** Remove all samples */
+	private void clear() {
+		if (values.length > INITIAL_CAPACITY)
+			values = createValues(INITIAL_CAPACITY);
+		else
+			Arrays.fill(values, MISSING_DATA);
+		per_sec = 0;
+		first = 0;
+		n_span = 0;
+		n_samples = 0;
 	}
 
 	/** Add a sample */
 	private void addSample(PeriodicSample ps) {
-		assert ps.per_sec == getPeriod(ps.per_sec) : "Invalid period";
-		assert !exists(ps.start()) : "Duplicate start time";
-		samples.add(ps);
+		if (n_samples == 0) {
+			clear();
+			per_sec = ps.per_sec;
+		}
+		assert ps.per_sec == per_sec : "Invalid period";
+		putValue(ps.start() / periodMillis(), ps.value);
 	}
 
-	/** Check if a sample exists with the given time stamp (start) */
-	private boolean exists(long stamp) {
-		for (PeriodicSample ps: samples) {
-			if (ps.start() == stamp)
-				return true;
+	/** Put a sample value into the ring buffer.  If a value already
+	 * exists for the sample number, it is not replaced.
+	 * @param sn Sample number.
+	 * @param value Sample value. */
+	private void putValue(long sn, int value) {
+		if (n_span == 0) {
+			first = sn;
+			n_span = 1;
+		} else if (sn < first) {
+			int span = (int) (first + n_span - sn);
+			ensureCapacity(span);
+			first = sn;
+			n_span = span;
+		} else if (sn >= first + n_span) {
+			int span = (int) (sn - first + 1);
+			ensureCapacity(span);
+			n_span = span;
+		}
+		int i = index(sn);
+		if (values[i] == MISSING_DATA) {
+			values[i] = value;
+			n_samples++;
 		}
-		return false;
+	}
+
+	/** Get a sample value from the ring buffer.
+	 * @param sn Sample number.
+	 * @return Sample value, or MISSING_DATA. */
+	private int valueAt(long sn) {
+		return (sn >= first && sn < first + n_span)
+		      ? values[index(sn)]
+		      : MISSING_DATA;
+	}
+
+	/** Ensure the ring buffer can span a number of samples */
+	private void ensureCapacity(int span) {
+		if (span > values.length) {
+			int n = values.length;
+			while (n < span)
+				n <<= 1;
+			resize(n);
+		}
+	}
+
+	/** Resize the ring buffer, keeping all cached samples.
+	 * @param n New capacity (a power of 2, at least n_span). */
+	private void resize(int n) {
+		int[] vals = createValues(n);
+		for (long sn = first; sn < first + n_span; sn++)
+			vals[(int) sn & (n - 1)] = values[index(sn)];
+		values = vals;
 	}
 
 	/** Interpolate sample data from a sample with a larger period.
 	 * Any missing samples are estimated and added to the cache.
 	 * @param ps Periodic sample (with a larger period). */
 	private void interpolate(PeriodicSample ps) {
-		long start = ps.start();
-		int per_sec = getPeriod(ps.per_sec);
-		int n_samples = ps.per_sec / per_sec;
-		assert n_samples > 1;
-		int[] values = getValues(start, ps.end(), n_samples, per_sec);
+		long start = ps.start() / periodMillis();
+		int n = ps.per_sec / per_sec;
+		assert n > 1;
+		int[] vals = getValues(start, n);
 		switch (sample_type.aggregation) {
 		case SUM:
-			addSamples(start, per_sec, interpolateSum(values,
-				ps.value));
+			addSamples(start, interpolateSum(vals, ps.value));
 			return;
 		case AVERAGE:
-			addSamples(start, per_sec, interpolateAverage(values,
-				ps.value));
+			addSamples(start, interpolateAverage(vals, ps.value));
 			return;
 		default:
 			return;
@@ -224,30 +317,33 @@ public class PeriodicSampleCache {
 	}
 
 	/** Get an array of sample values from the cache.
-	 * @param start Time stamp at start of samples.
-	 * @param end Time stamp at end of samples.
-	 * @param n_samples Number of sample values.
-	 * @param per_sec Period used for samples.
+	 * @param start Sample number of first sample.
+	 * @param n Number of sample values.
 	 * @return Array of samples values. */
-	private int[] getValues(long start, long end, int n_samples,
-		int per_sec)
-	{
-		int per_ms = per_sec * 1000;
-		int[] values = new int[n_samples];
-		for (int i = 0; i < values.length; i++)
-			values[i] = MISSING_DATA;
-		for (PeriodicSample ps: samples) {
-			long stamp = ps.start();
-			if (stamp >= start && stamp < end) {
-				int i = (int) ((stamp - start) / per_ms);
-				values[i] = ps.value;
-			}
+	private int[] getValues(long start, int n) {
+		int[] vals = new int[n];
+		for (int i = 0; i < n; i++)
+			vals[i] = valueAt(start + i);
+		return vals;
+	}
+
+	/** Add an array of samples.
+	 * @param start Sample number of first sample.
+	 * @param vals Array of sample values to add. */
+	private void addSamples(long start, int[] vals) {
+		for (int i = 0; i < vals.length; i++) {
+			if (vals[i] >= 0)
+				putValue(start + i, vals[i]);
 		}
-		return values;
+	}
+
+	/** Get the first sample number starting at or after a time stamp */
+	private long sampleAfter(long stamp) {
+		return -Math.floorDiv(-stamp, periodMillis());
 	}
 
 	/** Get aggregate of sampled values in a time interval */
-	public int getValue(long start, long end) {
+	public synchronized int getValue(long start, long end) {
 		switch (sample_type.aggregation) {
 		case SUM:
 			return getSum(start, end);
@@ -260,24 +356,21 @@ public class PeriodicSampleCache {
 
 	/** Get sum of sampled values in a time interval */
 	private int getSum(long start, long end) {
-		int per_sec = 0;
 		int total = 0;
-		int n_samples = 0;
-		for (PeriodicSample ps: samples) {
-			if (0 == per_sec)
-				per_sec = ps.per_sec;
-			else if (per_sec != ps.per_sec)
-				break;
-			if (ps.value >= 0) {
-				long stamp = ps.start();
-				if (stamp >= start && stamp < end) {
-					total += ps.value;
-					n_samples++;
+		int n = 0;
+		if (n_samples > 0) {
+			long s0 = Math.max(first, sampleAfter(start));
+			long s1 = Math.min(first + n_span, sampleAfter(end));
+			for (long sn = s0; sn < s1; sn++) {
+				int value = values[index(sn)];
+				if (value >= 0) {
+					total += value;
+					n++;
 				}
 			}
 		}
-		long sam_ms = n_samples * per_sec * 1000; // sampled period
-		long full_ms = end - start;               // full period
+		long sam_ms = n * periodMillis();   // sampled period
+		long full_ms = end - start;         // full period
 		if (sam_ms == full_ms)
 			return total;
 		else if (2 * sam_ms >= full_ms) {  // at least half sampled
@@ -290,51 +383,93 @@ public class PeriodicSampleCache {
 	/** Get average of sampled values in a time interval */
 	private int getAverage(long start, long end) {
 		int total = 0;
-		int n_samples = 0;
-		for (PeriodicSample ps: samples) {
-			if (ps.value >= 0) {
-				long stamp = ps.start();
-				if (stamp >= start && stamp < end) {
-					total += ps.value;
-					n_samples++;
+		int n = 0;
+		if (n_samples > 0) {
+			long s0 = Math.max(first, sampleAfter(start));
+			long s1 = Math.min(first + n_span, sampleAfter(end));
+			for (long sn = s0; sn < s1; sn++) {
+				int value = values[index(sn)];
+				if (value >= 0) {
+					total += value;
+					n++;
 				}
 			}
 		}
-		return (n_samples > 0)
-		      ? Math.round(total / (float) n_samples)
+		return (n > 0)
+		      ? Math.round(total / (float) n)
 		      : MISSING_DATA;
 	}
 
-	/** Add an array of samples.
-	 * @param start Start time of sample array.
-	 * @param per_sec Sampling period (seconds).
-	 * @param vals Array of sample values to add. */
-	private void addSamples(long start, int per_sec, int[] vals) {
-		int per_ms = per_sec * 1000;
-		for (int i = 0; i < vals.length; i++) {
-			if (vals[i] >= 0) {
-				long stamp = start + per_ms * (i + 1);
-				addSample(new PeriodicSample(stamp, per_sec,
-					vals[i]));
+	/** Get a sample iterator (over a copy of cached samples). */
+	public synchronized Iterator<PeriodicSample> iterator() {
+		ArrayList<PeriodicSample> samples =
+			new ArrayList<PeriodicSample>(n_samples);
+		long per_ms = periodMillis();
+		for (long sn = first; sn < first + n_span; sn++) {
+			int value = values[index(sn)];
+			if (value != MISSING_DATA) {
+				samples.add(new PeriodicSample((sn + 1) * per_ms,
+					per_sec, value));
 			}
 		}
-	}
-
-	/** Get a sample iterator. */
-	public Iterator<PeriodicSample> iterator() {
 		return samples.iterator();
 	}
 
 	/** Purge all samples before a specified time stamp.
 	 * @param before Time stamp to purge before. */
-	public void purge(long before) {
-		Iterator<PeriodicSample> it = iterator();
-		while (it.hasNext()) {
-			PeriodicSample ps = it.next();
-			if (ps.end() < before)
-				it.remove();
-			else
+	public synchronized void purge(long before) {
+		long per_ms = periodMillis();
+		while (n_span > 0) {
+			int i = index(first);
+			if (values[i] == MISSING_DATA)
+				first++;
+			else if ((first + 1) * per_ms < before) {
+				values[i] = MISSING_DATA;
+				n_samples--;
+				first++;
+			} else
 				break;
+			n_span--;
+		}
+		if (n_samples == 0)
+			clear();
+		else if (values.length > INITIAL_CAPACITY &&
+		         n_span < values.length / 4)
+			resize(values.length / 2);
+	}
+
+	/** Write cached samples to a snapshot.  The sample numbers spanned
+	 * are written, with MISSING_DATA for missing samples. */
+	public synchronized void writeSnapshot(DataOutput out)
+		throws IOException
+	{
+		if (n_samples > 0) {
+			out.writeShort(per_sec);
+			out.writeLong(first);
+			out.writeInt(n_span);
+			for (long sn = first; sn < first + n_span; sn++)
+				out.writeInt(values[index(sn)]);
+		} else
+			out.writeShort(0);
+	}
+
+	/** Read cached samples from a snapshot, replacing all samples */
+	public synchronized void readSnapshot(DataInput in)
+		throws IOException
+	{
+		clear();
+		int ps = in.readShort();
+		if (ps > 0) {
+			per_sec = ps;
+			long sn = in.readLong();
+			int n = in.readInt();
+			for (int i = 0; i < n; i++) {
+				int value = in.readInt();
+				if (value >= 0)
+					putValue(sn + i, value);
+			}
+			if (n_samples == 0)
+				clear();
 		}
 	}
 }
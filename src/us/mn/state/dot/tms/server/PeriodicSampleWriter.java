@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2010-2021  Minnesota Department of Transportation
+ * Copyright (C) 2010-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -17,9 +17,14 @@ package us.mn.state.dot.tms.server;
 import java.io.File;
 import java.io.RandomAccessFile;
 import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import us.mn.state.dot.sched.DebugLog;
 import us.mn.state.dot.sched.TimeSteward;
 import us.mn.state.dot.tms.units.Interval;
@@ -35,6 +40,14 @@ import static us.mn.state.dot.tms.server.Constants.MISSING_DATA;
  * Each file contains one day of sample data.  For example, a vehicle count file
  * with a 30-second period would have 2880 bytes.
  *
+ * By default, each flush reads a whole day file, updates it and writes it
+ * back.  In mapped mode, day files are memory-mapped at their full size,
+ * and only cached samples are stored into the mapping.  A bounded LRU set of
+ * mappings is kept; mappings which were not used since the last release are
+ * forced to storage and released.  Otherwise, the OS writes back changed
+ * pages; all mappings are forced periodically (hourly by the flush job) and
+ * when the server shuts down.
+ *
  * @author Douglas Lau
  */
 public class PeriodicSampleWriter {
@@ -50,9 +63,69 @@ public class PeriodicSampleWriter {
 		return (int) period.per(Interval.DAY);
 	}
 
+	/** Unsafe instance (for unmapping buffers) */
+	static private final Object UNSAFE;
+
+	/** Unsafe.invokeCleaner method (JDK 9+), or null */
+	static private final Method INVOKE_CLEANER;
+	static {
+		Object u = null;
+		Method m = null;
+		try {
+			Class<?> c = Class.forName("sun.misc.Unsafe");
+			Field f = c.getDeclaredField("theUnsafe");
+			f.setAccessible(true);
+			u = f.get(null);
+			m = c.getMethod("invokeCleaner", ByteBuffer.class);
+		}
+		catch (Exception e) {
+			// Not supported; mappings are released by GC
+		}
+		UNSAFE = u;
+		INVOKE_CLEANER = (u != null) ? m : null;
+	}
+
+	/** Release a mapped buffer.  It must not be accessed afterwards. */
+	static void unmap(MappedByteBuffer buf) {
+		if (INVOKE_CLEANER != null) {
+			try {
+				INVOKE_CLEANER.invoke(UNSAFE, buf);
+			}
+			catch (Exception e) {
+				FLUSH_LOG.log("unmap: " + e);
+			}
+		}
+	}
+
+	/** A memory-mapped day file */
+	static private class Mapping {
+		private final MappedByteBuffer buf;
+		private boolean used = true;
+		private Mapping(MappedByteBuffer b) {
+			buf = b;
+		}
+	}
+
 	/** Sample archive factory */
 	private final SampleArchiveFactory factory;
 
+	/** Maximum number of mapped files (0 for read / write mode) */
+	private final int max_mapped;
+
+	/** Mapped files (least recently used first) */
+	private final LinkedHashMap<File, Mapping> mapped =
+		new LinkedHashMap<File, Mapping>(16, 0.75f, true)
+	{
+		protected boolean removeEldestEntry(Map.Entry<File, Mapping> e)
+		{
+			if (size() > max_mapped) {
+				unmap(e.getValue().buf);
+				return true;
+			} else
+				return false;
+		}
+	};
+
 	/** Byte buffer for flushing samples to file */
 	private final ByteBuffer buffer = ByteBuffer.allocate(
 		samplesPerDay(MIN_PERIOD) * PeriodicSampleType.MAX_BYTES);
@@ -66,19 +139,39 @@ public class PeriodicSampleWriter {
 	/** Current file channel */
 	private transient FileChannel channel;
 
-	/** Create a new periodic sample writer */
-	public PeriodicSampleWriter(SampleArchiveFactory f) {
+	/** Current mapped file buffer */
+	private transient MappedByteBuffer map;
+
+	/** Create a new periodic sample writer.
+	 * @param f Sample archive factory.
+	 * @param n_mapped Maximum number of mapped files, or 0 to read and
+	 *                 write whole files. */
+	public PeriodicSampleWriter(SampleArchiveFactory f, int n_mapped) {
 		factory = f;
+		max_mapped = n_mapped;
+	}
+
+	/** Create a new periodic sample writer (read / write mode) */
+	public PeriodicSampleWriter(SampleArchiveFactory f) {
+		this(f, 0);
 	}
 
 	/** Flush samples from a cache to files */
-	public void flush(PeriodicSampleCache cache, String sensor_id) {
+	public synchronized void flush(PeriodicSampleCache cache,
+		String sensor_id)
+	{
 		period = new Interval(0);
 		file = null;
 		channel = null;
+		map = null;
 		buffer.clear();
 		try {
-			flush(cache.iterator(), sensor_id, cache.sample_type);
+			if (max_mapped > 0)
+				flushMapped(cache.iterator(), sensor_id,
+					cache.sample_type);
+			else
+				flush(cache.iterator(), sensor_id,
+					cache.sample_type);
 		}
 		catch (IOException e) {
 			String name = (file != null)
@@ -115,6 +208,90 @@ public class PeriodicSampleWriter {
 		}
 	}
 
+	/** Flush an iterator of samples to mapped files */
+	private void flushMapped(Iterator<PeriodicSample> it, String sensor_id,
+		PeriodicSampleType s_type) throws IOException
+	{
+		while (it.hasNext()) {
+			PeriodicSample ps = it.next();
+			period = new Interval(ps.per_sec);
+			File f = factory.createFile(sensor_id, s_type, ps);
+			if (!f.equals(file)) {
+				file = f;
+				map = mapFile(s_type);
+			}
+			map.position(samplePosition(ps, s_type.sample_bytes));
+			s_type.putValue(map, ps.value);
+		}
+	}
+
+	/** Get the mapping for the current file, mapping it if necessary */
+	private MappedByteBuffer mapFile(PeriodicSampleType s_type)
+		throws IOException
+	{
+		Mapping m = mapped.get(file);
+		if (m == null) {
+			int n_size = bufferBytes(s_type.sample_bytes);
+			RandomAccessFile raf = new RandomAccessFile(file, "rw");
+			try {
+				channel = raf.getChannel();
+				resizeFile(s_type);
+				m = new Mapping(channel.map(
+					FileChannel.MapMode.READ_WRITE, 0, n_size));
+			}
+			finally {
+				// Mapping remains valid after closing
+				raf.close();
+				channel = null;
+			}
+			mapped.put(file, m);
+		}
+		m.used = true;
+		return m.buf;
+	}
+
+	/** Resize the current file to one day, padding with MISSING_DATA */
+	private void resizeFile(PeriodicSampleType s_type) throws IOException {
+		int s_bytes = s_type.sample_bytes;
+		int n_size = bufferBytes(s_bytes);
+		long size = channel.size();
+		if (size > n_size)
+			channel.truncate(n_size);
+		else if (size < n_size) {
+			long pos = size / s_bytes * s_bytes;
+			buffer.clear();
+			buffer.limit(n_size - (int) pos);
+			while (buffer.hasRemaining())
+				s_type.putValue(buffer, MISSING_DATA);
+			buffer.flip();
+			while (buffer.hasRemaining())
+				pos += channel.write(buffer, pos);
+		}
+	}
+
+	/** Release mappings which have not been used since the previous
+	 * release, so that files for past days can be archived.  Released
+	 * mappings are forced to storage first. */
+	public synchronized void release() {
+		Iterator<Mapping> it = mapped.values().iterator();
+		while (it.hasNext()) {
+			Mapping m = it.next();
+			if (m.used)
+				m.used = false;
+			else {
+				it.remove();
+				m.buf.force();
+				unmap(m.buf);
+			}
+		}
+	}
+
+	/** Force all mapped files to storage */
+	public synchronized void force() {
+		for (Mapping m: mapped.values())
+			m.buf.force();
+	}
+
 	/** Read next file (after writing current file buffer). */
 	private void readNextFile(PeriodicSampleType s_type) throws IOException{
 		writeBuffer(s_type.sample_bytes);
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2009  Minnesota Department of Transportation
+ * Copyright (C) 2009-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -16,7 +16,11 @@ package us.mn.state.dot.tms.server;
 
 import java.io.IOException;
 import java.util.Calendar;
+import us.mn.state.dot.sched.DebugLog;
 import us.mn.state.dot.sched.Job;
+import us.mn.state.dot.sched.JobStats;
+import us.mn.state.dot.sched.Scheduler;
+import us.mn.state.dot.tms.RasterBuilder;
 import us.mn.state.dot.tms.SystemAttrEnum;
 
 /**
@@ -26,6 +30,16 @@ import us.mn.state.dot.tms.SystemAttrEnum;
  */
 public class ProfilingJob extends Job {
 
+	/** Scheduler statistics debug log */
+	static private final DebugLog SCHED_LOG = new DebugLog("sched_stats");
+
+	/** Route cache statistics debug log */
+	static private final DebugLog ROUTE_LOG = new DebugLog("route_cache");
+
+	/** Raster cache statistics debug log */
+	static private final DebugLog RASTER_LOG =
+		new DebugLog("raster_cache");
+
 	/** Seconds to offset each poll from start of interval */
 	static protected final int OFFSET_SECS = 1;
 
@@ -41,7 +55,26 @@ public class ProfilingJob extends Job {
 	public void perform() throws IOException {
 		profiler.debugMemory();
 		profiler.debugThreads();
+		if (MainServer.server != null)
+			MainServer.server.logQueueStats();
+		if (SCHED_LOG.isOpen()) {
+			logSchedStats(MainServer.TIMER);
+			logSchedStats(MainServer.FLUSH);
+			logSchedStats(MainServer.ARCHIVE);
+		}
+		if (ROUTE_LOG.isOpen())
+			ROUTE_LOG.log(BaseObjectImpl.routes.takeStats());
+		if (RASTER_LOG.isOpen())
+			RASTER_LOG.log(RasterBuilder.CACHE.takeStats());
 		if(SystemAttrEnum.UPTIME_LOG_ENABLE.getBoolean())
 			profiler.appendUptimeLog();
 	}
+
+	/** Log job statistics for a scheduler */
+	private void logSchedStats(Scheduler s) {
+		SCHED_LOG.log(s.getName() + ": queued=" + s.size() +
+			", running=" + s.getRunning());
+		for (JobStats js: s.takeStats())
+			SCHED_LOG.log("  " + js);
+	}
 }
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2007-2024  Minnesota Department of Transportation
+ * Copyright (C) 2007-2026  Minnesota Department of Transportation
  * Copyright (C) 2015  Iteris Inc.
  *
  * This program is free software; you can redistribute it and/or modify
@@ -411,6 +411,7 @@ public class R_NodeImpl extends BaseObjectImpl implements R_Node {
 		if (a != active) {
 			store.update(this, "active", a);
 			setActive(a);
+			corridors.updateVersion();
 		}
 	}
 
@@ -541,6 +542,7 @@ public class R_NodeImpl extends BaseObjectImpl implements R_Node {
 		synchronized (detectors) {
 			detectors.addDetector(det);
 		}
+		BaseObjectImpl.corridors.updateVersion();
 	}
 
 	/** Remove a detector from the r_node */
@@ -548,6 +550,7 @@ public class R_NodeImpl extends BaseObjectImpl implements R_Node {
 		synchronized (detectors) {
 			detectors.removeDetector(det);
 		}
+		BaseObjectImpl.corridors.updateVersion();
 	}
 
 	/** Get an array of all node detectors */
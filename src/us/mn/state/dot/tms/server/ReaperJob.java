@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2009-2023  Minnesota Department of Transportation
+ * Copyright (C) 2009-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -76,6 +76,12 @@ public class ReaperJob extends Job {
 		zombie_alerts = new ArrayList<AlertInfoImpl>();
 	}
 
+	/** Reaping may remove objects which metering is using */
+	@Override
+	public String getSerialKey() {
+		return MeteringJob.TRAFFIC_KEY;
+	}
+
 	/** Perform the reaper job */
 	@Override
 	public void perform() {
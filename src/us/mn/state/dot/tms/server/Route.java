@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2007-2022  Minnesota Department of Transportation
+ * Copyright (C) 2007-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -15,6 +15,7 @@
 package us.mn.state.dot.tms.server;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
 import us.mn.state.dot.tms.GeoLoc;
 import us.mn.state.dot.tms.LaneCode;
 import us.mn.state.dot.tms.units.Distance;
@@ -36,6 +37,10 @@ public class Route {
 	/** Final leg of route */
 	public final RouteLeg leg;
 
+	/** Sampler sets on route, by lane code (lock before accessing) */
+	private final EnumMap<LaneCode, SamplerSet> samplers =
+		new EnumMap<LaneCode, SamplerSet>(LaneCode.class);
+
 	/** Create a new route */
 	private Route(GeoLoc dst, RouteLeg lg) {
 		dest = dst;
@@ -113,13 +118,25 @@ public class Route {
 		       legCount() * LEG_PENALTY;
 	}
 
-	/** Get a set of vehicle samplers on route */
+	/** Get a set of vehicle samplers on route.  Sampler sets are kept,
+	 * since routes are cached until the corridor topology changes. */
 	public SamplerSet getSamplerSet(LaneCode lc) {
-		ArrayList<VehicleSampler> samplers =
-			new ArrayList<VehicleSampler>();
+		synchronized (samplers) {
+			SamplerSet ss = samplers.get(lc);
+			if (null == ss) {
+				ss = lookupSamplerSet(lc);
+				samplers.put(lc, ss);
+			}
+			return ss;
+		}
+	}
+
+	/** Lookup a set of vehicle samplers on route */
+	private SamplerSet lookupSamplerSet(LaneCode lc) {
+		ArrayList<VehicleSampler> vs = new ArrayList<VehicleSampler>();
 		for (RouteLeg lg = leg; lg != null; lg = lg.prev)
-			lg.lookupSamplers(samplers, lc);
-		return new SamplerSet(samplers);
+			lg.lookupSamplers(vs, lc);
+		return new SamplerSet(vs);
 	}
 
 	/** Get a string representation of the route */
@@ -0,0 +1,96 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2026  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms.server;
+
+import java.util.HashMap;
+import us.mn.state.dot.tms.GeoLoc;
+import us.mn.state.dot.tms.GeoLocHelper;
+import us.mn.state.dot.tms.SystemAttrEnum;
+
+/**
+ * A route cache keeps routes found between origin / destination pairs.
+ * Locations are keyed by value (corridor and position), so a moved origin
+ * gets a new route.  All routes (including "no route" results) are
+ * discarded when the corridor manager topology version changes.
+ *
+ * @author Douglas Lau
+ */
+public class RouteCache {
+
+	/** Get the cache key of a location */
+	static private String locKey(GeoLoc loc) {
+		return GeoLocHelper.getCorridorName(loc) + '@' + loc.getLat() +
+			',' + loc.getLon();
+	}
+
+	/** Corridor manager */
+	private final CorridorManager corridors;
+
+	/** Cached routes by key (null for no route) */
+	private final HashMap<String, Route> routes =
+		new HashMap<String, Route>();
+
+	/** Topology version of cached routes */
+	private int version = -1;
+
+	/** Count of cache hits */
+	private int n_hits = 0;
+
+	/** Count of cache misses */
+	private int n_misses = 0;
+
+	/** Create a new route cache.
+	 * @param c Corridor manager. */
+	public RouteCache(CorridorManager c) {
+		corridors = c;
+	}
+
+	/** Find the best route from an origin to a destination.
+	 * @param orig Route origin.
+	 * @param dest Route destination.
+	 * @return Best route found, or null. */
+	public Route findRoute(GeoLoc orig, GeoLoc dest) {
+		int v = corridors.getVersion();
+		String key = locKey(orig) + '>' + locKey(dest) + '/' +
+			SystemAttrEnum.ROUTE_MAX_MILES.getInt() + '/' +
+			SystemAttrEnum.ROUTE_MAX_LEGS.getInt();
+		synchronized (this) {
+			if (v != version) {
+				routes.clear();
+				version = v;
+			}
+			if (routes.containsKey(key)) {
+				n_hits++;
+				return routes.get(key);
+			}
+			n_misses++;
+		}
+		Route r = new RouteFinder(corridors).findRoute(orig, dest);
+		synchronized (this) {
+			if (v == version)
+				routes.put(key, r);
+		}
+		return r;
+	}
+
+	/** Take cache statistics (and reset counts) */
+	public synchronized String takeStats() {
+		String s = "routes: " + routes.size() + ", hits: " + n_hits +
+			", misses: " + n_misses;
+		n_hits = 0;
+		n_misses = 0;
+		return s;
+	}
+}
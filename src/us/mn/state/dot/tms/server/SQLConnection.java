@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2005-2021  Minnesota Department of Transportation
+ * Copyright (C) 2005-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -17,10 +17,15 @@ package us.mn.state.dot.tms.server;
 import java.lang.reflect.Method;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.Statement;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Pattern;
@@ -121,6 +126,25 @@ public class SQLConnection {
 		return null;
 	}
 
+	/** Bind a value to a statement parameter.  Values are bound untyped,
+	 * so they are converted by the server like quoted literals. */
+	static private void setValue(PreparedStatement ps, int i, Object value)
+		throws SQLException
+	{
+		if (value != null)
+			ps.setObject(i, prepareArray(value), Types.OTHER);
+		else
+			ps.setNull(i, Types.OTHER);
+	}
+
+	/** Check a value before binding it */
+	static private void checkValue(Object value)
+		throws ChangeVetoException
+	{
+		if (value != null)
+			validateValue(prepareArray(value));
+	}
+
 	/** Location of database server */
 	private final String location;
 
@@ -130,16 +154,234 @@ public class SQLConnection {
 	/** Password to log into database server */
 	private final String password;
 
-	/** Connection to the SQL database */
-	private Connection connection = null;
+	/** A session is one database connection with cached statements.
+	 * It is only used by one thread at a time. */
+	private class Session {
 
-	/** Available SQL statements */
-	private final ArrayDeque<Statement> statements =
-		new ArrayDeque<Statement>();
+		/** Pool which owns the session */
+		private final Pool pool;
 
-	/** Create a new SQL connection */
-	public SQLConnection(String url, String usr, String pswd)
-		throws TMSException
+		/** Create a new session */
+		private Session(Pool p) {
+			pool = p;
+		}
+
+		/** Connection to the SQL database */
+		private Connection connection = null;
+
+		/** Available SQL statements */
+		private final ArrayDeque<Statement> statements =
+			new ArrayDeque<Statement>();
+
+		/** Prepared statements, by SQL */
+		private final HashMap<String, PreparedStatement> prepared =
+			new HashMap<String, PreparedStatement>();
+
+		/** Count of nested holds by the owning thread */
+		private int holds = 0;
+
+		/** Close the database connection */
+		private void close() throws SQLException {
+			statements.clear();
+			prepared.clear();
+			if (connection != null) {
+				try {
+					connection.close();
+				}
+				finally {
+					connection = null;
+				}
+			}
+		}
+
+		/** Open a new database connection */
+		private void open() throws SQLException {
+			connection = DriverManager.getConnection(location, user,
+				password);
+			connection.setAutoCommit(true);
+		}
+
+		/** Create a database statement */
+		private Statement _createStatement() throws SQLException {
+			if (connection == null)
+				open();
+			return connection.createStatement();
+		}
+
+		/** Create a database statement */
+		private Statement createStatement() throws TMSException {
+			try {
+				return _createStatement();
+			}
+			catch (SQLException e) {
+				SQL_LOG.log("createStatement -> " + e);
+				try {
+					close();
+					return _createStatement();
+				}
+				catch (SQLException e2) {
+					SQL_LOG.log("createStatement.2 -> " +
+						e2);
+					throw new TMSException(e2);
+				}
+			}
+		}
+
+		/** Get an available statement */
+		private Statement getStatement() throws TMSException {
+			if (statements.isEmpty())
+				return createStatement();
+			else
+				return statements.removeLast();
+		}
+
+		/** Put a statement back after using it */
+		private void putStatement(Statement s) {
+			statements.add(s);
+		}
+
+		/** Get a cached prepared statement */
+		private PreparedStatement _prepareStatement(String sql)
+			throws SQLException
+		{
+			PreparedStatement ps = prepared.get(sql);
+			if (ps == null) {
+				if (connection == null)
+					open();
+				ps = connection.prepareStatement(sql);
+				prepared.put(sql, ps);
+			}
+			return ps;
+		}
+
+		/** Get a cached prepared statement */
+		private PreparedStatement prepareStatement(String sql)
+			throws TMSException
+		{
+			try {
+				return _prepareStatement(sql);
+			}
+			catch (SQLException e) {
+				SQL_LOG.log("prepareStatement -> " + e);
+				try {
+					close();
+					return _prepareStatement(sql);
+				}
+				catch (SQLException e2) {
+					SQL_LOG.log("prepareStatement.2 -> " +
+						e2);
+					throw new TMSException(e2);
+				}
+			}
+		}
+
+		/** Begin a transaction */
+		private void begin() throws SQLException {
+			if (connection == null)
+				open();
+			connection.setAutoCommit(false);
+		}
+
+		/** Commit a transaction */
+		private void commit() throws SQLException {
+			connection.commit();
+			connection.setAutoCommit(true);
+		}
+
+		/** Roll back a transaction after an error.  If that fails,
+		 * the connection is closed, so it is reopened when needed. */
+		private void rollback() {
+			if (connection != null) {
+				try {
+					connection.rollback();
+					connection.setAutoCommit(true);
+				}
+				catch (SQLException e) {
+					SQL_LOG.log("rollback -> " + e);
+					try {
+						close();
+					}
+					catch (SQLException e2) {
+						// ignore
+					}
+				}
+			}
+		}
+
+		/** Discard a prepared statement after an error */
+		private void discard(String sql) {
+			PreparedStatement ps = prepared.remove(sql);
+			if (ps != null) {
+				try {
+					ps.close();
+				}
+				catch (SQLException e) {
+					// ignore
+				}
+			}
+		}
+	}
+
+	/** A pool of sessions, opened as needed up to a limit */
+	private class Pool {
+
+		/** Maximum number of sessions */
+		private final int n_max;
+
+		/** Idle sessions */
+		private final ArrayDeque<Session> idle =
+			new ArrayDeque<Session>();
+
+		/** Count of sessions created */
+		private int n_sessions = 0;
+
+		/** Create a new session pool */
+		private Pool(int n) {
+			n_max = n;
+		}
+
+		/** Take an idle session, waiting if all are in use */
+		private synchronized Session take() throws TMSException {
+			try {
+				while (idle.isEmpty() && n_sessions >= n_max)
+					wait();
+			}
+			catch (InterruptedException e) {
+				throw new TMSException(e);
+			}
+			if (!idle.isEmpty())
+				return idle.removeLast();
+			n_sessions++;
+			return new Session(this);
+		}
+
+		/** Put a session back into the pool */
+		private synchronized void put(Session s) {
+			idle.add(s);
+			notify();
+		}
+	}
+
+	/** Pool for interactive operations */
+	private final Pool interactive;
+
+	/** Pool for bulk operations (loading and purging) */
+	private final Pool bulk;
+
+	/** Session held by the current thread */
+	private final ThreadLocal<Session> held = new ThreadLocal<Session>();
+
+	/** Pool used by the current thread (null for interactive) */
+	private final ThreadLocal<Pool> lane = new ThreadLocal<Pool>();
+
+	/** Create a new SQL connection.
+	 * @param url Location of database server.
+	 * @param usr User to log into database server.
+	 * @param pswd Password to log into database server.
+	 * @param n_pool Maximum connections for interactive operations.
+	 * @param n_bulk Maximum connections for bulk operations. */
+	public SQLConnection(String url, String usr, String pswd, int n_pool,
+		int n_bulk) throws TMSException
 	{
 		try {
 			Class.forName("org.postgresql.Driver");
@@ -150,72 +392,65 @@ public class SQLConnection {
 		location = url;
 		user = usr;
 		password = pswd;
+		interactive = new Pool(n_pool);
+		bulk = new Pool(n_bulk);
 	}
 
-	/** Close the current database connection */
-	private void close() throws SQLException {
-		statements.clear();
-		if (connection != null) {
-			try {
-				connection.close();
-			}
-			finally {
-				connection = null;
-			}
-		}
+	/** Create a new SQL connection */
+	public SQLConnection(String url, String usr, String pswd)
+		throws TMSException
+	{
+		this(url, usr, pswd, 1, 1);
 	}
 
-	/** Open a new database connection */
-	private void open() throws SQLException {
-		connection = DriverManager.getConnection(location, user,
-			password);
-		connection.setAutoCommit(true);
+	/** Get the maximum number of bulk connections */
+	public int getBulkSize() {
+		return bulk.n_max;
 	}
 
-	/** Create a database statement */
-	private Statement _createStatement() throws SQLException {
-		if (connection == null)
-			open();
-		return connection.createStatement();
+	/** Begin bulk operations on the current thread.  Until endBulk is
+	 * called, the thread uses separate connections, so long loads and
+	 * purges do not block interactive writes. */
+	public void beginBulk() {
+		lane.set(bulk);
 	}
 
-	/** Create a database statement */
-	private Statement createStatement() throws TMSException {
-		try {
-			return _createStatement();
-		}
-		catch (SQLException e) {
-			SQL_LOG.log("createStatement -> " + e);
-			try {
-				close();
-				return _createStatement();
-			}
-			catch (SQLException e2) {
-				SQL_LOG.log("createStatement.2 -> " + e2);
-				throw new TMSException(e2);
-			}
-		}
+	/** End bulk operations on the current thread */
+	public void endBulk() {
+		lane.remove();
 	}
 
-	/** Get an available statement */
-	private synchronized Statement getStatement() throws TMSException {
-		if (statements.isEmpty())
-			return createStatement();
-		else
-			return statements.removeLast();
+	/** Acquire a session for the current thread.  Nested calls (such as
+	 * an update from a query result factory) use the same session. */
+	private Session acquire() throws TMSException {
+		Session s = held.get();
+		if (s == null) {
+			Pool p = lane.get();
+			s = (p != null) ? p.take() : interactive.take();
+			held.set(s);
+		}
+		s.holds++;
+		return s;
 	}
 
-	/** Put a statement back after using it */
-	private synchronized void putStatement(Statement s) {
-		statements.add(s);
+	/** Release a session acquired by the current thread.  It is put
+	 * back into the pool it was taken from, even if the thread has
+	 * switched lanes since. */
+	private void release(Session s) {
+		s.holds--;
+		if (s.holds == 0) {
+			held.remove();
+			s.pool.put(s);
+		}
 	}
 
 	/** Query the database and call a factory for each result */
 	public void query(String sql, ResultFactory factory)
 		throws TMSException
 	{
-		Statement s = getStatement();
+		Session ses = acquire();
 		try {
+			Statement s = ses.getStatement();
 			ResultSet set = s.executeQuery(sql);
 			try {
 				while (set.next())
@@ -224,24 +459,55 @@ public class SQLConnection {
 			finally {
 				set.close();
 			}
-			putStatement(s);
+			ses.putStatement(s);
+		}
+		catch (TMSException e) {
+			throw e;
 		}
 		catch (Exception e) {
 			throw new TMSException(e);
 		}
+		finally {
+			release(ses);
+		}
 	}
 
 	/** Update the database with the given SQL command */
 	public void update(String sql) throws TMSException {
-		Statement s = getStatement();
+		Session ses = acquire();
 		try {
+			Statement s = ses.getStatement();
 			s.executeUpdate(sql);
-			putStatement(s);
+			ses.putStatement(s);
 		}
 		catch (SQLException e) {
 			SQL_LOG.log(sql + " -> " + e);
 			throw new TMSException(e);
 		}
+		finally {
+			release(ses);
+		}
+	}
+
+	/** Execute a prepared statement with the given values */
+	private void execute(String sql, Object... values)
+		throws TMSException
+	{
+		Session ses = acquire();
+		try {
+			PreparedStatement ps = ses.prepareStatement(sql);
+			for (int i = 0; i < values.length; i++)
+				setValue(ps, i + 1, values[i]);
+			ps.executeUpdate();
+		}
+		catch (SQLException e) {
+			SQL_LOG.log(sql + " -> " + e);
+			ses.discard(sql);
+			throw new TMSException(e);
+		}
+		finally {
+			release(ses);
+		}
 	}
 
 	/** Update one field in a storable database table */
@@ -249,70 +515,135 @@ public class SQLConnection {
 		throws TMSException
 	{
 		validateIdentifier(field);
-		String key = escapeValue(s.getPKey());
-		validateValue(key);
-		if (value == null) {
-			updateNull(s, field, key);
-			return;
-		}
-		String av = prepareArray(value);
-		String ev = escapeValue(av);
-		validateValue(ev);
-		update("UPDATE " + s.getTable() +
-		      " SET " + field + " = '" + ev + "'" +
-		      " WHERE " + s.getPKeyName() + " = '" + key + "';");
+		String key = s.getPKey();
+		checkValue(key);
+		checkValue(value);
+		execute("UPDATE " + s.getTable() +
+		       " SET " + field + " = ?" +
+		       " WHERE " + s.getPKeyName() + " = ?;", value, key);
 	}
 
-	/** Update one field with a NULL value */
-	private void updateNull(Storable s, String field, String key)
-		throws TMSException
-	{
-		update("UPDATE " + s.getTable() +
-		      " SET " + field + " = NULL" +
-		      " WHERE " + s.getPKeyName() + " = '" + key + "';");
+	/** Get the SQL to insert a record with the given columns */
+	static private String insertSQL(String table, List<String> fields) {
+		StringBuilder keys = new StringBuilder();
+		StringBuilder params = new StringBuilder();
+		for (String field: fields) {
+			keys.append(field);
+			keys.append(",");
+			params.append("?,");
+		}
+		keys.setLength(keys.length() - 1);
+		params.setLength(params.length() - 1);
+		return "INSERT INTO " + table + " (" + keys + ") VALUES (" +
+			params + ");";
 	}
 
-	/** Create one storable record */
-	public void create(Storable s) throws TMSException {
+	/** Get the non-null columns of a storable record.
+	 * @param s Storable record.
+	 * @param fields List to add column names.
+	 * @param values List to add column values. */
+	static private void getColumns(Storable s, List<String> fields,
+		List<Object> values) throws TMSException
+	{
 		validateName(s.getPKey());
-		Map<String, Object> columns = s.getColumns();
-		StringBuilder keys = new StringBuilder();
-		StringBuilder values = new StringBuilder();
-		for (Map.Entry<String, Object> col: columns.entrySet()) {
+		for (Map.Entry<String, Object> col: s.getColumns().entrySet()) {
 			Object value = col.getValue();
 			if (value != null) {
 				String field = col.getKey();
 				validateIdentifier(field);
-				keys.append(field);
-				keys.append(",");
-				String av = prepareArray(value);
-				String ev = escapeValue(av);
-				validateValue(ev);
-				values.append("'");
-				values.append(ev);
-				values.append("',");
+				checkValue(value);
+				fields.add(field);
+				values.add(value);
 			}
 		}
-		keys.setLength(keys.length() - 1);
-		values.setLength(values.length() - 1);
-		String sql = "INSERT INTO " + s.getTable() + " (" + keys +
-			") VALUES (" + values + ");";
-		update(sql);
+	}
+
+	/** Create one storable record */
+	public void create(Storable s) throws TMSException {
+		ArrayList<String> fields = new ArrayList<String>();
+		ArrayList<Object> values = new ArrayList<Object>();
+		getColumns(s, fields, values);
+		execute(insertSQL(s.getTable(), fields), values.toArray());
+	}
+
+	/** Create a batch of storable records.  Records are grouped by table
+	 * and non-null columns, and each group is inserted with one prepared
+	 * statement batch.  All groups are inserted in one transaction, so
+	 * if any group fails, no records are created.
+	 * @param records Records to create.
+	 * @return Number of records created. */
+	public int createBatch(List<? extends Storable> records)
+		throws TMSException
+	{
+		LinkedHashMap<String, List<List<Object>>> groups =
+			new LinkedHashMap<String, List<List<Object>>>();
+		for (Storable s: records) {
+			ArrayList<String> fields = new ArrayList<String>();
+			ArrayList<Object> values = new ArrayList<Object>();
+			getColumns(s, fields, values);
+			String sql = insertSQL(s.getTable(), fields);
+			List<List<Object>> rows = groups.get(sql);
+			if (rows == null) {
+				rows = new ArrayList<List<Object>>();
+				groups.put(sql, rows);
+			}
+			rows.add(values);
+		}
+		Session ses = acquire();
+		String sql = null;
+		try {
+			int n_rows = 0;
+			ses.begin();
+			for (Map.Entry<String, List<List<Object>>> g:
+			     groups.entrySet())
+			{
+				sql = g.getKey();
+				n_rows += executeBatch(ses, sql, g.getValue());
+			}
+			ses.commit();
+			return n_rows;
+		}
+		catch (SQLException e) {
+			SQL_LOG.log(sql + " -> " + e);
+			ses.rollback();
+			if (sql != null)
+				ses.discard(sql);
+			throw new TMSException(e);
+		}
+		finally {
+			release(ses);
+		}
+	}
+
+	/** Execute one prepared statement batch in a transaction.  The
+	 * statement is not reprepared on error, since a new connection
+	 * would not be in the transaction. */
+	static private int executeBatch(Session ses, String sql,
+		List<List<Object>> rows) throws SQLException
+	{
+		PreparedStatement ps = ses._prepareStatement(sql);
+		for (List<Object> values: rows) {
+			for (int i = 0; i < values.size(); i++)
+				setValue(ps, i + 1, values.get(i));
+			ps.addBatch();
+		}
+		ps.executeBatch();
+		return rows.size();
 	}
 
 	/** Destroy one storable record */
 	public void destroy(Storable s) throws TMSException {
-		String esc_val = escapeValue(s.getPKey());
-		String val = prepareArray(esc_val);
-		validateValue(val);
-		update("DELETE FROM " + s.getTable() +
-		      " WHERE " + s.getPKeyName() + " = '" + val + "';");
+		String key = s.getPKey();
+		checkValue(key);
+		execute("DELETE FROM " + s.getTable() +
+		       " WHERE " + s.getPKeyName() + " = ?;", key);
 	}
 
 	/** Update the database with a batch of SQL commands */
 	public void batch(BatchFactory f) throws TMSException {
-		Statement s = getStatement();
+		Session ses = acquire();
 		try {
+			Statement s = ses.getStatement();
 			while (true) {
 				String sql = f.next();
 				if (sql == null)
@@ -321,11 +652,14 @@ public class SQLConnection {
 			}
 			s.executeBatch();
 			s.clearBatch();
-			putStatement(s);
+			ses.putStatement(s);
 		}
 		catch (SQLException e) {
 			SQL_LOG.log("batch -> " + e);
 			throw new TMSException(e);
 		}
+		finally {
+			release(ses);
+		}
 	}
 }
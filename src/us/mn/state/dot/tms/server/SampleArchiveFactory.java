@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2010-2013  Minnesota Department of Transportation
+ * Copyright (C) 2010-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -43,4 +43,16 @@ public interface SampleArchiveFactory {
 
 	/** Test if a sample file name has a known extension */
 	boolean hasKnownExtension(String name);
+
+	/** Read archived samples for one sensor and day.  Samples may be
+	 * read from a day directory, a traffic (zip) archive or a column
+	 * archive.
+	 * @param sensor_id Sensor identifier.
+	 * @param s_type Periodic sample type.
+	 * @param per_sec Sample period (seconds).
+	 * @param stamp Time stamp (any time during the day).
+	 * @return Array of sample values for the day (MISSING_DATA for
+	 *         missing samples), or null if not archived. */
+	int[] readSamples(String sensor_id, PeriodicSampleType s_type,
+		int per_sec, long stamp) throws IOException;
 }
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2010-2021  Minnesota Department of Transportation
+ * Copyright (C) 2010-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -15,8 +15,14 @@
 package us.mn.state.dot.tms.server;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
 import java.io.IOException;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import us.mn.state.dot.sched.TimeSteward;
 
 /**
@@ -95,4 +101,138 @@ public class SampleArchiveFactoryImpl implements SampleArchiveFactory {
 		return createFile(sensor_id, s_type.extension + ps.per_sec,
 			ps.start());
 	}
+
+	/** Maximum number of open column archives */
+	static private final int MAX_COL_ARCHIVES = 4;
+
+	/** An open column archive */
+	static private class OpenArchive {
+		private final ColumnArchive archive;
+		private final long modified;
+		private OpenArchive(ColumnArchive a, long m) {
+			archive = a;
+			modified = m;
+		}
+	}
+
+	/** Open column archives (least recently used first) */
+	private final LinkedHashMap<File, OpenArchive> col_archives =
+		new LinkedHashMap<File, OpenArchive>(8, 0.75f, true)
+	{
+		protected boolean removeEldestEntry(
+			Map.Entry<File, OpenArchive> e)
+		{
+			if(size() > MAX_COL_ARCHIVES) {
+				e.getValue().archive.close();
+				return true;
+			} else
+				return false;
+		}
+	};
+
+	/** Get a column archive, reusing an open one unless the file has
+	 * been replaced.  The col_archives lock must be held. */
+	private ColumnArchive getColumnArchive(File f) throws IOException {
+		long modified = f.lastModified();
+		OpenArchive oa = col_archives.get(f);
+		if(oa != null && oa.modified != modified) {
+			col_archives.remove(f);
+			oa.archive.close();
+			oa = null;
+		}
+		if(oa == null) {
+			oa = new OpenArchive(new ColumnArchive(f), modified);
+			col_archives.put(f, oa);
+		}
+		return oa.archive;
+	}
+
+	/** Close all open column archives */
+	public void closeColumnArchives() {
+		synchronized(col_archives) {
+			for(OpenArchive oa: col_archives.values())
+				oa.archive.close();
+			col_archives.clear();
+		}
+	}
+
+	/** Read archived samples for one sensor and day.
+	 * @param sensor_id Sensor identifier.
+	 * @param s_type Periodic sample type.
+	 * @param per_sec Sample period (seconds).
+	 * @param stamp Time stamp (any time during the day).
+	 * @return Array of sample values for the day, or null. */
+	public int[] readSamples(String sensor_id, PeriodicSampleType s_type,
+		int per_sec, long stamp) throws IOException
+	{
+		String d = TimeSteward.dateShortString(stamp);
+		File year = new File(sampleArchiveDir(), d.substring(0, 4));
+		return readSamples(year, d, sensor_id, s_type, per_sec);
+	}
+
+	/** Read archived samples for one sensor and day.  The column archive
+	 * is checked first, then the day directory, then the traffic (zip)
+	 * archive.
+	 * @param year Year directory.
+	 * @param d Date string (YYYYMMDD).
+	 * @param sensor_id Sensor identifier.
+	 * @param s_type Periodic sample type.
+	 * @param per_sec Sample period (seconds).
+	 * @return Array of sample values for the day, or null. */
+	int[] readSamples(File year, String d, String sensor_id,
+		PeriodicSampleType s_type, int per_sec) throws IOException
+	{
+		String ext = s_type.extension + per_sec;
+		File col = new File(year, d + ColumnArchive.EXT);
+		if(col.isFile()) {
+			// Read with lock held, so archive cannot be closed
+			synchronized(col_archives) {
+				return getColumnArchive(col).readDay(sensor_id,
+					ext);
+			}
+		}
+		String name = sensor_id + "." + ext;
+		int n_samples = ColumnArchive.samplesPerDay(per_sec);
+		File f = new File(new File(year, d), name);
+		if(f.isFile()) {
+			return readSamples(new FileInputStream(f), s_type,
+				n_samples);
+		}
+		File traf = new File(year, d + ".traffic");
+		if(traf.isFile()) {
+			ZipFile zf = new ZipFile(traf);
+			try {
+				ZipEntry ze = zf.getEntry(name);
+				if(ze != null) {
+					return readSamples(zf.getInputStream(ze),
+						s_type, n_samples);
+				}
+			}
+			finally {
+				zf.close();
+			}
+		}
+		return null;
+	}
+
+	/** Read samples from an input stream (and close it) */
+	static private int[] readSamples(InputStream is,
+		PeriodicSampleType s_type, int n_samples) throws IOException
+	{
+		byte[] buf = new byte[n_samples * s_type.sample_bytes];
+		int len = 0;
+		try {
+			while(len < buf.length) {
+				int n = is.read(buf, len, buf.length - len);
+				if(n < 0)
+					break;
+				len += n;
+			}
+		}
+		finally {
+			is.close();
+		}
+		return ColumnArchive.decodeSamples(buf, len, s_type,
+			n_samples);
+	}
 }
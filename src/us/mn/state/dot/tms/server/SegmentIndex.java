@@ -0,0 +1,230 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2026  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms.server;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import us.mn.state.dot.tms.Direction;
+import us.mn.state.dot.tms.GeoLoc;
+import us.mn.state.dot.tms.GeoLocHelper;
+import us.mn.state.dot.tms.LaneCode;
+import us.mn.state.dot.tms.geo.Position;
+import us.mn.state.dot.tms.geo.SphericalMercatorPosition;
+import us.mn.state.dot.tms.units.Distance;
+
+/**
+ * An immutable grid index of r_node segments for all corridors, in
+ * spherical mercator space.  Each grid cell lists the segments whose
+ * bounding box overlaps it, so snapping a point only checks segments in
+ * nearby cells.  Segments are numbered in corridor order, and checked in
+ * that order, so results match snapping each corridor in turn.
+ *
+ * @author Douglas Lau
+ */
+public final class SegmentIndex {
+
+	/** Grid cell size (spherical mercator meters) */
+	static private final double CELL_M = 2000;
+
+	/** Maximum cells for one segment; larger segments are always
+	 * checked */
+	static private final int MAX_CELLS = 1024;
+
+	/** Margin for converting distance to spherical mercator meters */
+	static private final double MARGIN = 1.1;
+
+	/** Get the grid cell for a coordinate */
+	static private int cell(double v) {
+		return (int) Math.floor(v / CELL_M);
+	}
+
+	/** Get the key of a grid cell */
+	static private long cellKey(int cx, int cy) {
+		return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+	}
+
+	/** Topology version of index */
+	private final int version;
+
+	/** Corridor of each segment */
+	private final Corridor[] corridor;
+
+	/** Start node of each segment */
+	private final R_NodeImpl[] start;
+
+	/** End node of each segment */
+	private final R_NodeImpl[] end;
+
+	/** Segments in each grid cell, by cell key */
+	private final HashMap<Long, int[]> cells = new HashMap<Long, int[]>();
+
+	/** Segments too large to put in grid cells */
+	private final int[] large;
+
+	/** Create a segment index.
+	 * @param cors All corridors (in order).
+	 * @param v Topology version. */
+	public SegmentIndex(Collection<Corridor> cors, int v) {
+		version = v;
+		ArrayList<Corridor> cl = new ArrayList<Corridor>();
+		ArrayList<R_NodeImpl> sl = new ArrayList<R_NodeImpl>();
+		ArrayList<R_NodeImpl> el = new ArrayList<R_NodeImpl>();
+		for (Corridor c: cors) {
+			R_NodeImpl np = null;
+			for (R_NodeImpl n: c) {
+				if (n.getActive()) {
+					if (np != null) {
+						cl.add(c);
+						sl.add(np);
+						el.add(n);
+					}
+					np = n;
+				}
+			}
+		}
+		int n_segs = cl.size();
+		corridor = cl.toArray(new Corridor[n_segs]);
+		start = sl.toArray(new R_NodeImpl[n_segs]);
+		end = el.toArray(new R_NodeImpl[n_segs]);
+		HashMap<Long, ArrayList<Integer>> grid =
+			new HashMap<Long, ArrayList<Integer>>();
+		ArrayList<Integer> lg = new ArrayList<Integer>();
+		for (int i = 0; i < n_segs; i++)
+			addSegment(grid, lg, i);
+		for (Map.Entry<Long, ArrayList<Integer>> e: grid.entrySet())
+			cells.put(e.getKey(), toArray(e.getValue()));
+		large = toArray(lg);
+	}
+
+	/** Add a segment to grid cells overlapping its bounding box */
+	private void addSegment(HashMap<Long, ArrayList<Integer>> grid,
+		ArrayList<Integer> lg, int i)
+	{
+		SphericalMercatorPosition p0 = GeoLocHelper.getPosition(
+			start[i].getGeoLoc());
+		SphericalMercatorPosition p1 = GeoLocHelper.getPosition(
+			end[i].getGeoLoc());
+		if (null == p0 || null == p1)
+			return;
+		int cx0 = cell(Math.min(p0.getX(), p1.getX()));
+		int cx1 = cell(Math.max(p0.getX(), p1.getX()));
+		int cy0 = cell(Math.min(p0.getY(), p1.getY()));
+		int cy1 = cell(Math.max(p0.getY(), p1.getY()));
+		if ((long) (cx1 - cx0 + 1) * (cy1 - cy0 + 1) > MAX_CELLS) {
+			lg.add(i);
+			return;
+		}
+		for (int cx = cx0; cx <= cx1; cx++) {
+			for (int cy = cy0; cy <= cy1; cy++) {
+				Long key = cellKey(cx, cy);
+				ArrayList<Integer> segs = grid.get(key);
+				if (null == segs) {
+					segs = new ArrayList<Integer>();
+					grid.put(key, segs);
+				}
+				segs.add(i);
+			}
+		}
+	}
+
+	/** Convert a list of segment numbers to an array */
+	static private int[] toArray(ArrayList<Integer> segs) {
+		int[] a = new int[segs.size()];
+		for (int i = 0; i < a.length; i++)
+			a[i] = segs.get(i);
+		return a;
+	}
+
+	/** Get the topology version of the index */
+	public int getVersion() {
+		return version;
+	}
+
+	/** Get the number of segments */
+	public int size() {
+		return corridor.length;
+	}
+
+	/** Find candidate segments near a point, in segment order.
+	 * @param x Spherical mercator X.
+	 * @param y Spherical mercator Y.
+	 * @param r Search radius (spherical mercator meters). */
+	private int[] findCandidates(double x, double y, double r) {
+		int cx0 = cell(x - r);
+		int cx1 = cell(x + r);
+		int cy0 = cell(y - r);
+		int cy1 = cell(y + r);
+		int[] cand = large.clone();
+		int n = cand.length;
+		for (int cx = cx0; cx <= cx1; cx++) {
+			for (int cy = cy0; cy <= cy1; cy++) {
+				int[] segs = cells.get(cellKey(cx, cy));
+				if (segs != null) {
+					if (n + segs.length > cand.length) {
+						cand = Arrays.copyOf(cand,
+							(n + segs.length) * 2);
+					}
+					System.arraycopy(segs, 0, cand, n,
+						segs.length);
+					n += segs.length;
+				}
+			}
+		}
+		Arrays.sort(cand, 0, n);
+		int u = 0;
+		for (int i = 0; i < n; i++) {
+			if (0 == u || cand[i] != cand[u - 1])
+				cand[u++] = cand[i];
+		}
+		return Arrays.copyOf(cand, u);
+	}
+
+	/** Snap a point to the nearest corridor segment.
+	 * @param smp Selected point (spherical mercator position).
+	 * @param lc Lane code (MAINLINE, EXIT, MERGE or CD_LANE).
+	 * @param max_dist Maximum distance to snap.
+	 * @param dir Corridor direction (UNKNOWN for any).
+	 * @return Location snapped to nearest segment, or null. */
+	public GeoLoc snapGeoLoc(SphericalMercatorPosition smp, LaneCode lc,
+		Distance max_dist, Direction dir)
+	{
+		Position pos = smp.getPosition();
+		double lat = Math.toRadians(pos.getLatitude());
+		double r = max_dist.m() * MARGIN / Math.cos(lat);
+		GeoLoc loc = null;
+		double dist = max_dist.m();
+		for (int i: findCandidates(smp.getX(), smp.getY(), r)) {
+			Corridor c = corridor[i];
+			if (dir != Direction.UNKNOWN &&
+			    dir.ordinal() != c.getRoadDir())
+				continue;
+			if (!c.isSnapSegment(lc, start[i], end[i]))
+				continue;
+			GeoLoc l = GeoLocHelper.snapSegment(
+				start[i].getGeoLoc(), end[i].getGeoLoc(), smp);
+			if (l != null) {
+				Distance m = GeoLocHelper.distanceTo(l, pos);
+				if (m != null && m.m() < dist) {
+					loc = l;
+					dist = m.m();
+				}
+			}
+		}
+		return loc;
+	}
+}
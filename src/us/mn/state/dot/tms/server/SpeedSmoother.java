@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2004-2024  Minnesota Department of Transportation
+ * Copyright (C) 2004-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -14,6 +14,9 @@
  */
 package us.mn.state.dot.tms.server;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import static us.mn.state.dot.tms.server.Constants.MISSING_DATA;
 
 /**
@@ -159,4 +162,23 @@ public class SpeedSmoother {
 	private boolean isTrendingUpward() {
 		return speeds[0] > speeds[1] && speeds[1] > speeds[2];
 	}
+
+	/** Write binned speeds to a snapshot */
+	public void writeSnapshot(DataOutput out) throws IOException {
+		out.writeByte(speeds.length);
+		for (float s: speeds)
+			out.writeFloat(s);
+		out.writeByte(n_bins);
+	}
+
+	/** Read binned speeds from a snapshot */
+	public void readSnapshot(DataInput in) throws IOException {
+		int n = in.readByte();
+		for (int i = 0; i < n; i++) {
+			float s = in.readFloat();
+			if (i < speeds.length)
+				speeds[i] = s;
+		}
+		n_bins = Math.min(in.readByte(), speeds.length);
+	}
 }
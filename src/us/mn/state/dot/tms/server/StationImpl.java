@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2004-2024  Minnesota Department of Transportation
+ * Copyright (C) 2004-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -14,6 +14,8 @@
  */
 package us.mn.state.dot.tms.server;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.io.Writer;
 import java.util.Map;
@@ -584,4 +586,38 @@ public class StationImpl implements Station, VehicleSampler {
 	public SamplerSet getSamplerSet() {
 		return r_node.getSamplerSet();
 	}
+
+	/** Write station data, speed smoothing and bottleneck state to a
+	 * traffic snapshot */
+	public void writeSnapshot(DataOutput out) throws IOException {
+		out.writeFloat(occupancy);
+		out.writeFloat(density);
+		out.writeFloat(density_ig);
+		out.writeFloat(speed);
+		speeds.writeSnapshot(out);
+		speeds_ig.writeSnapshot(out);
+		speeds_low.writeSnapshot(out);
+		Float a = acceleration;
+		out.writeFloat((a != null) ? a : Float.NaN);
+		out.writeInt(n_candidate);
+		out.writeBoolean(bottleneck);
+		out.writeBoolean(p_bottle);
+	}
+
+	/** Read station data, speed smoothing and bottleneck state from a
+	 * traffic snapshot */
+	public void readSnapshot(DataInput in) throws IOException {
+		occupancy = in.readFloat();
+		density = in.readFloat();
+		density_ig = in.readFloat();
+		speed = in.readFloat();
+		speeds.readSnapshot(in);
+		speeds_ig.readSnapshot(in);
+		speeds_low.readSnapshot(in);
+		float a = in.readFloat();
+		acceleration = Float.isNaN(a) ? null : a;
+		n_candidate = in.readInt();
+		bottleneck = in.readBoolean();
+		p_bottle = in.readBoolean();
+	}
 }
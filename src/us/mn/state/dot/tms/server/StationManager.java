@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2004-2024  Minnesota Department of Transportation
+ * Copyright (C) 2004-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -58,18 +58,26 @@ class StationManager {
 
 	/** Calculate the current data for all stations */
 	public void calculateData() {
-		int per_ms = DetectorImpl.BIN_PERIOD_MS;
-		stamp = DetectorImpl.calculateEndTime(per_ms);
+		updateStamp();
 		Iterator<Station> it = StationHelper.iterator();
 		while (it.hasNext()) {
 			Station s = it.next();
-			if (s instanceof StationImpl) {
-				StationImpl si = (StationImpl) s;
-				si.calculateData(stamp, per_ms);
-			}
+			if (s instanceof StationImpl)
+				calculateData((StationImpl) s);
 		}
 	}
 
+	/** Update the time stamp to the end of the current interval */
+	public void updateStamp() {
+		stamp = DetectorImpl.calculateEndTime(DetectorImpl.BIN_PERIOD_MS);
+	}
+
+	/** Calculate the current data for one station.  This may be called
+	 * concurrently for different stations, after updateStamp. */
+	public void calculateData(StationImpl si) {
+		si.calculateData(stamp, DetectorImpl.BIN_PERIOD_MS);
+	}
+
 	/** Write the station data out as XML */
 	public void writeSampleXml() throws IOException {
 		XmlWriter w = new XmlWriter(SAMPLE_XML, true) {
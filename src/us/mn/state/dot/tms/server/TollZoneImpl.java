@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2015-2024  Minnesota Department of Transportation
+ * Copyright (C) 2015-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -14,6 +14,9 @@
  */
 package us.mn.state.dot.tms.server;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.HashMap;
@@ -297,6 +300,14 @@ public class TollZoneImpl extends BaseObjectImpl implements TollZone {
 	private transient final HashMap<VehicleSampler, DensityHist> k_hist =
 		new HashMap<VehicleSampler, DensityHist>();
 
+	/** Density history restored from a traffic snapshot, by sampler
+	 * name.  These are used when the samplers are next mapped. */
+	private transient final HashMap<String, DensityHist> k_restored =
+		new HashMap<String, DensityHist>();
+
+	/** Time when restored density history expires */
+	private transient long k_restored_expire = 0;
+
 	/** Lookup all HOT detectors in a route.
 	 * @param r The route.
 	 * @return Set of all HOT detectors in the route. */
@@ -340,8 +351,7 @@ public class TollZoneImpl extends BaseObjectImpl implements TollZone {
 	 * @return Route from origin to destination, or null */
 	private Route buildRoute(String lbl, GeoLoc o, GeoLoc d) {
 		long st = TimeSteward.currentTimeMillis();
-		RouteFinder rf = new RouteFinder(BaseObjectImpl.corridors);
-		Route r = rf.findRoute(o, d);
+		Route r = BaseObjectImpl.routes.findRoute(o, d);
 		if (isLogging()) {
 			long e = TimeSteward.currentTimeMillis() - st;
 			log(lbl, "ROUTE TO " + end_id + strNot(r) + "FOUND: " +
@@ -374,6 +384,7 @@ public class TollZoneImpl extends BaseObjectImpl implements TollZone {
 			log(lbl, "All detectors: " + ss);
 		removeHistoryMappings(ss);
 		addHistoryMappings(ss);
+		k_restored.clear();
 	}
 
 	/** Remove mappings from k_hist if not in sampler set */
@@ -387,9 +398,16 @@ public class TollZoneImpl extends BaseObjectImpl implements TollZone {
 
 	/** Add mappings from sampler set if they don't exist */
 	private void addHistoryMappings(SamplerSet ss) {
+		if (TimeSteward.currentTimeMillis() >= k_restored_expire)
+			k_restored.clear();
 		for (VehicleSampler vs: ss.getAll()) {
-			if (!k_hist.containsKey(vs))
-				k_hist.put(vs, new DensityHist());
+			if (!k_hist.containsKey(vs)) {
+				DensityHist dh = k_restored.remove(
+					vs.toString());
+				k_hist.put(vs, (dh != null)
+					? dh
+					: new DensityHist());
+			}
 		}
 	}
 
@@ -467,4 +485,40 @@ public class TollZoneImpl extends BaseObjectImpl implements TollZone {
 	private void log(String lbl, String m) {
 		TOLL_LOG.log(name + "(" + lbl + "): " + m);
 	}
+
+	/** Write density history to a traffic snapshot */
+	public synchronized void writeSnapshot(DataOutput out)
+		throws IOException
+	{
+		out.writeInt(k_hist.size());
+		for (Map.Entry<VehicleSampler, DensityHist> e:
+		     k_hist.entrySet())
+		{
+			DensityHist dh = e.getValue();
+			out.writeUTF(e.getKey().toString());
+			dh.hist.writeSnapshot(out);
+			out.writeDouble((dh.density != null)
+				? dh.density
+				: Double.NaN);
+		}
+	}
+
+	/** Read density history from a traffic snapshot.
+	 * @param in Snapshot record input.
+	 * @param expire Time after which the history is not used. */
+	public synchronized void readSnapshot(DataInput in, long expire)
+		throws IOException
+	{
+		k_restored.clear();
+		k_restored_expire = expire;
+		int n = in.readInt();
+		for (int i = 0; i < n; i++) {
+			String vs = in.readUTF();
+			DensityHist dh = new DensityHist();
+			dh.hist.readSnapshot(in);
+			double k = in.readDouble();
+			dh.density = Double.isNaN(k) ? null : k;
+			k_restored.put(vs, dh);
+		}
+	}
 }
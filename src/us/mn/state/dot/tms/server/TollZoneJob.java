@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2015  Minnesota Department of Transportation
+ * Copyright (C) 2015-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -42,6 +42,12 @@ public class TollZoneJob extends Job {
 	/** 3-minute period in day */
 	private int period_3 = 0;
 
+	/** Toll zones read station densities, which metering updates */
+	@Override
+	public String getSerialKey() {
+		return MeteringJob.TRAFFIC_KEY;
+	}
+
 	/** Perform the job */
 	@Override
 	public void perform() {
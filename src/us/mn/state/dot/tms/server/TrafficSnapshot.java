@@ -0,0 +1,348 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2026  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Iterator;
+import us.mn.state.dot.sched.DebugLog;
+import us.mn.state.dot.sched.Job;
+import us.mn.state.dot.sched.Scheduler;
+import us.mn.state.dot.sched.TimeSteward;
+import us.mn.state.dot.tms.Detector;
+import us.mn.state.dot.tms.DetectorHelper;
+import us.mn.state.dot.tms.Station;
+import us.mn.state.dot.tms.StationHelper;
+import us.mn.state.dot.tms.TollZone;
+import us.mn.state.dot.tms.TollZoneHelper;
+
+/**
+ * A traffic snapshot saves short-term traffic state to a file, so it can be
+ * restored after a server restart.  This includes detector sample caches,
+ * station speed smoothing and bottleneck state, K adaptive meter states and
+ * toll zone density history.
+ *
+ * Station and meter state is captured on the metering thread after each
+ * interval.  The file is written by a FLUSH job each minute, and on
+ * shutdown.  It contains sections of records; each record has an object
+ * name and length, so records for unknown objects are skipped.
+ *
+ * @author Douglas Lau
+ */
+public class TrafficSnapshot {
+
+	/** Snapshot debug log */
+	static private final DebugLog SNAPSHOT_LOG = new DebugLog("snapshot");
+
+	/** Magic number for snapshot files ("IRSS") */
+	static private final int MAGIC = 0x49525353;
+
+	/** Snapshot file format version */
+	static private final int VERSION = 1;
+
+	/** Section tag for detector sample caches */
+	static private final int DETECTORS = 1;
+
+	/** Section tag for station state */
+	static private final int STATIONS = 2;
+
+	/** Section tag for K adaptive meter states */
+	static private final int METERS = 3;
+
+	/** Section tag for toll zone density history */
+	static private final int TOLL_ZONES = 4;
+
+	/** One section of snapshot records */
+	static class Section {
+
+		/** Section tag */
+		private final int tag;
+
+		/** Encoded records */
+		private final ByteArrayOutputStream records =
+			new ByteArrayOutputStream();
+
+		/** Record output stream */
+		private final DataOutputStream rec_out =
+			new DataOutputStream(records);
+
+		/** Data of the current record */
+		private final ByteArrayOutputStream rec =
+			new ByteArrayOutputStream();
+
+		/** Data output for the current record */
+		final DataOutputStream data = new DataOutputStream(rec);
+
+		/** Count of records */
+		private int n_records = 0;
+
+		/** Create a new section */
+		private Section(int t) {
+			tag = t;
+		}
+
+		/** End the current record.
+		 * @param name Name of object for the record. */
+		void endRecord(String name) throws IOException {
+			rec_out.writeUTF(name);
+			rec_out.writeInt(rec.size());
+			rec.writeTo(rec_out);
+			rec.reset();
+			n_records++;
+		}
+
+		/** Write the section to an output stream */
+		private void writeTo(DataOutputStream out) throws IOException {
+			out.writeByte(tag);
+			out.writeInt(n_records);
+			records.writeTo(out);
+		}
+
+		/** Get the encoded section */
+		private byte[] toByteArray() throws IOException {
+			ByteArrayOutputStream bos = new ByteArrayOutputStream();
+			writeTo(new DataOutputStream(bos));
+			return bos.toByteArray();
+		}
+	}
+
+	/** Snapshot file */
+	private final File file;
+
+	/** Maximum age of a snapshot to restore (ms) */
+	private final long max_ms;
+
+	/** Encoded station and meter sections, captured after metering.
+	 * Until the first capture, the file is not written. */
+	private volatile byte[] metering;
+
+	/** Create a new traffic snapshot.
+	 * @param s Scheduler for writing the snapshot file.
+	 * @param f Snapshot file.
+	 * @param max_secs Maximum age of a snapshot to restore (seconds). */
+	public TrafficSnapshot(Scheduler s, File f, int max_secs) {
+		file = f;
+		max_ms = max_secs * 1000L;
+		s.addJob(new Job(Calendar.MINUTE, 1, Calendar.SECOND, 40) {
+			public void perform() throws IOException {
+				write();
+			}
+		});
+		Runtime.getRuntime().addShutdownHook(new Thread() {
+			public void run() {
+				try {
+					write();
+				}
+				catch (IOException e) {
+					SNAPSHOT_LOG.log("write: " + e);
+				}
+			}
+		});
+	}
+
+	/** Capture station and meter state.  This must be called on the
+	 * metering thread, after all metering calculations are done. */
+	public void capture() throws IOException {
+		Section st = new Section(STATIONS);
+		Iterator<Station> it = StationHelper.iterator();
+		while (it.hasNext()) {
+			Station s = it.next();
+			if (s instanceof StationImpl) {
+				((StationImpl) s).writeSnapshot(st.data);
+				st.endRecord(s.getName());
+			}
+		}
+		Section mt = new Section(METERS);
+		KAdaptiveAlgorithm.writeSnapshot(mt);
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		bos.write(st.toByteArray());
+		bos.write(mt.toByteArray());
+		metering = bos.toByteArray();
+	}
+
+	/** Write the snapshot file.  It is written to a temporary file, which
+	 * is then renamed. */
+	public synchronized void write() throws IOException {
+		byte[] m = metering;
+		if (null == m)
+			return;
+		long start = TimeSteward.currentTimeMillis();
+		File tmp = new File(file.getPath() + ".tmp");
+		DataOutputStream out = new DataOutputStream(
+			new BufferedOutputStream(new FileOutputStream(tmp)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(start);
+			writeDetectors().writeTo(out);
+			writeTollZones().writeTo(out);
+			out.write(m);
+		}
+		finally {
+			out.close();
+		}
+		if (!tmp.renameTo(file))
+			throw new IOException("rename failed: " + file);
+		if (SNAPSHOT_LOG.isOpen()) {
+			long e = TimeSteward.currentTimeMillis() - start;
+			SNAPSHOT_LOG.log("wrote " + file.length() +
+				" bytes in " + e + " ms");
+		}
+	}
+
+	/** Write detector sample caches */
+	private Section writeDetectors() throws IOException {
+		Section sec = new Section(DETECTORS);
+		Iterator<Detector> it = DetectorHelper.iterator();
+		while (it.hasNext()) {
+			Detector d = it.next();
+			if (d instanceof DetectorImpl) {
+				((DetectorImpl) d).writeSnapshot(sec.data);
+				sec.endRecord(d.getName());
+			}
+		}
+		return sec;
+	}
+
+	/** Write toll zone density history */
+	private Section writeTollZones() throws IOException {
+		Section sec = new Section(TOLL_ZONES);
+		Iterator<TollZone> it = TollZoneHelper.iterator();
+		while (it.hasNext()) {
+			TollZone tz = it.next();
+			if (tz instanceof TollZoneImpl) {
+				((TollZoneImpl) tz).writeSnapshot(sec.data);
+				sec.endRecord(tz.getName());
+			}
+		}
+		return sec;
+	}
+
+	/** Load the snapshot file, if it is recent enough.  Detector and
+	 * station state is restored immediately; meter states and toll zone
+	 * history are restored when they are next created. */
+	public void load() {
+		if (!file.exists()) {
+			SNAPSHOT_LOG.log("no snapshot: " + file);
+			return;
+		}
+		long start = TimeSteward.currentTimeMillis();
+		try {
+			DataInputStream in = new DataInputStream(
+				new BufferedInputStream(
+				new FileInputStream(file)));
+			try {
+				load(in, start);
+			}
+			finally {
+				in.close();
+			}
+		}
+		catch (IOException e) {
+			SNAPSHOT_LOG.log("load: " + e);
+		}
+	}
+
+	/** Load the snapshot from an input stream */
+	private void load(DataInputStream in, long now) throws IOException {
+		if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+			SNAPSHOT_LOG.log("invalid snapshot: " + file);
+			return;
+		}
+		long stamp = in.readLong();
+		long age = now - stamp;
+		if (age < 0 || age > max_ms) {
+			SNAPSHOT_LOG.log("snapshot too old: " + age / 1000 +
+				" s");
+			return;
+		}
+		long expire = stamp + max_ms;
+		HashMap<String, byte[]> meters = new HashMap<String, byte[]>();
+		int n_restored = 0;
+		int tag;
+		while ((tag = in.read()) >= 0) {
+			int n = in.readInt();
+			for (int i = 0; i < n; i++) {
+				String name = in.readUTF();
+				byte[] rec = new byte[in.readInt()];
+				in.readFully(rec);
+				if (METERS == tag) {
+					meters.put(name, rec);
+					n_restored++;
+				} else if (restore(tag, name, rec, expire))
+					n_restored++;
+			}
+		}
+		KAdaptiveAlgorithm.restoreSnapshot(meters, expire);
+		SNAPSHOT_LOG.log("restored " + n_restored + " records, age " +
+			age / 1000 + " s, in " +
+			(TimeSteward.currentTimeMillis() - now) + " ms");
+	}
+
+	/** Restore one snapshot record.
+	 * @param tag Section tag.
+	 * @param name Object name.
+	 * @param rec Record data.
+	 * @param expire Time after which deferred state is not used.
+	 * @return true if the object was found. */
+	private boolean restore(int tag, String name, byte[] rec,
+		long expire)
+	{
+		DataInputStream in = new DataInputStream(
+			new ByteArrayInputStream(rec));
+		try {
+			switch (tag) {
+			case DETECTORS:
+				Detector d = DetectorHelper.lookup(name);
+				if (d instanceof DetectorImpl) {
+					((DetectorImpl) d).readSnapshot(in);
+					return true;
+				}
+				return false;
+			case STATIONS:
+				Station s = StationHelper.lookup(name);
+				if (s instanceof StationImpl) {
+					((StationImpl) s).readSnapshot(in);
+					return true;
+				}
+				return false;
+			case TOLL_ZONES:
+				TollZone tz = TollZoneHelper.lookup(name);
+				if (tz instanceof TollZoneImpl) {
+					((TollZoneImpl) tz).readSnapshot(in,
+						expire);
+					return true;
+				}
+				return false;
+			default:
+				return false;
+			}
+		}
+		catch (IOException e) {
+			SNAPSHOT_LOG.log("restore " + name + ": " + e);
+			return false;
+		}
+	}
+}
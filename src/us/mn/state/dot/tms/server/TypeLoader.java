@@ -0,0 +1,256 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2026  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms.server;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import us.mn.state.dot.sched.DebugLog;
+import us.mn.state.dot.sched.TimeSteward;
+import us.mn.state.dot.tms.TMSException;
+
+/**
+ * Type loader loads SONAR types from the database at startup.  Each step
+ * lists the steps it depends on; independent steps are loaded concurrently
+ * on a number of threads.  Steps must be added after their dependencies.
+ *
+ * @author Douglas Lau
+ */
+class TypeLoader {
+
+	/** Load time debug log */
+	static private final DebugLog LOAD_LOG = new DebugLog("load");
+
+	/** Loader for all objects of one type */
+	interface Loader {
+
+		/** Load all objects of the type */
+		void load() throws TMSException;
+	}
+
+	/** One load step */
+	abstract class Step {
+
+		/** Step name */
+		private final String name;
+
+		/** Steps which depend on this one */
+		private final ArrayList<Step> dependents =
+			new ArrayList<Step>();
+
+		/** Count of dependencies not yet loaded */
+		private int n_waiting;
+
+		/** Create a new load step */
+		private Step(String n, Step[] d) {
+			name = n;
+			n_waiting = d.length;
+			for (Step s: d)
+				s.dependents.add(this);
+			steps.add(this);
+		}
+
+		/** Perform the step */
+		abstract protected void load() throws Exception;
+	}
+
+	/** Bulk database connection */
+	private final SQLConnection store;
+
+	/** All load steps, in a valid sequential order */
+	private final ArrayList<Step> steps = new ArrayList<Step>();
+
+	/** Steps ready to load */
+	private final ArrayDeque<Step> ready = new ArrayDeque<Step>();
+
+	/** Count of steps loaded */
+	private int n_loaded = 0;
+
+	/** First load error */
+	private Exception error = null;
+
+	/** Create a new type loader */
+	TypeLoader(SQLConnection s) {
+		store = s;
+	}
+
+	/** Add a step to load all objects of a type.
+	 * @param n Type name.
+	 * @param l Loader for the type.
+	 * @param deps Steps which must be loaded first.
+	 * @return New load step. */
+	Step type(String n, final Loader l, Step... deps) {
+		return new Step(n, deps) {
+			protected void load() throws TMSException {
+				l.load();
+			}
+		};
+	}
+
+	/** Add a step to run a task.
+	 * @param n Task name.
+	 * @param task Task to run.
+	 * @param deps Steps which must be loaded first.
+	 * @return New load step. */
+	Step task(String n, final Runnable task, Step... deps) {
+		return new Step(n, deps) {
+			protected void load() {
+				task.run();
+			}
+		};
+	}
+
+	/** Add a step which depends on all steps added so far.
+	 * @param n Step name.
+	 * @param task Task to run.
+	 * @return New load step. */
+	Step barrier(String n, Runnable task) {
+		return task(n, task, steps.toArray(new Step[0]));
+	}
+
+	/** Load all steps.
+	 * @param n_threads Number of threads to load concurrently. */
+	void load(int n_threads) throws TMSException {
+		long start = TimeSteward.currentTimeMillis();
+		if (n_threads > 1)
+			loadConcurrent(n_threads);
+		else
+			loadSequential();
+		System.err.println("Loaded " + steps.size() + " steps in " +
+			(TimeSteward.currentTimeMillis() - start) + " ms");
+	}
+
+	/** Load all steps on the current thread */
+	private void loadSequential() throws TMSException {
+		store.beginBulk();
+		try {
+			for (Step s: steps)
+				loadStep(s);
+		}
+		catch (Exception e) {
+			throw asTMSException(e);
+		}
+		finally {
+			store.endBulk();
+		}
+	}
+
+	/** Load one step, logging the elapsed time */
+	private void loadStep(Step s) throws Exception {
+		long start = TimeSteward.currentTimeMillis();
+		s.load();
+		if (LOAD_LOG.isOpen()) {
+			LOAD_LOG.log(s.name + ": " +
+				(TimeSteward.currentTimeMillis() - start) + " ms");
+		}
+	}
+
+	/** Convert an exception to a TMS exception */
+	static private TMSException asTMSException(Exception e) {
+		return (e instanceof TMSException)
+		      ? (TMSException) e
+		      : new TMSException(e);
+	}
+
+	/** Load all steps on a number of threads */
+	private void loadConcurrent(int n_threads) throws TMSException {
+		synchronized (this) {
+			for (Step s: steps) {
+				if (s.n_waiting == 0)
+					ready.add(s);
+			}
+		}
+		ArrayList<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < n_threads; i++) {
+			Thread t = new Thread("load_" + i) {
+				public void run() {
+					store.beginBulk();
+					try {
+						loadSteps();
+					}
+					finally {
+						store.endBulk();
+					}
+				}
+			};
+			t.start();
+			threads.add(t);
+		}
+		try {
+			for (Thread t: threads)
+				t.join();
+		}
+		catch (InterruptedException e) {
+			throw new TMSException(e);
+		}
+		synchronized (this) {
+			if (error != null)
+				throw asTMSException(error);
+		}
+	}
+
+	/** Load steps as they become ready */
+	private void loadSteps() {
+		Step s = nextStep();
+		while (s != null) {
+			try {
+				loadStep(s);
+				loaded(s);
+			}
+			catch (Exception e) {
+				failed(s, e);
+			}
+			catch (Error e) {
+				failed(s, new Exception(e));
+				throw e;
+			}
+			s = nextStep();
+		}
+	}
+
+	/** Get the next ready step, waiting for dependencies.
+	 * @return Next step, or null when done (or failed). */
+	private synchronized Step nextStep() {
+		while (ready.isEmpty() && n_loaded < steps.size() &&
+		       error == null)
+		{
+			try {
+				wait();
+			}
+			catch (InterruptedException e) {
+				error = e;
+			}
+		}
+		return (error == null) ? ready.poll() : null;
+	}
+
+	/** Mark a step loaded, readying its dependents */
+	private synchronized void loaded(Step s) {
+		n_loaded++;
+		for (Step d: s.dependents) {
+			d.n_waiting--;
+			if (d.n_waiting == 0)
+				ready.add(d);
+		}
+		notifyAll();
+	}
+
+	/** Mark a step failed, stopping all loading */
+	private synchronized void failed(Step s, Exception e) {
+		LOAD_LOG.log(s.name + ": " + e);
+		if (error == null)
+			error = e;
+		notifyAll();
+	}
+}
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2006-2024  Minnesota Department of Transportation
+ * Copyright (C) 2006-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -14,15 +14,10 @@
  */
 package us.mn.state.dot.tms.server;
 
-import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
 import java.util.Calendar;
-import us.mn.state.dot.sched.Job;
 import us.mn.state.dot.sched.TimeSteward;
 import us.mn.state.dot.tms.SystemAttrEnum;
 import static us.mn.state.dot.tms.server.Constants.MISSING_DATA;
-import static us.mn.state.dot.tms.server.MainServer.FLUSH;
 
 /**
  * The vehicle event log records vehicle detection events.
@@ -112,8 +107,8 @@ public class VehicleEventLog {
 		return b.toString();
 	}
 
-	/** Sample archive factory */
-	private final SampleArchiveFactory factory;
+	/** Vehicle log writer */
+	private final VehicleLogWriter writer;
 
 	/** Sensor ID */
 	private final String sensor_id;
@@ -136,7 +131,7 @@ public class VehicleEventLog {
 	/** Create a new vehicle event log */
 	public VehicleEventLog(String sid) {
 		sensor_id = sid;
-		factory = MainServer.a_factory;
+		writer = MainServer.v_writer;
 	}
 
 	/** Log a vehicle detection event */
@@ -159,7 +154,7 @@ public class VehicleEventLog {
 			long st = shouldLogStamp(head, stamp, p_stamp)
 			        ? stamp
 			        : 0;
-			final String ev = formatEvent(duration, head, st, speed,
+			String ev = formatEvent(duration, head, st, speed,
 				length);
 			long stamp_ms = getStampMillis(stamp);
 			// Are we *inside* a gap and starting a new day?
@@ -169,25 +164,7 @@ public class VehicleEventLog {
 			}
 			p_stamp = stamp;
 			gap = 0;
-			FLUSH.addJob(new Job() {
-				public void perform() throws IOException {
-					appendEvent(stamp_ms, ev);
-				}
-			});
-		}
-	}
-
-	/** Append an event to the log */
-	private void appendEvent(long stamp, String line) throws IOException {
-		File file = factory.createFile(sensor_id, "vlog", stamp);
-		if (file != null) {
-			FileWriter fw = new FileWriter(file, true);
-			try {
-				fw.write(line);
-			}
-			finally {
-				fw.close();
-			}
+			writer.append(sensor_id, stamp_ms, ev);
 		}
 	}
 
@@ -197,11 +174,7 @@ public class VehicleEventLog {
 		if (isArchiveEnabled() && gap == 0) {
 			p_stamp = 0;
 			gap = stamp_ms;
-			FLUSH.addJob(new Job() {
-				public void perform() throws IOException {
-					appendEvent(stamp_ms, "*\n");
-				}
-			});
+			writer.append(sensor_id, stamp_ms, "*\n");
 		}
 	}
 
@@ -0,0 +1,267 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2026  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms.server;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import us.mn.state.dot.sched.DebugLog;
+import us.mn.state.dot.sched.Job;
+import us.mn.state.dot.sched.Scheduler;
+import us.mn.state.dot.sched.TimeSteward;
+
+/**
+ * Vehicle log writer buffers vehicle event lines in memory for each sensor
+ * and day, and appends them to vlog files in large writes.  Buffers are
+ * written every few seconds, or sooner when enough data is buffered, so at
+ * most one flush interval of events can be lost in a crash.  A bounded LRU
+ * set of files is kept open; files for previous days are closed on each
+ * flush, so they can be archived.
+ *
+ * @author Douglas Lau
+ */
+public class VehicleLogWriter {
+
+	/** Vehicle log debug log */
+	static private final DebugLog VLOG_LOG = new DebugLog("vlog");
+
+	/** Everything is written as ASCII */
+	static private final Charset ASCII = Charset.forName("US-ASCII");
+
+	/** Interval to flush buffered events (ms) */
+	static private final int FLUSH_MS = 5000;
+
+	/** Buffered bytes which trigger a flush */
+	static private final int FLUSH_BYTES = 1 << 20;
+
+	/** Maximum number of open files */
+	static private final int MAX_OPEN = 256;
+
+	/** File extension for vehicle logs */
+	static private final String EXT = "vlog";
+
+	/** Buffered events for one sensor and day */
+	static private class Buffer {
+		private final String sensor_id;
+		private final long stamp;
+		private final StringBuilder lines = new StringBuilder();
+		private Buffer(String sid, long st) {
+			sensor_id = sid;
+			stamp = st;
+		}
+	}
+
+	/** Sample archive factory */
+	private final SampleArchiveFactory factory;
+
+	/** Writer thread */
+	private final Scheduler writer = new Scheduler("vlog");
+
+	/** Buffered events, by sensor and day */
+	private HashMap<String, Buffer> buffers = new HashMap<String, Buffer>();
+
+	/** Count of buffered bytes */
+	private int n_bytes = 0;
+
+	/** Flag indicating a flush job has been added */
+	private boolean flush_pending = false;
+
+	/** Start of cached day (ms) */
+	private long day_start = 0;
+
+	/** End of cached day (ms) */
+	private long day_end = 0;
+
+	/** Cached day string */
+	private String day = null;
+
+	/** Open files, by sensor and day (least recently used first).
+	 * Lock held while flushing, so buffering is never blocked on I/O. */
+	private final LinkedHashMap<String, FileChannel> open_files =
+		new LinkedHashMap<String, FileChannel>(16, 0.75f, true)
+	{
+		protected boolean removeEldestEntry(
+			Map.Entry<String, FileChannel> e)
+		{
+			if (size() > MAX_OPEN) {
+				close(e.getValue());
+				return true;
+			} else
+				return false;
+		}
+	};
+
+	/** Flush job */
+	private final Job flush_job = new Job() {
+		public void perform() {
+			flush();
+		}
+	};
+
+	/** Create a new vehicle log writer */
+	public VehicleLogWriter(SampleArchiveFactory f) {
+		factory = f;
+		writer.addJob(new Job(Calendar.MILLISECOND, FLUSH_MS) {
+			public void perform() {
+				flush();
+			}
+		});
+		Runtime.getRuntime().addShutdownHook(new Thread() {
+			public void run() {
+				flush();
+			}
+		});
+	}
+
+	/** Get the day string for a time stamp (must hold lock) */
+	private String getDay(long stamp) {
+		if (stamp < day_start || stamp >= day_end) {
+			Calendar cal = Calendar.getInstance();
+			cal.setTimeInMillis(stamp);
+			cal.set(Calendar.HOUR_OF_DAY, 0);
+			cal.set(Calendar.MINUTE, 0);
+			cal.set(Calendar.SECOND, 0);
+			cal.set(Calendar.MILLISECOND, 0);
+			day_start = cal.getTimeInMillis();
+			cal.add(Calendar.DATE, 1);
+			day_end = cal.getTimeInMillis();
+			day = TimeSteward.dateShortString(stamp);
+		}
+		return day;
+	}
+
+	/** Append a line to a vehicle log.
+	 * @param sensor_id Sensor ID.
+	 * @param stamp Time stamp of event (for day of log file).
+	 * @param line Line to append. */
+	public void append(String sensor_id, long stamp, String line) {
+		boolean full;
+		synchronized (this) {
+			String key = sensor_id + '/' + getDay(stamp);
+			Buffer b = buffers.get(key);
+			if (b == null) {
+				b = new Buffer(sensor_id, stamp);
+				buffers.put(key, b);
+			}
+			b.lines.append(line);
+			n_bytes += line.length();
+			full = n_bytes >= FLUSH_BYTES && !flush_pending;
+			if (full)
+				flush_pending = true;
+		}
+		if (full)
+			writer.addJob(flush_job);
+	}
+
+	/** Take all buffered events */
+	private synchronized HashMap<String, Buffer> takeBuffers() {
+		HashMap<String, Buffer> bufs = buffers;
+		buffers = new HashMap<String, Buffer>();
+		n_bytes = 0;
+		flush_pending = false;
+		return bufs;
+	}
+
+	/** Flush all buffered events to files */
+	private void flush() {
+		synchronized (open_files) {
+			long start = TimeSteward.currentTimeMillis();
+			int n_files = 0;
+			int bytes = 0;
+			for (Map.Entry<String, Buffer> e:
+			     takeBuffers().entrySet())
+			{
+				try {
+					bytes += write(e.getKey(), e.getValue());
+					n_files++;
+				}
+				catch (IOException ex) {
+					VLOG_LOG.log(e.getKey() + ": " +
+						ex.getMessage());
+				}
+			}
+			closePreviousDays();
+			if (VLOG_LOG.isOpen() && n_files > 0) {
+				VLOG_LOG.log("wrote " + bytes + " bytes to " +
+					n_files + " files (" + open_files.size() +
+					" open), took " +
+					(TimeSteward.currentTimeMillis() - start) +
+					" ms");
+			}
+		}
+	}
+
+	/** Write buffered events to a file.
+	 * @return Number of bytes written. */
+	private int write(String key, Buffer b) throws IOException {
+		ByteBuffer buf = ByteBuffer.wrap(b.lines.toString().getBytes(
+			ASCII));
+		FileChannel fc = open_files.get(key);
+		if (fc == null) {
+			File file = factory.createFile(b.sensor_id, EXT,
+				b.stamp);
+			if (file == null)
+				return 0;
+			fc = FileChannel.open(file.toPath(),
+				StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE,
+				StandardOpenOption.APPEND);
+			open_files.put(key, fc);
+		}
+		try {
+			while (buf.hasRemaining())
+				fc.write(buf);
+			return buf.limit();
+		}
+		catch (IOException ex) {
+			open_files.remove(key);
+			close(fc);
+			throw ex;
+		}
+	}
+
+	/** Close files for previous days */
+	private void closePreviousDays() {
+		String today = '/' + TimeSteward.dateShortString(
+			TimeSteward.currentTimeMillis());
+		Iterator<Map.Entry<String, FileChannel>> it =
+			open_files.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<String, FileChannel> e = it.next();
+			if (!e.getKey().endsWith(today)) {
+				close(e.getValue());
+				it.remove();
+			}
+		}
+	}
+
+	/** Close a file channel */
+	static private void close(FileChannel fc) {
+		try {
+			fc.close();
+		}
+		catch (IOException e) {
+			VLOG_LOG.log("close: " + e.getMessage());
+		}
+	}
+}
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2000-2022  Minnesota Department of Transportation
+ * Copyright (C) 2000-2026  Minnesota Department of Transportation
  * Copyright (C) 2017-2020  SRF Consulting Group
  *
  * This program is free software; you can redistribute it and/or modify
@@ -16,10 +16,13 @@
 package us.mn.state.dot.tms.server.comm;
 
 import java.io.IOException;
+import java.lang.reflect.Method;
 import java.net.ConnectException;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
 import us.mn.state.dot.sched.DebugLog;
 import us.mn.state.dot.sched.TimeSteward;
 import us.mn.state.dot.tms.EventType;
@@ -47,6 +50,74 @@ public class CommThread<T extends ControllerProperty> {
 	/** Thread group for all comm threads */
 	static private final ThreadGroup GROUP = new ThreadGroup("Comm");
 
+	/** Method to get a virtual thread builder (null if unsupported) */
+	static private final Method OF_VIRTUAL = lookupOfVirtual();
+
+	/** Look up the method to get a virtual thread builder.  This is done
+	 * at runtime, since virtual threads require Java 21. */
+	static private Method lookupOfVirtual() {
+		try {
+			return Thread.class.getMethod("ofVirtual");
+		}
+		catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	/** Check if virtual threads are supported by the JVM */
+	static public boolean isVirtualSupported() {
+		return OF_VIRTUAL != null;
+	}
+
+	/** Flag to create comm threads as virtual threads */
+	static private boolean virtual = false;
+
+	/** Stack size for platform comm threads (0 for JVM default) */
+	static private long stack_size = 0;
+
+	/** Configure how comm threads are created.
+	 * @param v Use virtual threads, if supported by the JVM.
+	 * @param ss Stack size for platform threads (bytes), or 0 for
+	 *           the JVM default. */
+	static public void configure(boolean v, long ss) {
+		virtual = v && isVirtualSupported();
+		stack_size = ss;
+	}
+
+	/** Check if comm threads are created as virtual threads */
+	static public boolean isVirtual() {
+		return virtual;
+	}
+
+	/** Create a comm thread.
+	 * @param name Thread name.
+	 * @param r Runnable for thread.
+	 * @return Unstarted thread. */
+	static private Thread createThread(String name, Runnable r) {
+		if (virtual) {
+			try {
+				return createVirtualThread(name, r);
+			}
+			catch (ReflectiveOperationException e) {
+				e.printStackTrace();
+			}
+		}
+		Thread t = new Thread(GROUP, r, name, stack_size);
+		t.setDaemon(true);
+		return t;
+	}
+
+	/** Create a virtual thread */
+	static private Thread createVirtualThread(String name, Runnable r)
+		throws ReflectiveOperationException
+	{
+		Object b = OF_VIRTUAL.invoke(null);
+		Class<?> bc = Class.forName("java.lang.Thread$Builder");
+		b = bc.getMethod("name", String.class).invoke(b, name);
+		Method unstarted = bc.getMethod("unstarted", Runnable.class);
+		return (Thread) unstarted.invoke(b, r);
+	}
+
 	/** Check if messenger needs reconnect after read timeout failure.
 	 * For a modem link, read timeout should be handled by reconnecting
 	 * the modem.  For a datagram messenger (UDP), a reconnect may be
@@ -127,13 +198,11 @@ public class CommThread<T extends ControllerProperty> {
 		int rt, int nrd, DebugLog log)
 	{
 		poller = dp;
- 		thread = new Thread(GROUP, "Comm: " + poller.name) {
-			@Override
+		thread = createThread("Comm: " + poller.name, new Runnable() {
 			public void run() {
 				doRun();
 			}
-		};
-		thread.setDaemon(true);
+		});
 		queue = q;
 		scheme = s;
 		uri = u;
@@ -234,15 +303,133 @@ public class CommThread<T extends ControllerProperty> {
 		return Messenger.create(s, u, rt, nrd);
 	}
 
+	/** Get the number of lanes for polling with a messenger.  Each lane
+	 * works on one operation at a time, sharing the messenger.  Only one
+	 * operation for each controller is worked on at a time.
+	 * @param m The messenger.
+	 * @return Number of lanes. */
+	protected int getLanes(Messenger m) {
+		return 1;
+	}
+
+	/** Operation being worked on (single lane) */
+	private OpController<T> work_op;
+
 	/** Poll the operation queue and perform operations.
 	 * @throws DisconnectException if the link should be disconnected.
 	 * @throws IOException if an unrecoverable IO error happens. */
 	private void pollQueue(Messenger m) throws DisconnectException,
 		IOException
 	{
+		int n_lanes = getLanes(m);
+		if (n_lanes > 1) {
+			pollLanes(m, n_lanes);
+			return;
+		}
 		while (shouldContinue()) {
-			OpController<T> op = queue.next(idle_disconnect_ms);
-			doPoll(m, op);
+			work_op = queue.next(work_op, idle_disconnect_ms);
+			doPoll(m, work_op);
+		}
+	}
+
+	/** Lane for polling operations concurrently with other lanes */
+	private class Lane implements Runnable {
+
+		/** Messenger shared by all lanes */
+		private final Messenger messenger;
+
+		/** Latch counted down when any lane stops */
+		private final CountDownLatch stopped;
+
+		/** Thread for lane */
+		private final Thread lthread;
+
+		/** Flag to stop the lane */
+		private volatile boolean stopping = false;
+
+		/** Exception which stopped the lane */
+		private Exception error;
+
+		/** Create a new lane */
+		private Lane(Messenger m, int n, CountDownLatch s) {
+			messenger = m;
+			stopped = s;
+			lthread = createThread(thread.getName() + " #" + n,
+				this);
+		}
+
+		/** Poll operations until stopped */
+		@Override
+		public void run() {
+			OpController<T> op = null;
+			try {
+				while (shouldContinue() && !stopping) {
+					op = queue.next(op, idle_disconnect_ms);
+					doPoll(messenger, op);
+				}
+			}
+			catch (IOException | RuntimeException e) {
+				if (!stopping)
+					error = e;
+			}
+			finally {
+				if (op != null)
+					queue.release(op);
+				stopped.countDown();
+			}
+		}
+
+		/** Stop the lane */
+		private void stop() {
+			stopping = true;
+			lthread.interrupt();
+		}
+
+		/** Wait for the lane to stop */
+		private void join() {
+			try {
+				lthread.join();
+			}
+			catch (InterruptedException e) {
+				// keep waiting for other lanes
+			}
+		}
+	}
+
+	/** Poll the operation queue with several lanes.  The comm thread
+	 * waits until any lane stops, then stops the others.
+	 * @throws DisconnectException if the link should be disconnected.
+	 * @throws IOException if an unrecoverable IO error happens. */
+	private void pollLanes(Messenger m, int n_lanes)
+		throws DisconnectException, IOException
+	{
+		CountDownLatch stopped = new CountDownLatch(1);
+		ArrayList<Lane> lanes = new ArrayList<Lane>();
+		for (int i = 0; i < n_lanes; i++)
+			lanes.add(new Lane(m, i + 1, stopped));
+		clog("LANES: " + n_lanes);
+		boolean destroyed = false;
+		try {
+			for (Lane l: lanes)
+				l.lthread.start();
+			stopped.await();
+		}
+		catch (InterruptedException e) {
+			destroyed = true;
+		}
+		finally {
+			for (Lane l: lanes)
+				l.stop();
+			for (Lane l: lanes)
+				l.join();
+		}
+		if (destroyed)
+			throw new DisconnectException("DESTROYED");
+		for (Lane l: lanes) {
+			if (l.error instanceof IOException)
+				throw (IOException) l.error;
+			if (l.error instanceof RuntimeException)
+				throw (RuntimeException) l.error;
 		}
 	}
 
@@ -293,14 +480,11 @@ public class CommThread<T extends ControllerProperty> {
 		}
 		catch (SocketException e) {
 			String msg = getMessage(e);
-			if (m instanceof BasicMessenger) {
-				BasicMessenger bm = (BasicMessenger) m;
-				if (bm.hitNoResponseDisconnect()) {
-					o.handleCommError(EventType
-						.POLL_TIMEOUT_ERROR, msg);
-					o.setFailed();
-					throw new NoResponseException();
-				}
+			if (m.hitNoResponseDisconnect()) {
+				o.handleCommError(EventType.POLL_TIMEOUT_ERROR,
+					msg);
+				o.setFailed();
+				throw new NoResponseException();
 			}
 			o.handleCommError(EventType.COMM_ERROR, msg);
 			throw new ReconnectException();
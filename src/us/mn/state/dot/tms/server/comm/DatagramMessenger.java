@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2009-2020  Minnesota Department of Transportation
+ * Copyright (C) 2009-2026  Minnesota Department of Transportation
  * Copyright (C) 2020       SRF Consulting Group
  *
  * This program is free software; you can redistribute it and/or modify
@@ -113,6 +113,12 @@ public class DatagramMessenger extends BasicMessenger {
 		return output;
 	}
 
+	/** Set the receive timeout for the next datagram.
+	 * @param rt Receive timeout (ms). */
+	public void setReceiveTimeout(int rt) throws IOException {
+		socket.setSoTimeout(rt);
+	}
+
 	/** Drain any bytes from the input stream */
 	@Override
 	public void drain() throws IOException {
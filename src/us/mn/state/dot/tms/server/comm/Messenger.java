@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2007-2021  Minnesota Department of Transportation
+ * Copyright (C) 2007-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -127,4 +127,9 @@ abstract public class Messenger implements Closeable {
 
 	/** Drain any bytes from the input stream */
 	abstract public void drain() throws IOException;
+
+	/** Check if the no-response disconnect has been triggered */
+	public boolean hitNoResponseDisconnect() {
+		return false;
+	}
 }
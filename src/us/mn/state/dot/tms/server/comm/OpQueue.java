@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2000-2021  Minnesota Department of Transportation
+ * Copyright (C) 2000-2026  Minnesota Department of Transportation
  * Copyright (C) 2017       SRF Consulting Group
  *
  * This program is free software; you can redistribute it and/or modify
@@ -15,11 +15,19 @@
  */
 package us.mn.state.dot.tms.server.comm;
 
-import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * A prioritized queue which sorts Operation objects by their priority
- * class.  Operations with the same priority are sorted FIFO.
+ * class.  Operations with the same priority are sorted FIFO.  A lock is
+ * used instead of a monitor, so comm threads waiting for operations do not
+ * pin a carrier thread when running on virtual threads.
+ *
+ * Several comm threads (lanes) may take operations from one queue.  Only
+ * one operation for each controller is worked on at a time.
  *
  * @author Douglas Lau
  * @author John L. Stanley
@@ -41,16 +49,29 @@ public final class OpQueue<T extends ControllerProperty> {
 	/** Front node in the queue */
 	private Node<T> front = null;
 
-	/** Current working operation.  This is needed so that an "equal"
+	/** Current working operations.  This is needed so that an "equal"
 	 * operation cannot be added while work is in progress. */
-	private OpController<T> work = null;
+	private final ArrayList<OpController<T>> work =
+		new ArrayList<OpController<T>>();
 
 	/** Flag to tell when the poller is closing */
 	private boolean closing = false;
 
+	/** Lock for queue state */
+	private final ReentrantLock lock = new ReentrantLock();
+
+	/** Condition signalled when an operation is added */
+	private final Condition added = lock.newCondition();
+
 	/** Close the queue for new operations */
-	public synchronized void close() {
-		closing = true;
+	public void close() {
+		lock.lock();
+		try {
+			closing = true;
+		}
+		finally {
+			lock.unlock();
+		}
 	}
 
 	/** Check if the queue is open */
@@ -59,24 +80,42 @@ public final class OpQueue<T extends ControllerProperty> {
 	}
 
 	/** Check if the queue is empty */
-	public synchronized boolean isEmpty() {
-		return (work == null) && (front == null);
+	public boolean isEmpty() {
+		lock.lock();
+		try {
+			return work.isEmpty() && (front == null);
+		}
+		finally {
+			lock.unlock();
+		}
 	}
 
 	/** Check if the queue has any more ops to process.
 	 * (Like isEmpty(), but ignores the current work op.) */
-	public synchronized boolean noMoreOps() {
-		return (front == null);
+	public boolean noMoreOps() {
+		lock.lock();
+		try {
+			return (front == null);
+		}
+		finally {
+			lock.unlock();
+		}
 	}
 
 	/** Enqueue a new operation */
-	public synchronized boolean enqueue(OpController<T> op) {
-		if (shouldAdd(op)) {
-			op.begin();
-			add(op);
-			return true;
-		} else
-			return false;
+	public boolean enqueue(OpController<T> op) {
+		lock.lock();
+		try {
+			if (shouldAdd(op)) {
+				op.begin();
+				add(op);
+				return true;
+			} else
+				return false;
+		}
+		finally {
+			lock.unlock();
+		}
 	}
 
 	/** Check if an operation should be added to the queue */
@@ -86,8 +125,10 @@ public final class OpQueue<T extends ControllerProperty> {
 
 	/** Check if the queue contains a given operation */
 	private boolean contains(OpController<T> op) {
-		if (op.equals(work) && !work.isDone())
-			return true;
+		for (OpController<T> w: work) {
+			if (op.equals(w) && !w.isDone())
+				return true;
+		}
 		Node<T> node = front;
 		while (node != null) {
 			OpController<T> nop = node.operation;
@@ -114,33 +155,108 @@ public final class OpQueue<T extends ControllerProperty> {
 			front = node;
 		else
 			prev.next = node;
-		notify();
+		added.signal();
 	}
 
-	/** Requeue an in-progress operation */
-	public synchronized boolean requeue(OpController<T> op) {
-		if ((remove(op) == op) && isOpen()) {
-			add(op);
-			return true;
-		} else
-			return false;
+	/** Requeue an in-progress operation.  An operation which is being
+	 * worked on stays in the working list until it is released, so that
+	 * no other lane can take it (or another operation for the same
+	 * controller) before then. */
+	public boolean requeue(OpController<T> op) {
+		lock.lock();
+		try {
+			boolean found = removeNode(op) || isWorking(op);
+			if (found && isOpen()) {
+				add(op);
+				return true;
+			} else
+				return false;
+		}
+		finally {
+			lock.unlock();
+		}
 	}
 
-	/** Remove an operation from the queue */
-	private OpController<T> remove(OpController<T> op) {
-		if (op == work) {
-			work = null;
-			return op;
-		}
+	/** Remove an operation's node from the queue */
+	private boolean removeNode(OpController<T> op) {
 		Node<T> prev = null;
 		Node<T> node = front;
 		while (node != null) {
 			if (node.operation == op) {
 				if (prev == null)
-					front = node;
+					front = node.next;
 				else
-					prev.next = node;
-				return op;
+					prev.next = node.next;
+				return true;
+			}
+			prev = node;
+			node = node.next;
+		}
+		return false;
+	}
+
+	/** Check if an operation is in the working list */
+	private boolean isWorking(OpController<T> op) {
+		for (OpController<T> w: work) {
+			if (w == op)
+				return true;
+		}
+		return false;
+	}
+
+	/** Check if an operation has a node in the queue */
+	private boolean isQueued(OpController<T> op) {
+		for (Node<T> node = front; node != null; node = node.next) {
+			if (node.operation == op)
+				return true;
+		}
+		return false;
+	}
+
+	/** Remove an operation from the working list */
+	private boolean removeWork(OpController<T> op) {
+		for (int i = 0; i < work.size(); i++) {
+			if (work.get(i) == op) {
+				work.remove(i);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/** Release an operation which is no longer being worked on */
+	public void release(OpController<T> op) {
+		lock.lock();
+		try {
+			if (removeWork(op))
+				added.signalAll();
+		}
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/** Check if another operation is working on a controller */
+	private boolean isBusy(OpController<T> op) {
+		for (OpController<T> w: work) {
+			if (!w.isDone() &&
+			    w.getController() == op.getController())
+				return true;
+		}
+		return false;
+	}
+
+	/** Take the first operation whose controller is not busy */
+	private OpController<T> takeNext() {
+		Node<T> prev = null;
+		Node<T> node = front;
+		while (node != null) {
+			if (!isBusy(node.operation)) {
+				if (prev == null)
+					front = node.next;
+				else
+					prev.next = node.next;
+				return node.operation;
 			}
 			prev = node;
 			node = node.next;
@@ -150,57 +266,101 @@ public final class OpQueue<T extends ControllerProperty> {
 
 	/** Get the next operation from the queue (and remove it).
 	 * Waits until an operation is added, the timeout expires or the thread
-	 * is interrupted (destroyed).
+	 * is interrupted (destroyed).  Operations for a controller which
+	 * another lane is working on are skipped.
+	 * @param done Operation this lane was working on (or null).
 	 * @param idle_ms Idle timeout (ms); 0 indicates no timeout.
-	 * @return Operation at front of queue.
+	 * @return Next operation to work on.
 	 * @throws DisconnectException If idle timeout expires or comm thread is
 	 *                             destroyed. */
-	public synchronized OpController<T> next(long idle_ms)
+	public OpController<T> next(OpController<T> done, long idle_ms)
 		throws DisconnectException
 	{
-		work = null;
-		while (null == front) {
-			try {
-				wait(idle_ms);
-			}
-			catch (InterruptedException e) {
-				throw new DisconnectException("DESTROYED");
-			}
-			if (idle_ms > 0 && null == front) {
-				// Empty msg (status) doesn't fail controllers
-				throw new DisconnectException("");
+		lock.lock();
+		try {
+			if (removeWork(done))
+				added.signalAll();
+			long end = System.nanoTime() +
+				TimeUnit.MILLISECONDS.toNanos(idle_ms);
+			while (true) {
+				OpController<T> op = takeNext();
+				if (op != null) {
+					work.add(op);
+					return op;
+				}
+				long rem_ms = TimeUnit.NANOSECONDS.toMillis(
+					end - System.nanoTime());
+				if (idle_ms > 0 && rem_ms <= 0 && work.isEmpty()
+				    && null == front)
+				{
+					// Empty msg (status) doesn't fail
+					// controllers
+					throw new DisconnectException("");
+				}
+				awaitAdded((idle_ms > 0 && work.isEmpty())
+					? Math.max(rem_ms, 1)
+					: 0);
 			}
 		}
-		work = front.operation;
-		front = front.next;
-		return work;
+		finally {
+			lock.unlock();
+		}
+	}
+
+	/** Wait for an operation to be added (or released).
+	 * @param idle_ms Idle timeout (ms); 0 indicates no timeout. */
+	private void awaitAdded(long idle_ms) throws DisconnectException {
+		try {
+			if (idle_ms > 0)
+				added.await(idle_ms, TimeUnit.MILLISECONDS);
+			else
+				added.await();
+		}
+		catch (InterruptedException e) {
+			throw new DisconnectException("DESTROYED");
+		}
 	}
 
 	/** Get the next operation from the queue (and remove it).
 	 * If there's no op in the queue, immediately return null. */
-	public synchronized OpController<T> tryNext() {
-		OpController<T> w = work;
-		if (w != null) {
-			work = null;
-			return w;
+	public OpController<T> tryNext() {
+		lock.lock();
+		try {
+			if (!work.isEmpty()) {
+				OpController<T> w = work.remove(0);
+				removeNode(w);
+				return w;
+			}
+			OpController<T> op = null;
+			if (front != null) {
+				op = front.operation;
+				front = front.next;
+			}
+			return op;
 		}
-		OpController<T> op = null;
-		if (front != null) {
-			op = front.operation;
-			front = front.next;
+		finally {
+			lock.unlock();
 		}
-		return op;
 	}
 
 	/** Do something to each operation in the queue */
-	public synchronized boolean forEach(OpHandler<T> handler) {
-		OpController<T> w = work;
-		boolean flag = (w != null) ? handler.handle(w) : true;
-		Node<T> node = front;
-		while (node != null) {
-			flag &= handler.handle(node.operation);
-			node = node.next;
+	public boolean forEach(OpHandler<T> handler) {
+		lock.lock();
+		try {
+			boolean flag = true;
+			for (OpController<T> w: work) {
+				if (!isQueued(w))
+					flag &= handler.handle(w);
+			}
+			Node<T> node = front;
+			while (node != null) {
+				flag &= handler.handle(node.operation);
+				node = node.next;
+			}
+			return flag;
+		}
+		finally {
+			lock.unlock();
 		}
-		return flag;
 	}
 }
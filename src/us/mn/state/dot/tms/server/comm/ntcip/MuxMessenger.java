@@ -0,0 +1,293 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2026  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms.server.comm.ntcip;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.SocketTimeoutException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import us.mn.state.dot.tms.server.ControllerImpl;
+import us.mn.state.dot.tms.server.comm.DatagramMessenger;
+import us.mn.state.dot.tms.server.comm.Messenger;
+import us.mn.state.dot.tms.server.comm.ProtocolException;
+import us.mn.state.dot.tms.server.comm.snmp.SNMP;
+
+/**
+ * Multiplexing messenger, for SNMP over UDP.  Several requests can be
+ * outstanding at once, up to the window size.  Responses are matched to
+ * requests by SNMP request-id.
+ *
+ * Each request is sent with an exchange, which has its own streams.  Only
+ * one thread at a time receives datagrams; it hands off responses for
+ * other requests to the threads waiting on them.  Each receive is limited
+ * to the remaining time before the receiving request's deadline.
+ *
+ * @author Douglas Lau
+ */
+public class MuxMessenger extends Messenger {
+
+	/** Exception for streams without a request */
+	static private final ProtocolException NO_EXCHANGE =
+		new ProtocolException("NO EXCHANGE");
+
+	/** Wrapped messenger */
+	private final DatagramMessenger wrapped;
+
+	/** Input stream (datagrams) */
+	private final InputStream input;
+
+	/** Output stream (datagrams) */
+	private final OutputStream output;
+
+	/** Window size (maximum outstanding requests) */
+	private final int window;
+
+	/** Receive timeout (ms) */
+	private final int timeout;
+
+	/** Lock for received responses */
+	private final ReentrantLock lock = new ReentrantLock();
+
+	/** Condition signalled when a datagram is received */
+	private final Condition received = lock.newCondition();
+
+	/** Request-ids of outstanding requests */
+	private final HashSet<Integer> waiting = new HashSet<Integer>();
+
+	/** Responses which have not been read, by request-id */
+	private final HashMap<Integer, byte[]> responses =
+		new HashMap<Integer, byte[]>();
+
+	/** Flag indicating a thread is receiving datagrams */
+	private boolean receiving = false;
+
+	/** SNMP protocol, for decoding request-ids */
+	private final SNMP snmp = new SNMP();
+
+	/** Create a new multiplexing messenger.
+	 * @param m Wrapped datagram messenger.
+	 * @param w Window size.
+	 * @param rt Receive timeout (ms). */
+	public MuxMessenger(DatagramMessenger m, int w, int rt)
+		throws IOException
+	{
+		wrapped = m;
+		input = wrapped.getInputStream("");
+		output = wrapped.getOutputStream();
+		window = w;
+		timeout = rt;
+	}
+
+	/** Get the window size */
+	public int getWindow() {
+		return window;
+	}
+
+	/** Close the messenger */
+	@Override
+	public void close() throws IOException {
+		wrapped.close();
+	}
+
+	/** Check if the wrapped messenger's no-response disconnect has been
+	 * triggered */
+	@Override
+	public boolean hitNoResponseDisconnect() {
+		return wrapped.hitNoResponseDisconnect();
+	}
+
+	/** Get the input stream.  Use an exchange instead. */
+	@Override
+	public InputStream getInputStream(String path) throws IOException {
+		throw NO_EXCHANGE;
+	}
+
+	/** Get an output stream.  Use an exchange instead. */
+	@Override
+	public OutputStream getOutputStream(ControllerImpl c)
+		throws IOException
+	{
+		throw NO_EXCHANGE;
+	}
+
+	/** Drain any bytes from the input stream.  Datagrams may be for
+	 * other outstanding requests, so nothing is drained. */
+	@Override
+	public void drain() {
+		// responses are matched by request-id
+	}
+
+	/** Request / response exchange */
+	public class Exchange {
+
+		/** SNMP request-id */
+		private final int req_id;
+
+		/** Response data (null until received) */
+		private ByteArrayInputStream resp;
+
+		/** Create a new exchange */
+		private Exchange(int rid) {
+			req_id = rid;
+		}
+
+		/** Output stream for request.  Each flush sends one
+		 * datagram. */
+		public final OutputStream output = new ByteArrayOutputStream() {
+			@Override public void flush() throws IOException {
+				resp = null;
+				send(req_id, toByteArray());
+				reset();
+			}
+		};
+
+		/** Input stream for response */
+		public final InputStream input = new InputStream() {
+			@Override public int read() throws IOException {
+				if (null == resp || resp.available() == 0)
+					resp = new ByteArrayInputStream(
+						receive(req_id));
+				return resp.read();
+			}
+			@Override public int available() {
+				return (resp != null) ? resp.available() : 0;
+			}
+		};
+	}
+
+	/** Create an exchange for one request.
+	 * @param req_id SNMP request-id. */
+	public Exchange createExchange(int req_id) {
+		return new Exchange(req_id);
+	}
+
+	/** Send a request datagram */
+	private void send(int req_id, byte[] pkt) throws IOException {
+		lock.lock();
+		try {
+			responses.remove(req_id);
+			waiting.add(req_id);
+		}
+		finally {
+			lock.unlock();
+		}
+		synchronized (output) {
+			output.write(pkt);
+			output.flush();
+		}
+	}
+
+	/** Receive the response to a request.
+	 * @param req_id SNMP request-id.
+	 * @return Response datagram.
+	 * @throws SocketTimeoutException if no response before timeout. */
+	private byte[] receive(int req_id) throws IOException {
+		long deadline = System.nanoTime() +
+			TimeUnit.MILLISECONDS.toNanos(timeout);
+		lock.lock();
+		try {
+			waiting.add(req_id);
+			while (true) {
+				byte[] pkt = responses.remove(req_id);
+				if (pkt != null)
+					return pkt;
+				long rem = deadline - System.nanoTime();
+				if (rem <= 0)
+					throw new SocketTimeoutException("MUX");
+				if (receiving)
+					awaitReceived(rem);
+				else
+					receiveOne(rem);
+			}
+		}
+		finally {
+			waiting.remove(req_id);
+			lock.unlock();
+		}
+	}
+
+	/** Wait for another thread to receive a datagram */
+	private void awaitReceived(long rem) throws IOException {
+		try {
+			received.awaitNanos(rem);
+		}
+		catch (InterruptedException e) {
+			throw new InterruptedIOException("MUX");
+		}
+	}
+
+	/** Receive one datagram (with lock held), and store it if a request
+	 * is waiting on it.
+	 * @param rem Remaining time before deadline (ns). */
+	private void receiveOne(long rem) throws IOException {
+		receiving = true;
+		byte[] pkt = null;
+		lock.unlock();
+		try {
+			// Round up, since a timeout of 0 is infinite
+			long ms = TimeUnit.NANOSECONDS.toMillis(rem) + 1;
+			wrapped.setReceiveTimeout((int) Math.min(ms, timeout));
+			pkt = readPacket();
+		}
+		catch (SocketTimeoutException e) {
+			// check deadline again
+		}
+		finally {
+			lock.lock();
+			receiving = false;
+			received.signalAll();
+		}
+		if (pkt != null) {
+			Integer rid = decodeRequestId(pkt);
+			if (rid != null && waiting.contains(rid))
+				responses.put(rid, pkt);
+		}
+	}
+
+	/** Read one datagram */
+	private byte[] readPacket() throws IOException {
+		int b = input.read();
+		byte[] pkt = new byte[1 + input.available()];
+		pkt[0] = (byte) b;
+		int n = 1;
+		while (n < pkt.length) {
+			int r = input.read(pkt, n, pkt.length - n);
+			if (r < 0)
+				break;
+			n += r;
+		}
+		return pkt;
+	}
+
+	/** Decode the request-id of a response datagram.
+	 * @return Request-id, or null if invalid. */
+	private Integer decodeRequestId(byte[] pkt) {
+		try {
+			return snmp.decodeRequestId(
+				new ByteArrayInputStream(pkt));
+		}
+		catch (IOException e) {
+			return null;
+		}
+	}
+}
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2000-2023  Minnesota Department of Transportation
+ * Copyright (C) 2000-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -22,6 +22,7 @@ import us.mn.state.dot.tms.CommProtocol;
 import us.mn.state.dot.tms.server.ControllerImpl;
 import us.mn.state.dot.tms.server.comm.CommMessage;
 import us.mn.state.dot.tms.server.comm.CommThread;
+import us.mn.state.dot.tms.server.comm.DatagramMessenger;
 import us.mn.state.dot.tms.server.comm.Messenger;
 import us.mn.state.dot.tms.server.comm.MessengerException;
 import us.mn.state.dot.tms.server.comm.OpController;
@@ -36,6 +37,16 @@ import us.mn.state.dot.tms.server.comm.snmp.ReqIdGenerator;
  */
 public class NtcipThread extends CommThread {
 
+	/** Window size for multiplexing UDP requests */
+	static private int udp_window = 1;
+
+	/** Configure the window size for multiplexing UDP requests.  With a
+	 * window of 1, UDP requests are not multiplexed.
+	 * @param w Maximum outstanding requests for each comm link. */
+	static public void configure(int w) {
+		udp_window = w;
+	}
+
 	/** Default request-ID generator */
 	private final ReqIdGenerator req_id_gen = new ReqIdGenerator() {
 		/** Maximum SNMP request-id */
@@ -97,7 +108,7 @@ public class NtcipThread extends CommThread {
 	}
 
 	/** Generate a request-ID */
-	private int generateReqId(OpController o) {
+	private synchronized int generateReqId(OpController o) {
 		if (isLedstar(o))
 			return req_id_gen_ledstar.next();
 		else if (isVaisalaLx(o))
@@ -129,10 +140,21 @@ public class NtcipThread extends CommThread {
 		Messenger m = Messenger.create(s, u, rt, nrd);
 		if (protocol == CommProtocol.NTCIP_B)
 			return new HDLCMessenger(m);
+		else if (udp_window > 1 && m instanceof DatagramMessenger)
+			return new MuxMessenger((DatagramMessenger) m,
+				udp_window, rt);
 		else
 			return m;
 	}
 
+	/** Get the number of lanes for polling with a messenger */
+	@Override
+	protected int getLanes(Messenger m) {
+		return (m instanceof MuxMessenger)
+		      ? ((MuxMessenger) m).getWindow()
+		      : 1;
+	}
+
 	/** Create a message for the specified operation.
 	 * @param m The messenger.
 	 * @param o The operation.
@@ -143,6 +165,12 @@ public class NtcipThread extends CommThread {
 	{
 		ControllerImpl c = o.getController();
 		int req_id = generateReqId(o);
+		if (m instanceof MuxMessenger) {
+			MuxMessenger.Exchange ex =
+				((MuxMessenger) m).createExchange(req_id);
+			return new SNMP().new Message(ex.output, ex.input,
+				c.getPassword(), req_id);
+		}
 		return snmp.new Message(m.getOutputStream(c),
 			m.getInputStream("", c), c.getPassword(), req_id);
 	}
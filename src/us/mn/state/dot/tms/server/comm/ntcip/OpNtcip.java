@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2013-2023  Minnesota Department of Transportation
+ * Copyright (C) 2013-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -27,10 +27,12 @@ import us.mn.state.dot.tms.LaneUseMultiHelper;
 import us.mn.state.dot.tms.MsgPattern;
 import us.mn.state.dot.tms.SignMessage;
 import us.mn.state.dot.tms.server.DeviceImpl;
+import us.mn.state.dot.tms.server.comm.CommMessage;
 import us.mn.state.dot.tms.server.comm.OpDevice;
 import us.mn.state.dot.tms.server.comm.PriorityLevel;
 import us.mn.state.dot.tms.server.comm.ntcip.mib1203.GraphicInfoList;
 import us.mn.state.dot.tms.server.comm.snmp.ASN1Object;
+import us.mn.state.dot.tms.server.comm.snmp.QueryBatch;
 import us.mn.state.dot.tms.utils.HexString;
 import us.mn.state.dot.tms.utils.MultiBuilder;
 import us.mn.state.dot.tms.utils.MultiString;
@@ -177,6 +179,33 @@ abstract public class OpNtcip extends OpDevice {
 		super(p, d);
 	}
 
+	/** Phase to query a batch of independent object groups.  The groups
+	 * are packed into as few requests as the controller allows. */
+	abstract protected class BatchPhase extends Phase {
+
+		/** Batch of object groups */
+		private final QueryBatch batch = new QueryBatch();
+
+		/** Add a group to the batch */
+		protected void add(QueryBatch.Group g) {
+			batch.add(g);
+		}
+
+		/** Query the batch */
+		@SuppressWarnings("unchecked")
+		protected Phase poll(CommMessage mess) throws IOException {
+			boolean split = batch.isSplit();
+			if (batch.query(mess))
+				return next();
+			if (batch.isSplit() && !split)
+				logError("batch split");
+			return this;
+		}
+
+		/** Get the next phase, after the batch is complete */
+		abstract protected Phase next();
+	}
+
 	/** Set the error status message.  If non-null, the controller "error"
 	 * attribute is set to this message when the operation completes. */
 	@Override
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2000-2024  Minnesota Department of Transportation
+ * Copyright (C) 2000-2026  Minnesota Department of Transportation
  * Copyright (C) 2023       SRF Consulting Group
  *
  * This program is free software; you can redistribute it and/or modify
@@ -35,6 +35,7 @@ import us.mn.state.dot.tms.server.comm.snmp.ASN1Flags;
 import us.mn.state.dot.tms.server.comm.snmp.ASN1Integer;
 import us.mn.state.dot.tms.server.comm.snmp.DisplayString;
 import us.mn.state.dot.tms.server.comm.snmp.NoSuchName;
+import us.mn.state.dot.tms.server.comm.snmp.QueryBatch;
 
 /**
  * This operation queries the status of a DMS.  This includes temperature and
@@ -135,59 +136,102 @@ public class OpQueryDMSStatus extends OpDMS {
 	/** Create the second phase of the operation */
 	@Override
 	protected Phase phaseTwo() {
-		return new QueryBrightness();
+		return new QueryStatus();
 	}
 
-	/** Phase to query the brightness status */
-	protected class QueryBrightness extends Phase {
+	/** Phase to query brightness, message table, temperature and
+	 * failure status */
+	protected class QueryStatus extends BatchPhase {
+		protected QueryStatus() {
+			add(new BrightnessGroup());
+			add(new MessageTableGroup());
+			add(new TempGroup(
+				tempMinCtrlCabinet, DMS.CABINET_TEMP_MIN,
+				tempMaxCtrlCabinet, DMS.CABINET_TEMP_MAX));
+			add(new TempGroup(
+				tempMinAmbient, DMS.AMBIENT_TEMP_MIN,
+				tempMaxAmbient, DMS.AMBIENT_TEMP_MAX));
+			add(new TempGroup(
+				tempMinSignHousing, DMS.HOUSING_TEMP_MIN,
+				tempMaxSignHousing, DMS.HOUSING_TEMP_MAX));
+			add(new FailureGroup());
+		}
 
-		/** Query the DMS brightness status */
-		@SuppressWarnings("unchecked")
-		protected Phase poll(CommMessage mess) throws IOException {
-			ASN1Integer b_level =
-				dmsIllumBrightLevelStatus.makeInt();
-			ASN1Integer light =
-				dmsIllumLightOutputStatus.makeInt();
-			ASN1Enum<DmsIllumControl> control = new ASN1Enum<
-				DmsIllumControl>(DmsIllumControl.class,
-				dmsIllumControl.node);
-			mess.add(p_level);
-			mess.add(max_level);
-			mess.add(b_level);
-			mess.add(light);
-			mess.add(control);
-			mess.queryProps();
+		/** Get the next phase */
+		protected Phase next() {
+			return new QueryMoreFailures();
+		}
+	}
+
+	/** Phase to query more failure status and pixel failure rows */
+	protected class QueryMoreFailures extends BatchPhase {
+		protected QueryMoreFailures() {
+			add(new MoreFailureGroup());
+			add(new TestAndMessageRowGroup());
+		}
+
+		/** Get the next phase */
+		protected Phase next() {
+			return new PowerSupplyCount();
+		}
+	}
+
+	/** Group to query the brightness status */
+	private class BrightnessGroup extends QueryBatch.Group {
+		private final ASN1Integer b_level =
+			dmsIllumBrightLevelStatus.makeInt();
+		private final ASN1Integer light =
+			dmsIllumLightOutputStatus.makeInt();
+		private final ASN1Enum<DmsIllumControl> control = new ASN1Enum<
+			DmsIllumControl>(DmsIllumControl.class,
+			dmsIllumControl.node);
+		private BrightnessGroup() {
+			add(p_level);
+			add(max_level);
+			add(b_level);
+			add(light);
+			add(control);
+		}
+
+		/** Handle the DMS brightness status */
+		protected void done() {
 			logQuery(p_level);
 			logQuery(max_level);
 			logQuery(b_level);
 			logQuery(light);
 			logQuery(control);
 			putStatus(DMS.LIGHT_OUTPUT, getPercent(light));
-			return new QueryMessageTable();
 		}
 	}
 
-	/** Phase to query the DMS message table status */
-	protected class QueryMessageTable extends Phase {
+	/** Group to query the DMS message table status */
+	private class MessageTableGroup extends QueryBatch.Group {
+		private final ASN1Integer perm_num =
+			dmsNumPermanentMsg.makeInt();
+		private final ASN1Integer chg_num =
+			dmsNumChangeableMsg.makeInt();
+		private final ASN1Integer chg_max =
+			dmsMaxChangeableMsg.makeInt();
+		private final ASN1Integer chg_mem =
+			dmsFreeChangeableMemory.makeInt();
+		private final ASN1Integer vol_num =
+			dmsNumVolatileMsg.makeInt();
+		private final ASN1Integer vol_max =
+			dmsMaxVolatileMsg.makeInt();
+		private final ASN1Integer vol_mem =
+			dmsFreeVolatileMemory.makeInt();
+		private MessageTableGroup() {
+			add(perm_num);
+			add(chg_num);
+			add(chg_max);
+			add(chg_mem);
+			add(vol_num);
+			add(vol_max);
+			add(vol_mem);
+		}
 
-		/** Query the DMS message table status */
-		@SuppressWarnings("unchecked")
-		protected Phase poll(CommMessage mess) throws IOException {
-			ASN1Integer perm_num = dmsNumPermanentMsg.makeInt();
-			ASN1Integer chg_num = dmsNumChangeableMsg.makeInt();
-			ASN1Integer chg_max = dmsMaxChangeableMsg.makeInt();
-			ASN1Integer chg_mem = dmsFreeChangeableMemory.makeInt();
-			ASN1Integer vol_num = dmsNumVolatileMsg.makeInt();
-			ASN1Integer vol_max = dmsMaxVolatileMsg.makeInt();
-			ASN1Integer vol_mem = dmsFreeVolatileMemory.makeInt();
-			mess.add(perm_num);
-			mess.add(chg_num);
-			mess.add(chg_max);
-			mess.add(chg_mem);
-			mess.add(vol_num);
-			mess.add(vol_max);
-			mess.add(vol_mem);
-			mess.queryProps();
+		/** Handle the DMS message table status */
+		protected void done() {
 			logQuery(perm_num);
 			logQuery(chg_num);
 			logQuery(chg_max);
@@ -195,115 +239,115 @@ public class OpQueryDMSStatus extends OpDMS {
 			logQuery(vol_num);
 			logQuery(vol_max);
 			logQuery(vol_mem);
-			return new ControllerTemperature();
 		}
 	}
 
-	/** Phase to query the DMS controller temperature status */
-	protected class ControllerTemperature extends Phase {
-
-		/** Query the DMS controller temperature */
-		@SuppressWarnings("unchecked")
-		protected Phase poll(CommMessage mess) throws IOException {
-			pollTemp(mess,
-				tempMinCtrlCabinet, DMS.CABINET_TEMP_MIN,
-				tempMaxCtrlCabinet, DMS.CABINET_TEMP_MAX);
-			return new AmbientTemperature();
+	/** Group to query one temperature status (min/max) */
+	private class TempGroup extends QueryBatch.Group {
+		private final ASN1Integer min_temp;
+		private final String min_key;
+		private final ASN1Integer max_temp;
+		private final String max_key;
+		private TempGroup(MIB1203 min_obj, String mn_key,
+			MIB1203 max_obj, String mx_key)
+		{
+			// Some signs don't have all temperature objects.
+			super(true);
+			min_temp = min_obj.makeInt();
+			min_key = mn_key;
+			max_temp = max_obj.makeInt();
+			max_key = mx_key;
+			add(min_temp);
+			add(max_temp);
 		}
-	}
 
-	/** Phase to query the DMS ambient temperature status */
-	protected class AmbientTemperature extends Phase {
-
-		/** Query the DMS ambient temperature */
-		@SuppressWarnings("unchecked")
-		protected Phase poll(CommMessage mess) throws IOException {
-			pollTemp(mess,
-				tempMinAmbient, DMS.AMBIENT_TEMP_MIN,
-				tempMaxAmbient, DMS.AMBIENT_TEMP_MAX);
-			return new HousingTemperature();
+		/** Handle the temperature status */
+		protected void done() {
+			logQuery(min_temp);
+			logQuery(max_temp);
+			int mn = min_temp.getInteger();
+			int mx = max_temp.getInteger();
+			boolean mn_valid = (mn > TEMP_MIN && mn < TEMP_MAX);
+			boolean mx_valid = (mx > TEMP_MIN && mx < TEMP_MAX);
+			if (mn_valid && mx_valid && mn > mx) {
+				// swap min/max temps
+				int v = mn;
+				mn = mx;
+				mx = v;
+			}
+			if (mn_valid)
+				putStatus(min_key, mn);
+			if (mx_valid)
+				putStatus(max_key, mx);
 		}
 	}
 
-	/** Phase to query the DMS housing temperature status */
-	protected class HousingTemperature extends Phase {
-
-		/** Query the DMS housing temperature */
-		@SuppressWarnings("unchecked")
-		protected Phase poll(CommMessage mess) throws IOException {
-			pollTemp(mess,
-				tempMinSignHousing, DMS.HOUSING_TEMP_MIN,
-				tempMaxSignHousing, DMS.HOUSING_TEMP_MAX);
-			return new Failures();
+	/** Group to query the DMS failure status */
+	private class FailureGroup extends QueryBatch.Group {
+		private FailureGroup() {
+			add(shortError);
 		}
-	}
-
-	/** Phase to query the DMS failure status */
-	protected class Failures extends Phase {
 
-		/** Query the DMS failure status */
-		@SuppressWarnings("unchecked")
-		protected Phase poll(CommMessage mess) throws IOException {
-			mess.add(shortError);
-			mess.queryProps();
+		/** Handle the DMS failure status */
+		protected void done() {
 			logQuery(shortError);
 			String faults = shortError.getValue(";");
 			if (faults.length() > 0)
 				putStatus(DMS.FAULTS, faults.toLowerCase());
-			return new MoreFailures();
 		}
 	}
 
-	/** Phase to query more DMS failure status */
-	protected class MoreFailures extends Phase {
-
-		/** Query more DMS failure status */
-		@SuppressWarnings("unchecked")
-		protected Phase poll(CommMessage mess) throws IOException {
-			ASN1Enum<DmsActivateMsgError> msg_err = new ASN1Enum<
-				DmsActivateMsgError>(DmsActivateMsgError.class,
-				dmsActivateMsgError.node);
-			ASN1Flags<ControllerErrorStatus> con = new ASN1Flags<
-				ControllerErrorStatus>(ControllerErrorStatus
-				.class, controllerErrorStatus.node);
-			int se = shortError.getInteger();
+	/** Group to query more DMS failure status */
+	private class MoreFailureGroup extends QueryBatch.Group {
+		private final ASN1Enum<DmsActivateMsgError> msg_err =
+			new ASN1Enum<DmsActivateMsgError>(
+			DmsActivateMsgError.class, dmsActivateMsgError.node);
+		private final ASN1Flags<ControllerErrorStatus> con =
+			new ASN1Flags<ControllerErrorStatus>(
+			ControllerErrorStatus.class,
+			controllerErrorStatus.node);
+		private final int se = shortError.getInteger();
+		private MoreFailureGroup() {
 			if (ShortErrorStatus.MESSAGE.isSet(se))
-				mess.add(msg_err);
+				add(msg_err);
 			if (ShortErrorStatus.CONTROLLER.isSet(se))
-				mess.add(con);
+				add(con);
 			if (ShortErrorStatus.PIXEL.isSet(se))
-				mess.add(pix_rows);
-			mess.queryProps();
+				add(pix_rows);
+		}
+
+		/** Handle more DMS failure status */
+		protected void done() {
 			if (ShortErrorStatus.MESSAGE.isSet(se))
 				logQuery(msg_err);
 			if (ShortErrorStatus.CONTROLLER.isSet(se))
 				logQuery(con);
 			if (ShortErrorStatus.PIXEL.isSet(se))
 				logQuery(pix_rows);
-			return new QueryTestAndMessageRows();
 		}
 	}
 
-	/** Phase to query (v2) test/message rows in pixel failure table */
-	protected class QueryTestAndMessageRows extends Phase {
+	/** Group to query (v2) test/message rows in pixel failure table */
+	private class TestAndMessageRowGroup extends QueryBatch.Group {
+		private TestAndMessageRowGroup() {
+			super(true);
+			add(test_rows);
+			add(message_rows);
+		}
 
-		/** Query test/message rows in pixel failure table */
-		@SuppressWarnings("unchecked")
-		protected Phase poll(CommMessage mess) throws IOException {
-			mess.add(test_rows);
-			mess.add(message_rows);
-			try {
-				mess.queryProps();
-				logQuery(test_rows);
-				logQuery(message_rows);
-			}
-			catch (NoSuchName e) {
-				// Must be 1203v1 only
-				int n_rows = pix_rows.getInteger();
-				test_rows.setInteger(n_rows);
-				message_rows.setInteger(n_rows);
-			}
-			return new PowerSupplyCount();
+		/** Handle test/message rows in pixel failure table */
+		protected void done() {
+			logQuery(test_rows);
+			logQuery(message_rows);
+		}
+
+		/** Handle missing test/message rows */
+		@Override
+		protected void missing() {
+			// Must be 1203v1 only
+			int n_rows = pix_rows.getInteger();
+			test_rows.setInteger(n_rows);
+			message_rows.setInteger(n_rows);
 		}
 	}
 
@@ -623,38 +667,4 @@ public class OpQueryDMSStatus extends OpDMS {
 		    || ShortErrorStatus.CONTROLLER.isSet(se)
 		    || ShortErrorStatus.CRITICAL_TEMPERATURE.isSet(se);
 	}
-
-	/** Consolidated method to query temperature status */
-	@SuppressWarnings({ "unchecked", "rawtypes" })
-	private void pollTemp(CommMessage mess,
-		MIB1203 min_obj, String min_key,
-		MIB1203 max_obj, String max_key) throws IOException
-	{
-		ASN1Integer min_temp = min_obj.makeInt();
-		ASN1Integer max_temp = max_obj.makeInt();
-		mess.add(min_temp);
-		mess.add(max_temp);
-		try {
-			mess.queryProps();
-			logQuery(min_temp);
-			logQuery(max_temp);
-			int mn = min_temp.getInteger();
-			int mx = max_temp.getInteger();
-			boolean mn_valid = (mn > TEMP_MIN && mn < TEMP_MAX);
-			boolean mx_valid = (mx > TEMP_MIN && mx < TEMP_MAX);
-			if (mn_valid && mx_valid && mn > mx) {
-				// swap min/max temps
-				int v = mn;
-				mn = mx;
-				mx = v;
-			}
-			if (mn_valid)
-				putStatus(min_key, mn);
-			if (mx_valid)
-				putStatus(max_key, mx);
-		}
-		catch (NoSuchName e) {
-			// Some signs don't have all temperature objects.
-		}
-	}
 }
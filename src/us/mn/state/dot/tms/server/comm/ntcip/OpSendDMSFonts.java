@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2000-2024  Minnesota Department of Transportation
+ * Copyright (C) 2000-2026  Minnesota Department of Transportation
  * Copyright (C) 2021  Iteris Inc.
  *
  * This program is free software; you can redistribute it and/or modify
@@ -27,6 +27,7 @@ import us.mn.state.dot.tms.Font;
 import us.mn.state.dot.tms.FontFinder;
 import us.mn.state.dot.tms.FontHelper;
 import us.mn.state.dot.tms.Glyph;
+import us.mn.state.dot.tms.GlyphHelper;
 import us.mn.state.dot.tms.SignConfigHelper;
 import us.mn.state.dot.tms.server.DMSImpl;
 import us.mn.state.dot.tms.server.comm.CommMessage;
@@ -40,7 +41,6 @@ import us.mn.state.dot.tms.server.comm.snmp.ASN1OctetString;
 import us.mn.state.dot.tms.server.comm.snmp.DisplayString;
 import us.mn.state.dot.tms.server.comm.snmp.GenError;
 import us.mn.state.dot.tms.server.comm.snmp.NoSuchName;
-import us.mn.state.dot.tms.utils.Base64;
 
 /**
  * Operation to send a set of fonts to a DMS controller.
@@ -587,7 +587,7 @@ public class OpSendDMSFonts extends OpDMS {
 		protected Phase poll(CommMessage mess) throws IOException {
 			int row = frow.row;
 			int code_point = glyph.getCodePoint();
-			byte[] pixels = Base64.decode(glyph.getPixels());
+			byte[] pixels = GlyphHelper.decodePixels(glyph);
 			ASN1Integer char_width = characterWidth.makeInt(row,
 				code_point);
 			ASN1OctetString char_bitmap = new ASN1OctetString(
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2009-2024  Minnesota Department of Transportation
+ * Copyright (C) 2009-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -20,8 +20,8 @@ import java.util.Collection;
 import us.mn.state.dot.tms.Font;
 import us.mn.state.dot.tms.FontHelper;
 import us.mn.state.dot.tms.Glyph;
+import us.mn.state.dot.tms.GlyphHelper;
 import us.mn.state.dot.tms.server.comm.ntcip.CRCStream;
-import us.mn.state.dot.tms.utils.Base64;
 
 /**
  * FontVersionByteStream is used to calculate fontVersionID.  It is encoded
@@ -56,7 +56,7 @@ public class FontVersionByteStream extends CRCStream {
 			dos.writeShort(size);
 		}
 		for (Glyph glyph: glyphs) {
-			byte[] bitmap = Base64.decode(glyph.getPixels());
+			byte[] bitmap = GlyphHelper.decodePixels(glyph);
 			dos.writeShort(glyph.getCodePoint());
 			dos.writeByte(glyph.getWidth());
 			int len = bitmap.length;
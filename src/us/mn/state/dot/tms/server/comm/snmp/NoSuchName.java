@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2000-2015  Minnesota Department of Transportation
+ * Copyright (C) 2000-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -23,8 +23,26 @@ import us.mn.state.dot.tms.server.comm.ControllerException;
  */
 public class NoSuchName extends ControllerException {
 
+	/** Error index (starting at 1), or 0 if unknown */
+	private final int index;
+
+	/** Get the error index.
+	 * @return Index of object in request (starting at 1), or 0 if
+	 *         unknown. */
+	public int getIndex() {
+		return index;
+	}
+
+	/** Create a new NoSuchName exception.
+	 * @param n Object name.
+	 * @param i Error index (starting at 1), or 0 if unknown. */
+	public NoSuchName(String n, int i) {
+		super("SNMP: NO SUCH NAME: " + n);
+		index = i;
+	}
+
 	/** Create a new NoSuchName exception */
 	public NoSuchName(String n) {
-		super("SNMP: NO SUCH NAME: " + n);
+		this(n, 0);
 	}
 }
@@ -0,0 +1,168 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2026  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms.server.comm.snmp;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import us.mn.state.dot.tms.server.comm.CommMessage;
+
+/**
+ * A query batch packs objects from several independent groups into one
+ * get-request, to save round trips on slow links.
+ *
+ * If the agent responds with TooBig, each group is queried with a separate
+ * request.  If the agent responds with NoSuchName, an optional group with
+ * the missing object is dropped, and the rest of the batch is queried
+ * again.  When all requests are complete, the results of each group are
+ * handled in the order the groups were added.
+ *
+ * @author Douglas Lau
+ */
+public class QueryBatch {
+
+	/** A group of objects which are queried together.  Groups in a batch
+	 * must not depend on results from other groups. */
+	static abstract public class Group {
+
+		/** Optional group flag */
+		private final boolean optional;
+
+		/** Objects in the group */
+		private final ArrayList<ASN1Object> mos =
+			new ArrayList<ASN1Object>();
+
+		/** Flag indicating an object in the group was not found */
+		private boolean not_found = false;
+
+		/** Create a new group.
+		 * @param opt Optional flag; if true, a NoSuchName error is
+		 *            handled by the missing method instead of
+		 *            failing the batch. */
+		protected Group(boolean opt) {
+			optional = opt;
+		}
+
+		/** Create a new required group */
+		protected Group() {
+			this(false);
+		}
+
+		/** Add an object to the group */
+		protected void add(ASN1Object mo) {
+			mos.add(mo);
+		}
+
+		/** Handle the query results for the group */
+		abstract protected void done() throws IOException;
+
+		/** Handle a missing object in an optional group */
+		protected void missing() throws IOException {
+			// override if needed
+		}
+	}
+
+	/** Find the group of an object in a request.
+	 * @param req Groups in request.
+	 * @param i Object index (starting at 1).
+	 * @return Group containing object, or null. */
+	static private Group findGroup(ArrayList<Group> req, int i) {
+		int n = 0;
+		for (Group g: req) {
+			n += g.mos.size();
+			if (i > 0 && i <= n)
+				return g;
+		}
+		return null;
+	}
+
+	/** All groups in the batch */
+	private final ArrayList<Group> groups = new ArrayList<Group>();
+
+	/** Groups which have not been queried yet */
+	private final ArrayList<Group> pending = new ArrayList<Group>();
+
+	/** Flag to query each group with a separate request */
+	private boolean split = false;
+
+	/** Add a group to the batch */
+	public void add(Group g) {
+		groups.add(g);
+		pending.add(g);
+	}
+
+	/** Check if the batch has been split into separate requests */
+	public boolean isSplit() {
+		return split;
+	}
+
+	/** Send one request for the batch.  All pending groups are packed
+	 * into the request, unless the batch has been split.
+	 * @param mess Message for the request.
+	 * @return true if the batch is complete, or false if another request
+	 *         is needed.
+	 * @throws IOException On any errors sending a request or receiving
+	 *         response */
+	public boolean query(CommMessage<ASN1Object> mess) throws IOException {
+		ArrayList<Group> req = new ArrayList<Group>();
+		if (split && pending.size() > 0)
+			req.add(pending.get(0));
+		else
+			req.addAll(pending);
+		for (Group g: req) {
+			for (ASN1Object mo: g.mos)
+				mess.add(mo);
+		}
+		try {
+			mess.queryProps();
+		}
+		catch (TooBig e) {
+			if (req.size() > 1) {
+				split = true;
+				return false;
+			}
+			throw e;
+		}
+		catch (NoSuchName e) {
+			Group g = (req.size() > 1)
+			        ? findGroup(req, e.getIndex())
+			        : req.get(0);
+			if (null == g) {
+				split = true;
+				return false;
+			}
+			if (!g.optional)
+				throw e;
+			g.not_found = true;
+			req.clear();
+			req.add(g);
+		}
+		pending.removeAll(req);
+		if (pending.isEmpty()) {
+			finish();
+			return true;
+		} else
+			return false;
+	}
+
+	/** Handle the results of all groups */
+	private void finish() throws IOException {
+		for (Group g: groups) {
+			if (g.not_found)
+				g.missing();
+			else
+				g.done();
+		}
+	}
+}
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2000-2023  Minnesota Department of Transportation
+ * Copyright (C) 2000-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -79,6 +79,20 @@ public class SNMP extends BER {
 			throw new ParsingException("SNMP COMMUNITY MISMATCH");
 	}
 
+	/** Decode the request-id of a response message, without checking
+	 * the community name.
+	 * @param is Input stream containing one response message.
+	 * @return SNMP request-id. */
+	public int decodeRequestId(InputStream is) throws IOException {
+		decodeSequence(is);
+		decodeInteger(is);
+		decodeOctetString(is);
+		if (decodeIdentifier(is) != SNMPTag.GET_RESPONSE)
+			throw new ParsingException("!GET_RESPONSE TAG");
+		decodeLength(is);
+		return decodeInteger(is);
+	}
+
 	/** SNMP message class */
 	public class Message implements CommMessage<ASN1Object> {
 
@@ -255,7 +269,7 @@ public class SNMP extends BER {
 			case TOO_BIG:
 				throw new TooBig();
 			case NO_SUCH_NAME:
-				throw new NoSuchName(getName(index));
+				throw new NoSuchName(getName(index), index);
 			case BAD_VALUE:
 				throw new BadValue(getObject(index));
 			case READ_ONLY:
@@ -0,0 +1,232 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2026  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms.server.event;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import us.mn.state.dot.sched.DebugLog;
+import us.mn.state.dot.sched.Job;
+import us.mn.state.dot.sched.Scheduler;
+import us.mn.state.dot.sched.TimeSteward;
+import us.mn.state.dot.tms.EventConfigHelper;
+import us.mn.state.dot.tms.TMSException;
+import us.mn.state.dot.tms.server.SQLConnection;
+
+/**
+ * Event writer stores events to the database in batches.  Events are queued
+ * in a bounded ring buffer, and written on a dedicated thread, grouped by
+ * table, every flush interval or when a full batch is queued.  When the ring
+ * is full, new events are dropped and counted.  If a batch fails, its events
+ * are stored one at a time, so only bad events are lost.  Queued events are
+ * flushed when the server shuts down.
+ *
+ * @author Douglas Lau
+ */
+public class EventWriter {
+
+	/** Event writer debug log */
+	static private final DebugLog EVENT_LOG = new DebugLog("event_writer");
+
+	/** Dedicated database connection */
+	private final SQLConnection store;
+
+	/** Writer thread */
+	private final Scheduler writer = new Scheduler("event_writer");
+
+	/** Number of queued events which triggers a flush */
+	private final int batch_rows;
+
+	/** Ring buffer of queued events */
+	private final BaseEvent[] ring;
+
+	/** Time each event was queued */
+	private final long[] queued;
+
+	/** Index of oldest queued event */
+	private int head = 0;
+
+	/** Count of queued events */
+	private int n_queued = 0;
+
+	/** Flag indicating a flush job has been added */
+	private boolean flush_pending = false;
+
+	/** Count of events dropped since last flush (ring full) */
+	private int n_dropped = 0;
+
+	/** Lock for storing events, so that only one flush is storing at a
+	 * time (including the flush on shutdown) */
+	private final Object store_lock = new Object();
+
+	/** Count of failed batches which were retried one event at a time
+	 * (protected by store_lock) */
+	private int n_retried = 0;
+
+	/** Flush job */
+	private final Job flush_job = new Job() {
+		public void perform() {
+			flush();
+		}
+	};
+
+	/** Create a new event writer.
+	 * @param s Database connection for storing events.
+	 * @param n_ring Size of ring buffer.
+	 * @param n_batch Number of queued events which triggers a flush.
+	 * @param flush_ms Interval to flush queued events (ms). */
+	public EventWriter(SQLConnection s, int n_ring, int n_batch,
+		int flush_ms)
+	{
+		store = s;
+		ring = new BaseEvent[n_ring];
+		queued = new long[n_ring];
+		batch_rows = n_batch;
+		writer.addJob(new Job(Calendar.MILLISECOND, flush_ms) {
+			public void perform() {
+				flush();
+			}
+		});
+		Runtime.getRuntime().addShutdownHook(new Thread() {
+			public void run() {
+				flush();
+			}
+		});
+	}
+
+	/** Add an event to be stored */
+	public void add(BaseEvent ev) {
+		if (!EventConfigHelper.isStoreEnabled(ev.eventConfigName()))
+			return;
+		long now = TimeSteward.currentTimeMillis();
+		boolean full;
+		synchronized (this) {
+			if (n_queued < ring.length) {
+				int i = (head + n_queued) % ring.length;
+				ring[i] = ev;
+				queued[i] = now;
+				n_queued++;
+			} else
+				n_dropped++;
+			full = n_queued >= batch_rows && !flush_pending;
+			if (full)
+				flush_pending = true;
+		}
+		if (full)
+			writer.addJob(flush_job);
+	}
+
+	/** Flush all queued events to the database */
+	private void flush() {
+		synchronized (store_lock) {
+			doFlush();
+		}
+	}
+
+	/** Flush all queued events to the database (with store lock) */
+	private void doFlush() {
+		long now = TimeSteward.currentTimeMillis();
+		ArrayList<BaseEvent> events = new ArrayList<BaseEvent>();
+		long lag;
+		int dropped;
+		synchronized (this) {
+			lag = (n_queued > 0) ? now - queued[head] : 0;
+			while (n_queued > 0) {
+				events.add(ring[head]);
+				ring[head] = null;
+				head = (head + 1) % ring.length;
+				n_queued--;
+			}
+			dropped = n_dropped;
+			n_dropped = 0;
+			flush_pending = false;
+		}
+		if (events.isEmpty() && dropped == 0)
+			return;
+		int stored = 0;
+		n_retried = 0;
+		for (Map.Entry<String, List<BaseEvent>> t:
+		     groupByTable(events).entrySet())
+		{
+			stored += storeTable(t.getKey(), t.getValue());
+		}
+		if (EVENT_LOG.isOpen()) {
+			EVENT_LOG.log("stored " + stored + ", failed " +
+				(events.size() - stored) + ", retried " +
+				n_retried + " batches, dropped " +
+				dropped + ", lag " + lag + " ms, took " +
+				(TimeSteward.currentTimeMillis() - now) +
+				" ms");
+		}
+	}
+
+	/** Group events by table */
+	static private Map<String, List<BaseEvent>> groupByTable(
+		List<BaseEvent> events)
+	{
+		LinkedHashMap<String, List<BaseEvent>> tables =
+			new LinkedHashMap<String, List<BaseEvent>>();
+		for (BaseEvent ev: events) {
+			List<BaseEvent> evs = tables.get(ev.getTable());
+			if (evs == null) {
+				evs = new ArrayList<BaseEvent>();
+				tables.put(ev.getTable(), evs);
+			}
+			evs.add(ev);
+		}
+		return tables;
+	}
+
+	/** Store events for one table in batches.  A failed batch is rolled
+	 * back, so its events are retried one at a time.
+	 * @return Number of events stored. */
+	private int storeTable(String table, List<BaseEvent> events) {
+		int stored = 0;
+		for (int i = 0; i < events.size(); i += batch_rows) {
+			List<BaseEvent> batch = events.subList(i,
+				Math.min(i + batch_rows, events.size()));
+			try {
+				stored += store.createBatch(batch);
+			}
+			catch (TMSException e) {
+				EVENT_LOG.log(table + ": batch of " +
+					batch.size() + " failed: " +
+					e.getMessage());
+				n_retried++;
+				stored += storeEach(table, batch);
+			}
+		}
+		return stored;
+	}
+
+	/** Store events one at a time, after a batch has failed.
+	 * @return Number of events stored. */
+	private int storeEach(String table, List<BaseEvent> events) {
+		int stored = 0;
+		for (BaseEvent ev: events) {
+			try {
+				store.create(ev);
+				stored++;
+			}
+			catch (TMSException e) {
+				EVENT_LOG.log(table + ": event failed: " +
+					e.getMessage());
+			}
+		}
+		return stored;
+	}
+}
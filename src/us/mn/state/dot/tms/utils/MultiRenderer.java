@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2009-2023  Minnesota Department of Transportation
+ * Copyright (C) 2009-2026  Minnesota Department of Transportation
  * Copyright (C) 2019-2020  SRF Consulting Group
  *
  * This program is free software; you can redistribute it and/or modify
@@ -19,9 +19,8 @@ import java.util.LinkedList;
 import us.mn.state.dot.tms.ColorScheme;
 import us.mn.state.dot.tms.DmsColor;
 import us.mn.state.dot.tms.Font;
+import us.mn.state.dot.tms.FontAtlas;
 import us.mn.state.dot.tms.FontHelper;
-import us.mn.state.dot.tms.Glyph;
-import us.mn.state.dot.tms.GlyphHelper;
 import us.mn.state.dot.tms.Graphic;
 import us.mn.state.dot.tms.GraphicHelper;
 import us.mn.state.dot.tms.RasterGraphic;
@@ -401,7 +400,7 @@ public class MultiRenderer extends MultiAdapter {
 	private void renderGraphic(Graphic g, DmsColor fg, int x, int y) {
 		x--;
 		y--;
-		RasterGraphic rg = GraphicHelper.createRaster(g);
+		RasterGraphic rg = GraphicHelper.lookupRaster(g);
 		if (rg != null) {
 			try {
 				raster.copy(rg, x, y, fg);
@@ -615,11 +614,13 @@ public class MultiRenderer extends MultiAdapter {
 	private class Span {
 		private final String span;
 		private final Font font;
+		private final FontAtlas.Glyphs glyphs;
 		private final DmsColor foreground;
 		private final int c_space;
 		private Span(String s) {
 			span = s;
 			font = FontHelper.find(font_num);
+			glyphs = FontHelper.lookupAtlas(font);
 			foreground = foreground_clr;
 			c_space = getCharSpacing();
 		}
@@ -649,7 +650,9 @@ public class MultiRenderer extends MultiAdapter {
 			return (font != null) ? font.getHeight() : 0;
 		}
 		int getWidth() {
-			int w = FontHelper.calculateWidth(font, span, c_space);
+			int w = (glyphs != null)
+			      ? glyphs.calculateWidth(span, c_space)
+			      : FontHelper.calculateWidth(font, span, c_space);
 			if (w >= 0)
 				return w;
 			else {
@@ -662,14 +665,18 @@ public class MultiRenderer extends MultiAdapter {
 			assert font != null;
 			return (font != null) ? font.getLineSpacing() : 0;
 		}
+		int getGlyphWidth(int cp) {
+			return (glyphs != null) ? glyphs.getWidth(cp) : -1;
+		}
 		void render(int x, int base) {
 			int y = base - getHeight();
 			for (int i = 0; i < span.length(); i++) {
 				int cp = span.charAt(i);
-				Glyph g = FontHelper.lookupGlyph(font, cp);
-				if (g != null) {
-					renderGlyph(g, foreground, x, y);
-					x += g.getWidth() + c_space;
+				int w = getGlyphWidth(cp);
+				if (w >= 0) {
+					renderGlyph(glyphs.getBitmap(cp),
+						foreground, x, y);
+					x += w + c_space;
 				} else
 					syntax_err = MultiSyntaxError.characterNotDefined;
 			}
@@ -677,14 +684,13 @@ public class MultiRenderer extends MultiAdapter {
 	}
 
 	/** Render a glyph onto the raster.
-	 * @param g Glyph to render.
+	 * @param rg Glyph bitmap to render (null if invalid).
 	 * @param fg Foreground color.
 	 * @param x X-position on raster (1-based)
 	 * @param y Y-position on raster (1-based) */
-	private void renderGlyph(Glyph g, DmsColor fg, int x, int y) {
+	private void renderGlyph(RasterGraphic rg, DmsColor fg, int x, int y) {
 		x--;
 		y--;
-		RasterGraphic rg = GlyphHelper.createBitmap(g);
 		if (rg != null) {
 			try {
 				raster.copy(rg, x, y, fg);
@@ -1,6 +1,7 @@
 /*
  * IRIS -- Intelligent Roadway Information System
  * Copyright (C) 2019-2020  SRF Consulting Group
+ * Copyright (C) 2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -18,8 +19,8 @@ import java.util.ArrayList;
 import java.util.Iterator;
 
 import us.mn.state.dot.tms.Font;
+import us.mn.state.dot.tms.FontHelper;
 import us.mn.state.dot.tms.Glyph;
-import us.mn.state.dot.tms.GlyphHelper;
 
 /** WFont caches glyphs for characters in a font.
  * 
@@ -51,8 +52,9 @@ public class WFont implements Font {
 	public WFont(Font f) {
 		font = f;
 
-		// preload all glyphs for font
-		Iterator<Glyph> itg = GlyphHelper.iterator();
+		// preload all glyphs for font (from the font atlas)
+		Iterator<Glyph> itg =
+			FontHelper.lookupGlyphs(f).values().iterator();
 		Glyph g;
 		WGlyph wg;
 		int charNum;
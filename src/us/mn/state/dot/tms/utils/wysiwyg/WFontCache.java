@@ -1,6 +1,7 @@
 /*
  * IRIS -- Intelligent Roadway Information System
  * Copyright (C) 2019-2020  SRF Consulting Group
+ * Copyright (C) 2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -19,7 +20,7 @@ import java.util.ArrayList;
 import java.util.Iterator;
 
 import us.mn.state.dot.tms.Font;
-import us.mn.state.dot.tms.FontHelper;
+import us.mn.state.dot.tms.FontAtlas;
 
 /** Cache of WFont(s) for use by WYSIWYG editor.
  * 
@@ -44,8 +45,13 @@ public class WFontCache {
 	public WFontCache() {
 		int fontNum;
 		Font font;
+		// all Font(s) from the font atlas, ordered by number
+		FontAtlas atlas = FontAtlas.get();
+		ArrayList<Font> fonts = (atlas != null)
+			? atlas.getFonts()
+			: new ArrayList<Font>();
 		// figure out maxFontNum
-		Iterator<Font> itf = FontHelper.iterator();
+		Iterator<Font> itf = fonts.iterator();
 		while (itf.hasNext()) {
 			fontNum = itf.next().getNumber();
 			if (maxFont < fontNum)
@@ -55,7 +61,7 @@ public class WFontCache {
 		fontArray  = new Font[maxFont+1];
 		wfontArray = new WFont[maxFont+1];
 		// preload all Font(s)
-		itf = FontHelper.iterator();
+		itf = fonts.iterator();
 		while (itf.hasNext()) {
 			font = itf.next();
 			fontNum = font.getNumber();
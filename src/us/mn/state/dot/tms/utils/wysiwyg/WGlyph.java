@@ -1,6 +1,7 @@
 /*
  * IRIS -- Intelligent Roadway Information System
  * Copyright (C) 2019-2020  SRF Consulting Group
+ * Copyright (C) 2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -19,6 +20,7 @@ import java.io.IOException;
 
 import us.mn.state.dot.tms.Font;
 import us.mn.state.dot.tms.Glyph;
+import us.mn.state.dot.tms.GlyphHelper;
 
 /** Specialized version of WRasterMono1
  *  used for holding/manipulating
@@ -61,7 +63,7 @@ public class WGlyph extends WRasterMono1 {
 		this.fontNum = font.getNumber();
 		this.charNum = g.getCodePoint();
 		try {
-			this.setEncodedPixels(g.getPixels());
+			this.setPixelData(GlyphHelper.decodePixels(g));
 		} catch (IndexOutOfBoundsException e) {
 			e.printStackTrace();
 		} catch (IOException e) {
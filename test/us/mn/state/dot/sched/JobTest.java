@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2009-2019  Minnesota Department of Transportation
+ * Copyright (C) 2009-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -16,6 +16,8 @@ package us.mn.state.dot.sched;
 
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import junit.framework.TestCase;
 
 /** 
@@ -54,4 +56,96 @@ public class JobTest extends TestCase {
 		System.out.println("Elapsed: " + elapsed);
 		assertTrue(elapsed >= (5000 - 1));
 	}
+
+	public void testPriority() throws InterruptedException {
+		Scheduler s = new Scheduler("test_prio");
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(1);
+		final CountDownLatch finished = new CountDownLatch(1);
+		s.addJob(new Job() {
+			public void perform() throws InterruptedException {
+				started.countDown();
+				release.await();
+				finished.countDown();
+			}
+		});
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		s.addJob(new Job() {
+			public boolean isPriority() {
+				return true;
+			}
+			public void perform() {
+				done.countDown();
+			}
+		});
+		// Priority job must run while the other job is still running
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		assertTrue(finished.getCount() == 1);
+		release.countDown();
+		assertTrue(finished.await(5, TimeUnit.SECONDS));
+		s.dispose();
+	}
+
+	public void testSerialKey() throws InterruptedException {
+		Scheduler s = new Scheduler("test_key");
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch done = new CountDownLatch(1);
+		s.addJob(new Job() {
+			public String getSerialKey() {
+				return "key";
+			}
+			public void perform() throws InterruptedException {
+				started.countDown();
+				release.await();
+			}
+		});
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		s.addJob(new Job() {
+			public boolean isPriority() {
+				return true;
+			}
+			public String getSerialKey() {
+				return "key";
+			}
+			public void perform() {
+				done.countDown();
+			}
+		});
+		// Priority job must wait for the job with the same key
+		assertFalse(done.await(200, TimeUnit.MILLISECONDS));
+		release.countDown();
+		assertTrue(done.await(5, TimeUnit.SECONDS));
+		s.dispose();
+	}
+
+	public void testNoOverlap() throws InterruptedException {
+		Scheduler s = new Scheduler("test_overlap", 4);
+		final int[] n = new int[3];
+		Job job = new Job() {
+			public void perform() throws InterruptedException {
+				synchronized (n) {
+					n[0]++;
+					n[1] = Math.max(n[1], n[0]);
+				}
+				Thread.sleep(100);
+				synchronized (n) {
+					n[0]--;
+					n[2]++;
+				}
+			}
+		};
+		for (int i = 0; i < 10; i++) {
+			s.addJob(job);
+			Thread.sleep(20);
+		}
+		Thread.sleep(500);
+		synchronized (n) {
+			assertTrue(n[1] == 1);
+			assertTrue(n[2] >= 2);
+		}
+		assertTrue(s.takeStats().get(0).getRuns() == n[2]);
+		s.dispose();
+	}
 }
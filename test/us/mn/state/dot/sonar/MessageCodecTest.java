@@ -0,0 +1,82 @@
+/*
+ * SONAR -- Simple Object Notification And Replication
+ * Copyright (C) 2026  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.sonar;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import junit.framework.TestCase;
+
+/**
+ * Message encoder / decoder test cases
+ *
+ * @author Douglas Lau
+ */
+public class MessageCodecTest extends TestCase {
+
+	public MessageCodecTest(String name) {
+		super(name);
+	}
+
+	/** Encode one attribute message */
+	private byte[] encode(String name, String... params)
+		throws IOException
+	{
+		MessageEncoder enc = new MessageEncoder(0);
+		enc.encode(Message.ATTRIBUTE, name, params);
+		return enc.takeBytes();
+	}
+
+	public void testEncode() throws IOException {
+		assertEquals("a\u001fdms/V1/msg\u001fHELLO\u001e", new String(
+			encode("dms/V1/msg", "HELLO"), "UTF-8"));
+		assertEquals("a\u001fx\u001fA B C\u001e", new String(
+			encode("x", "A\u001fB\u001eC"), "UTF-8"));
+		String s = "\u00e9\u20ac\ud83d\ude97";
+		assertEquals("a\u001fx\u001f" + s + "\u001e", new String(
+			encode("x", s), "UTF-8"));
+		assertEquals("a\u001fx\u001f?\u001e", new String(
+			encode("x", "\ud83d"), "UTF-8"));
+		MessageEncoder enc = new MessageEncoder(0);
+		enc.encode(Message.REMOVE, new Name("dms", "V1"));
+		assertEquals("r\u001fdms/V1\u001e", new String(
+			enc.takeBytes(), "UTF-8"));
+	}
+
+	public void testDecode() throws IOException {
+		String s = "\u00e9\u20ac\ud83d\ude97";
+		byte[] data = encode("dms/V1/msg", "", s);
+		ByteBuffer in = ByteBuffer.allocate(64);
+		MessageDecoder dec = new MessageDecoder(in);
+		// Feed one byte at a time to split parameters and chars
+		List<String> p = null;
+		for (byte b: data) {
+			assertNull(p);
+			in.put(b);
+			p = dec.decode();
+		}
+		assertNotNull(p);
+		assertEquals(4, p.size());
+		assertEquals("a", p.get(0));
+		assertEquals("dms/V1/msg", p.get(1));
+		assertEquals("", p.get(2));
+		assertEquals(s, p.get(3));
+		in.put(encode("x", "1"));
+		in.put(encode("y", "2"));
+		assertEquals("x", dec.decode().get(1));
+		assertEquals("y", dec.decode().get(1));
+		assertNull(dec.decode());
+	}
+}
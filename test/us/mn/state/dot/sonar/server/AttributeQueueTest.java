@@ -0,0 +1,88 @@
+/*
+ * SONAR -- Simple Object Notification And Replication
+ * Copyright (C) 2026  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.sonar.server;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import junit.framework.TestCase;
+
+/**
+ * Attribute queue (coalescing mode) test cases
+ *
+ * @author Douglas Lau
+ */
+public class AttributeQueueTest extends TestCase {
+
+	/** Sink which records encoded attribute changes */
+	static private class Recorder implements AttributeQueue.Sink {
+		private final ArrayList<String> msgs = new ArrayList<String>();
+		public void attribute(String name, String[] params) {
+			msgs.add(name + "=" + params[0]);
+		}
+	}
+
+	public AttributeQueueTest(String name) {
+		super(name);
+	}
+
+	public void testCoalesce() throws IOException {
+		AttributeQueue q = new AttributeQueue(0);
+		assertTrue(q.put("dms/V1/msg", new String[] { "A" }));
+		assertFalse(q.put("dms/V1/msg", new String[] { "B" }));
+		assertFalse(q.put("dms/V2/msg", new String[] { "C" }));
+		Recorder r = new Recorder();
+		q.encode(r, null);
+		assertEquals(2, r.msgs.size());
+		assertEquals("dms/V1/msg=B", r.msgs.get(0));
+		assertEquals("dms/V2/msg=C", r.msgs.get(1));
+		q.encode(r, null);
+		assertEquals(2, r.msgs.size());
+	}
+
+	public void testCreateObject() throws IOException {
+		AttributeQueue q = new AttributeQueue(0);
+		// Object V10 is created, then one of its attributes changes
+		// before the OBJECT notification is encoded
+		q.put("dms/V1/msg", new String[] { "A" });
+		q.put("dms/V10/msg", new String[] { "B" });
+		Recorder r = new Recorder();
+		q.encode(r, "dms/V10");
+		assertEquals(1, r.msgs.size());
+		assertEquals("dms/V1/msg=A", r.msgs.get(0));
+		// The dropped change must not be sent after the object
+		q.encode(r, null);
+		assertEquals(1, r.msgs.size());
+	}
+
+	public void testOutputLimit() throws IOException {
+		AttributeQueue q = new AttributeQueue(1000);
+		q.put("dms/V1/msg", new String[] { "A" });
+		assertFalse(q.checkLimit(1000));
+		assertTrue(q.checkLimit(1001));
+		assertFalse(q.checkLimit(2000));
+		assertTrue(q.isStale());
+		q.put("dms/V1/msg", new String[] { "B" });
+		Recorder r = new Recorder();
+		q.encode(r, null);
+		assertTrue(r.msgs.isEmpty());
+		assertFalse(q.checkRefresh(1500));
+		assertTrue(q.checkRefresh(500));
+		assertFalse(q.isStale());
+		q.put("dms/V1/msg", new String[] { "C" });
+		q.encode(r, null);
+		assertEquals(1, r.msgs.size());
+		assertEquals("dms/V1/msg=C", r.msgs.get(0));
+	}
+}
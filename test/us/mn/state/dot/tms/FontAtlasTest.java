@@ -0,0 +1,199 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2026  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms;
+
+import junit.framework.TestCase;
+import us.mn.state.dot.sonar.server.ServerNamespace;
+import us.mn.state.dot.tms.utils.Base64;
+import us.mn.state.dot.tms.utils.MultiString;
+
+/**
+ * Font atlas tests, rendering with a raster builder.
+ *
+ * @author Doug Lau
+ */
+public class FontAtlasTest extends TestCase {
+
+	/** Glyph pixels with all 35 (5x7) pixels lit */
+	static private final String ALL_LIT = Base64.encode(new byte[] {
+		(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
+		(byte) 0xE0 });
+
+	/** Glyph pixels with only the top row lit */
+	static private final String TOP_LIT = Base64.encode(new byte[] {
+		(byte) 0xF8, 0, 0, 0, 0 });
+
+	/** Test font */
+	static public class TestFont implements Font {
+		private final String name;
+		private int number;
+		private int line_spacing = 1;
+		public TestFont(String n, int num) {
+			name = n;
+			number = num;
+		}
+		public String getName() { return name; }
+		public String getNotes() { return null; }
+		public void destroy() { }
+		public void setNumber(int n) { number = n; }
+		public int getNumber() { return number; }
+		public void setHeight(int h) { }
+		public int getHeight() { return 7; }
+		public void setWidth(int w) { }
+		public int getWidth() { return 0; }
+		public void setLineSpacing(int s) { line_spacing = s; }
+		public int getLineSpacing() { return line_spacing; }
+		public void setCharSpacing(int s) { }
+		public int getCharSpacing() { return 1; }
+	}
+
+	/** Test glyph, counting reads of its font and pixels */
+	static public class TestGlyph implements Glyph {
+		private final String name;
+		private final Font font;
+		private final int code_point;
+		private String pixels;
+		private int n_reads = 0;
+		public TestGlyph(String n, Font f, int cp, String p) {
+			name = n;
+			font = f;
+			code_point = cp;
+			pixels = p;
+		}
+		public String getName() { return name; }
+		public String getNotes() { return null; }
+		public void destroy() { }
+		public Font getFont() {
+			n_reads++;
+			return font;
+		}
+		public int getCodePoint() { return code_point; }
+		public void setWidth(int w) { }
+		public int getWidth() { return 5; }
+		public void setPixels(String p) { pixels = p; }
+		public String getPixels() {
+			n_reads++;
+			return pixels;
+		}
+	}
+
+	public FontAtlasTest(String name) {
+		super(name);
+	}
+
+	private ServerNamespace ns;
+	private TestFont font;
+	private TestGlyph g_a;
+	private TestGlyph g_b;
+
+	@Override
+	protected void setUp() throws Exception {
+		ns = new ServerNamespace();
+		ns.registerType(TestFont.class);
+		ns.registerType(TestGlyph.class);
+		font = new TestFont("F1", 1);
+		g_a = new TestGlyph("F1_65", font, 'A', ALL_LIT);
+		g_b = new TestGlyph("F1_66", font, 'B', TOP_LIT);
+		ns.addObject(font);
+		ns.addObject(g_a);
+		ns.addObject(g_b);
+		BaseHelper.namespace = ns;
+		FontAtlas.invalidate();
+	}
+
+	@Override
+	protected void tearDown() {
+		BaseHelper.namespace = null;
+		FontAtlas.invalidate();
+	}
+
+	/** Render a MULTI string and count the lit pixels */
+	private int renderLit(String ms) throws InvalidMsgException {
+		RasterBuilder rb = new RasterBuilder(40, 7, 0, 0, 1,
+			ColorScheme.MONOCHROME_1_BIT);
+		BitmapGraphic[] pages = rb.createBitmaps(new MultiString(ms));
+		assertEquals(1, pages.length);
+		int n_lit = 0;
+		for (byte b: pages[0].getPixelData())
+			n_lit += Integer.bitCount(b & 0xFF);
+		return n_lit;
+	}
+
+	public void testLookup() throws Exception {
+		FontAtlas a = FontAtlas.get();
+		assertNotNull(a);
+		assertTrue(FontAtlas.get() == a);
+		assertTrue(a.lookupFont(1) == font);
+		assertNull(a.lookupFont(2));
+		FontAtlas.Glyphs gl = a.lookupGlyphs(font);
+		assertTrue(gl.getGlyph('A') == g_a);
+		assertEquals(5, gl.getWidth('A'));
+		assertEquals(-1, gl.getWidth('C'));
+		assertTrue(gl.getBitmap('A') == gl.getBitmap('A'));
+		assertEquals(11, gl.calculateWidth("AB", 1));
+		assertEquals(-1, gl.calculateWidth("AC", 1));
+		// Rendering uses the atlas, not the namespace or Base64
+		g_a.n_reads = 0;
+		g_b.n_reads = 0;
+		assertEquals(35, renderLit("A"));
+		assertEquals(40, renderLit("AB"));
+		assertEquals(40, renderLit("[jl]BA"));
+		assertEquals(0, g_a.n_reads);
+		assertEquals(0, g_b.n_reads);
+		assertTrue(FontAtlas.get() == a);
+	}
+
+	public void testGlyphChange() throws Exception {
+		assertEquals(35, renderLit("A"));
+		FontAtlas a = FontAtlas.get();
+		int v = FontAtlas.getVersion();
+		g_a.setPixels(TOP_LIT);
+		// Server and client invalidate the atlas on glyph changes
+		FontAtlas.invalidate();
+		assertTrue(FontAtlas.getVersion() != v);
+		assertEquals(5, renderLit("A"));
+		assertTrue(FontAtlas.get() != a);
+	}
+
+	public void testFontChange() throws Exception {
+		assertNull(FontAtlas.get().lookupFont(2));
+		assertEquals(35, renderLit("A"));
+		font.setNumber(2);
+		FontAtlas.invalidate();
+		assertTrue(FontAtlas.get().lookupFont(2) == font);
+		// Default font 1 is gone, so A cannot be rendered
+		try {
+			renderLit("A");
+			fail("font not found");
+		}
+		catch (InvalidMsgException e) {
+			// expected
+		}
+		assertEquals(35, renderLit("[fo2]A"));
+	}
+
+	public void testGlyphAdded() throws Exception {
+		try {
+			renderLit("C");
+			fail("glyph not found");
+		}
+		catch (InvalidMsgException e) {
+			// expected
+		}
+		// Added without invalidating: count change is detected
+		ns.addObject(new TestGlyph("F1_67", font, 'C', ALL_LIT));
+		assertEquals(35, renderLit("C"));
+	}
+}
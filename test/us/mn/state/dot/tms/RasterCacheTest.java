@@ -0,0 +1,124 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2026  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms;
+
+import junit.framework.TestCase;
+import us.mn.state.dot.sonar.server.ServerNamespace;
+
+/**
+ * Raster cache tests
+ *
+ * @author Doug Lau
+ */
+public class RasterCacheTest extends TestCase {
+
+	public RasterCacheTest(String name) {
+		super(name);
+	}
+
+	@Override
+	protected void setUp() {
+		BaseHelper.namespace = new ServerNamespace();
+		FontAtlas.invalidate();
+	}
+
+	@Override
+	protected void tearDown() {
+		BaseHelper.namespace = null;
+		FontAtlas.invalidate();
+	}
+
+	public void testHit() throws Exception {
+		RasterCache cache = new RasterCache(4);
+		RasterCache.Entry e = cache.lookup("A");
+		assertNotNull(e);
+		assertNull(e.getRasterizable());
+		assertFalse(e.hasBitmaps());
+		e.setRasterizable(true);
+		BitmapGraphic bg = new BitmapGraphic(4, 2);
+		bg.setPixel(1, 1, DmsColor.AMBER);
+		e.setBitmaps(new BitmapGraphic[] { bg });
+		RasterCache.Entry e2 = cache.lookup("A");
+		assertTrue(e2 == e);
+		assertEquals(Boolean.TRUE, e2.getRasterizable());
+		assertTrue(e2.hasBitmaps());
+		BitmapGraphic[] pages = e2.getBitmaps();
+		assertEquals(1, pages.length);
+		assertTrue(pages[0] != bg);
+		assertTrue(pages[0].getPixel(1, 1).isLit());
+		// Returned bitmaps are copies
+		pages[0].setPixel(1, 1, DmsColor.BLACK);
+		assertTrue(e2.getBitmaps()[0].getPixel(1, 1).isLit());
+		assertTrue(cache.lookup("B") != e);
+	}
+
+	public void testError() throws Exception {
+		RasterCache cache = new RasterCache(4);
+		RasterCache.Entry e = cache.lookup("A");
+		InvalidMsgException err = new InvalidMsgException("bad");
+		e.setError(err);
+		assertTrue(e.hasBitmaps());
+		try {
+			cache.lookup("A").getBitmaps();
+			fail("expected error");
+		}
+		catch (InvalidMsgException ex) {
+			assertTrue(ex == err);
+		}
+	}
+
+	public void testEviction() {
+		RasterCache cache = new RasterCache(2);
+		RasterCache.Entry a = cache.lookup("A");
+		RasterCache.Entry b = cache.lookup("B");
+		// Use A, so B is least recently used
+		assertTrue(cache.lookup("A") == a);
+		RasterCache.Entry c = cache.lookup("C");
+		// B was least recently used, so it was evicted
+		assertTrue(cache.lookup("A") == a);
+		assertTrue(cache.lookup("C") == c);
+		assertTrue(cache.takeStats().startsWith("entries: 2,"));
+		assertTrue(cache.lookup("B") != b);
+	}
+
+	public void testAtlasChange() {
+		RasterCache cache = new RasterCache(4);
+		RasterCache.Entry a = cache.lookup("A");
+		assertTrue(cache.lookup("A") == a);
+		FontAtlas.invalidate();
+		RasterCache.Entry a2 = cache.lookup("A");
+		assertTrue(a2 != a);
+		assertTrue(cache.lookup("A") == a2);
+		assertTrue(cache.takeStats().startsWith("entries: 1,"));
+	}
+
+	public void testNoAtlas() {
+		BaseHelper.namespace = null;
+		FontAtlas.invalidate();
+		assertNull(new RasterCache(4).lookup("A"));
+	}
+
+	public void testStats() {
+		RasterCache cache = new RasterCache(4);
+		cache.count(true);
+		cache.count(true);
+		cache.count(true);
+		cache.count(false);
+		assertEquals("entries: 0, hits: 3, misses: 1, hit rate: 75%",
+			cache.takeStats());
+		assertEquals("entries: 0, hits: 0, misses: 0, hit rate: 0%",
+			cache.takeStats());
+	}
+}
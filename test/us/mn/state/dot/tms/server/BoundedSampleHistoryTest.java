@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2012-2022  Minnesota Department of Transportation
+ * Copyright (C) 2012-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -14,6 +14,11 @@
  */
 package us.mn.state.dot.tms.server;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import junit.framework.TestCase;
 import us.mn.state.dot.tms.server.BoundedSampleHistory;
 
@@ -99,4 +104,20 @@ public class BoundedSampleHistoryTest extends TestCase {
 		assertTrue(hist.size() == 4);
 		assertTrue(hist.average() == null);
 	}
+
+	public void testSnapshot() throws IOException {
+		BoundedSampleHistory hist = new BoundedSampleHistory(4);
+		for (int i = 1; i <= 6; i++)
+			hist.push((i == 5) ? null : i * 10.0);
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		hist.writeSnapshot(new DataOutputStream(bos));
+		BoundedSampleHistory h2 = new BoundedSampleHistory(3);
+		h2.push(99.0);
+		h2.readSnapshot(new DataInputStream(new ByteArrayInputStream(
+			bos.toByteArray())));
+		assertTrue(h2.size() == 3);
+		assertTrue(Double.valueOf(60).equals(h2.get(0)));
+		assertTrue(null == h2.get(1));
+		assertTrue(Double.valueOf(40).equals(h2.get(2)));
+	}
 }
@@ -0,0 +1,102 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2026  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms.server;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import junit.framework.TestCase;
+
+/**
+ * Column archive test cases
+ * @author Doug Lau
+ */
+public class ColumnArchiveTest extends TestCase {
+
+	public ColumnArchiveTest(String name) {
+		super(name);
+	}
+
+	public void testArchive() throws IOException {
+		File day = File.createTempFile("col", "");
+		day.delete();
+		day.mkdir();
+		File col = new File(day.getPath() + ColumnArchive.EXT);
+		try {
+			int[] a_v = new int[2880];
+			int[] a_c = new int[2880];
+			for (int i = 0; i < 2880; i++) {
+				a_v[i] = (i % 100 == 7) ? -1 : i % 37;
+				a_c[i] = (i * 97) % 1800;
+			}
+			Arrays.fill(a_v, 120, 240, -1);
+			write(new File(day, "A.v30"), a_v, 1);
+			write(new File(day, "A.c30"), a_c, 2);
+			write(new File(day, "B.v30"), new int[] { 5, 6, 7 }, 1);
+			write(new File(day, "C.s30"), new int[] { 55 }, 1);
+			write(new File(day, "A.vlog"), new int[] { 10 }, 1);
+			new ColumnArchiveWriter(day).write(col);
+			ColumnArchive ca = new ColumnArchive(col);
+			assertTrue(Arrays.equals(ca.getSensors(),
+				new String[] { "A", "B", "C" }));
+			assertTrue(ca.hasColumn("v30"));
+			assertTrue(ca.hasColumn("c30"));
+			assertTrue(ca.hasColumn("s30"));
+			assertFalse(ca.hasColumn("vlog"));
+			assertTrue(Arrays.equals(ca.readDay("A", "v30"), a_v));
+			assertTrue(Arrays.equals(ca.readDay("A", "c30"), a_c));
+			int[] b_v = ca.readDay("B", "v30");
+			assertTrue(b_v.length == 2880);
+			assertTrue(b_v[0] == 5 && b_v[2] == 7 && b_v[3] == -1);
+			assertTrue(ca.readDay("C", "v30") == null);
+			assertTrue(ca.readDay("D", "v30") == null);
+			assertTrue(ca.readDay("C", "s30")[0] == 55);
+			for (int i: new int[] { 0, 2, 119, 150, 2879 }) {
+				int[] s = ca.readSlice("v30", i);
+				assertTrue(s[0] == a_v[i]);
+				assertTrue(s[1] == ((i < 3) ? 5 + i : -1));
+				assertTrue(s[2] == -1);
+			}
+			assertTrue(ca.readSlice("v60", 0) == null);
+		}
+		finally {
+			for (File f: day.listFiles())
+				f.delete();
+			day.delete();
+			col.delete();
+		}
+	}
+
+	private void write(File f, int[] vals, int s_bytes)
+		throws IOException
+	{
+		ByteBuffer buf = ByteBuffer.allocate(vals.length * s_bytes);
+		for (int v: vals) {
+			if (s_bytes == 2)
+				buf.putShort((short) v);
+			else
+				buf.put((byte) v);
+		}
+		FileOutputStream fos = new FileOutputStream(f);
+		try {
+			fos.write(buf.array());
+		}
+		finally {
+			fos.close();
+		}
+	}
+}
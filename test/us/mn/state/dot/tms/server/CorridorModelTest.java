@@ -0,0 +1,95 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2026  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms.server;
+
+import junit.framework.TestCase;
+import static us.mn.state.dot.tms.server.CorridorModel.ENTRANCE;
+import static us.mn.state.dot.tms.server.CorridorModel.STATION;
+
+/**
+ * Corridor model tests
+ *
+ * @author Doug Lau
+ */
+public class CorridorModelTest extends TestCase {
+
+	public CorridorModelTest(String name) {
+		super(name);
+	}
+
+	private CorridorModel createModel() {
+		return new CorridorModel(
+			new float[] { 0, 0.5f, 1, 1.2f, 2, 4.5f },
+			new int[] { ENTRANCE, STATION, ENTRANCE, STATION,
+				STATION, STATION },
+			2);
+	}
+
+	public void testLinks() {
+		CorridorModel m = createModel();
+		assertTrue(m.nodeCount() == 6);
+		assertTrue(m.stationCount() == 4);
+		assertTrue(m.isEntrance(0) && m.isEntrance(2));
+		assertFalse(m.isEntrance(1));
+		assertTrue(m.stationNode(0) == 1);
+		assertTrue(m.stationNode(3) == 5);
+		assertTrue(m.upstreamStation(0) == -1);
+		assertTrue(m.downstreamStation(0) == 0);
+		assertTrue(m.upstreamStation(2) == 0);
+		assertTrue(m.downstreamStation(2) == 1);
+		assertTrue(m.upstreamStation(3) == 0);
+		assertTrue(m.downstreamStation(5) == -1);
+		assertTrue(Math.abs(m.distanceMiles(2, 1) - 0.2f) < 0.0001f);
+	}
+
+	public void testHistory() {
+		CorridorModel m = createModel();
+		m.update(new float[] { 10, -1, 30, 40 },
+			new float[] { 60, 55, -1, 50 });
+		assertTrue(m.getDensity(0) == 10);
+		assertTrue(m.getDensity(1) == 0);
+		assertTrue(m.getSpeed(2) == 0);
+		m.update(new float[] { 20, 15, -1, 50 },
+			new float[] { 50, 45, 40, 30 });
+		assertTrue(m.getDensity(0) == 15);
+		assertTrue(m.getDensity(1) == 15);
+		assertTrue(m.getDensity(2) == 30);
+		assertTrue(m.getSpeed(3) == 40);
+		m.update(new float[] { 30, 25, 10, 60 },
+			new float[] { 40, 35, 30, 20 });
+		assertTrue(m.getDensity(0) == 25);
+		assertTrue(m.getDensity(2) == 10);
+		CorridorModel m2 = createModel();
+		m2.copyHistory(m, new int[] { 3, -1, 0, 1 });
+		assertTrue(m2.getDensity(0) == 55);
+		assertTrue(m2.getDensity(1) == 0);
+		assertTrue(m2.getDensity(2) == 25);
+		assertTrue(m2.getDensity(3) == 20);
+	}
+
+	public void testSegment() {
+		CorridorModel m = createModel();
+		m.update(new float[] { 20, 40, 30, 60 },
+			new float[] { 60, 50, 40, 30 });
+		assertTrue(m.segmentDensity(1, 1) == 40);
+		// links: 0.7 mi (20 / 30 / 40), 0.8 mi (40 / 35 / 30)
+		double k = (30 * 0.7 + 35 * 0.8) / 1.5;
+		assertTrue(Math.abs(m.segmentDensity(0, 2) - k) < 0.0001);
+		assertTrue(m.segmentStation(0, 3) == 2);
+		assertTrue(m.segmentStation(1, 3) == 1);
+		assertTrue(m.segmentStation(2, 3) == 3);
+		assertTrue(m.segmentStation(2, 2) == 2);
+	}
+}
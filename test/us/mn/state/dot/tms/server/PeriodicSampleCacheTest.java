@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2012-2021  Minnesota Department of Transportation
+ * Copyright (C) 2012-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -14,6 +14,11 @@
  */
 package us.mn.state.dot.tms.server;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.Calendar;
 import java.util.Iterator;
 import junit.framework.TestCase;
@@ -88,6 +93,68 @@ public class PeriodicSampleCacheTest extends TestCase {
 		assertFalse(it.hasNext());
 	}
 
+	public void testRing() {
+		PeriodicSampleCache cache = new PeriodicSampleCache(
+			PeriodicSampleType.VEH_COUNT);
+		long t = T[0] - 100 * 30000;
+		// add in reverse order, growing ring buffer
+		for (int i = 100; i > 0; i -= 2)
+			cache.add(new PeriodicSample(t + i * 30000, 30, i), "test");
+		assertTrue(cache.getValue(t + 99 * 30000, t + 100 * 30000)
+			== 100);
+		assertTrue(cache.getValue(t + 98 * 30000, t + 99 * 30000)
+			== -1);
+		assertTrue(cache.getValue(t + 98 * 30000, t + 100 * 30000)
+			== 200);
+		assertTrue(cache.getValue(t, t + 4 * 30000) == 12);
+		cache.purge(t + 90 * 30000);
+		Iterator<PeriodicSample> it = cache.iterator();
+		for (int i = 90; i <= 100; i += 2) {
+			assertTrue(it.hasNext());
+			PeriodicSample ps = it.next();
+			assertTrue(ps.value == i);
+			assertTrue(ps.end() == t + i * 30000);
+		}
+		assertFalse(it.hasNext());
+		// duplicate sample does not replace existing value
+		cache.add(new PeriodicSample(t + 100 * 30000, 30, 5), "test");
+		assertTrue(cache.getValue(t + 99 * 30000, t + 100 * 30000)
+			== 100);
+		cache.purge(t + 200 * 30000);
+		assertTrue(isEmpty(cache));
+	}
+
+	public void testSnapshot() throws IOException {
+		PeriodicSampleCache cache = new PeriodicSampleCache(
+			PeriodicSampleType.VEH_COUNT);
+		cache.add(new PeriodicSample(T[1], 30, 2), "test");
+		cache.add(new PeriodicSample(T[3], 30, 4), "test");
+		cache.add(new PeriodicSample(T[4], 30, 0), "test");
+		PeriodicSampleCache c2 = new PeriodicSampleCache(
+			PeriodicSampleType.VEH_COUNT);
+		c2.add(new PeriodicSample(T[8], 30, 9), "test");
+		c2.readSnapshot(snapshot(cache));
+		assertTrue(c2.getValue(T[0], T[1]) == 2);
+		assertTrue(c2.getValue(T[1], T[2]) == -1);
+		assertTrue(c2.getValue(T[2], T[3]) == 4);
+		assertTrue(c2.getValue(T[3], T[4]) == 0);
+		assertTrue(c2.getValue(T[7], T[8]) == -1);
+		c2.add(new PeriodicSample(T[2], 30, 3), "test");
+		assertTrue(c2.getValue(T[0], T[4]) == 9);
+		c2.readSnapshot(snapshot(new PeriodicSampleCache(
+			PeriodicSampleType.VEH_COUNT)));
+		assertTrue(isEmpty(c2));
+	}
+
+	private DataInputStream snapshot(PeriodicSampleCache cache)
+		throws IOException
+	{
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		cache.writeSnapshot(new DataOutputStream(bos));
+		return new DataInputStream(new ByteArrayInputStream(
+			bos.toByteArray()));
+	}
+
 	private boolean isEmpty(PeriodicSampleCache cache) {
 		return !cache.iterator().hasNext();
 	}
@@ -1,6 +1,6 @@
 /*
  * IRIS -- Intelligent Roadway Information System
- * Copyright (C) 2012-2022  Minnesota Department of Transportation
+ * Copyright (C) 2012-2026  Minnesota Department of Transportation
  *
  * This program is free software; you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -19,6 +19,8 @@ import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.Arrays;
 import java.util.Calendar;
 import junit.framework.TestCase;
 
@@ -32,78 +34,113 @@ public class PeriodicSampleWriterTest extends TestCase {
 		super(name);
 	}
 
-	public void testWriter() {
-/*
+	public void testWriter() throws IOException {
+		checkWriter(0);
+	}
+
+	public void testMapped() throws IOException {
+		checkWriter(4);
+		File dir = createDir();
+		writeSamples(dir, 0);
+		byte[] b = readFile(new File(dir, "TEST.v30"));
+		File mdir = createDir();
+		writeSamples(mdir, 4);
+		byte[] mb = readFile(new File(mdir, "TEST.v30"));
+		assertTrue(Arrays.equals(b, mb));
+	}
+
+	/** Write samples and check the file contents */
+	private void checkWriter(int n_mapped) throws IOException {
+		File dir = createDir();
+		writeSamples(dir, n_mapped);
+		byte[] b = readFile(new File(dir, "TEST.v30"));
+		assertTrue(b.length == 2880);
+		assertTrue(b[0] == 1);
+		assertTrue(b[1] == 2);
+		assertTrue(b[2] == 3);
+		assertTrue(b[3] == 4);
+		assertTrue(b[4] == -1);
+		assertTrue(b[5] == 6);
+		assertTrue(b[6] == 7);
+		assertTrue(b[7] == 8);
+		assertTrue(b[8] == 9);
+		assertTrue(b[9] == 10);
+		assertTrue(b[10] == -1);
+		assertTrue(b[2879] == -1);
+	}
+
+	/** Write samples for the first minutes of today, with one missing */
+	private void writeSamples(File dir, int n_mapped) throws IOException {
 		PeriodicSampleCache cache = new PeriodicSampleCache(
 			PeriodicSampleType.VEH_COUNT);
 		Calendar cal = Calendar.getInstance();
-		cal.set(2012, Calendar.JANUARY, 1, 0, 0, 30);
-		cache.add(new PeriodicSample(cal.getTimeInMillis(), 30, 1), "test");
-		cal.set(2012, Calendar.JANUARY, 1, 0, 1, 0);
-		cache.add(new PeriodicSample(cal.getTimeInMillis(), 30, 2), "test");
-		cal.set(2012, Calendar.JANUARY, 1, 0, 1, 30);
-		cache.add(new PeriodicSample(cal.getTimeInMillis(), 30, 3), "test");
-		cal.set(2012, Calendar.JANUARY, 1, 0, 2, 0);
-		cache.add(new PeriodicSample(cal.getTimeInMillis(), 30, 4), "test");
-		// Missing sample @ 2012-01-01 00:02:30
-		cal.set(2012, Calendar.JANUARY, 1, 0, 3, 0);
-		cache.add(new PeriodicSample(cal.getTimeInMillis(), 30, 6), "test");
-		cal.set(2012, Calendar.JANUARY, 1, 0, 3, 30);
-		cache.add(new PeriodicSample(cal.getTimeInMillis(), 30, 7), "test");
-		cal.set(2012, Calendar.JANUARY, 1, 0, 4, 0);
-		cache.add(new PeriodicSample(cal.getTimeInMillis(), 30, 8), "test");
-		cal.set(2012, Calendar.JANUARY, 1, 0, 4, 30);
-		cache.add(new PeriodicSample(cal.getTimeInMillis(), 30, 9), "test");
-		cal.set(2012, Calendar.JANUARY, 1, 0, 5, 0);
-		cache.add(new PeriodicSample(cal.getTimeInMillis(), 30, 10), "test");
-		SampleArchiveFactory factory = new TestFactory();
-		PeriodicSampleWriter writer = new PeriodicSampleWriter(factory);
+		cal.set(Calendar.HOUR_OF_DAY, 0);
+		cal.set(Calendar.MINUTE, 0);
+		cal.set(Calendar.SECOND, 0);
+		cal.set(Calendar.MILLISECOND, 0);
+		for (int v = 1; v <= 10; v++) {
+			cal.add(Calendar.SECOND, 30);
+			// Missing sample @ 00:02:30
+			if (v != 5) {
+				cache.add(new PeriodicSample(
+					cal.getTimeInMillis(), 30, v), "test");
+			}
+		}
+		PeriodicSampleWriter writer = new PeriodicSampleWriter(
+			new TestFactory(dir), n_mapped);
+		writer.flush(cache, "TEST");
+		writer.force();
+		writer.release();
+		writer.release();
+	}
+
+	/** Create an empty temporary directory */
+	private File createDir() throws IOException {
+		File dir = Files.createTempDirectory("psw").toFile();
+		dir.deleteOnExit();
+		return dir;
+	}
+
+	/** Read all bytes of a file */
+	private byte[] readFile(File file) throws IOException {
+		file.deleteOnExit();
+		FileChannel channel = new RandomAccessFile(file,
+			"r").getChannel();
 		try {
-			File file = new File("/tmp/TEST.v30");
-			file.delete();
-			writer.flush(cache, "TEST");
-			FileChannel channel = new RandomAccessFile(file,
-				"rw").getChannel();
-			ByteBuffer buf = ByteBuffer.allocate(2880);
-			while(channel.read(buf) >= 0 && buf.hasRemaining());
-			channel.close();
-			buf.flip();
-			assertTrue(buf.get() == 1);
-			assertTrue(buf.get() == 2);
-			assertTrue(buf.get() == 3);
-			assertTrue(buf.get() == 4);
-			assertTrue(buf.get() == -1);
-			assertTrue(buf.get() == 6);
-			assertTrue(buf.get() == 7);
-			assertTrue(buf.get() == 8);
-			assertTrue(buf.get() == 9);
-			assertTrue(buf.get() == 10);
-			assertTrue(buf.get() == -1);
-			assertTrue(buf.get() == -1);
-			assertTrue(file.length() == 2880);
+			ByteBuffer buf = ByteBuffer.allocate(
+				(int) channel.size());
+			while (channel.read(buf) >= 0 && buf.hasRemaining());
+			return buf.array();
 		}
-		catch(IOException e) {
-			e.printStackTrace();
-			assertTrue(false);
+		finally {
+			channel.close();
 		}
-*/
 	}
 
 	static class TestFactory implements SampleArchiveFactory {
+		private final File dir;
+		TestFactory(File d) {
+			dir = d;
+		}
 		public File createFile(String sensor_id, String ext, long stamp)
 			throws IOException
 		{
-			return new File("/tmp", sensor_id + "." + ext);
+			return new File(dir, sensor_id + "." + ext);
 		}
 		public File createFile(String sensor_id,
 			PeriodicSampleType s_type, PeriodicSample ps)
 			throws IOException
 		{
-			return new File("/tmp", sensor_id + "." +
+			return new File(dir, sensor_id + "." +
 				s_type.extension + ps.per_sec);
 		}
 		public boolean hasKnownExtension(String name) {
 			return true;
 		}
+		public int[] readSamples(String sensor_id,
+			PeriodicSampleType s_type, int per_sec, long stamp)
+		{
+			return null;
+		}
 	}
 }
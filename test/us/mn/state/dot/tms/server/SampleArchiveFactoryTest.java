@@ -0,0 +1,164 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2026  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms.server;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import junit.framework.TestCase;
+
+/**
+ * Sample archive factory tests, reading the same samples from a column
+ * archive, a day directory and a traffic (zip) archive.
+ *
+ * @author Doug Lau
+ */
+public class SampleArchiveFactoryTest extends TestCase {
+
+	/** Date of archived day */
+	static private final String DATE = "20260105";
+
+	public SampleArchiveFactoryTest(String name) {
+		super(name);
+	}
+
+	/** Year directory */
+	private File year;
+
+	/** Day directory */
+	private File day;
+
+	/** Sample archive factory */
+	private SampleArchiveFactoryImpl factory;
+
+	@Override
+	protected void setUp() throws IOException {
+		year = Files.createTempDirectory("saf").toFile();
+		day = new File(year, DATE);
+		day.mkdir();
+		factory = new SampleArchiveFactoryImpl();
+	}
+
+	@Override
+	protected void tearDown() {
+		factory.closeColumnArchives();
+		delete(year);
+	}
+
+	/** Delete a file or directory */
+	private void delete(File f) {
+		File[] files = f.listFiles();
+		if (files != null) {
+			for (File c: files)
+				delete(c);
+		}
+		f.delete();
+	}
+
+	public void testFormats() throws IOException {
+		int[] a_v = new int[2880];
+		int[] a_c = new int[2880];
+		for (int i = 0; i < 2880; i++) {
+			a_v[i] = (i % 100 == 7) ? -1 : i % 37;
+			a_c[i] = (i * 97) % 1800;
+		}
+		write("A.v30", a_v, 1);
+		write("A.c30", a_c, 2);
+		write("B.v30", new int[] { 5, 6, 7 }, 1);
+		int[] b_v = new int[2880];
+		Arrays.fill(b_v, -1);
+		b_v[0] = 5;
+		b_v[1] = 6;
+		b_v[2] = 7;
+		writeTraffic();
+		File col = new File(year, DATE + ColumnArchive.EXT);
+		new ColumnArchiveWriter(day).write(col);
+		checkSamples(a_v, a_c, b_v);
+		// Read again, from a cached column archive
+		checkSamples(a_v, a_c, b_v);
+		factory.closeColumnArchives();
+		assertTrue(col.delete());
+		checkSamples(a_v, a_c, b_v);
+		delete(day);
+		checkSamples(a_v, a_c, b_v);
+	}
+
+	/** Check samples read from the archive */
+	private void checkSamples(int[] a_v, int[] a_c, int[] b_v)
+		throws IOException
+	{
+		PeriodicSampleType v = PeriodicSampleType.VEH_COUNT;
+		PeriodicSampleType c = PeriodicSampleType.SCAN;
+		assertTrue(Arrays.equals(read("A", v), a_v));
+		assertTrue(Arrays.equals(read("A", c), a_c));
+		assertTrue(Arrays.equals(read("B", v), b_v));
+		assertNull(read("B", c));
+		assertNull(read("C", v));
+	}
+
+	/** Read samples for one sensor */
+	private int[] read(String sensor_id, PeriodicSampleType s_type)
+		throws IOException
+	{
+		return factory.readSamples(year, DATE, sensor_id, s_type, 30);
+	}
+
+	/** Write a sample file in the day directory */
+	private void write(String name, int[] vals, int s_bytes)
+		throws IOException
+	{
+		FileOutputStream fos = new FileOutputStream(new File(day,
+			name));
+		try {
+			fos.write(encode(vals, s_bytes));
+		}
+		finally {
+			fos.close();
+		}
+	}
+
+	/** Encode sample values */
+	private byte[] encode(int[] vals, int s_bytes) {
+		ByteBuffer buf = ByteBuffer.allocate(vals.length * s_bytes);
+		for (int v: vals) {
+			if (s_bytes == 2)
+				buf.putShort((short) v);
+			else
+				buf.put((byte) v);
+		}
+		return buf.array();
+	}
+
+	/** Write a traffic (zip) archive of the day directory */
+	private void writeTraffic() throws IOException {
+		ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(
+			new File(year, DATE + ".traffic")));
+		try {
+			for (File f: day.listFiles()) {
+				zos.putNextEntry(new ZipEntry(f.getName()));
+				zos.write(Files.readAllBytes(f.toPath()));
+				zos.closeEntry();
+			}
+		}
+		finally {
+			zos.close();
+		}
+	}
+}
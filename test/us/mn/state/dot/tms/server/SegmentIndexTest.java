@@ -0,0 +1,165 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2026  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms.server;
+
+import java.util.ArrayList;
+import junit.framework.TestCase;
+import us.mn.state.dot.sonar.server.ServerNamespace;
+import us.mn.state.dot.tms.BaseHelper;
+import us.mn.state.dot.tms.Direction;
+import us.mn.state.dot.tms.GeoLoc;
+import us.mn.state.dot.tms.LaneCode;
+import us.mn.state.dot.tms.R_Node;
+import us.mn.state.dot.tms.R_NodeType;
+import us.mn.state.dot.tms.geo.Position;
+import us.mn.state.dot.tms.geo.SphericalMercatorPosition;
+import us.mn.state.dot.tms.units.Distance;
+import static us.mn.state.dot.tms.units.Distance.Units.METERS;
+
+/**
+ * Segment index tests, comparing snapped locations with snapping each
+ * corridor in turn.
+ *
+ * @author Doug Lau
+ */
+public class SegmentIndexTest extends TestCase {
+
+	/** Number of r_nodes in each corridor */
+	static private final int N_NODES = 40;
+
+	public SegmentIndexTest(String name) {
+		super(name);
+	}
+
+	/** Synthetic corridors */
+	private final ArrayList<Corridor> corridors = new ArrayList<Corridor>();
+
+	/** Node counter */
+	private int n_node = 0;
+
+	@Override
+	protected void setUp() {
+		BaseHelper.namespace = new ServerNamespace();
+		RoadImpl t1 = new RoadImpl("T1");
+		RoadImpl t2 = new RoadImpl("T2");
+		// Zigzag corridors, with nodes about 500 m apart
+		corridors.add(createCorridor(t1, Direction.NORTH, 45.0, -93.2,
+			0.0045, 0.002));
+		corridors.add(createCorridor(t1, Direction.SOUTH, 45.0,
+			-93.199, 0.0045, 0.002));
+		corridors.add(createCorridor(t2, Direction.EAST, 45.05, -93.3,
+			0.001, 0.0065));
+	}
+
+	@Override
+	protected void tearDown() {
+		BaseHelper.namespace = null;
+	}
+
+	/** Create a corridor with nodes along a zigzag line */
+	private Corridor createCorridor(RoadImpl road, Direction dir,
+		double lat, double lon, double dlat, double dlon)
+	{
+		Corridor c = null;
+		for (int i = 0; i < N_NODES; i++) {
+			double z = (i % 2 == 0) ? 0 : 0.3;
+			R_NodeImpl n = createNode(road, dir,
+				lat + i * dlat + z * dlon,
+				lon + i * dlon + z * dlat);
+			if (i % 7 == 3)
+				n.setNodeType(R_NodeType.ENTRANCE.ordinal());
+			if (null == c)
+				c = new Corridor(n.getGeoLoc());
+			c.addNode(n);
+			// Inactive nodes are skipped, but must be valid to add
+			if (i % 11 == 5)
+				n.setActive(false);
+		}
+		c.arrangeNodes();
+		return c;
+	}
+
+	/** Create an r_node */
+	private R_NodeImpl createNode(RoadImpl road, Direction dir,
+		double lat, double lon)
+	{
+		String name = "rnd_" + n_node++;
+		GeoLocImpl loc = new GeoLocImpl(name, R_Node.SONAR_TYPE, lat,
+			lon);
+		loc.setRoadway(road);
+		loc.setRoadDir((short) dir.ordinal());
+		R_NodeImpl n = new R_NodeImpl(name);
+		n.setGeoLoc(loc);
+		return n;
+	}
+
+	/** Snap a point by checking each corridor in turn */
+	private GeoLoc snapCorridors(SphericalMercatorPosition smp,
+		LaneCode lc, Distance max_dist, Direction dir)
+	{
+		GeoLoc loc = null;
+		Distance dist = max_dist;
+		for (Corridor c: corridors) {
+			if (dir != Direction.UNKNOWN &&
+			    dir.ordinal() != c.getRoadDir())
+				continue;
+			Corridor.GeoLocDist ld = c.snapGeoLoc(smp, lc, dist);
+			if (ld != null && ld.dist.m() < dist.m()) {
+				loc = ld.loc;
+				dist = ld.dist;
+			}
+		}
+		return loc;
+	}
+
+	/** Check snapped locations on a grid of points */
+	private void checkSnap(Distance max_dist, Direction dir) {
+		SegmentIndex si = new SegmentIndex(corridors, 1);
+		int n_snapped = 0;
+		for (int y = 0; y < 60; y++) {
+			for (int x = 0; x < 60; x++) {
+				Position pos = new Position(44.99 + y * 0.004,
+					-93.32 + x * 0.004);
+				SphericalMercatorPosition smp =
+					SphericalMercatorPosition.convert(pos);
+				GeoLoc exp = snapCorridors(smp,
+					LaneCode.MAINLINE, max_dist, dir);
+				GeoLoc loc = si.snapGeoLoc(smp,
+					LaneCode.MAINLINE, max_dist, dir);
+				if (null == exp)
+					assertNull(loc);
+				else {
+					assertNotNull(loc);
+					assertEquals(exp.getLat(), loc.getLat(),
+						1e-9);
+					assertEquals(exp.getLon(), loc.getLon(),
+						1e-9);
+					n_snapped++;
+				}
+			}
+		}
+		assertTrue(n_snapped > 0);
+	}
+
+	public void testSnap() {
+		SegmentIndex si = new SegmentIndex(corridors, 1);
+		assertTrue(si.size() > 0);
+		checkSnap(new Distance(1000, METERS), Direction.UNKNOWN);
+		checkSnap(new Distance(250, METERS), Direction.UNKNOWN);
+		checkSnap(new Distance(5000, METERS), Direction.UNKNOWN);
+		checkSnap(new Distance(1000, METERS), Direction.SOUTH);
+		checkSnap(new Distance(1000, METERS), Direction.EAST);
+	}
+}
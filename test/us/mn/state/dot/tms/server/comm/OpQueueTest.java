@@ -0,0 +1,152 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2026  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms.server.comm;
+
+import java.lang.reflect.Constructor;
+import java.util.Date;
+import junit.framework.TestCase;
+import us.mn.state.dot.tms.server.ControllerImpl;
+
+/**
+ * Operation queue tests, with several lanes taking operations.
+ *
+ * @author Doug Lau
+ */
+public class OpQueueTest extends TestCase {
+
+	/** Time to wait for a lane which should be blocked (ms) */
+	static private final long BLOCKED_MS = 100;
+
+	/** Test operation */
+	static private class TestOp extends OpController<ControllerProperty> {
+		private TestOp(ControllerImpl c) {
+			super(PriorityLevel.POLL_LOW, c);
+		}
+		protected Phase<ControllerProperty> phaseOne() {
+			return new Poll();
+		}
+		protected class Poll extends Phase<ControllerProperty> {
+			protected Phase<ControllerProperty> poll(
+				CommMessage<ControllerProperty> mess)
+			{
+				return null;
+			}
+		}
+	}
+
+	/** Another test operation (not equal to TestOp) */
+	static private class OtherOp extends TestOp {
+		private OtherOp(ControllerImpl c) {
+			super(c);
+		}
+	}
+
+	/** Lane which takes one operation from a queue */
+	static private class Lane extends Thread {
+		private final OpQueue<ControllerProperty> queue;
+		private volatile OpController<ControllerProperty> op;
+		private Lane(OpQueue<ControllerProperty> q) {
+			queue = q;
+		}
+		@Override public void run() {
+			try {
+				op = queue.next(null, 0);
+			}
+			catch (DisconnectException e) {
+				// interrupted
+			}
+		}
+	}
+
+	public OpQueueTest(String name) {
+		super(name);
+	}
+
+	/** Create a controller without storing it.  The public constructor
+	 * needs a database, so the one used for loading rows is called. */
+	static private ControllerImpl createController(String n)
+		throws Exception
+	{
+		Constructor<ControllerImpl> con =
+			ControllerImpl.class.getDeclaredConstructor(
+			String.class, String.class, short.class, String.class,
+			String.class, int.class, String.class, String.class,
+			String.class, Date.class);
+		con.setAccessible(true);
+		return con.newInstance(n, null, (short) 0, null, null, 0,
+			null, null, null, null);
+	}
+
+	private ControllerImpl c1;
+	private ControllerImpl c2;
+
+	@Override
+	protected void setUp() throws Exception {
+		c1 = createController("ctl_1");
+		c2 = createController("ctl_2");
+	}
+
+	public void testSameController() throws Exception {
+		OpQueue<ControllerProperty> q =
+			new OpQueue<ControllerProperty>();
+		TestOp a1 = new TestOp(c1);
+		OtherOp b1 = new OtherOp(c1);
+		TestOp a2 = new TestOp(c2);
+		assertTrue(q.enqueue(a1));
+		assertTrue(q.enqueue(b1));
+		assertTrue(q.enqueue(a2));
+		assertTrue(q.next(null, 0) == a1);
+		// b1 is skipped, since a1 is working on the same controller
+		assertTrue(q.next(null, 0) == a2);
+		Lane lane = new Lane(q);
+		lane.start();
+		try {
+			lane.join(BLOCKED_MS);
+			assertTrue(lane.isAlive());
+			assertNull(lane.op);
+			q.release(a1);
+			lane.join();
+			assertTrue(lane.op == b1);
+		}
+		finally {
+			lane.interrupt();
+		}
+	}
+
+	public void testRequeue() throws Exception {
+		OpQueue<ControllerProperty> q =
+			new OpQueue<ControllerProperty>();
+		TestOp a1 = new TestOp(c1);
+		assertTrue(q.enqueue(a1));
+		assertTrue(q.next(null, 0) == a1);
+		assertTrue(q.requeue(a1));
+		assertFalse(q.noMoreOps());
+		// a1 is still working until released, so no lane can take it
+		Lane lane = new Lane(q);
+		lane.start();
+		try {
+			lane.join(BLOCKED_MS);
+			assertTrue(lane.isAlive());
+			assertNull(lane.op);
+			q.release(a1);
+			lane.join();
+			assertTrue(lane.op == a1);
+			assertTrue(q.noMoreOps());
+		}
+		finally {
+			lane.interrupt();
+		}
+	}
+}
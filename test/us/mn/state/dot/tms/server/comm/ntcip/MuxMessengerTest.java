@@ -0,0 +1,155 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2026  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms.server.comm.ntcip;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import junit.framework.TestCase;
+import us.mn.state.dot.tms.server.comm.DatagramMessenger;
+
+/**
+ * Multiplexing messenger tests, with a simulated agent which responds to
+ * requests out of order.
+ *
+ * @author Doug Lau
+ */
+public class MuxMessengerTest extends TestCase {
+
+	/** Receive timeout (ms) */
+	static private final int TIMEOUT_MS = 2000;
+
+	/** Number of concurrent requests */
+	static private final int N_REQUESTS = 6;
+
+	/** Create a response message with a request-id */
+	static private byte[] createResponse(int req_id) {
+		byte[] msg = new byte[] {
+			0x30, 24,
+			0x02, 1, 0,		// version
+			0x04, 6, 'p', 'u', 'b', 'l', 'i', 'c',
+			(byte) 0xA2, 11,	// get-response
+			0x02, 1, (byte) req_id,
+			0x02, 1, 0,		// error-status
+			0x02, 1, 0,		// error-index
+			0x30, 0,		// varbind list
+		};
+		return msg;
+	}
+
+	/** Simulated agent, which echoes a batch of requests in reverse
+	 * order, except for request-id 0 */
+	static private class Agent extends Thread {
+		private final DatagramSocket socket;
+		private final int n_batch;
+		private Agent(int n) throws IOException {
+			socket = new DatagramSocket(0,
+				InetAddress.getLoopbackAddress());
+			n_batch = n;
+		}
+		@Override public void run() {
+			ArrayList<DatagramPacket> pkts =
+				new ArrayList<DatagramPacket>();
+			try {
+				while (pkts.size() < n_batch) {
+					DatagramPacket p = new DatagramPacket(
+						new byte[1024], 1024);
+					socket.receive(p);
+					pkts.add(p);
+				}
+				for (int i = pkts.size() - 1; i >= 0; i--) {
+					DatagramPacket p = pkts.get(i);
+					if (p.getData()[17] != 0)
+						socket.send(p);
+				}
+			}
+			catch (IOException e) {
+				// socket closed
+			}
+		}
+	}
+
+	/** Read a whole response from an exchange */
+	static private byte[] readResponse(InputStream is) throws IOException {
+		int b = is.read();
+		byte[] r = new byte[1 + is.available()];
+		r[0] = (byte) b;
+		is.read(r, 1, r.length - 1);
+		return r;
+	}
+
+	/** Client thread for one exchange */
+	static private class Client extends Thread {
+		private final MuxMessenger mux;
+		private final int req_id;
+		private byte[] response;
+		private IOException error;
+		private Client(MuxMessenger m, int rid) {
+			mux = m;
+			req_id = rid;
+		}
+		@Override public void run() {
+			MuxMessenger.Exchange ex = mux.createExchange(req_id);
+			try {
+				ex.output.write(createResponse(req_id));
+				ex.output.flush();
+				response = readResponse(ex.input);
+			}
+			catch (IOException e) {
+				error = e;
+			}
+		}
+	}
+
+	public void testOutOfOrder() throws Exception {
+		Agent agent = new Agent(N_REQUESTS);
+		agent.start();
+		DatagramMessenger dm = new DatagramMessenger(
+			new InetSocketAddress(InetAddress.getLoopbackAddress(),
+			agent.socket.getLocalPort()), TIMEOUT_MS, 0);
+		MuxMessenger mux = new MuxMessenger(dm, N_REQUESTS,
+			TIMEOUT_MS);
+		try {
+			ArrayList<Client> clients = new ArrayList<Client>();
+			for (int i = 0; i < N_REQUESTS; i++)
+				clients.add(new Client(mux, i));
+			for (Client c: clients)
+				c.start();
+			for (Client c: clients)
+				c.join();
+			for (Client c: clients) {
+				if (0 == c.req_id) {
+					assertTrue(c.error instanceof
+						SocketTimeoutException);
+				} else {
+					assertNull(c.error);
+					assertTrue(Arrays.equals(c.response,
+						createResponse(c.req_id)));
+				}
+			}
+		}
+		finally {
+			mux.close();
+			agent.socket.close();
+			agent.join();
+		}
+	}
+}
@@ -0,0 +1,308 @@
+/*
+ * IRIS -- Intelligent Roadway Information System
+ * Copyright (C) 2026  Minnesota Department of Transportation
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ */
+package us.mn.state.dot.tms.server.comm.snmp;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import junit.framework.TestCase;
+import us.mn.state.dot.tms.server.comm.ntcip.mib1203.MIB1203;
+import static us.mn.state.dot.tms.server.comm.ntcip.mib1203.MIB1203.*;
+
+/**
+ * Query batch tests, with a simulated SNMP agent.
+ *
+ * @author Doug Lau
+ */
+public class QueryBatchTest extends TestCase {
+
+	/** Simulated round trip latency (ms) */
+	static private final int LATENCY_MS = 25;
+
+	/** Simulated SNMP agent, which responds to get-requests */
+	static private class Agent extends BER {
+
+		/** Object values, by OID */
+		private final HashMap<String, Integer> values =
+			new HashMap<String, Integer>();
+
+		/** Maximum number of objects in one request */
+		private final int max_objs;
+
+		/** Count of requests */
+		private int n_requests = 0;
+
+		/** Response to last request */
+		private ByteArrayInputStream response =
+			new ByteArrayInputStream(new byte[0]);
+
+		/** Request output stream */
+		private final ByteArrayOutputStream os =
+			new ByteArrayOutputStream()
+		{
+			@Override public void flush() throws IOException {
+				response = new ByteArrayInputStream(
+					respond(toByteArray()));
+				reset();
+			}
+		};
+
+		/** Response input stream */
+		private final InputStream is = new InputStream() {
+			@Override public int read() {
+				return response.read();
+			}
+			@Override public int read(byte[] b, int off, int len) {
+				return response.read(b, off, len);
+			}
+			@Override public int available() {
+				return response.available();
+			}
+		};
+
+		/** SNMP protocol */
+		private final SNMP snmp = new SNMP();
+
+		/** Create a simulated agent */
+		private Agent(int mx) {
+			max_objs = mx;
+		}
+
+		/** Put an object value */
+		private void put(ASN1Integer mo, int v) {
+			values.put(Arrays.toString(mo.oid()), v);
+		}
+
+		/** Create a message for one request */
+		private SNMP.Message createMessage() {
+			return snmp.new Message(os, is, null, n_requests + 1);
+		}
+
+		/** Decode an object identifier */
+		private int[] decodeOid(InputStream in) throws IOException {
+			decodeIdentifier(in);
+			byte[] buf = new byte[decodeLength(in)];
+			in.read(buf);
+			ArrayList<Integer> oid = new ArrayList<Integer>();
+			oid.add(buf[0] / 40);
+			oid.add(buf[0] % 40);
+			int sub = 0;
+			for (int i = 1; i < buf.length; i++) {
+				sub = (sub << 7) | (buf[i] & SEVEN_BITS);
+				if ((buf[i] & HIGH_BIT) == 0) {
+					oid.add(sub);
+					sub = 0;
+				}
+			}
+			int[] o = new int[oid.size()];
+			for (int i = 0; i < o.length; i++)
+				o[i] = oid.get(i);
+			return o;
+		}
+
+		/** Respond to a get-request */
+		private byte[] respond(byte[] req) throws IOException {
+			n_requests++;
+			try {
+				Thread.sleep(LATENCY_MS);
+			}
+			catch (InterruptedException e) {
+				// ignore
+			}
+			InputStream in = new ByteArrayInputStream(req);
+			decodeSequence(in);
+			decodeInteger(in);
+			String community = new String(decodeOctetString(in));
+			decodeIdentifier(in);
+			decodeLength(in);
+			int req_id = decodeInteger(in);
+			decodeInteger(in);
+			decodeInteger(in);
+			decodeSequence(in);
+			ArrayList<int[]> oids = new ArrayList<int[]>();
+			while (in.available() > 0) {
+				decodeSequence(in);
+				oids.add(decodeOid(in));
+				decodeIdentifier(in);
+				decodeLength(in);
+			}
+			int error = 0;
+			int index = 0;
+			if (oids.size() > max_objs)
+				error = 1;
+			for (int i = 0; i < oids.size() && 0 == error; i++) {
+				if (!values.containsKey(Arrays.toString(
+				     oids.get(i))))
+				{
+					error = 2;
+					index = i + 1;
+				}
+			}
+			ByteArrayOutputStream vb = new ByteArrayOutputStream();
+			for (int[] oid: oids) {
+				encodeObjectIdentifier(oid);
+				if (0 == error) {
+					encodeInteger(values.get(
+						Arrays.toString(oid)));
+				} else
+					encodeNull();
+				encodeSequence(getEncodedData());
+				vb.write(getEncodedData());
+			}
+			encodeSequence(vb.toByteArray());
+			byte[] vbl = getEncodedData();
+			encodeInteger(req_id);
+			encodeInteger(error);
+			encodeInteger(index);
+			encoder.write(vbl);
+			byte[] pdu = getEncodedData();
+			encodeIdentifier(SNMPTag.GET_RESPONSE);
+			encodeLength(pdu.length);
+			encoder.write(pdu);
+			byte[] msg = getEncodedData();
+			encodeInteger(SNMP.SNMP_VERSION);
+			encodeOctetString(community.getBytes());
+			encoder.write(msg);
+			encodeSequence(getEncodedData());
+			return getEncodedData();
+		}
+	}
+
+	/** Group of temperature objects */
+	static private class TempGroup extends QueryBatch.Group {
+		private final ASN1Integer min_temp;
+		private final ASN1Integer max_temp;
+		private boolean done = false;
+		private boolean missing = false;
+		private TempGroup(MIB1203 mn, MIB1203 mx, boolean opt) {
+			super(opt);
+			min_temp = mn.makeInt();
+			max_temp = mx.makeInt();
+			add(min_temp);
+			add(max_temp);
+		}
+		@Override protected void done() {
+			done = true;
+		}
+		@Override protected void missing() {
+			missing = true;
+		}
+	}
+
+	/** Create an agent with all temperature values */
+	static private Agent createAgent(int mx) {
+		Agent agent = new Agent(mx);
+		agent.put(tempMinCtrlCabinet.makeInt(), 10);
+		agent.put(tempMaxCtrlCabinet.makeInt(), 20);
+		agent.put(tempMinAmbient.makeInt(), -5);
+		agent.put(tempMaxAmbient.makeInt(), 300);
+		agent.put(tempMinSignHousing.makeInt(), 15);
+		agent.put(tempMaxSignHousing.makeInt(), 35);
+		return agent;
+	}
+
+	/** Create groups for all temperature values */
+	static private TempGroup[] createGroups() {
+		return new TempGroup[] {
+			new TempGroup(tempMinCtrlCabinet, tempMaxCtrlCabinet,
+				false),
+			new TempGroup(tempMinAmbient, tempMaxAmbient, false),
+			new TempGroup(tempMinSignHousing, tempMaxSignHousing,
+				true),
+		};
+	}
+
+	/** Query a batch until complete */
+	static private void query(Agent agent, QueryBatch batch)
+		throws IOException
+	{
+		while (!batch.query(agent.createMessage()));
+	}
+
+	/** Query each group in a separate batch */
+	private long queryEach(Agent agent, TempGroup[] groups)
+		throws IOException
+	{
+		long start = System.nanoTime();
+		for (TempGroup g: groups) {
+			QueryBatch batch = new QueryBatch();
+			batch.add(g);
+			query(agent, batch);
+		}
+		return System.nanoTime() - start;
+	}
+
+	/** Query all groups in one batch */
+	private long queryBatch(Agent agent, TempGroup[] groups)
+		throws IOException
+	{
+		long start = System.nanoTime();
+		QueryBatch batch = new QueryBatch();
+		for (TempGroup g: groups)
+			batch.add(g);
+		query(agent, batch);
+		return System.nanoTime() - start;
+	}
+
+	public void testBatch() throws IOException {
+		Agent agent = createAgent(16);
+		TempGroup[] groups = createGroups();
+		long e_each = queryEach(agent, groups);
+		assertTrue(agent.n_requests == 3);
+		agent = createAgent(16);
+		groups = createGroups();
+		long e_batch = queryBatch(agent, groups);
+		assertTrue(agent.n_requests == 1);
+		assertTrue(groups[0].done && groups[1].done && groups[2].done);
+		assertTrue(groups[0].min_temp.getInteger() == 10);
+		assertTrue(groups[1].max_temp.getInteger() == 300);
+		assertTrue(groups[2].max_temp.getInteger() == 35);
+		assertTrue(e_batch * 2 < e_each);
+	}
+
+	public void testTooBig() throws IOException {
+		Agent agent = createAgent(4);
+		TempGroup[] groups = createGroups();
+		queryBatch(agent, groups);
+		assertTrue(agent.n_requests == 4);
+		assertTrue(groups[0].done && groups[1].done && groups[2].done);
+		assertTrue(groups[1].min_temp.getInteger() == -5);
+	}
+
+	public void testNoSuchName() throws IOException {
+		Agent agent = createAgent(16);
+		agent.values.remove(Arrays.toString(
+			tempMaxSignHousing.makeInt().oid()));
+		TempGroup[] groups = createGroups();
+		queryBatch(agent, groups);
+		assertTrue(agent.n_requests == 2);
+		assertTrue(groups[0].done && groups[1].done);
+		assertTrue(groups[2].missing && !groups[2].done);
+		agent = createAgent(16);
+		agent.values.remove(Arrays.toString(
+			tempMinAmbient.makeInt().oid()));
+		try {
+			queryBatch(agent, createGroups());
+			fail("NoSuchName expected");
+		}
+		catch (NoSuchName e) {
+			assertTrue(e.getIndex() == 3);
+		}
+	}
+}